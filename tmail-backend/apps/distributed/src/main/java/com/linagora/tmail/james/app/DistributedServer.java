@@ -95,12 +95,13 @@ import com.linagora.tmail.combined.identity.UsersRepositoryModuleChooser;
 import com.linagora.tmail.contact.RabbitMQEmailAddressContactModule;
 import com.linagora.tmail.encrypted.ClearEmailContentFactory;
 import com.linagora.tmail.encrypted.EncryptedMailboxManager;
-import com.linagora.tmail.encrypted.KeystoreManager;
 import com.linagora.tmail.encrypted.MailboxConfiguration;
+import com.linagora.tmail.encrypted.PGPPublicKeyCache;
 import com.linagora.tmail.encrypted.cassandra.CassandraEncryptedEmailContentStore;
 import com.linagora.tmail.encrypted.cassandra.EncryptedEmailContentStoreCassandraModule;
 import com.linagora.tmail.encrypted.cassandra.KeystoreCassandraModule;
 import com.linagora.tmail.event.DistributedEmailAddressContactEventModule;
+import com.linagora.tmail.event.DistributedTeamMailboxEventModule;
 import com.linagora.tmail.healthcheck.TasksHeathCheckModule;
 import com.linagora.tmail.james.jmap.firebase.CassandraFirebaseSubscriptionRepositoryModule;
 import com.linagora.tmail.james.jmap.firebase.FirebaseCommonModule;
@@ -132,6 +133,7 @@ import com.linagora.tmail.james.jmap.ticket.TicketRoutesModule;
 import com.linagora.tmail.rate.limiter.api.cassandra.module.CassandraRateLimitingModule;
 import com.linagora.tmail.rspamd.RspamdModule;
 import com.linagora.tmail.team.TeamMailboxModule;
+import com.linagora.tmail.team.cassandra.CassandraTeamMailboxModule;
 import com.linagora.tmail.webadmin.EmailAddressContactRoutesModule;
 import com.linagora.tmail.webadmin.RateLimitPlanRoutesModule;
 import com.linagora.tmail.webadmin.TeamMailboxRoutesModule;
@@ -239,8 +241,10 @@ public class DistributedServer {
             new DistributedTaskManagerModule()))
         .with(new CassandraLabelRepositoryModule(),
             new CassandraRateLimitingModule(),
+            new CassandraTeamMailboxModule(),
             new DistributedEmailAddressContactEventModule(),
             new DistributedTaskSerializationModule(),
+            new DistributedTeamMailboxEventModule(),
             new JMAPEventBusModule(),
             new OSContactAutoCompleteModule(),
             new RabbitMQEmailAddressContactModule(),
@@ -295,10 +299,10 @@ public class DistributedServer {
     private static class EncryptedMailboxModule extends AbstractModule {
         @Provides
         @Singleton
-        MailboxManager provide(CassandraMailboxManager mailboxManager, KeystoreManager keystoreManager,
+        MailboxManager provide(CassandraMailboxManager mailboxManager, PGPPublicKeyCache publicKeyCache,
                                ClearEmailContentFactory clearEmailContentFactory,
                                CassandraEncryptedEmailContentStore contentStore) {
-            return new EncryptedMailboxManager(mailboxManager, keystoreManager, clearEmailContentFactory, contentStore);
+            return new EncryptedMailboxManager(mailboxManager, publicKeyCache, clearEmailContentFactory, contentStore);
         }
     }
 
@@ -44,9 +44,9 @@ import com.linagora.tmail.encrypted.ClearEmailContentFactory;
 import com.linagora.tmail.encrypted.EncryptedMailboxManager;
 import com.linagora.tmail.encrypted.InMemoryEncryptedEmailContentStore;
 import com.linagora.tmail.encrypted.InMemoryEncryptedEmailContentStoreModule;
-import com.linagora.tmail.encrypted.KeystoreManager;
 import com.linagora.tmail.encrypted.KeystoreMemoryModule;
 import com.linagora.tmail.encrypted.MailboxConfiguration;
+import com.linagora.tmail.encrypted.PGPPublicKeyCache;
 import com.linagora.tmail.james.jmap.contact.MemoryEmailAddressContactModule;
 import com.linagora.tmail.james.jmap.firebase.FirebaseCommonModule;
 import com.linagora.tmail.james.jmap.firebase.FirebaseModuleChooserConfiguration;
@@ -173,10 +173,10 @@ public class MemoryServer {
     private static class EncryptedMailboxModule extends AbstractModule {
         @Provides
         @Singleton
-        MailboxManager provide(InMemoryMailboxManager mailboxManager, KeystoreManager keystoreManager,
+        MailboxManager provide(InMemoryMailboxManager mailboxManager, PGPPublicKeyCache publicKeyCache,
                                ClearEmailContentFactory clearEmailContentFactory,
                                InMemoryEncryptedEmailContentStore contentStore) {
-            return new EncryptedMailboxManager(mailboxManager, keystoreManager, clearEmailContentFactory, contentStore);
+            return new EncryptedMailboxManager(mailboxManager, publicKeyCache, clearEmailContentFactory, contentStore);
         }
     }
 
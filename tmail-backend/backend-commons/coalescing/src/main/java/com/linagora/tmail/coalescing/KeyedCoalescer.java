@@ -0,0 +1,131 @@
+package com.linagora.tmail.coalescing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Merges the values submitted for the same key, and hands them over to a {@link Flusher} in batches. A batch is flushed
+ * once it holds {@code maxKeys} distinct keys, or {@code maxLatency} after its first submission.
+ *
+ * The {@link Mono} returned by {@link #submit(Map)} completes once the batch carrying its values is flushed. It fails
+ * when the whole flush fails, or when one of its own keys could not be written, so that callers only retry the
+ * submissions carrying failed values.
+ *
+ * As submitters wait for the flush, a batch never holds more submissions than the ones running concurrently: for an
+ * event bus listener, its concurrency. Unless that concurrency exceeds {@code maxKeys}, batches are thus flushed by
+ * {@code maxLatency}, which every submission pays on top of the write itself. Callers able to handle failures on their
+ * own can instead subscribe to the returned {@link Mono} in the background and acknowledge their submissions right away.
+ */
+public class KeyedCoalescer<K, V> {
+    @FunctionalInterface
+    public interface Flusher<K, V> {
+        /**
+         * Returns the failure of each key that could not be written. Other keys, or all of them when the returned
+         * {@link Mono} is empty, are considered written.
+         */
+        Mono<Map<K, Throwable>> flush(Map<K, V> values);
+    }
+
+    private record Waiter<K>(Set<K> keys, Sinks.Empty<Void> sink) {
+        void complete(Map<K, Throwable> failures) {
+            keys.stream()
+                .map(failures::get)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .ifPresentOrElse(sink::tryEmitError, sink::tryEmitEmpty);
+        }
+    }
+
+    private class Batch {
+        private final Map<K, V> values = new LinkedHashMap<>();
+        private final List<Waiter<K>> waiters = new ArrayList<>();
+
+        void add(Map<K, V> submittedValues, Waiter<K> waiter) {
+            submittedValues.forEach((key, value) -> values.merge(key, value, merger));
+            waiters.add(waiter);
+        }
+    }
+
+    private final int maxKeys;
+    private final Duration maxLatency;
+    private final BinaryOperator<V> merger;
+    private final Flusher<K, V> flusher;
+    private Optional<Batch> currentBatch;
+
+    /**
+     * @param merger combines the value already buffered for a key (first argument) with a newly submitted one
+     */
+    public KeyedCoalescer(int maxKeys, Duration maxLatency, BinaryOperator<V> merger, Flusher<K, V> flusher) {
+        Preconditions.checkArgument(maxKeys > 0, "'maxKeys' needs to be strictly positive");
+        Preconditions.checkArgument(!maxLatency.isNegative(), "'maxLatency' needs to be positive");
+
+        this.maxKeys = maxKeys;
+        this.maxLatency = maxLatency;
+        this.merger = merger;
+        this.flusher = flusher;
+        this.currentBatch = Optional.empty();
+    }
+
+    public Mono<Void> submit(K key, V value) {
+        return submit(ImmutableMap.of(key, value));
+    }
+
+    public Mono<Void> submit(Map<K, V> values) {
+        if (values.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            Waiter<K> waiter = new Waiter<>(ImmutableSet.copyOf(values.keySet()), Sinks.empty());
+            enqueue(values, waiter)
+                .ifPresent(this::flush);
+            return waiter.sink().asMono();
+        });
+    }
+
+    private synchronized Optional<Batch> enqueue(Map<K, V> values, Waiter<K> waiter) {
+        Batch batch = currentBatch.orElseGet(() -> {
+            Batch created = new Batch();
+            currentBatch = Optional.of(created);
+            Schedulers.parallel().schedule(() -> detach(created).ifPresent(this::flush),
+                maxLatency.toMillis(), TimeUnit.MILLISECONDS);
+            return created;
+        });
+        batch.add(values, waiter);
+        if (batch.values.size() >= maxKeys) {
+            return detach(batch);
+        }
+        return Optional.empty();
+    }
+
+    private synchronized Optional<Batch> detach(Batch batch) {
+        if (currentBatch.filter(current -> current == batch).isPresent()) {
+            currentBatch = Optional.empty();
+            return Optional.of(batch);
+        }
+        return Optional.empty();
+    }
+
+    private void flush(Batch batch) {
+        Mono.defer(() -> flusher.flush(ImmutableMap.copyOf(batch.values)))
+            .defaultIfEmpty(ImmutableMap.of())
+            .subscribe(
+                failures -> batch.waiters.forEach(waiter -> waiter.complete(failures)),
+                e -> batch.waiters.forEach(waiter -> waiter.sink().tryEmitError(e)));
+    }
+}
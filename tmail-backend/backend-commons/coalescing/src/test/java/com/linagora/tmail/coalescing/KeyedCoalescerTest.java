@@ -0,0 +1,129 @@
+package com.linagora.tmail.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class KeyedCoalescerTest {
+    static final Duration MAX_LATENCY = Duration.ofMillis(50);
+
+    ConcurrentLinkedQueue<Map<String, Integer>> flushes;
+    KeyedCoalescer<String, Integer> testee;
+
+    @BeforeEach
+    void setUp() {
+        flushes = new ConcurrentLinkedQueue<>();
+        testee = new KeyedCoalescer<>(3, MAX_LATENCY, Math::max, this::recordFlush);
+    }
+
+    private Mono<Map<String, Throwable>> recordFlush(Map<String, Integer> values) {
+        return Mono.fromRunnable(() -> flushes.add(values));
+    }
+
+    @Test
+    void constructorShouldThrowWhenMaxKeysIsNotPositive() {
+        assertThatThrownBy(() -> new KeyedCoalescer<String, Integer>(0, MAX_LATENCY, Math::max, this::recordFlush))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructorShouldThrowWhenMaxLatencyIsNegative() {
+        assertThatThrownBy(() -> new KeyedCoalescer<String, Integer>(3, Duration.ofMillis(-1), Math::max, this::recordFlush))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void submitShouldCompleteOnceFlushedAfterMaxLatency() {
+        testee.submit("a", 1).block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(ImmutableMap.of("a", 1));
+    }
+
+    @Test
+    void submitShouldNotFlushEmptyValues() {
+        testee.submit(ImmutableMap.of()).block(Duration.ofSeconds(5));
+
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void concurrentSubmissionsShouldBeFlushedTogether() {
+        Flux.merge(
+                testee.submit("a", 1),
+                testee.submit("b", 1))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(ImmutableMap.of("a", 1, "b", 1));
+    }
+
+    @Test
+    void valuesOfTheSameKeyShouldBeMerged() {
+        Flux.merge(
+                testee.submit("a", 1),
+                testee.submit("a", 3),
+                testee.submit("a", 2))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(ImmutableMap.of("a", 3));
+    }
+
+    @Test
+    void fullBatchShouldBeFlushedWithoutWaiting() {
+        testee = new KeyedCoalescer<>(3, Duration.ofHours(1), Math::max, this::recordFlush);
+
+        testee.submit(ImmutableMap.of("a", 1, "b", 1, "c", 1))
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).hasSize(1);
+    }
+
+    @Test
+    void submissionsFollowingAFullBatchShouldGoToTheNextBatch() {
+        testee = new KeyedCoalescer<>(2, MAX_LATENCY, Math::max, this::recordFlush);
+
+        Flux.merge(
+                testee.submit(ImmutableMap.of("a", 1, "b", 1)),
+                testee.submit("c", 1))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(ImmutableMap.of("a", 1, "b", 1), ImmutableMap.of("c", 1));
+    }
+
+    @Test
+    void submitShouldFailWhenFlushFails() {
+        testee = new KeyedCoalescer<>(3, MAX_LATENCY, Math::max, values -> Mono.error(new RuntimeException("boom")));
+
+        assertThatThrownBy(() -> testee.submit("a", 1).block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+
+    @Test
+    void failingKeyShouldOnlyFailTheSubmissionsCarryingIt() {
+        testee = new KeyedCoalescer<>(3, MAX_LATENCY, Math::max,
+            values -> Mono.just(ImmutableMap.<String, Throwable>of("b", new RuntimeException("boom"))));
+
+        Mono<Void> succeeding = testee.submit("a", 1).cache();
+        Mono<Void> failing = testee.submit(ImmutableMap.of("a", 2, "b", 1)).cache();
+        failing.onErrorResume(e -> Mono.empty()).subscribe();
+
+        assertThatCode(() -> succeeding.block(Duration.ofSeconds(5)))
+            .doesNotThrowAnyException();
+        assertThatThrownBy(() -> failing.block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+}
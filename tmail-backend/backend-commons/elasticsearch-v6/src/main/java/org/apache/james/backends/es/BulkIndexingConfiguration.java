@@ -0,0 +1,61 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record BulkIndexingConfiguration(int maxBulkSize, Duration lingerTime, int maxInFlightBulks) {
+    public static final String ELASTICSEARCH_BULK_ENABLED = "elasticsearch.indexing.bulk.enabled";
+    public static final String ELASTICSEARCH_BULK_SIZE = "elasticsearch.indexing.bulk.size";
+    public static final String ELASTICSEARCH_BULK_LINGER_TIME = "elasticsearch.indexing.bulk.lingerTime";
+    public static final String ELASTICSEARCH_BULK_MAX_IN_FLIGHT = "elasticsearch.indexing.bulk.maxInFlight";
+
+    public static final boolean DEFAULT_BULK_ENABLED = false;
+    public static final int DEFAULT_BULK_SIZE = 100;
+    public static final Duration DEFAULT_LINGER_TIME = Duration.ofMillis(50);
+    public static final int DEFAULT_MAX_IN_FLIGHT_BULKS = 4;
+
+    public static final BulkIndexingConfiguration DEFAULT = new BulkIndexingConfiguration(DEFAULT_BULK_SIZE, DEFAULT_LINGER_TIME, DEFAULT_MAX_IN_FLIGHT_BULKS);
+
+    public static Optional<BulkIndexingConfiguration> fromProperties(Configuration configuration) {
+        if (!configuration.getBoolean(ELASTICSEARCH_BULK_ENABLED, DEFAULT_BULK_ENABLED)) {
+            return Optional.empty();
+        }
+        return Optional.of(new BulkIndexingConfiguration(
+            configuration.getInt(ELASTICSEARCH_BULK_SIZE, DEFAULT_BULK_SIZE),
+            Optional.ofNullable(configuration.getString(ELASTICSEARCH_BULK_LINGER_TIME, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.MILLIS))
+                .orElse(DEFAULT_LINGER_TIME),
+            configuration.getInt(ELASTICSEARCH_BULK_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_BULKS)));
+    }
+
+    public BulkIndexingConfiguration {
+        Preconditions.checkArgument(maxBulkSize > 0, "'%s' needs to be strictly positive", ELASTICSEARCH_BULK_SIZE);
+        Preconditions.checkArgument(!lingerTime.isNegative(), "'%s' needs to be positive", ELASTICSEARCH_BULK_LINGER_TIME);
+        Preconditions.checkArgument(maxInFlightBulks > 0, "'%s' needs to be strictly positive", ELASTICSEARCH_BULK_MAX_IN_FLIGHT);
+    }
+}
@@ -19,72 +19,157 @@
 
 package org.apache.james.backends.es;
 
-import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
-
-import org.apache.james.backends.es.search.ScrolledSearch;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
-import org.elasticsearch.action.delete.DeleteRequest;
-import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.common.unit.TimeValue;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
-import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * Deletes the documents matching a query with the native _delete_by_query API: ids never transit through James.
+ *
+ * The deletion is submitted as a background task sliced automatically across shards, whose status is then polled
+ * and reported as a stream of {@link DeleteByQueryProgress}, the last one being completed.
+ *
+ * Documents updated while being deleted are skipped as version conflicts. The deletion is then submitted again, up to
+ * MAX_ATTEMPTS times, after which it fails so that the caller can retry. A task not completed within its timeout is
+ * cancelled and fails too.
+ */
 public class DeleteByQueryPerformer {
-    private static final TimeValue TIMEOUT = new TimeValue(60000);
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeleteByQueryPerformer.class);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+    private static final Duration TASK_TIMEOUT = Duration.ofHours(1);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String AUTOMATIC_SLICING = "auto";
 
     private final ReactorElasticSearchClient client;
     private final int batchSize;
     private final WriteAliasName aliasName;
+    private final Duration pollInterval;
+    private final Duration taskTimeout;
 
-    @VisibleForTesting
     DeleteByQueryPerformer(ReactorElasticSearchClient client, int batchSize, WriteAliasName aliasName) {
+        this(client, batchSize, aliasName, POLL_INTERVAL, TASK_TIMEOUT);
+    }
+
+    @VisibleForTesting
+    DeleteByQueryPerformer(ReactorElasticSearchClient client, int batchSize, WriteAliasName aliasName, Duration pollInterval, Duration taskTimeout) {
         this.client = client;
         this.batchSize = batchSize;
         this.aliasName = aliasName;
+        this.pollInterval = pollInterval;
+        this.taskTimeout = taskTimeout;
     }
 
     public Mono<Void> perform(QueryBuilder queryBuilder, RoutingKey routingKey) {
-        SearchRequest searchRequest = prepareSearch(queryBuilder, routingKey);
-
-        return new ScrolledSearch(client, searchRequest).searchResponses()
-            .filter(searchResponse -> searchResponse.getHits().getHits().length > 0)
-            .flatMap(searchResponse -> deleteRetrievedIds(searchResponse, routingKey), DEFAULT_CONCURRENCY)
+        return performWithProgress(queryBuilder, routingKey)
             .then();
     }
 
-    private SearchRequest prepareSearch(QueryBuilder queryBuilder, RoutingKey routingKey) {
-        return new SearchRequest(aliasName.getValue())
-            .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-            .scroll(TIMEOUT)
-            .source(searchSourceBuilder(queryBuilder))
-            .routing(routingKey.asString());
+    public Flux<DeleteByQueryProgress> performWithProgress(QueryBuilder queryBuilder, RoutingKey routingKey) {
+        return performWithProgress(queryBuilder, routingKey, 1);
     }
 
-    private SearchSourceBuilder searchSourceBuilder(QueryBuilder queryBuilder) {
-        return new SearchSourceBuilder()
-            .query(queryBuilder)
-            .size(batchSize);
+    private Flux<DeleteByQueryProgress> performWithProgress(QueryBuilder queryBuilder, RoutingKey routingKey, int attempt) {
+        return client.performRequest(deleteByQueryRequest(queryBuilder, routingKey))
+            .flatMap(DeleteByQueryPerformer::parse)
+            .map(body -> (String) body.get("task"))
+            .flatMapMany(taskId -> pollTask(taskId)
+                .concatWith(Mono.defer(() -> deleteTaskResult(taskId))))
+            .concatMap(progress -> {
+                if (!progress.completed() || progress.versionConflicts() == 0) {
+                    return Flux.just(progress);
+                }
+                if (attempt < MAX_ATTEMPTS) {
+                    LOGGER.info("Delete by query on {} skipped {} documents updated concurrently, submitting it again", aliasName.getValue(), progress.versionConflicts());
+                    return performWithProgress(queryBuilder, routingKey, attempt + 1);
+                }
+                return Flux.error(new DeleteByQueryException("Delete by query on " + aliasName.getValue() + " still had "
+                    + progress.versionConflicts() + " version conflicts after " + attempt + " attempts"));
+            });
     }
 
-    private Mono<BulkResponse> deleteRetrievedIds(SearchResponse searchResponse, RoutingKey routingKey) {
-        BulkRequest request = new BulkRequest();
+    private Request deleteByQueryRequest(QueryBuilder queryBuilder, RoutingKey routingKey) {
+        Request request = new Request("POST", "/" + aliasName.getValue() + "/" + NodeMappingFactory.DEFAULT_MAPPING_NAME + "/_delete_by_query");
+        request.addParameter("routing", routingKey.asString());
+        request.addParameter("slices", AUTOMATIC_SLICING);
+        request.addParameter("scroll_size", String.valueOf(batchSize));
+        request.addParameter("conflicts", "proceed");
+        request.addParameter("wait_for_completion", "false");
+        request.setJsonEntity(new SearchSourceBuilder().query(queryBuilder).toString());
+        return request;
+    }
+
+    private Flux<DeleteByQueryProgress> pollTask(String taskId) {
+        // Shared by every element so that the timeout applies to the whole polling, not between two polls
+        Mono<Long> deadline = Mono.delay(taskTimeout).cache();
 
-        for (SearchHit hit : searchResponse.getHits()) {
-            request.add(
-                new DeleteRequest(aliasName.getValue())
-                    .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-                    .id(hit.getId())
-                    .routing(routingKey.asString()));
+        return Mono.defer(() -> client.performRequest(new Request("GET", "/_tasks/" + taskId)))
+            .flatMap(DeleteByQueryPerformer::parse)
+            .flatMap(this::asProgress)
+            .repeatWhen(repeats -> repeats.delayElements(pollInterval))
+            .takeUntil(DeleteByQueryProgress::completed)
+            .timeout(deadline, any -> deadline)
+            .onErrorResume(TimeoutException.class, e -> cancelTask(taskId)
+                .then(Mono.error(new DeleteByQueryException("Delete by query on " + aliasName.getValue() + " did not complete within " + taskTimeout))));
+    }
+
+    private Mono<Void> cancelTask(String taskId) {
+        return client.performRequest(new Request("POST", "/_tasks/" + taskId + "/_cancel"))
+            .onErrorResume(e -> {
+                LOGGER.warn("Could not cancel delete by query task {}", taskId, e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<DeleteByQueryProgress> asProgress(Map<String, Object> taskStatus) {
+        boolean completed = Boolean.TRUE.equals(taskStatus.get("completed"));
+        if (!completed) {
+            Map<String, Object> task = (Map<String, Object>) taskStatus.get("task");
+            return Mono.just(DeleteByQueryProgress.fromStatus((Map<String, Object>) task.get("status"), false));
+        }
+        if (taskStatus.containsKey("error")) {
+            return Mono.error(new DeleteByQueryException("Delete by query on " + aliasName.getValue() + " failed: " + taskStatus.get("error")));
         }
+        Map<String, Object> response = (Map<String, Object>) taskStatus.get("response");
+        List<Object> failures = (List<Object>) response.getOrDefault("failures", List.of());
+        if (!failures.isEmpty()) {
+            return Mono.error(new DeleteByQueryException("Delete by query on " + aliasName.getValue() + " failed: " + failures));
+        }
+        return Mono.just(DeleteByQueryProgress.fromStatus(response, true));
+    }
 
-        return client.bulk(request, RequestOptions.DEFAULT);
+    private Mono<DeleteByQueryProgress> deleteTaskResult(String taskId) {
+        return client.performRequest(new Request("DELETE", "/.tasks/task/" + taskId))
+            .onErrorResume(e -> {
+                LOGGER.warn("Could not delete the result of delete by query task {}", taskId, e);
+                return Mono.empty();
+            })
+            .then(Mono.empty());
+    }
+
+    private static Mono<Map<String, Object>> parse(Response response) {
+        return Mono.fromCallable(() -> XContentHelper.convertToMap(XContentType.JSON.xContent(), response.getEntity().getContent(), false));
+    }
+
+    public static class DeleteByQueryException extends RuntimeException {
+        DeleteByQueryException(String message) {
+            super(message);
+        }
     }
 }
@@ -0,0 +1,57 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Status of a server side delete by query task, summed over all of its slices.
+ */
+public record DeleteByQueryProgress(long total, long deleted, long batches, long versionConflicts, boolean completed) {
+    static DeleteByQueryProgress fromStatus(Map<String, Object> status, boolean completed) {
+        return new DeleteByQueryProgress(
+            longValue(status, "total"),
+            longValue(status, "deleted"),
+            longValue(status, "batches"),
+            longValue(status, "version_conflicts"),
+            completed);
+    }
+
+    private static long longValue(Map<String, Object> status, String field) {
+        return Optional.ofNullable(status.get(field))
+            .map(Number.class::cast)
+            .map(Number::longValue)
+            .orElse(0L);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("total", total)
+            .add("deleted", deleted)
+            .add("batches", batches)
+            .add("versionConflicts", versionConflicts)
+            .add("completed", completed)
+            .toString();
+    }
+}
@@ -0,0 +1,171 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Coalesces individual index, update and delete requests into {@link BulkRequest}s.
+ *
+ * A bulk is sent once it reaches {@link BulkIndexingConfiguration#maxBulkSize()} operations, or
+ * {@link BulkIndexingConfiguration#lingerTime()} after its first operation was submitted. At most
+ * {@link BulkIndexingConfiguration#maxInFlightBulks()} bulks are executed concurrently.
+ *
+ * The {@link Mono} returned upon submission only completes once the bulk carrying the operation was executed,
+ * which applies backpressure to the callers (eg. event bus listeners). Per item failures are reported in the
+ * corresponding {@link BulkItemResponse}, while a failure of the overall bulk fails all of its operations.
+ *
+ * {@link #close()} sends the pending operations and waits for the in flight bulks before releasing the processor.
+ */
+public class ElasticSearchBulkProcessor {
+    private record PendingOperation(DocWriteRequest<?> request, Sinks.One<BulkItemResponse> result) {
+
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchBulkProcessor.class);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ReactorElasticSearchClient client;
+    private final BulkIndexingConfiguration configuration;
+    private final Scheduler lingerScheduler;
+    private final Sinks.Many<List<PendingOperation>> bulks;
+    private final Sinks.Empty<Void> terminated;
+    private final Disposable bulkExecution;
+    private List<PendingOperation> pendingOperations;
+    private Optional<Disposable> scheduledFlush;
+    private boolean closed;
+
+    public ElasticSearchBulkProcessor(ReactorElasticSearchClient client, BulkIndexingConfiguration configuration) {
+        this.client = client;
+        this.configuration = configuration;
+        this.lingerScheduler = Schedulers.parallel();
+        this.bulks = Sinks.many().unicast().onBackpressureBuffer();
+        this.pendingOperations = new ArrayList<>();
+        this.scheduledFlush = Optional.empty();
+        this.closed = false;
+        this.terminated = Sinks.empty();
+
+        this.bulkExecution = bulks.asFlux()
+            .flatMap(this::execute, configuration.maxInFlightBulks())
+            .doFinally(signal -> terminated.tryEmitEmpty())
+            .subscribe();
+    }
+
+    public Mono<BulkItemResponse> submit(DocWriteRequest<?> request) {
+        return Mono.defer(() -> {
+            Sinks.One<BulkItemResponse> result = Sinks.one();
+            enqueue(new PendingOperation(request, result));
+            return result.asMono();
+        });
+    }
+
+    private synchronized void enqueue(PendingOperation operation) {
+        if (closed) {
+            operation.result().tryEmitError(new IllegalStateException("Bulk processor is closed"));
+            return;
+        }
+        pendingOperations.add(operation);
+
+        if (pendingOperations.size() >= configuration.maxBulkSize()) {
+            flush();
+        } else if (pendingOperations.size() == 1) {
+            scheduledFlush = Optional.of(lingerScheduler.schedule(this::flushAfterLinger,
+                configuration.lingerTime().toMillis(), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private synchronized void flushAfterLinger() {
+        if (!pendingOperations.isEmpty()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        scheduledFlush.ifPresent(Disposable::dispose);
+        scheduledFlush = Optional.empty();
+
+        List<PendingOperation> bulk = pendingOperations;
+        pendingOperations = new ArrayList<>();
+        bulks.emitNext(bulk, Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!pendingOperations.isEmpty()) {
+                flush();
+            }
+            bulks.tryEmitComplete();
+        }
+
+        try {
+            terminated.asMono().block(CLOSE_TIMEOUT);
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Bulks still in flight after {}, giving up waiting for them", CLOSE_TIMEOUT);
+        } finally {
+            bulkExecution.dispose();
+        }
+    }
+
+    private Mono<Void> execute(List<PendingOperation> operations) {
+        BulkRequest request = new BulkRequest();
+        operations.forEach(operation -> request.add(operation.request()));
+
+        return client.bulk(request, RequestOptions.DEFAULT)
+            .doOnNext(response -> dispatch(operations, response))
+            .onErrorResume(e -> {
+                LOGGER.warn("Bulk of {} operations failed", operations.size(), e);
+                operations.forEach(operation -> operation.result().tryEmitError(e));
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private void dispatch(List<PendingOperation> operations, BulkResponse response) {
+        BulkItemResponse[] items = response.getItems();
+        for (int i = 0; i < operations.size(); i++) {
+            operations.get(i).result().tryEmitValue(items[i]);
+        }
+    }
+}
@@ -18,9 +18,15 @@
  ****************************************************************/
 package org.apache.james.backends.es;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -39,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class ElasticSearchIndexer {
@@ -50,30 +57,82 @@ public class ElasticSearchIndexer {
     private final ReactorElasticSearchClient client;
     private final AliasName aliasName;
     private final DeleteByQueryPerformer deleteByQueryPerformer;
+    private final Optional<ElasticSearchBulkProcessor> bulkProcessor;
 
     public ElasticSearchIndexer(ReactorElasticSearchClient client,
                                 WriteAliasName aliasName) {
         this(client, aliasName, DEFAULT_BATCH_SIZE);
     }
 
+    public ElasticSearchIndexer(ReactorElasticSearchClient client,
+                                WriteAliasName aliasName,
+                                Optional<BulkIndexingConfiguration> bulkIndexingConfiguration) {
+        this(client, aliasName, DEFAULT_BATCH_SIZE, bulkIndexingConfiguration);
+    }
+
     @VisibleForTesting
     public ElasticSearchIndexer(ReactorElasticSearchClient client,
                                 WriteAliasName aliasName,
                                 int batchSize) {
+        this(client, aliasName, batchSize, Optional.empty());
+    }
+
+    @VisibleForTesting
+    public ElasticSearchIndexer(ReactorElasticSearchClient client,
+                                WriteAliasName aliasName,
+                                int batchSize,
+                                Optional<BulkIndexingConfiguration> bulkIndexingConfiguration) {
         this.client = client;
         this.deleteByQueryPerformer = new DeleteByQueryPerformer(client, batchSize, aliasName);
         this.aliasName = aliasName;
+        this.bulkProcessor = bulkIndexingConfiguration.map(configuration -> new ElasticSearchBulkProcessor(client, configuration));
     }
 
     public Mono<IndexResponse> index(DocumentId id, String content, RoutingKey routingKey) {
         checkArgument(content);
         logContent(id, content);
-        return client.index(new IndexRequest(aliasName.getValue())
+        return index(new IndexRequest(aliasName.getValue())
+            .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+            .id(id.asString())
+            .source(content, XContentType.JSON)
+            .routing(routingKey.asString()));
+    }
+
+    public Mono<IndexResponse> index(DocumentId id, byte[] content, RoutingKey routingKey) {
+        Preconditions.checkArgument(content != null, "content should be provided");
+        logContent(id, content);
+        return index(new IndexRequest(aliasName.getValue())
+            .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+            .id(id.asString())
+            .source(content, XContentType.JSON)
+            .routing(routingKey.asString()));
+    }
+
+    public Mono<BulkResponse> index(List<IndexedRepresentation> documents) {
+        BulkRequest request = new BulkRequest();
+        documents.forEach(document -> {
+            logContent(document.id(), document.content());
+            request.add(new IndexRequest(aliasName.getValue())
                 .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-                .id(id.asString())
-                .source(content, XContentType.JSON)
-                .routing(routingKey.asString()),
-            RequestOptions.DEFAULT);
+                .id(document.id().asString())
+                .source(document.content(), XContentType.JSON)
+                .routing(document.routingKey().asString()));
+        });
+
+        return executeBulk(request);
+    }
+
+    private Mono<IndexResponse> index(IndexRequest request) {
+        return bulkProcessor.map(processor -> processor.submit(request)
+                .flatMap(this::asIndexResponse))
+            .orElseGet(() -> client.index(request, RequestOptions.DEFAULT));
+    }
+
+    private Mono<IndexResponse> asIndexResponse(BulkItemResponse item) {
+        if (item.isFailed()) {
+            return Mono.error(item.getFailure().getCause());
+        }
+        return Mono.just(item.<IndexResponse>getResponse());
     }
 
     private void logContent(DocumentId id, String content) {
@@ -82,6 +141,13 @@ public class ElasticSearchIndexer {
         }
     }
 
+    private void logContent(DocumentId id, byte[] content) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Indexing {}: {}", id.asString(),
+                new String(content, 0, Math.min(content.length, DEBUG_MAX_LENGTH_CONTENT), StandardCharsets.UTF_8));
+        }
+    }
+
     public Mono<BulkResponse> update(List<UpdatedRepresentation> updatedDocumentParts, RoutingKey routingKey) {
         Preconditions.checkNotNull(updatedDocumentParts);
         Preconditions.checkNotNull(routingKey);
@@ -93,7 +159,7 @@ public class ElasticSearchIndexer {
                 .doc(updatedDocumentPart.updatedDocumentPart(), XContentType.JSON)
                 .routing(routingKey.asString())));
 
-        return client.bulk(request, RequestOptions.DEFAULT)
+        return executeBulk(request)
             .onErrorResume(ValidationException.class, exception -> {
                 LOGGER.warn("Error while updating index", exception);
                 return Mono.empty();
@@ -108,17 +174,38 @@ public class ElasticSearchIndexer {
                 .id(id.asString())
                 .routing(routingKey.asString())));
 
-        return client.bulk(request, RequestOptions.DEFAULT)
+        return executeBulk(request)
             .onErrorResume(ValidationException.class, exception -> {
                 LOGGER.warn("Error while deleting index", exception);
                 return Mono.empty();
             });
     }
 
+    private Mono<BulkResponse> executeBulk(BulkRequest request) {
+        return bulkProcessor.map(processor -> coalesce(processor, request.requests()))
+            .orElseGet(() -> client.bulk(request, RequestOptions.DEFAULT));
+    }
+
+    private Mono<BulkResponse> coalesce(ElasticSearchBulkProcessor processor, List<DocWriteRequest<?>> requests) {
+        return Flux.fromIterable(requests)
+            .flatMapSequential(processor::submit)
+            .collectList()
+            .map(items -> new BulkResponse(items.toArray(BulkItemResponse[]::new), 0));
+    }
+
     public Mono<Void> deleteAllMatchingQuery(QueryBuilder queryBuilder, RoutingKey routingKey) {
         return deleteByQueryPerformer.perform(queryBuilder, routingKey);
     }
 
+    public Flux<DeleteByQueryProgress> deleteAllMatchingQueryWithProgress(QueryBuilder queryBuilder, RoutingKey routingKey) {
+        return deleteByQueryPerformer.performWithProgress(queryBuilder, routingKey);
+    }
+
+    @PreDestroy
+    public void close() {
+        bulkProcessor.ifPresent(ElasticSearchBulkProcessor::close);
+    }
+
     private void checkArgument(String content) {
         Preconditions.checkArgument(content != null, "content should be provided");
     }
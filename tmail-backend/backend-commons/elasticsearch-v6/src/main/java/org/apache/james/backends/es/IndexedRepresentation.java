@@ -0,0 +1,54 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import java.util.Objects;
+
+import org.elasticsearch.common.Strings;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+public record IndexedRepresentation(DocumentId id, String content, RoutingKey routingKey) {
+    public IndexedRepresentation {
+        Preconditions.checkNotNull(id);
+        Preconditions.checkNotNull(routingKey);
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(content), "content should be provided");
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof IndexedRepresentation other) {
+            return Objects.equals(id, other.id)
+                && Objects.equals(content, other.content)
+                && Objects.equals(routingKey, other.routingKey);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("id", id)
+            .add("content", content)
+            .add("routingKey", routingKey)
+            .toString();
+    }
+}
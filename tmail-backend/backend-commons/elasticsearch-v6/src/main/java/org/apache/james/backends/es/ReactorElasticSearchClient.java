@@ -50,7 +50,10 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.client.IndicesClient;
+import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.index.rankeval.RankEvalRequest;
@@ -123,6 +126,21 @@ public class ReactorElasticSearchClient implements AutoCloseable {
         return toReactor(listener -> client.msearchTemplateAsync(multiSearchTemplateRequest, options, listener));
     }
 
+    public Mono<Response> performRequest(Request request) {
+        return Mono.<Response>create(sink -> client.getLowLevelClient().performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    sink.success(response);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    sink.error(exception);
+                }
+            }))
+            .publishOn(Schedulers.boundedElastic());
+    }
+
     public Mono<RankEvalResponse> rankEval(RankEvalRequest rankEvalRequest, RequestOptions options) {
         return toReactor(listener -> client.rankEvalAsync(rankEvalRequest, options, listener));
     }
@@ -0,0 +1,96 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es.search;
+
+import java.util.Optional;
+
+import org.apache.james.backends.es.ReactorElasticSearchClient;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import com.google.common.base.Preconditions;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stateless alternative to {@link ScrolledSearch}: each page is a plain search resuming after the sort values
+ * of the last hit of the previous page, hence no search context is kept on the cluster.
+ *
+ * The request sort needs to end with a tie-breaker that is unique per document. Pages are only fetched as they are
+ * consumed, so that traversing a large result set keeps a bounded amount of hits in memory.
+ */
+public class SearchAfterSearch {
+    // Fetch at most one page ahead, so that a truncated traversal does not load the following pages
+    private static final int PAGE_PREFETCH = 1;
+
+    private final ReactorElasticSearchClient client;
+    private final SearchRequest searchRequest;
+
+    public SearchAfterSearch(ReactorElasticSearchClient client, SearchRequest searchRequest) {
+        Preconditions.checkArgument(searchRequest.source() != null, "'searchRequest' should have a source");
+        Preconditions.checkArgument(searchRequest.source().sorts() != null && !searchRequest.source().sorts().isEmpty(),
+            "'searchRequest' should be sorted");
+        Preconditions.checkArgument(searchRequest.scroll() == null, "'searchRequest' should not open a scroll context");
+
+        this.client = client;
+        this.searchRequest = searchRequest;
+    }
+
+    public Flux<SearchHit> searchHits() {
+        return searchResponses()
+            .concatMap(searchResponse -> Flux.just(searchResponse.getHits().getHits()), PAGE_PREFETCH);
+    }
+
+    public Flux<SearchResponse> searchResponses() {
+        return search(Optional.empty())
+            .expand(previousResponse -> nextSearchAfter(previousResponse)
+                .map(sortValues -> search(Optional.of(sortValues)))
+                .orElseGet(Mono::empty));
+    }
+
+    private Mono<SearchResponse> search(Optional<Object[]> searchAfter) {
+        return Mono.fromCallable(() -> pageRequest(searchAfter))
+            .flatMap(request -> client.search(request, RequestOptions.DEFAULT));
+    }
+
+    private SearchRequest pageRequest(Optional<Object[]> searchAfter) {
+        // Each page works on its own copy so that the same search can be traversed concurrently or again
+        SearchSourceBuilder pageSource = searchRequest.source().copyWithNewSlice(searchRequest.source().slice());
+        searchAfter.ifPresent(pageSource::searchAfter);
+
+        return new SearchRequest(searchRequest.indices(), pageSource)
+            .types(searchRequest.types())
+            .routing(searchRequest.routing())
+            .preference(searchRequest.preference())
+            .indicesOptions(searchRequest.indicesOptions());
+    }
+
+    private Optional<Object[]> nextSearchAfter(SearchResponse searchResponse) {
+        SearchHit[] hits = searchResponse.getHits().getHits();
+        if (hits.length == 0 || hits.length < searchRequest.source().size()) {
+            return Optional.empty();
+        }
+        return Optional.of(hits[hits.length - 1].getSortValues());
+    }
+}
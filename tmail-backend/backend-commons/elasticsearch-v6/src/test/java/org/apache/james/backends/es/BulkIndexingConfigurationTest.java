@@ -0,0 +1,98 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+class BulkIndexingConfigurationTest {
+    @Test
+    void fromPropertiesShouldReturnEmptyByDefault() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+
+        assertThat(BulkIndexingConfiguration.fromProperties(configuration))
+            .isEmpty();
+    }
+
+    @Test
+    void fromPropertiesShouldReturnEmptyWhenDisabled() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.bulk.enabled", false);
+        configuration.addProperty("elasticsearch.indexing.bulk.size", 12);
+
+        assertThat(BulkIndexingConfiguration.fromProperties(configuration))
+            .isEmpty();
+    }
+
+    @Test
+    void fromPropertiesShouldReturnDefaultValuesWhenOnlyEnabled() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.bulk.enabled", true);
+
+        assertThat(BulkIndexingConfiguration.fromProperties(configuration))
+            .contains(BulkIndexingConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromPropertiesShouldReadSuppliedValues() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.bulk.enabled", true);
+        configuration.addProperty("elasticsearch.indexing.bulk.size", 12);
+        configuration.addProperty("elasticsearch.indexing.bulk.lingerTime", "1s");
+        configuration.addProperty("elasticsearch.indexing.bulk.maxInFlight", 3);
+
+        assertThat(BulkIndexingConfiguration.fromProperties(configuration))
+            .contains(new BulkIndexingConfiguration(12, Duration.ofSeconds(1), 3));
+    }
+
+    @Test
+    void lingerTimeShouldDefaultToMilliseconds() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("elasticsearch.indexing.bulk.enabled", true);
+        configuration.addProperty("elasticsearch.indexing.bulk.lingerTime", "20");
+
+        assertThat(BulkIndexingConfiguration.fromProperties(configuration))
+            .map(BulkIndexingConfiguration::lingerTime)
+            .contains(Duration.ofMillis(20));
+    }
+
+    @Test
+    void constructorShouldThrowWhenBulkSizeIsNotStrictlyPositive() {
+        assertThatThrownBy(() -> new BulkIndexingConfiguration(0, Duration.ofMillis(20), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructorShouldThrowWhenLingerTimeIsNegative() {
+        assertThatThrownBy(() -> new BulkIndexingConfiguration(12, Duration.ofMillis(-20), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructorShouldThrowWhenMaxInFlightIsNotStrictlyPositive() {
+        assertThatThrownBy(() -> new BulkIndexingConfiguration(12, Duration.ofMillis(20), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,168 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.collect.ImmutableList;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ElasticSearchIndexerBulkTest {
+    private static final IndexName INDEX_NAME = new IndexName("index_name");
+    private static final WriteAliasName ALIAS_NAME = new WriteAliasName("alias_name");
+    private static final RoutingKey ROUTING = RoutingKey.fromString("routing");
+    private static final BulkIndexingConfiguration BULK_CONFIGURATION = new BulkIndexingConfiguration(5, Duration.ofMillis(50), 2);
+
+    @RegisterExtension
+    public DockerElasticSearchExtension elasticSearch = new DockerElasticSearchExtension();
+    private ElasticSearchIndexer testee;
+    private ReactorElasticSearchClient client;
+
+    @BeforeEach
+    void setup() {
+        client = elasticSearch.getDockerElasticSearch().clientProvider().get();
+        new IndexCreationFactory(ElasticSearchConfiguration.DEFAULT_CONFIGURATION)
+            .useIndex(INDEX_NAME)
+            .addAlias(ALIAS_NAME)
+            .createIndexAndAliases(client);
+        testee = new ElasticSearchIndexer(client, ALIAS_NAME, Optional.of(BULK_CONFIGURATION));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    void indexShouldWorkWhenBulkIsNotFull() {
+        testee.index(DocumentId.fromString("1"), "{\"message\": \"trying out Elasticsearch\"}", ROUTING).block();
+        elasticSearch.awaitForElasticSearch();
+
+        assertThat(countMatching("message", "trying")).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentIndexShouldIndexAllDocuments() {
+        Flux.range(0, 23)
+            .flatMap(i -> testee.index(DocumentId.fromString(String.valueOf(i)), "{\"message\": \"trying out Elasticsearch\"}", ROUTING))
+            .then()
+            .block();
+        elasticSearch.awaitForElasticSearch();
+
+        assertThat(countMatching("message", "trying")).isEqualTo(23);
+    }
+
+    @Test
+    void indexShouldFailOnlyTheFailingItem() {
+        testee.index(DocumentId.fromString("1"), "{\"number\": 1}", ROUTING).block();
+        elasticSearch.awaitForElasticSearch();
+
+        Flux.merge(
+                testee.index(DocumentId.fromString("2"), "{\"number\": 2}", ROUTING),
+                testee.index(DocumentId.fromString("3"), "{\"number\": \"not a number\"}", ROUTING)
+                    .onErrorResume(e -> Mono.empty()))
+            .then()
+            .block();
+
+        assertThatThrownBy(() -> testee.index(DocumentId.fromString("4"), "{\"number\": \"not a number\"}", ROUTING).block())
+            .isInstanceOf(Exception.class);
+
+        elasticSearch.awaitForElasticSearch();
+        assertThat(countMatching("number", 2)).isEqualTo(1);
+    }
+
+    @Test
+    void closeShouldIndexPendingOperations() {
+        testee = new ElasticSearchIndexer(client, ALIAS_NAME, Optional.of(new BulkIndexingConfiguration(5, Duration.ofHours(1), 2)));
+        Mono<?> pendingIndex = testee.index(DocumentId.fromString("1"), "{\"message\": \"trying out Elasticsearch\"}", ROUTING).cache();
+        pendingIndex.subscribe();
+
+        testee.close();
+        pendingIndex.block(Duration.ofSeconds(5));
+        elasticSearch.awaitForElasticSearch();
+
+        assertThat(countMatching("message", "trying")).isEqualTo(1);
+    }
+
+    @Test
+    void indexShouldFailWhenClosed() {
+        testee.close();
+
+        assertThatThrownBy(() -> testee.index(DocumentId.fromString("1"), "{\"message\": \"trying out Elasticsearch\"}", ROUTING).block())
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void updateAndDeleteShouldBeApplied() {
+        IntStream.range(0, 3)
+            .forEach(i -> testee.index(DocumentId.fromString(String.valueOf(i)), "{\"message\": \"trying out Elasticsearch\"}", ROUTING).block());
+        elasticSearch.awaitForElasticSearch();
+
+        testee.update(ImmutableList.of(
+                new UpdatedRepresentation(DocumentId.fromString("0"), "{\"message\": \"mastering out Elasticsearch\"}"),
+                new UpdatedRepresentation(DocumentId.fromString("1"), "{\"message\": \"mastering out Elasticsearch\"}")),
+            ROUTING).block();
+        testee.delete(ImmutableList.of(DocumentId.fromString("2")), ROUTING).block();
+        elasticSearch.awaitForElasticSearch();
+
+        assertThat(countMatching("message", "mastering")).isEqualTo(2);
+        assertThat(countMatching("message", "trying")).isZero();
+    }
+
+    @Test
+    void updateShouldReturnOneItemPerOperation() {
+        IntStream.range(0, 2)
+            .forEach(i -> testee.index(DocumentId.fromString(String.valueOf(i)), "{\"message\": \"trying out Elasticsearch\"}", ROUTING).block());
+        elasticSearch.awaitForElasticSearch();
+
+        assertThat(testee.update(ImmutableList.of(
+                new UpdatedRepresentation(DocumentId.fromString("0"), "{\"message\": \"mastering out Elasticsearch\"}"),
+                new UpdatedRepresentation(DocumentId.fromString("1"), "{\"message\": \"mastering out Elasticsearch\"}")),
+            ROUTING).block().getItems())
+            .hasSize(2);
+    }
+
+    private long countMatching(String field, Object value) {
+        SearchResponse searchResponse = client.search(
+                new SearchRequest(INDEX_NAME.value())
+                    .source(new SearchSourceBuilder().query(QueryBuilders.matchQuery(field, value))),
+                RequestOptions.DEFAULT)
+            .block();
+        return searchResponse.getHits().getTotalHits();
+    }
+}
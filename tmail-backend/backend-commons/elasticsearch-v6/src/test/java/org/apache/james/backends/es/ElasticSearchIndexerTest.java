@@ -205,6 +205,31 @@ class ElasticSearchIndexerTest {
                 .getHits().getTotalHits() == 1);
     }
     
+    @Test
+    void deleteByQueryWithProgressShouldEndWithCompletedProgress() {
+        testee.index(DocumentId.fromString("1:1"), "{\"message\": \"trying out Elasticsearch\", \"property\":\"1\"}", ROUTING).block();
+        testee.index(DocumentId.fromString("1:2"), "{\"message\": \"trying out Elasticsearch 2\", \"property\":\"1\"}", ROUTING).block();
+        testee.index(DocumentId.fromString("2:3"), "{\"message\": \"trying out Elasticsearch 3\", \"property\":\"2\"}", ROUTING).block();
+        elasticSearch.awaitForElasticSearch();
+
+        DeleteByQueryProgress lastProgress = testee.deleteAllMatchingQueryWithProgress(termQuery("property", "1"), ROUTING)
+            .blockLast();
+
+        assertThat(lastProgress.completed()).isTrue();
+        assertThat(lastProgress.deleted()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteByQueryShouldFailWhenTaskDoesNotCompleteInTime() {
+        testee.index(DocumentId.fromString("1:1"), "{\"message\": \"trying out Elasticsearch\", \"property\":\"1\"}", ROUTING).block();
+        elasticSearch.awaitForElasticSearch();
+
+        DeleteByQueryPerformer performer = new DeleteByQueryPerformer(client, MINIMUM_BATCH_SIZE, ALIAS_NAME, Duration.ofMillis(500), Duration.ZERO);
+
+        assertThatThrownBy(() -> performer.perform(termQuery("property", "1"), ROUTING).block())
+            .isInstanceOf(DeleteByQueryPerformer.DeleteByQueryException.class);
+    }
+
     @Test
     void deleteMessage() {
         DocumentId documentId = DocumentId.fromString("1:2");
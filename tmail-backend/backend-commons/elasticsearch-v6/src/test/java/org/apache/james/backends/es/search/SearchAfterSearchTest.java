@@ -0,0 +1,199 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.es.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.FIVE_SECONDS;
+
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import org.apache.james.backends.es.DockerElasticSearchExtension;
+import org.apache.james.backends.es.ElasticSearchConfiguration;
+import org.apache.james.backends.es.IndexCreationFactory;
+import org.apache.james.backends.es.IndexName;
+import org.apache.james.backends.es.NodeMappingFactory;
+import org.apache.james.backends.es.ReactorElasticSearchClient;
+import org.apache.james.backends.es.ReadAliasName;
+import org.awaitility.core.ConditionFactory;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class SearchAfterSearchTest {
+    private static final int SIZE = 2;
+    private static final String NUMBER = "number";
+    private static final IndexName INDEX_NAME = new IndexName("index");
+    private static final ReadAliasName ALIAS_NAME = new ReadAliasName("alias");
+
+    private static final ConditionFactory WAIT_CONDITION = await().timeout(FIVE_SECONDS);
+
+    @RegisterExtension
+    public DockerElasticSearchExtension elasticSearch = new DockerElasticSearchExtension();
+    private ReactorElasticSearchClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = elasticSearch.getDockerElasticSearch().clientProvider().get();
+        new IndexCreationFactory(ElasticSearchConfiguration.DEFAULT_CONFIGURATION)
+            .useIndex(INDEX_NAME)
+            .addAlias(ALIAS_NAME)
+            .createIndexAndAliases(client);
+        elasticSearch.awaitForElasticSearch();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Test
+    void constructorShouldThrowWhenRequestIsNotSorted() {
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .size(SIZE));
+
+        assertThatThrownBy(() -> new SearchAfterSearch(client, searchRequest))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructorShouldThrowWhenRequestIsScrolled() {
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .scroll(TimeValue.timeValueMinutes(1))
+            .source(sortedSource());
+
+        assertThatThrownBy(() -> new SearchAfterSearch(client, searchRequest))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchHitsShouldWorkWhenEmpty() {
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource());
+
+        assertThat(new SearchAfterSearch(client, searchRequest).searchHits().collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    void searchHitsShouldWorkWhenOneElement() {
+        indexDocuments(1);
+
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource());
+
+        assertThat(new SearchAfterSearch(client, searchRequest).searchHits().collectList().block())
+            .extracting(SearchHit::getId)
+            .containsExactly("1");
+    }
+
+    @Test
+    void searchHitsShouldWorkWhenSizeElement() {
+        indexDocuments(2);
+
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource());
+
+        assertThat(new SearchAfterSearch(client, searchRequest).searchHits().collectList().block())
+            .extracting(SearchHit::getId)
+            .containsExactly("1", "2");
+    }
+
+    @Test
+    void searchHitsShouldReturnAllElementsInOrderWhenMoreThanSizeElement() {
+        indexDocuments(5);
+
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource());
+
+        assertThat(new SearchAfterSearch(client, searchRequest).searchHits().collectList().block())
+            .extracting(SearchHit::getId)
+            .containsExactly("1", "2", "3", "4", "5");
+    }
+
+    @Test
+    void searchResponsesShouldOnlyFetchRequestedPages() {
+        indexDocuments(5);
+
+        SearchRequest searchRequest = new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource());
+
+        assertThat(new SearchAfterSearch(client, searchRequest).searchResponses()
+                .take(1)
+                .map(SearchResponse::getHits)
+                .flatMapIterable(hits -> hits)
+                .collectList()
+                .block())
+            .extracting(SearchHit::getId)
+            .containsExactly("1", "2");
+    }
+
+    @Test
+    void searchHitsShouldBeRepeatable() {
+        indexDocuments(5);
+
+        SearchAfterSearch searchAfterSearch = new SearchAfterSearch(client, new SearchRequest(INDEX_NAME.value())
+            .source(sortedSource()));
+        searchAfterSearch.searchHits().collectList().block();
+
+        assertThat(searchAfterSearch.searchHits().collectList().block())
+            .extracting(SearchHit::getId)
+            .containsExactly("1", "2", "3", "4", "5");
+    }
+
+    private SearchSourceBuilder sortedSource() {
+        return new SearchSourceBuilder()
+            .query(QueryBuilders.matchAllQuery())
+            .sort(NUMBER, SortOrder.ASC)
+            .size(SIZE);
+    }
+
+    private void indexDocuments(int count) {
+        IntStream.rangeClosed(1, count)
+            .forEach(number -> client.index(new IndexRequest(INDEX_NAME.value())
+                    .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+                    .id(String.valueOf(number))
+                    .source(NUMBER, number),
+                RequestOptions.DEFAULT)
+                .block());
+
+        elasticSearch.awaitForElasticSearch();
+        WAIT_CONDITION.untilAsserted(() -> assertThat(client.search(new SearchRequest(INDEX_NAME.value())
+                .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery())), RequestOptions.DEFAULT)
+            .block()
+            .getHits()
+            .getTotalHits())
+            .isEqualTo(count));
+    }
+}
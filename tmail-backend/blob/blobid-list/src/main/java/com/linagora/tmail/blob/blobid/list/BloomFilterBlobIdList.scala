@@ -0,0 +1,157 @@
+package com.linagora.tmail.blob.blobid.list
+
+import java.time.Duration
+import java.util.concurrent.atomic.{AtomicLong, AtomicReference}
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import com.google.common.hash.{BloomFilter, Funnels}
+import com.linagora.tmail.blob.blobid.list.BloomFilterBlobIdList.LOGGER
+import javax.annotation.PreDestroy
+import org.apache.james.blob.api.BlobId
+import org.apache.james.metrics.api.{GaugeRegistry, Metric, MetricFactory}
+import org.reactivestreams.Publisher
+import org.slf4j.{Logger, LoggerFactory}
+import reactor.core.Disposable
+import reactor.core.publisher.{Flux, Mono}
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+
+object BloomFilterBlobIdList {
+  private val LOGGER: Logger = LoggerFactory.getLogger(classOf[BloomFilterBlobIdList])
+}
+
+/**
+ * Answers `isStored` locally whenever it is safe:
+ *  - recently stored blob ids are kept in a bounded positive cache, a hit skips both the Cassandra read and the
+ *  object store write,
+ *  - when `skipReadOnMiss` is set, which requires an object store accepting to overwrite a blob, blob ids absent from
+ *  the Bloom filter are answered as not stored without the Cassandra read and get re-saved.
+ *
+ * A Bloom filter miss only saves a read when it is trusted: without `skipReadOnMiss` no filter is built and only the
+ * positive cache is used, sparing each node a scan of the whole underlying list.
+ *
+ * The Bloom filter is built by streaming the whole underlying list at startup then periodically rebuilt. Its sizing
+ * follows the list size but never exceeds `maxExpectedInsertions`, past which the false positive rate degrades.
+ */
+class BloomFilterBlobIdList(underlying: BlobIdList,
+                            allBlobIds: () => Publisher[String],
+                            configuration: BloomFilterBlobIdListConfiguration,
+                            metricFactory: MetricFactory,
+                            gaugeRegistry: GaugeRegistry) extends BlobIdList {
+
+  private val currentFilter: AtomicReference[Option[BloomFilter[CharSequence]]] = new AtomicReference(None)
+  private val buildingFilter: AtomicReference[Option[BloomFilter[CharSequence]]] = new AtomicReference(None)
+  private val lastBuildCount: AtomicLong = new AtomicLong(0)
+  private val positiveCache: Cache[String, java.lang.Boolean] = Caffeine.newBuilder()
+    .maximumSize(configuration.positiveCacheSize)
+    .build()
+
+  private val definiteMisses: AtomicLong = new AtomicLong(0)
+  private val falsePositives: AtomicLong = new AtomicLong(0)
+  private val skippedReadMetric: Metric = metricFactory.generate("blobIdList.bloomFilter.skippedReads")
+  private val falsePositiveMetric: Metric = metricFactory.generate("blobIdList.bloomFilter.falsePositives")
+  private val positiveCacheHitMetric: Metric = metricFactory.generate("blobIdList.positiveCache.skippedSaves")
+
+  gaugeRegistry.register("blobIdList.bloomFilter.expectedFalsePositiveRate", () => currentFilter.get().map(_.expectedFpp()).getOrElse(0d))
+    .register("blobIdList.bloomFilter.observedFalsePositiveRate", () => observedFalsePositiveRate())
+    .register("blobIdList.bloomFilter.approximateElementCount", () => currentFilter.get().map(_.approximateElementCount()).getOrElse(0L))
+    .register("blobIdList.positiveCache.size", () => positiveCache.estimatedSize())
+
+  private var rebuildTask: Option[Disposable] = None
+
+  def start(): Unit =
+    if (configuration.skipReadOnMiss) {
+      rebuildTask = Some(Flux.interval(Duration.ZERO, configuration.rebuildInterval)
+        .onBackpressureDrop()
+        .concatMap((_: java.lang.Long) => rebuild().asJava()
+          .onErrorResume((e: Throwable) => {
+            LOGGER.warn("Failed to rebuild the blob id list Bloom filter", e)
+            Mono.empty[Unit]()
+          }))
+        .subscribeOn(Schedulers.boundedElastic())
+        .subscribe())
+    }
+
+  @PreDestroy
+  def stop(): Unit = rebuildTask.foreach(_.dispose())
+
+  def rebuild(): SMono[Unit] =
+    if (configuration.skipReadOnMiss) {
+      buildFilter()
+    } else {
+      SMono.empty
+    }
+
+  private def buildFilter(): SMono[Unit] = {
+    val expectedInsertions: Long = Math.min(configuration.maxExpectedInsertions,
+      Math.max(configuration.expectedInsertions, 2 * lastBuildCount.get()))
+    val filter: BloomFilter[CharSequence] = BloomFilter.create(Funnels.unencodedCharsFunnel(), expectedInsertions, configuration.falsePositiveProbability)
+    val count: AtomicLong = new AtomicLong(0)
+
+    SMono.fromCallable(() => buildingFilter.set(Some(filter)))
+      .thenMany(SFlux.fromPublisher(allBlobIds()))
+      .doOnNext(blobId => {
+        filter.put(blobId)
+        count.incrementAndGet()
+      })
+      .`then`(SMono.fromCallable(() => {
+        currentFilter.set(Some(filter))
+        lastBuildCount.set(count.get())
+        LOGGER.info("Blob id list Bloom filter rebuilt with {} entries", count.get())
+        if (count.get() > configuration.maxExpectedInsertions) {
+          LOGGER.warn("Blob id list holds {} entries, more than the {} the Bloom filter is sized for: its false positive rate degrades",
+            count.get(), configuration.maxExpectedInsertions)
+        }
+      }))
+      .doFinally(_ => buildingFilter.compareAndSet(Some(filter), None))
+  }
+
+  override def isStored(blobId: BlobId): Publisher[java.lang.Boolean] = {
+    val key: String = blobId.asString()
+    (Option(positiveCache.getIfPresent(key)), currentFilter.get()) match {
+      case (Some(_), _) =>
+        positiveCacheHitMetric.increment()
+        SMono.just(java.lang.Boolean.TRUE)
+      case (None, Some(filter)) if !filter.mightContain(key) =>
+        definiteMisses.incrementAndGet()
+        skippedReadMetric.increment()
+        SMono.just(java.lang.Boolean.FALSE)
+      case (None, Some(_)) => SMono.fromPublisher(underlying.isStored(blobId))
+        .doOnNext(stored => onMaybeStored(key, stored))
+      case (None, None) => SMono.fromPublisher(underlying.isStored(blobId))
+        .doOnNext(stored => if (stored) positiveCache.put(key, java.lang.Boolean.TRUE))
+    }
+  }
+
+  override def store(blobId: BlobId): Publisher[Unit] =
+    SMono.fromPublisher(underlying.store(blobId))
+      .`then`(SMono.fromCallable(() => recordStored(blobId.asString())))
+
+  override def remove(blobId: BlobId): Publisher[Unit] =
+    SMono.fromCallable(() => positiveCache.invalidate(blobId.asString()))
+      .`then`(SMono.fromPublisher(underlying.remove(blobId)))
+
+  private def onMaybeStored(key: String, stored: java.lang.Boolean): Unit =
+    if (stored) {
+      positiveCache.put(key, java.lang.Boolean.TRUE)
+    } else {
+      falsePositives.incrementAndGet()
+      falsePositiveMetric.increment()
+    }
+
+  // The building filter is fed after the underlying write so that a concurrent rebuild either streams this entry or sees it here
+  private def recordStored(key: String): Unit = {
+    currentFilter.get().foreach(_.put(key))
+    buildingFilter.get().foreach(_.put(key))
+    positiveCache.put(key, java.lang.Boolean.TRUE)
+  }
+
+  private def observedFalsePositiveRate(): Double = {
+    val negatives: Long = definiteMisses.get() + falsePositives.get()
+    if (negatives == 0) {
+      0d
+    } else {
+      falsePositives.get().toDouble / negatives
+    }
+  }
+}
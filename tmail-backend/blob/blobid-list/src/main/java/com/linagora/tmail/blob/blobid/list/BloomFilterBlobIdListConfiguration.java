@@ -0,0 +1,61 @@
+package com.linagora.tmail.blob.blobid.list;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record BloomFilterBlobIdListConfiguration(boolean enabled,
+                                                 long expectedInsertions,
+                                                 long maxExpectedInsertions,
+                                                 double falsePositiveProbability,
+                                                 Duration rebuildInterval,
+                                                 boolean skipReadOnMiss,
+                                                 long positiveCacheSize) {
+    static final String BLOOM_FILTER_ENABLE_PROPERTY = "single.save.bloom.filter.enable";
+    static final String BLOOM_FILTER_EXPECTED_INSERTIONS_PROPERTY = "single.save.bloom.filter.expected.insertions";
+    static final String BLOOM_FILTER_MAX_EXPECTED_INSERTIONS_PROPERTY = "single.save.bloom.filter.max.expected.insertions";
+    static final String BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY_PROPERTY = "single.save.bloom.filter.false.positive.probability";
+    static final String BLOOM_FILTER_REBUILD_INTERVAL_PROPERTY = "single.save.bloom.filter.rebuild.interval";
+    static final String BLOOM_FILTER_SKIP_READ_ON_MISS_PROPERTY = "single.save.bloom.filter.skip.read.on.miss";
+    static final String POSITIVE_CACHE_SIZE_PROPERTY = "single.save.positive.cache.size";
+
+    static final long DEFAULT_EXPECTED_INSERTIONS = 10_000_000;
+    static final long DEFAULT_MAX_EXPECTED_INSERTIONS = 100_000_000;
+    static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+    static final Duration DEFAULT_REBUILD_INTERVAL = Duration.ofDays(1);
+    static final long DEFAULT_POSITIVE_CACHE_SIZE = 100_000;
+
+    public static final BloomFilterBlobIdListConfiguration DISABLED = new BloomFilterBlobIdListConfiguration(false,
+        DEFAULT_EXPECTED_INSERTIONS, DEFAULT_MAX_EXPECTED_INSERTIONS, DEFAULT_FALSE_POSITIVE_PROBABILITY, DEFAULT_REBUILD_INTERVAL, false,
+        DEFAULT_POSITIVE_CACHE_SIZE);
+
+    public static BloomFilterBlobIdListConfiguration from(Configuration configuration) {
+        long expectedInsertions = configuration.getLong(BLOOM_FILTER_EXPECTED_INSERTIONS_PROPERTY, DEFAULT_EXPECTED_INSERTIONS);
+        return new BloomFilterBlobIdListConfiguration(
+            configuration.getBoolean(BLOOM_FILTER_ENABLE_PROPERTY, false),
+            expectedInsertions,
+            configuration.getLong(BLOOM_FILTER_MAX_EXPECTED_INSERTIONS_PROPERTY, Math.max(expectedInsertions, DEFAULT_MAX_EXPECTED_INSERTIONS)),
+            configuration.getDouble(BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY_PROPERTY, DEFAULT_FALSE_POSITIVE_PROBABILITY),
+            Optional.ofNullable(configuration.getString(BLOOM_FILTER_REBUILD_INTERVAL_PROPERTY, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+                .orElse(DEFAULT_REBUILD_INTERVAL),
+            configuration.getBoolean(BLOOM_FILTER_SKIP_READ_ON_MISS_PROPERTY, false),
+            configuration.getLong(POSITIVE_CACHE_SIZE_PROPERTY, DEFAULT_POSITIVE_CACHE_SIZE));
+    }
+
+    public BloomFilterBlobIdListConfiguration {
+        Preconditions.checkArgument(expectedInsertions > 0, "'%s' needs to be strictly positive", BLOOM_FILTER_EXPECTED_INSERTIONS_PROPERTY);
+        Preconditions.checkArgument(maxExpectedInsertions >= expectedInsertions, "'%s' needs to be greater than or equal to '%s'",
+            BLOOM_FILTER_MAX_EXPECTED_INSERTIONS_PROPERTY, BLOOM_FILTER_EXPECTED_INSERTIONS_PROPERTY);
+        Preconditions.checkArgument(falsePositiveProbability > 0 && falsePositiveProbability < 1,
+            "'%s' needs to be within ]0, 1[", BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY_PROPERTY);
+        Preconditions.checkArgument(!rebuildInterval.isNegative() && !rebuildInterval.isZero(),
+            "'%s' needs to be strictly positive", BLOOM_FILTER_REBUILD_INTERVAL_PROPERTY);
+        Preconditions.checkArgument(positiveCacheSize >= 0, "'%s' needs to be positive", POSITIVE_CACHE_SIZE_PROPERTY);
+    }
+}
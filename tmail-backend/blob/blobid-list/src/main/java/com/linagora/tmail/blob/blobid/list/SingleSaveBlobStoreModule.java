@@ -1,13 +1,27 @@
 package com.linagora.tmail.blob.blobid.list;
 
+import java.io.FileNotFoundException;
+
+import javax.inject.Provider;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.backends.cassandra.components.CassandraModule;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.objectstorage.aws.S3BlobStoreDAO;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.modules.mailbox.ConfigurationComponent;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
+import org.apache.james.utils.PropertiesProvider;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
 import com.linagora.tmail.blob.blobid.list.cassandra.BlobIdListCassandraModule;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdList;
 import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListModule;
 
 public class SingleSaveBlobStoreModule extends AbstractModule {
@@ -21,10 +35,46 @@ public class SingleSaveBlobStoreModule extends AbstractModule {
             .toInstance(CassandraBlobIdListModule.MODULE());
     }
 
+    @Provides
+    @Singleton
+    private BloomFilterBlobIdListConfiguration provideBloomFilterBlobIdListConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            return BloomFilterBlobIdListConfiguration.from(propertiesProvider.getConfigurations(ConfigurationComponent.NAMES));
+        } catch (FileNotFoundException e) {
+            return BloomFilterBlobIdListConfiguration.DISABLED;
+        }
+    }
+
+    @Provides
+    @Singleton
+    private BloomFilterBlobIdList provideBloomFilterBlobIdList(CassandraBlobIdList cassandraBlobIdList,
+                                                               BloomFilterBlobIdListConfiguration configuration,
+                                                               MetricFactory metricFactory,
+                                                               GaugeRegistry gaugeRegistry) {
+        return new BloomFilterBlobIdList(cassandraBlobIdList, cassandraBlobIdList::list, configuration, metricFactory, gaugeRegistry);
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation startBloomFilterBlobIdList(BloomFilterBlobIdListConfiguration configuration,
+                                                       Provider<BloomFilterBlobIdList> bloomFilterBlobIdList) {
+        return InitilizationOperationBuilder
+            .forClass(BloomFilterBlobIdList.class)
+            .init(() -> {
+                if (configuration.enabled()) {
+                    bloomFilterBlobIdList.get().start();
+                }
+            });
+    }
+
     @Provides
     private SingleSaveBlobStoreDAO provideSingleSaveBlobStoreDAO(S3BlobStoreDAO s3BlobStoreDAO,
                                                               BlobIdList blobIdList,
+                                                              BloomFilterBlobIdListConfiguration configuration,
+                                                              Provider<BloomFilterBlobIdList> bloomFilterBlobIdList,
                                                               BucketName defaultBucketName) {
+        if (configuration.enabled()) {
+            return new SingleSaveBlobStoreDAO(s3BlobStoreDAO, bloomFilterBlobIdList.get(), defaultBucketName);
+        }
         return new SingleSaveBlobStoreDAO(s3BlobStoreDAO, blobIdList, defaultBucketName);
     }
 }
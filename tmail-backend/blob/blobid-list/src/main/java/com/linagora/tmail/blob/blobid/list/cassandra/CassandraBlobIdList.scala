@@ -25,4 +25,7 @@ class CassandraBlobIdList @Inject()(cassandraBlobIdListDAO: CassandraBlobIdListD
 
   override def remove(blobId: BlobId): Publisher[Unit] =
     cassandraBlobIdListDAO.remove(blobId)
+
+  def list(): Publisher[String] =
+    cassandraBlobIdListDAO.list()
 }
@@ -7,7 +7,7 @@ import com.linagora.tmail.blob.blobid.list.cassandra.BlobIdListTable._
 import javax.inject.Inject
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.blob.api.BlobId
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
   private val executor: CassandraAsyncExecutor = new CassandraAsyncExecutor(session)
@@ -23,6 +23,11 @@ class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
       .whereColumn(BLOB_ID).isEqualTo(bindMarker(BLOB_ID))
       .build())
 
+  private val listStatement: PreparedStatement =
+    session.prepare(selectFrom(TABLE_NAME)
+      .column(BLOB_ID)
+      .build())
+
   private val deleteStatement: PreparedStatement =
     session.prepare(deleteFrom(TABLE_NAME)
       .whereColumn(BLOB_ID).isEqualTo(bindMarker(BLOB_ID))
@@ -37,6 +42,10 @@ class CassandraBlobIdListDAO @Inject()(session: CqlSession) {
       .setString(BLOB_ID, blobId.asString)))
       .map(_.booleanValue())
 
+  def list(): SFlux[String] =
+    SFlux.fromPublisher(executor.executeRows(listStatement.bind()))
+      .map(_.getString(BLOB_ID))
+
   def remove(blobId: BlobId): SMono[Unit] =
     SMono.fromPublisher(executor.executeVoid(deleteStatement.bind()
       .setString(BLOB_ID, blobId.asString)))
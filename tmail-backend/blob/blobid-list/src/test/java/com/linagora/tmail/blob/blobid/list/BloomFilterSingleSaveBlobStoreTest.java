@@ -0,0 +1,146 @@
+package com.linagora.tmail.blob.blobid.list;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.backends.cassandra.versions.CassandraSchemaVersionModule;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdList;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListDAO;
+import com.linagora.tmail.blob.blobid.list.cassandra.CassandraBlobIdListModule;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class BloomFilterSingleSaveBlobStoreTest implements SingleSaveBlobStoreContract {
+
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
+            CassandraModule.aggregateModules(CassandraBlobIdListModule.MODULE(),
+                    CassandraSchemaVersionModule.MODULE));
+
+    private static final BloomFilterBlobIdListConfiguration CONFIGURATION = new BloomFilterBlobIdListConfiguration(true,
+        1000, 10000, 0.01, Duration.ofHours(1), false, 100);
+    private static final BloomFilterBlobIdListConfiguration SKIP_READ_ON_MISS_CONFIGURATION = new BloomFilterBlobIdListConfiguration(true,
+        1000, 10000, 0.01, Duration.ofHours(1), true, 100);
+
+    private CassandraBlobIdList cassandraBlobIdList;
+    private BloomFilterBlobIdList bloomFilterBlobIdList;
+    private RecordingMetricFactory metricFactory;
+    private BlobStoreDAO blobStoreDAO;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        CassandraBlobIdListDAO cassandraBlobIdListDAO = new CassandraBlobIdListDAO(cassandra.getConf());
+        cassandraBlobIdList = new CassandraBlobIdList(cassandraBlobIdListDAO);
+        metricFactory = new RecordingMetricFactory();
+        bloomFilterBlobIdList = new BloomFilterBlobIdList(cassandraBlobIdList, cassandraBlobIdList::list, CONFIGURATION,
+            metricFactory, new NoopGaugeRegistry());
+        bloomFilterBlobIdList.rebuild().block();
+        blobStoreDAO = new SingleSaveBlobStoreDAO(new MemoryBlobStoreDAO(), bloomFilterBlobIdList, defaultBucketName());
+    }
+
+    @Override
+    public BlobStoreDAO testee() {
+        return blobStoreDAO;
+    }
+
+    @Override
+    public BlobIdList blobIdList() {
+        return bloomFilterBlobIdList;
+    }
+
+    @Override
+    public BlobId.Factory blobIdFactory() {
+        return new HashBlobId.Factory();
+    }
+
+    @Override
+    public BucketName defaultBucketName() {
+        return BucketName.DEFAULT;
+    }
+
+    @Override
+    @Disabled("Not supported")
+    public void listBucketsShouldReturnBucketsWithNoBlob() {
+
+    }
+
+    @Test
+    void savingAnUnknownBlobShouldReadCassandraByDefault() {
+        Mono.from(testee().save(defaultBucketName(), blobIdFactory().randomId(), SHORT_BYTEARRAY)).block();
+
+        assertThat(metricFactory.countFor("blobIdList.bloomFilter.skippedReads")).isZero();
+    }
+
+    @Test
+    void savingAnUnknownBlobShouldSkipTheCassandraReadWhenConfigured() {
+        BloomFilterBlobIdList skippingBlobIdList = new BloomFilterBlobIdList(cassandraBlobIdList, cassandraBlobIdList::list,
+            SKIP_READ_ON_MISS_CONFIGURATION, metricFactory, new NoopGaugeRegistry());
+        skippingBlobIdList.rebuild().block();
+        SingleSaveBlobStoreDAO skippingBlobStoreDAO = new SingleSaveBlobStoreDAO(new MemoryBlobStoreDAO(), skippingBlobIdList, defaultBucketName());
+
+        Mono.from(skippingBlobStoreDAO.save(defaultBucketName(), blobIdFactory().randomId(), SHORT_BYTEARRAY)).block();
+
+        assertThat(metricFactory.countFor("blobIdList.bloomFilter.skippedReads")).isEqualTo(1);
+    }
+
+    @Test
+    void savingAKnownBlobAgainShouldBeServedByThePositiveCache() {
+        BlobId blobId = blobIdFactory().randomId();
+        Mono.from(testee().save(defaultBucketName(), blobId, SHORT_BYTEARRAY)).block();
+        Mono.from(testee().save(defaultBucketName(), blobId, SHORT_BYTEARRAY)).block();
+
+        assertThat(metricFactory.countFor("blobIdList.positiveCache.skippedSaves")).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildShouldNotScanTheBlobIdListByDefault() {
+        AtomicInteger scans = new AtomicInteger();
+        BloomFilterBlobIdList blobIdList = new BloomFilterBlobIdList(cassandraBlobIdList,
+            () -> Flux.from(cassandraBlobIdList.list()).doOnSubscribe(any -> scans.incrementAndGet()),
+            CONFIGURATION, metricFactory, new NoopGaugeRegistry());
+
+        blobIdList.rebuild().block();
+
+        assertThat(scans.get()).isZero();
+    }
+
+    @Test
+    void rebuildShouldIncludeBlobsStoredByOtherNodes() {
+        BloomFilterBlobIdList skippingBlobIdList = new BloomFilterBlobIdList(cassandraBlobIdList, cassandraBlobIdList::list,
+            SKIP_READ_ON_MISS_CONFIGURATION, metricFactory, new NoopGaugeRegistry());
+        BlobId blobId = blobIdFactory().randomId();
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        skippingBlobIdList.rebuild().block();
+
+        assertThat(Mono.from(skippingBlobIdList.isStored(blobId)).block()).isTrue();
+        assertThat(metricFactory.countFor("blobIdList.bloomFilter.skippedReads")).isZero();
+    }
+
+    @Test
+    void blobsStoredByOtherNodesShouldBeKnownByDefault() {
+        BlobId blobId = blobIdFactory().randomId();
+        Mono.from(cassandraBlobIdList.store(blobId)).block();
+
+        assertThat(Mono.from(blobIdList().isStored(blobId)).block()).isTrue();
+    }
+}
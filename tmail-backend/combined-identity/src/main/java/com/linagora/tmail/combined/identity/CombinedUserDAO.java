@@ -6,6 +6,8 @@ import java.util.Optional;
 import javax.inject.Inject;
 
 import org.apache.james.core.Username;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
 import org.apache.james.user.api.UsersRepositoryException;
 import org.apache.james.user.api.model.User;
 import org.apache.james.user.cassandra.CassandraUsersDAO;
@@ -19,12 +21,21 @@ public class CombinedUserDAO implements UsersDAO {
 
     private final ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO;
     private final CassandraUsersDAO cassandraUsersDAO;
+    private final LdapAuthenticationCache authenticationCache;
 
     @Inject
     public CombinedUserDAO(ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO,
-                           CassandraUsersDAO cassandraUsersDAO) {
+                           CassandraUsersDAO cassandraUsersDAO,
+                           LdapAuthenticationCache authenticationCache) {
         this.readOnlyLDAPUsersDAO = readOnlyLDAPUsersDAO;
         this.cassandraUsersDAO = cassandraUsersDAO;
+        this.authenticationCache = authenticationCache;
+    }
+
+    public CombinedUserDAO(ReadOnlyLDAPUsersDAO readOnlyLDAPUsersDAO,
+                           CassandraUsersDAO cassandraUsersDAO) {
+        this(readOnlyLDAPUsersDAO, cassandraUsersDAO,
+            new LdapAuthenticationCache(LdapAuthenticationCacheConfiguration.DISABLED, new NoopMetricFactory(), new NoopGaugeRegistry()));
     }
 
     @Override
@@ -81,6 +92,10 @@ public class CombinedUserDAO implements UsersDAO {
     }
 
     public Optional<Username> test(Username name, String password) throws UsersRepositoryException {
+        return authenticationCache.test(name, password, this::testAgainstLdap);
+    }
+
+    private Optional<Username> testAgainstLdap(Username name, String password) throws UsersRepositoryException {
         return readOnlyLDAPUsersDAO.getUserByName(name)
                 .filter(user -> user.verifyPassword(password))
                 .map(User::getUserName)
@@ -9,11 +9,13 @@ import org.apache.james.user.ldap.ReadOnlyUsersLDAPRepository;
 import org.apache.james.user.lib.UsersDAO;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
+import org.apache.james.webadmin.Routes;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 
 public class CombinedUsersRepositoryModule extends AbstractModule {
@@ -22,9 +24,14 @@ public class CombinedUsersRepositoryModule extends AbstractModule {
         bind(ReadOnlyLDAPUsersDAO.class).in(Scopes.SINGLETON);
         bind(CombinedUserDAO.class).in(Scopes.SINGLETON);
         bind(CombinedUsersRepository.class).in(Scopes.SINGLETON);
+        bind(LdapAuthenticationCache.class).in(Scopes.SINGLETON);
 
         bind(UsersDAO.class).to(CombinedUserDAO.class);
         bind(UsersRepository.class).to(CombinedUsersRepository.class);
+
+        Multibinder.newSetBinder(binder(), Routes.class)
+            .addBinding()
+            .to(LdapAuthenticationCacheRoutes.class);
     }
 
     @Provides
@@ -34,6 +41,13 @@ public class CombinedUsersRepositoryModule extends AbstractModule {
             configurationProvider.getConfiguration("usersrepository"));
     }
 
+    @Provides
+    @Singleton
+    public LdapAuthenticationCacheConfiguration provideAuthenticationCacheConfiguration(ConfigurationProvider configurationProvider) throws ConfigurationException {
+        return LdapAuthenticationCacheConfiguration.from(
+            configurationProvider.getConfiguration("usersrepository"));
+    }
+
     @ProvidesIntoSet
     InitializationOperation configureUsersRepository(ConfigurationProvider configurationProvider, CombinedUsersRepository usersRepository) {
         return InitilizationOperationBuilder
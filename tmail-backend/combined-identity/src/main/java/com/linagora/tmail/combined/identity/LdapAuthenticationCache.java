@@ -0,0 +1,157 @@
+package com.linagora.tmail.combined.identity;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Optional;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.inject.Inject;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.TimeMetric;
+import org.apache.james.user.api.UsersRepositoryException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Remembers the outcome of LDAP password verifications, successful ones for {@code authenticationCache.ttl} and
+ * failed ones for {@code authenticationCache.negativeTtl}.
+ *
+ * Passwords are never kept: entries are keyed by the username and a PBKDF2 hash of the password, salted with a
+ * random value generated when the node starts.
+ */
+public class LdapAuthenticationCache {
+    @FunctionalInterface
+    public interface Authenticator {
+        Optional<Username> test(Username name, String password) throws UsersRepositoryException;
+    }
+
+    private record CacheKey(Username username, String passwordHash) {
+        static CacheKey of(Username username, String passwordHash) {
+            return new CacheKey(lowerCase(username), passwordHash);
+        }
+    }
+
+    private static final String HASH_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int HASH_ITERATIONS = 4096;
+    private static final int HASH_LENGTH = 256;
+    private static final int SALT_LENGTH = 16;
+
+    private static final String AUTHENTICATION_TIMER = "ldap.authentication.test";
+    private static final String LDAP_TIMER = "ldap.authentication.ldap";
+
+    private static Username lowerCase(Username username) {
+        return Username.of(username.asString().toLowerCase(Locale.US));
+    }
+
+    private final LdapAuthenticationCacheConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final Cache<CacheKey, Optional<Username>> cache;
+    private final byte[] salt;
+
+    @Inject
+    public LdapAuthenticationCache(LdapAuthenticationCacheConfiguration configuration,
+                                   MetricFactory metricFactory,
+                                   GaugeRegistry gaugeRegistry) {
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.cache = buildCache(gaugeRegistry);
+        this.salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+    }
+
+    public Optional<Username> test(Username name, String password, Authenticator authenticator) throws UsersRepositoryException {
+        TimeMetric timeMetric = metricFactory.timer(AUTHENTICATION_TIMER);
+        try {
+            if (!configuration.enabled()) {
+                return authenticate(name, password, authenticator);
+            }
+            CacheKey key = CacheKey.of(name, hash(name, password));
+            Optional<Username> cachedResult = cache.getIfPresent(key);
+            if (cachedResult != null) {
+                return cachedResult;
+            }
+            Optional<Username> result = authenticate(name, password, authenticator);
+            cache.put(key, result);
+            return result;
+        } finally {
+            timeMetric.stopAndPublish();
+        }
+    }
+
+    public void invalidate(Username username) {
+        Username lowerCasedUsername = lowerCase(username);
+        cache.asMap().keySet().removeIf(key -> key.username().equals(lowerCasedUsername));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Optional<Username> authenticate(Username name, String password, Authenticator authenticator) throws UsersRepositoryException {
+        TimeMetric timeMetric = metricFactory.timer(LDAP_TIMER);
+        try {
+            return authenticator.test(name, password);
+        } finally {
+            timeMetric.stopAndPublish();
+        }
+    }
+
+    private String hash(Username name, String password) throws UsersRepositoryException {
+        PBEKeySpec keySpec = new PBEKeySpec((lowerCase(name).asString() + ':' + password).toCharArray(), salt, HASH_ITERATIONS, HASH_LENGTH);
+        try {
+            return Base64.getEncoder().encodeToString(SecretKeyFactory.getInstance(HASH_ALGORITHM)
+                .generateSecret(keySpec)
+                .getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new UsersRepositoryException("Could not hash the password of " + name.asString(), e);
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private Cache<CacheKey, Optional<Username>> buildCache(GaugeRegistry gaugeRegistry) {
+        Cache<CacheKey, Optional<Username>> cache = Caffeine.newBuilder()
+            .expireAfter(new Expiry<CacheKey, Optional<Username>>() {
+                @Override
+                public long expireAfterCreate(CacheKey key, Optional<Username> result, long currentTime) {
+                    return ttl(result).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(CacheKey key, Optional<Username> result, long currentTime, long currentDuration) {
+                    return ttl(result).toNanos();
+                }
+
+                @Override
+                public long expireAfterRead(CacheKey key, Optional<Username> result, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .maximumSize(configuration.maximumSize())
+            .recordStats()
+            .build();
+
+        // Hits are LDAP calls avoided
+        gaugeRegistry.register("ldap.authentication.cache.hitRate", () -> cache.stats().hitRate())
+            .register("ldap.authentication.cache.missCount", () -> cache.stats().missCount())
+            .register("ldap.authentication.cache.hitCount", () -> cache.stats().hitCount())
+            .register("ldap.authentication.cache.size", cache::estimatedSize);
+        return cache;
+    }
+
+    private Duration ttl(Optional<Username> result) {
+        if (result.isPresent()) {
+            return configuration.ttl();
+        }
+        return configuration.negativeTtl();
+    }
+}
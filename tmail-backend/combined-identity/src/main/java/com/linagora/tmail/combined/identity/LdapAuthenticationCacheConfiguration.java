@@ -0,0 +1,43 @@
+package com.linagora.tmail.combined.identity;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record LdapAuthenticationCacheConfiguration(boolean enabled, Duration ttl, Duration negativeTtl, long maximumSize) {
+    static final String ENABLED_PROPERTY = "authenticationCache.enabled";
+    static final String TTL_PROPERTY = "authenticationCache.ttl";
+    static final String NEGATIVE_TTL_PROPERTY = "authenticationCache.negativeTtl";
+    static final String MAXIMUM_SIZE_PROPERTY = "authenticationCache.maximumSize";
+
+    // A password changed in LDAP keeps on being accepted until its entry expires
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+    static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    public static final LdapAuthenticationCacheConfiguration DISABLED = new LdapAuthenticationCacheConfiguration(false, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL, DEFAULT_MAXIMUM_SIZE);
+
+    public static LdapAuthenticationCacheConfiguration from(Configuration configuration) {
+        return new LdapAuthenticationCacheConfiguration(
+            configuration.getBoolean(ENABLED_PROPERTY, false),
+            parseDuration(configuration, TTL_PROPERTY).orElse(DEFAULT_TTL),
+            parseDuration(configuration, NEGATIVE_TTL_PROPERTY).orElse(DEFAULT_NEGATIVE_TTL),
+            configuration.getLong(MAXIMUM_SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE));
+    }
+
+    private static Optional<Duration> parseDuration(Configuration configuration, String property) {
+        return Optional.ofNullable(configuration.getString(property, null))
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS));
+    }
+
+    public LdapAuthenticationCacheConfiguration {
+        Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "'%s' needs to be strictly positive", TTL_PROPERTY);
+        Preconditions.checkArgument(!negativeTtl.isNegative() && !negativeTtl.isZero(), "'%s' needs to be strictly positive", NEGATIVE_TTL_PROPERTY);
+        Preconditions.checkArgument(maximumSize > 0, "'%s' needs to be strictly positive", MAXIMUM_SIZE_PROPERTY);
+    }
+}
@@ -0,0 +1,60 @@
+package com.linagora.tmail.combined.identity;
+
+import static org.apache.james.webadmin.Constants.SEPARATOR;
+
+import javax.inject.Inject;
+
+import org.apache.james.core.Username;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.utils.Responses;
+
+import spark.Request;
+import spark.Route;
+import spark.Service;
+
+public class LdapAuthenticationCacheRoutes implements Routes {
+    private static final String USERNAME_PARAM = ":username";
+    private static final String AUTHENTICATION_CACHE_BASE_PATH = SEPARATOR + "authentication-cache";
+    private static final String USER_AUTHENTICATION_CACHE_PATH = SEPARATOR + "users" + SEPARATOR + USERNAME_PARAM + AUTHENTICATION_CACHE_BASE_PATH;
+
+    private final LdapAuthenticationCache authenticationCache;
+    private final LdapAuthenticationCacheConfiguration configuration;
+
+    @Inject
+    public LdapAuthenticationCacheRoutes(LdapAuthenticationCache authenticationCache, LdapAuthenticationCacheConfiguration configuration) {
+        this.authenticationCache = authenticationCache;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public String getBasePath() {
+        return AUTHENTICATION_CACHE_BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        if (!configuration.enabled()) {
+            return;
+        }
+        service.delete(AUTHENTICATION_CACHE_BASE_PATH, invalidateAll());
+        service.delete(USER_AUTHENTICATION_CACHE_PATH, invalidateUser());
+    }
+
+    private Route invalidateAll() {
+        return (request, response) -> {
+            authenticationCache.invalidateAll();
+            return Responses.returnNoContent(response);
+        };
+    }
+
+    private Route invalidateUser() {
+        return (request, response) -> {
+            authenticationCache.invalidate(extractUsername(request));
+            return Responses.returnNoContent(response);
+        };
+    }
+
+    private Username extractUsername(Request request) {
+        return Username.of(request.params(USERNAME_PARAM));
+    }
+}
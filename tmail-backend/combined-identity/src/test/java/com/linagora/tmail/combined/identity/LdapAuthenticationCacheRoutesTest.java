@@ -0,0 +1,95 @@
+package com.linagora.tmail.combined.identity;
+
+import static io.restassured.RestAssured.when;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.restassured.RestAssured;
+
+class LdapAuthenticationCacheRoutesTest {
+    private static final Username BOB = Username.of("bob@domain.tld");
+    private static final String PASSWORD = "secret";
+    private static final LdapAuthenticationCacheConfiguration ENABLED = new LdapAuthenticationCacheConfiguration(true,
+        Duration.ofMinutes(5), Duration.ofSeconds(30), 100);
+
+    private WebAdminServer webAdminServer;
+    private AtomicInteger ldapCalls;
+    private LdapAuthenticationCache.Authenticator authenticator;
+
+    @BeforeEach
+    void setUp() {
+        ldapCalls = new AtomicInteger();
+        authenticator = (name, password) -> {
+            ldapCalls.incrementAndGet();
+            return Optional.of(name);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        webAdminServer.destroy();
+    }
+
+    private LdapAuthenticationCache startWebAdmin(LdapAuthenticationCacheConfiguration configuration) {
+        LdapAuthenticationCache authenticationCache = new LdapAuthenticationCache(configuration, new NoopMetricFactory(), new NoopGaugeRegistry());
+        webAdminServer = WebAdminUtils.createWebAdminServer(new LdapAuthenticationCacheRoutes(authenticationCache, configuration)).start();
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer).build();
+        return authenticationCache;
+    }
+
+    @Test
+    void deleteUserShouldInvalidateCachedAuthentications() throws Exception {
+        LdapAuthenticationCache authenticationCache = startWebAdmin(ENABLED);
+        authenticationCache.test(BOB, PASSWORD, authenticator);
+
+        when()
+            .delete("/users/" + BOB.asString() + "/authentication-cache")
+        .then()
+            .statusCode(HttpStatus.NO_CONTENT_204);
+
+        authenticationCache.test(BOB, PASSWORD, authenticator);
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteAllShouldInvalidateCachedAuthentications() throws Exception {
+        LdapAuthenticationCache authenticationCache = startWebAdmin(ENABLED);
+        authenticationCache.test(BOB, PASSWORD, authenticator);
+
+        when()
+            .delete("/authentication-cache")
+        .then()
+            .statusCode(HttpStatus.NO_CONTENT_204);
+
+        authenticationCache.test(BOB, PASSWORD, authenticator);
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void routesShouldNotBeDefinedWhenCacheIsDisabled() {
+        startWebAdmin(LdapAuthenticationCacheConfiguration.DISABLED);
+
+        when()
+            .delete("/users/" + BOB.asString() + "/authentication-cache")
+        .then()
+            .statusCode(HttpStatus.NOT_FOUND_404);
+
+        when()
+            .delete("/authentication-cache")
+        .then()
+            .statusCode(HttpStatus.NOT_FOUND_404);
+    }
+}
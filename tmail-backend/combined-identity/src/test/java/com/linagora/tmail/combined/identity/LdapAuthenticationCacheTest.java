@@ -0,0 +1,116 @@
+package com.linagora.tmail.combined.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LdapAuthenticationCacheTest {
+    private static final Username BOB = Username.of("bob@domain.tld");
+    private static final String PASSWORD = "secret";
+    private static final LdapAuthenticationCacheConfiguration ENABLED = new LdapAuthenticationCacheConfiguration(true,
+        Duration.ofMinutes(5), Duration.ofSeconds(30), 100);
+
+    private AtomicInteger ldapCalls;
+    private LdapAuthenticationCache.Authenticator authenticator;
+    private LdapAuthenticationCache testee;
+
+    @BeforeEach
+    void setUp() {
+        ldapCalls = new AtomicInteger();
+        authenticator = (name, password) -> {
+            ldapCalls.incrementAndGet();
+            if (password.equals(PASSWORD)) {
+                return Optional.of(name);
+            }
+            return Optional.empty();
+        };
+        testee = new LdapAuthenticationCache(ENABLED, new NoopMetricFactory(), new NoopGaugeRegistry());
+    }
+
+    @Test
+    void testShouldReturnAuthenticatorResult() throws Exception {
+        assertThat(testee.test(BOB, PASSWORD, authenticator)).contains(BOB);
+    }
+
+    @Test
+    void testShouldAvoidLdapCallsForCachedCredentials() throws Exception {
+        testee.test(BOB, PASSWORD, authenticator);
+
+        assertThat(testee.test(BOB, PASSWORD, authenticator)).contains(BOB);
+        assertThat(ldapCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldCacheFailures() throws Exception {
+        testee.test(BOB, "wrong", authenticator);
+
+        assertThat(testee.test(BOB, "wrong", authenticator)).isEmpty();
+        assertThat(ldapCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testShouldNotReuseEntriesOfOtherPasswords() throws Exception {
+        testee.test(BOB, "wrong", authenticator);
+
+        assertThat(testee.test(BOB, PASSWORD, authenticator)).contains(BOB);
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testShouldBeCaseInsensitiveOnUsername() throws Exception {
+        testee.test(BOB, PASSWORD, authenticator);
+
+        testee.test(Username.of("BOB@domain.tld"), PASSWORD, authenticator);
+
+        assertThat(ldapCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateShouldForceLdapCall() throws Exception {
+        testee.test(BOB, PASSWORD, authenticator);
+
+        testee.invalidate(BOB);
+        testee.test(BOB, PASSWORD, authenticator);
+
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidateShouldNotAffectOtherUsers() throws Exception {
+        Username alice = Username.of("alice@domain.tld");
+        testee.test(alice, PASSWORD, authenticator);
+
+        testee.invalidate(BOB);
+        testee.test(alice, PASSWORD, authenticator);
+
+        assertThat(ldapCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateAllShouldForceLdapCalls() throws Exception {
+        testee.test(BOB, PASSWORD, authenticator);
+
+        testee.invalidateAll();
+        testee.test(BOB, PASSWORD, authenticator);
+
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledCacheShouldAlwaysCallLdap() throws Exception {
+        testee = new LdapAuthenticationCache(LdapAuthenticationCacheConfiguration.DISABLED, new NoopMetricFactory(), new NoopGaugeRegistry());
+
+        testee.test(BOB, PASSWORD, authenticator);
+        testee.test(BOB, PASSWORD, authenticator);
+
+        assertThat(ldapCalls.get()).isEqualTo(2);
+    }
+}
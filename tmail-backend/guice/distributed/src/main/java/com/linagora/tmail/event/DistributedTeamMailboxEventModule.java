@@ -0,0 +1,73 @@
+package com.linagora.tmail.event;
+
+import javax.inject.Named;
+
+import org.apache.james.backends.rabbitmq.RabbitMQConfiguration;
+import org.apache.james.backends.rabbitmq.ReactorRabbitMQChannelPool;
+import org.apache.james.backends.rabbitmq.ReceiverProvider;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventBusId;
+import org.apache.james.events.EventBusName;
+import org.apache.james.events.EventDeadLetters;
+import org.apache.james.events.NamingStrategy;
+import org.apache.james.events.RabbitMQEventBus;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.RoutingKeyConverter;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Names;
+import com.linagora.tmail.team.TeamMailboxCacheInvalidationKey;
+import com.linagora.tmail.team.TeamMailboxEventSerializer;
+import com.linagora.tmail.team.TeamMailboxInjectKeys;
+
+import reactor.rabbitmq.Sender;
+
+public class DistributedTeamMailboxEventModule extends AbstractModule {
+    public static final NamingStrategy TEAM_MAILBOX_NAMING_STRATEGY = new NamingStrategy(new EventBusName("teamMailboxEvent"));
+
+    @Override
+    protected void configure() {
+        bind(EventBusId.class).annotatedWith(Names.named(TeamMailboxInjectKeys.CACHE_INVALIDATION)).toInstance(EventBusId.random());
+
+        OptionalBinder.newOptionalBinder(binder(), Key.get(EventBus.class, Names.named(TeamMailboxInjectKeys.CACHE_INVALIDATION)))
+            .setBinding()
+            .to(Key.get(RabbitMQEventBus.class, Names.named(TeamMailboxInjectKeys.CACHE_INVALIDATION)));
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation workQueue(@Named(TeamMailboxInjectKeys.CACHE_INVALIDATION) RabbitMQEventBus instance) {
+        return InitilizationOperationBuilder
+            .forClass(RabbitMQEventBus.class)
+            .init(instance::start);
+    }
+
+    @Provides
+    @Singleton
+    @Named(TeamMailboxInjectKeys.CACHE_INVALIDATION)
+    RabbitMQEventBus provideTeamMailboxEventBus(Sender sender, ReceiverProvider receiverProvider,
+                                                TeamMailboxEventSerializer eventSerializer,
+                                                RetryBackoffConfiguration retryBackoffConfiguration,
+                                                EventDeadLetters eventDeadLetters,
+                                                MetricFactory metricFactory, ReactorRabbitMQChannelPool channelPool,
+                                                @Named(TeamMailboxInjectKeys.CACHE_INVALIDATION) EventBusId eventBusId,
+                                                RabbitMQConfiguration configuration) {
+        return new RabbitMQEventBus(
+            TEAM_MAILBOX_NAMING_STRATEGY,
+            sender, receiverProvider, eventSerializer, retryBackoffConfiguration, new RoutingKeyConverter(ImmutableSet.of(new TeamMailboxCacheInvalidationKey.Factory())),
+            eventDeadLetters, metricFactory, channelPool, eventBusId, configuration);
+    }
+
+    @ProvidesIntoSet
+    EventBus registerEventBus(@Named(TeamMailboxInjectKeys.CACHE_INVALIDATION) EventBus eventBus) {
+        return eventBus;
+    }
+}
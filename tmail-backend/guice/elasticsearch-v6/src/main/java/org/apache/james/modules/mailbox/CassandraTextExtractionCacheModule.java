@@ -0,0 +1,54 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.modules.mailbox;
+
+import java.util.Optional;
+
+import javax.inject.Singleton;
+
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.mailbox.elasticsearch.extractor.CassandraExtractedTextStore;
+import org.apache.james.mailbox.elasticsearch.extractor.ExtractedTextStore;
+import org.apache.james.mailbox.elasticsearch.extractor.SharedTextExtractionCacheConfiguration;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
+
+public class CassandraTextExtractionCacheModule extends AbstractModule {
+    @Override
+    protected void configure() {
+        bind(CassandraExtractedTextStore.class).in(Scopes.SINGLETON);
+        OptionalBinder.newOptionalBinder(binder(), ExtractedTextStore.class)
+            .setBinding()
+            .to(CassandraExtractedTextStore.class);
+
+        Multibinder.newSetBinder(binder(), CassandraModule.class)
+            .addBinding()
+            .toInstance(CassandraExtractedTextStore.MODULE);
+    }
+
+    @Provides
+    @Singleton
+    SharedTextExtractionCacheConfiguration provideSharedTextExtractionCacheConfiguration(Optional<SharedTextExtractionCacheConfiguration> configuration) {
+        return configuration.orElse(SharedTextExtractionCacheConfiguration.DEFAULT);
+    }
+}
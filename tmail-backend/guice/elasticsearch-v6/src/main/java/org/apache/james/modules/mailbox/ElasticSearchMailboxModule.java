@@ -23,6 +23,7 @@ import static org.apache.james.mailbox.elasticsearch.search.ElasticSearchSearche
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Optional;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -30,6 +31,7 @@ import javax.inject.Singleton;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.backends.es.BulkIndexingConfiguration;
 import org.apache.james.backends.es.ElasticSearchConfiguration;
 import org.apache.james.backends.es.ElasticSearchIndexer;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
@@ -38,6 +40,7 @@ import org.apache.james.events.EventListener;
 import org.apache.james.lifecycle.api.StartUpCheck;
 import org.apache.james.lifecycle.api.Startable;
 import org.apache.james.mailbox.elasticsearch.ElasticSearchMailboxConfiguration;
+import org.apache.james.mailbox.elasticsearch.FlagsUpdateCoalescingConfiguration;
 import org.apache.james.mailbox.elasticsearch.IndexAttachments;
 import org.apache.james.mailbox.elasticsearch.IndexHeaders;
 import org.apache.james.mailbox.elasticsearch.MailboxElasticSearchConstants;
@@ -116,10 +119,21 @@ public class ElasticSearchMailboxModule extends AbstractModule {
     @Singleton
     @Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX)
     private ElasticSearchIndexer createMailboxElasticSearchIndexer(ReactorElasticSearchClient client,
-                                                                   ElasticSearchMailboxConfiguration configuration) {
+                                                                   ElasticSearchMailboxConfiguration configuration,
+                                                                   PropertiesProvider propertiesProvider) throws ConfigurationException {
         return new ElasticSearchIndexer(
             client,
-            configuration.getWriteAliasMailboxName());
+            configuration.getWriteAliasMailboxName(),
+            getBulkIndexingConfiguration(propertiesProvider));
+    }
+
+    private Optional<BulkIndexingConfiguration> getBulkIndexingConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(ELASTICSEARCH_CONFIGURATION_NAME);
+            return BulkIndexingConfiguration.fromProperties(configuration);
+        } catch (FileNotFoundException e) {
+            return Optional.empty();
+        }
     }
 
     @Provides
@@ -164,6 +178,17 @@ public class ElasticSearchMailboxModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    private FlagsUpdateCoalescingConfiguration getFlagsUpdateCoalescingConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(ELASTICSEARCH_CONFIGURATION_NAME);
+            return FlagsUpdateCoalescingConfiguration.fromProperties(configuration);
+        } catch (FileNotFoundException e) {
+            return FlagsUpdateCoalescingConfiguration.DISABLED;
+        }
+    }
+
     @Provides
     @Singleton
     public IndexAttachments provideIndexAttachments(ElasticSearchMailboxConfiguration configuration) {
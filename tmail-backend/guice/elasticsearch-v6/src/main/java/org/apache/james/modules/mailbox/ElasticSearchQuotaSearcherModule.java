@@ -33,9 +33,11 @@ import org.apache.james.backends.es.ElasticSearchIndexer;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
 import org.apache.james.events.EventListener;
 import org.apache.james.lifecycle.api.Startable;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.quota.search.QuotaSearcher;
 import org.apache.james.quota.search.elasticsearch.ElasticSearchQuotaConfiguration;
 import org.apache.james.quota.search.elasticsearch.ElasticSearchQuotaSearcher;
+import org.apache.james.quota.search.elasticsearch.QuotaRatioCoalescingConfiguration;
 import org.apache.james.quota.search.elasticsearch.QuotaSearchIndexCreationUtil;
 import org.apache.james.quota.search.elasticsearch.UserRoutingKeyFactory;
 import org.apache.james.quota.search.elasticsearch.events.ElasticSearchQuotaMailboxListener;
@@ -105,15 +107,30 @@ public class ElasticSearchQuotaSearcherModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    private QuotaRatioCoalescingConfiguration getQuotaRatioCoalescingConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(ELASTICSEARCH_CONFIGURATION_NAME);
+            return QuotaRatioCoalescingConfiguration.fromProperties(configuration);
+        } catch (FileNotFoundException e) {
+            return QuotaRatioCoalescingConfiguration.DISABLED;
+        }
+    }
+
     @Provides
     @Singleton
     public ElasticSearchQuotaMailboxListener provideListener(ReactorElasticSearchClient client,
-                                                             ElasticSearchQuotaConfiguration configuration) {
+                                                             ElasticSearchQuotaConfiguration configuration,
+                                                             QuotaRatioCoalescingConfiguration coalescingConfiguration,
+                                                             MetricFactory metricFactory) {
         return new ElasticSearchQuotaMailboxListener(
             new ElasticSearchIndexer(client,
                 configuration.getWriteAliasQuotaRatioName()),
                 new QuotaRatioToElasticSearchJson(),
-            new UserRoutingKeyFactory());
+            new UserRoutingKeyFactory(),
+            coalescingConfiguration,
+            metricFactory);
     }
 
     @ProvidesIntoSet
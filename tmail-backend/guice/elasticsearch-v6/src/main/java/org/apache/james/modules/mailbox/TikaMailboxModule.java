@@ -21,11 +21,15 @@ package org.apache.james.modules.mailbox;
 
 import java.io.FileNotFoundException;
 import java.net.URISyntaxException;
+import java.util.Optional;
 
 import javax.inject.Singleton;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.mailbox.elasticsearch.extractor.ExtractedTextStore;
+import org.apache.james.mailbox.elasticsearch.extractor.SharedCachingTextExtractor;
+import org.apache.james.mailbox.elasticsearch.extractor.SharedTextExtractionCacheConfiguration;
 import org.apache.james.mailbox.extractor.TextExtractor;
 import org.apache.james.mailbox.store.extractor.JsoupTextExtractor;
 import org.apache.james.mailbox.tika.CachingTextExtractor;
@@ -43,6 +47,7 @@ import org.slf4j.LoggerFactory;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.multibindings.OptionalBinder;
 
 public class TikaMailboxModule extends AbstractModule {
 
@@ -53,6 +58,8 @@ public class TikaMailboxModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(TikaTextExtractor.class).in(Scopes.SINGLETON);
+
+        OptionalBinder.newOptionalBinder(binder(), ExtractedTextStore.class);
     }
 
     @Provides
@@ -76,22 +83,38 @@ public class TikaMailboxModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    private Optional<SharedTextExtractionCacheConfiguration> getSharedTextExtractionCacheConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
+        try {
+            Configuration configuration = propertiesProvider.getConfiguration(TIKA_CONFIGURATION_NAME);
+
+            return SharedTextExtractionCacheConfiguration.fromProperties(configuration);
+        } catch (FileNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
     @Provides
     @Singleton
     private TextExtractor provideTextExtractor(TikaTextExtractor textExtractor, TikaConfiguration configuration,
+                                               Optional<SharedTextExtractionCacheConfiguration> sharedCacheConfiguration,
+                                               Optional<ExtractedTextStore> extractedTextStore,
                                                MetricFactory metricFactory, GaugeRegistry gaugeRegistry) {
         if (configuration.isEnabled() && configuration.isCacheEnabled()) {
             LOGGER.info("Tika cache has been enabled.");
             return new ContentTypeFilteringTextExtractor(
                 new CachingTextExtractor(
-                    textExtractor,
+                    withSharedCache(textExtractor, sharedCacheConfiguration, extractedTextStore, metricFactory),
                     configuration.getCacheEvictionPeriod(),
                     configuration.getCacheWeightInBytes(),
                     metricFactory,
                     gaugeRegistry), configuration.getContentTypeBlacklist());
         }
         if (configuration.isEnabled()) {
-            return new ContentTypeFilteringTextExtractor(textExtractor, configuration.getContentTypeBlacklist());
+            return new ContentTypeFilteringTextExtractor(
+                withSharedCache(textExtractor, sharedCacheConfiguration, extractedTextStore, metricFactory),
+                configuration.getContentTypeBlacklist());
         }
         LOGGER.info("Tika text extraction has been disabled." +
             " Using JsoupTextExtractor instead. " +
@@ -99,4 +122,17 @@ public class TikaMailboxModule extends AbstractModule {
         return new JsoupTextExtractor();
     }
 
+    private TextExtractor withSharedCache(TextExtractor textExtractor, Optional<SharedTextExtractionCacheConfiguration> sharedCacheConfiguration,
+                                          Optional<ExtractedTextStore> extractedTextStore, MetricFactory metricFactory) {
+        if (sharedCacheConfiguration.isEmpty()) {
+            return textExtractor;
+        }
+        if (extractedTextStore.isEmpty()) {
+            LOGGER.warn("Tika shared cache is enabled but no shared store is available on this server. Ignoring it.");
+            return textExtractor;
+        }
+        LOGGER.info("Tika shared cache has been enabled.");
+        return new SharedCachingTextExtractor(textExtractor, extractedTextStore.get(), sharedCacheConfiguration.get(), metricFactory);
+    }
+
 }
@@ -1,23 +1,42 @@
 package com.linagora.tmail.team;
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
 import org.apache.james.UserEntityValidator;
+import org.apache.james.events.EventBus;
+import org.apache.james.events.EventDeadLetters;
+import org.apache.james.events.InVMEventBus;
+import org.apache.james.events.RetryBackoffConfiguration;
+import org.apache.james.events.delivery.InVmEventDelivery;
 import org.apache.james.mailbox.quota.QuotaRootResolver;
 import org.apache.james.mailbox.quota.UserQuotaRootResolver;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.rrt.api.CanSendFrom;
+import org.apache.james.user.api.DeleteUserDataTaskStep;
+import org.apache.james.user.api.UsernameChangeTaskStep;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Key;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+import com.google.inject.name.Names;
 import com.linagora.tmail.mailet.TmailLocalResourcesModule;
 
 public class TeamMailboxModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(TeamMailboxRepositoryImpl.class).in(Scopes.SINGLETON);
+        bind(CachingTeamMailboxRepository.class).in(Scopes.SINGLETON);
         bind(TMailCanSendFrom.class).in(Scopes.SINGLETON);
         bind(TMailQuotaRootResolver.class).in(Scopes.SINGLETON);
 
-        bind(TeamMailboxRepository.class).to(TeamMailboxRepositoryImpl.class);
+        bind(TeamMailboxRepository.class).to(CachingTeamMailboxRepository.class);
         bind(CanSendFrom.class).to(TMailCanSendFrom.class);
         bind(QuotaRootResolver.class).to(TMailQuotaRootResolver.class);
         bind(UserQuotaRootResolver.class).to(TMailQuotaRootResolver.class);
@@ -26,6 +45,38 @@ public class TeamMailboxModule extends AbstractModule {
             .addBinding()
             .to(TeamMailboxUserEntityValidator.class);
 
+        bind(MemoryTeamMailboxRegistry.class).in(Scopes.SINGLETON);
+        OptionalBinder.newOptionalBinder(binder(), TeamMailboxRegistry.class)
+            .setDefault()
+            .to(MemoryTeamMailboxRegistry.class);
+
+        Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
+            .addBinding()
+            .to(TeamMailboxRegistryUsernameChangeTaskStep.class);
+        Multibinder.newSetBinder(binder(), DeleteUserDataTaskStep.class)
+            .addBinding()
+            .to(TeamMailboxRegistryUserDeletionTaskStep.class);
+
+        OptionalBinder.newOptionalBinder(binder(), Key.get(EventBus.class, Names.named(TeamMailboxInjectKeys.CACHE_INVALIDATION)))
+            .setDefault()
+            .to(Key.get(InVMEventBus.class, Names.named(TeamMailboxInjectKeys.CACHE_INVALIDATION)));
+
         install(new TmailLocalResourcesModule());
     }
+
+    // Keeps invalidation events away from the mailbox event bus listeners on single node deployments
+    @Provides
+    @Singleton
+    @Named(TeamMailboxInjectKeys.CACHE_INVALIDATION)
+    InVMEventBus provideTeamMailboxEventBus(MetricFactory metricFactory, RetryBackoffConfiguration retryBackoffConfiguration,
+                                            EventDeadLetters eventDeadLetters) {
+        return new InVMEventBus(new InVmEventDelivery(metricFactory), retryBackoffConfiguration, eventDeadLetters);
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation registerTeamMailboxCacheInvalidation(CachingTeamMailboxRepository cachingTeamMailboxRepository) {
+        return InitilizationOperationBuilder
+            .forClass(CachingTeamMailboxRepository.class)
+            .init(cachingTeamMailboxRepository::registerInvalidationListener);
+    }
 }
@@ -0,0 +1,95 @@
+package com.linagora.tmail.healthcheck;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import javax.inject.Inject;
+
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+import org.apache.james.task.TaskType;
+import org.reactivestreams.Publisher;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+
+public class CassandraLatestTaskCompletionProjection implements LatestTaskCompletionProjection {
+    public static final String TABLE_NAME = "latest_task_completion";
+    public static final String TASK_TYPE = "task_type";
+    public static final String COMPLETED_DATE = "completed_date";
+    public static final String BACKFILL_TABLE_NAME = "latest_task_completion_backfill";
+    private static final String WRITE_TIMESTAMP = "write_timestamp";
+
+    public static final CassandraModule MODULE = CassandraModule.builder()
+        .table(TABLE_NAME)
+        .comment("Latest completion date of each task type, read by the tasks execution health check.")
+        .statement(statement -> types -> statement
+            .withPartitionKey(TASK_TYPE, DataTypes.TEXT)
+            .withColumn(COMPLETED_DATE, DataTypes.TIMESTAMP))
+        .table(BACKFILL_TABLE_NAME)
+        .comment("Task types whose past completions were looked up in the task history, which is then not scanned again.")
+        .statement(statement -> types -> statement
+            .withPartitionKey(TASK_TYPE, DataTypes.TEXT))
+        .build();
+
+    private final CassandraAsyncExecutor executor;
+    private final PreparedStatement insert;
+    private final PreparedStatement select;
+    private final PreparedStatement insertBackfilled;
+    private final PreparedStatement selectBackfilled;
+
+    @Inject
+    public CassandraLatestTaskCompletionProjection(CqlSession session) {
+        this.executor = new CassandraAsyncExecutor(session);
+        // Writing with the completion date as timestamp lets Cassandra keep the most recent completion, whatever
+        // the order in which nodes record them
+        this.insert = session.prepare(insertInto(TABLE_NAME)
+            .value(TASK_TYPE, bindMarker(TASK_TYPE))
+            .value(COMPLETED_DATE, bindMarker(COMPLETED_DATE))
+            .usingTimestamp(bindMarker(WRITE_TIMESTAMP))
+            .build());
+        this.select = session.prepare(selectFrom(TABLE_NAME)
+            .column(COMPLETED_DATE)
+            .whereColumn(TASK_TYPE).isEqualTo(bindMarker(TASK_TYPE))
+            .build());
+        this.insertBackfilled = session.prepare(insertInto(BACKFILL_TABLE_NAME)
+            .value(TASK_TYPE, bindMarker(TASK_TYPE))
+            .build());
+        this.selectBackfilled = session.prepare(selectFrom(BACKFILL_TABLE_NAME)
+            .column(TASK_TYPE)
+            .whereColumn(TASK_TYPE).isEqualTo(bindMarker(TASK_TYPE))
+            .build());
+    }
+
+    @Override
+    public Publisher<Void> update(TaskType taskType, Instant completedDate) {
+        return executor.executeVoid(insert.bind()
+            .setString(TASK_TYPE, taskType.asString())
+            .setInstant(COMPLETED_DATE, completedDate)
+            .setLong(WRITE_TIMESTAMP, ChronoUnit.MICROS.between(Instant.EPOCH, completedDate)));
+    }
+
+    @Override
+    public Publisher<Instant> latestCompletion(TaskType taskType) {
+        return executor.executeSingleRow(select.bind()
+                .setString(TASK_TYPE, taskType.asString()))
+            .map(row -> row.getInstant(COMPLETED_DATE));
+    }
+
+    @Override
+    public Publisher<Void> markBackfilled(TaskType taskType) {
+        return executor.executeVoid(insertBackfilled.bind()
+            .setString(TASK_TYPE, taskType.asString()));
+    }
+
+    @Override
+    public Publisher<Boolean> isBackfilled(TaskType taskType) {
+        return executor.executeReturnExists(selectBackfilled.bind()
+            .setString(TASK_TYPE, taskType.asString()));
+    }
+}
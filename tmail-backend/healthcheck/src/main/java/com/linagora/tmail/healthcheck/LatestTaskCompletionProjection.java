@@ -0,0 +1,26 @@
+package com.linagora.tmail.healthcheck;
+
+import java.time.Instant;
+
+import org.apache.james.task.TaskType;
+import org.reactivestreams.Publisher;
+
+/**
+ * Latest completion date of each task type, maintained as tasks complete so that checking task executions does not
+ * need to read the whole task history.
+ */
+public interface LatestTaskCompletionProjection {
+    /**
+     * Only records the completion date if it is more recent than the one already known for this task type.
+     */
+    Publisher<Void> update(TaskType taskType, Instant completedDate);
+
+    Publisher<Instant> latestCompletion(TaskType taskType);
+
+    /**
+     * Records that the task history was scanned for completions of this task type, so that it is not scanned again.
+     */
+    Publisher<Void> markBackfilled(TaskType taskType);
+
+    Publisher<Boolean> isBackfilled(TaskType taskType);
+}
@@ -0,0 +1,132 @@
+package com.linagora.tmail.healthcheck;
+
+import static org.apache.james.task.TaskManager.Status.COMPLETED;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
+
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskId;
+import org.apache.james.task.TaskType;
+import org.apache.james.task.eventsourcing.TaskExecutionDetailsProjection;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import scala.Option;
+import scala.collection.immutable.List;
+
+/**
+ * Decorates the projection fed by task lifecycle events in order to maintain the {@link LatestTaskCompletionProjection}.
+ */
+public class LatestTaskCompletionTrackingProjection implements TaskExecutionDetailsProjection {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LatestTaskCompletionTrackingProjection.class);
+    private static final int CONCURRENCY = 4;
+
+    private final TaskExecutionDetailsProjection delegate;
+    private final LatestTaskCompletionProjection latestTaskCompletionProjection;
+
+    public LatestTaskCompletionTrackingProjection(TaskExecutionDetailsProjection delegate,
+                                                  LatestTaskCompletionProjection latestTaskCompletionProjection) {
+        this.delegate = delegate;
+        this.latestTaskCompletionProjection = latestTaskCompletionProjection;
+    }
+
+    @Override
+    public Option<TaskExecutionDetails> load(TaskId taskId) {
+        return delegate.load(taskId);
+    }
+
+    @Override
+    public List<TaskExecutionDetails> list() {
+        return delegate.list();
+    }
+
+    @Override
+    public void update(TaskExecutionDetails details) {
+        delegate.update(details);
+        trackCompletion(details).block();
+    }
+
+    @Override
+    public Publisher<TaskExecutionDetails> loadReactive(TaskId taskId) {
+        return delegate.loadReactive(taskId);
+    }
+
+    @Override
+    public Publisher<TaskExecutionDetails> listReactive() {
+        return delegate.listReactive();
+    }
+
+    @Override
+    public Publisher<Void> updateReactive(TaskExecutionDetails details) {
+        return Mono.from(delegate.updateReactive(details))
+            .then(trackCompletion(details));
+    }
+
+    @Override
+    public Publisher<TaskExecutionDetails> listDetailsByBeforeDate(Instant beforeDate) {
+        return delegate.listDetailsByBeforeDate(beforeDate);
+    }
+
+    @Override
+    public Publisher<Void> remove(TaskExecutionDetails taskExecutionDetails) {
+        return delegate.remove(taskExecutionDetails);
+    }
+
+    /**
+     * Records the latest completion of the given task types that are not yet known, out of the whole task history.
+     * Needed once after deploying the projection, as completions that happened before are otherwise ignored. Scanned
+     * task types are marked as backfilled, so that the task history is read at most once per task type, including
+     * for task types that never completed.
+     */
+    public Mono<Void> backfill(Set<TaskType> taskTypes) {
+        return Flux.fromIterable(taskTypes)
+            .filterWhen(this::needsBackfill)
+            .collect(ImmutableSet.toImmutableSet())
+            .filter(missingTaskTypes -> !missingTaskTypes.isEmpty())
+            .flatMap(missingTaskTypes -> Flux.from(delegate.listReactive())
+                .filter(details -> missingTaskTypes.contains(details.getType()))
+                .filter(this::isCompleted)
+                .collect(Collectors.toMap(TaskExecutionDetails::getType, details -> details.getCompletedDate().get(),
+                    BinaryOperator.maxBy(ZonedDateTime::compareTo)))
+                .flatMapIterable(Map::entrySet)
+                .flatMap(entry -> latestTaskCompletionProjection.update(entry.getKey(), entry.getValue().toInstant()), CONCURRENCY)
+                .thenMany(Flux.fromIterable(missingTaskTypes))
+                .flatMap(latestTaskCompletionProjection::markBackfilled, CONCURRENCY)
+                .then());
+    }
+
+    private Mono<Boolean> needsBackfill(TaskType taskType) {
+        return Mono.from(latestTaskCompletionProjection.isBackfilled(taskType))
+            .flatMap(backfilled -> {
+                if (backfilled) {
+                    return Mono.just(false);
+                }
+                return Mono.from(latestTaskCompletionProjection.latestCompletion(taskType)).hasElement().map(known -> !known);
+            });
+    }
+
+    private Mono<Void> trackCompletion(TaskExecutionDetails details) {
+        if (!isCompleted(details)) {
+            return Mono.empty();
+        }
+        return Mono.from(latestTaskCompletionProjection.update(details.getType(), details.getCompletedDate().get().toInstant()))
+            .onErrorResume(e -> {
+                LOGGER.warn("Could not record the completion of task {} of type {}", details.getTaskId().asString(), details.getType().asString(), e);
+                return Mono.empty();
+            });
+    }
+
+    private boolean isCompleted(TaskExecutionDetails details) {
+        return details.getStatus().equals(COMPLETED) && details.getCompletedDate().isPresent();
+    }
+}
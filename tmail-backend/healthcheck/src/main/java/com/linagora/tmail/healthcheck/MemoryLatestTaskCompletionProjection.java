@@ -0,0 +1,43 @@
+package com.linagora.tmail.healthcheck;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.james.task.TaskType;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
+
+public class MemoryLatestTaskCompletionProjection implements LatestTaskCompletionProjection {
+    private final Map<TaskType, Instant> latestCompletions = new ConcurrentHashMap<>();
+    private final Set<TaskType> backfilledTaskTypes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Publisher<Void> update(TaskType taskType, Instant completedDate) {
+        return Mono.fromRunnable(() -> latestCompletions.merge(taskType, completedDate, MemoryLatestTaskCompletionProjection::mostRecent));
+    }
+
+    @Override
+    public Publisher<Instant> latestCompletion(TaskType taskType) {
+        return Mono.fromCallable(() -> latestCompletions.get(taskType));
+    }
+
+    @Override
+    public Publisher<Void> markBackfilled(TaskType taskType) {
+        return Mono.fromRunnable(() -> backfilledTaskTypes.add(taskType));
+    }
+
+    @Override
+    public Publisher<Boolean> isBackfilled(TaskType taskType) {
+        return Mono.fromCallable(() -> backfilledTaskTypes.contains(taskType));
+    }
+
+    private static Instant mostRecent(Instant current, Instant candidate) {
+        if (candidate.isAfter(current)) {
+            return candidate;
+        }
+        return current;
+    }
+}
@@ -1,43 +1,35 @@
 package com.linagora.tmail.healthcheck;
 
-import static org.apache.james.task.TaskManager.Status.COMPLETED;
-
 import java.time.Clock;
 import java.time.Duration;
-import java.time.ZonedDateTime;
-import java.util.Comparator;
+import java.time.Instant;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.function.Predicate;
 
 import javax.inject.Inject;
 
 import org.apache.james.core.healthcheck.ComponentName;
 import org.apache.james.core.healthcheck.HealthCheck;
 import org.apache.james.core.healthcheck.Result;
-import org.apache.james.task.TaskExecutionDetails;
 import org.apache.james.task.TaskType;
-import org.apache.james.task.eventsourcing.TaskExecutionDetailsProjection;
-import org.apache.james.util.ReactorUtils;
 import org.reactivestreams.Publisher;
 
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.GroupedFlux;
 import reactor.core.publisher.Mono;
 
 public class TasksHeathCheck implements HealthCheck {
     public static final ComponentName COMPONENT_NAME = new ComponentName("Tasks execution");
     private static final int AVERAGE_CONCURRENCY_LEVEL = 4;
 
-    private final TaskExecutionDetailsProjection taskExecutionDetailsProjection;
+    private final LatestTaskCompletionProjection latestTaskCompletionProjection;
     private final TasksHealthCheckConfiguration configuration;
     private final Clock clock;
 
     @Inject
-    public TasksHeathCheck(TaskExecutionDetailsProjection taskExecutionDetailsProjection,
+    public TasksHeathCheck(LatestTaskCompletionProjection latestTaskCompletionProjection,
                            TasksHealthCheckConfiguration configuration,
                            Clock clock) {
-        this.taskExecutionDetailsProjection = taskExecutionDetailsProjection;
+        this.latestTaskCompletionProjection = latestTaskCompletionProjection;
         this.configuration = configuration;
         this.clock = clock;
     }
@@ -49,41 +41,23 @@ public class TasksHeathCheck implements HealthCheck {
 
     @Override
     public Publisher<Result> check() {
-        ZonedDateTime now = ZonedDateTime.now(clock);
+        Instant now = clock.instant();
 
         if (configuration.taskTypeDurationMap().isEmpty()) {
             return Mono.just(Result.healthy(COMPONENT_NAME));
         } else {
-            return Flux.from(taskExecutionDetailsProjection.listReactive())
-                .filter(finishedTask())
-                .groupBy(TaskExecutionDetails::getType)
-                .flatMap(getTheLatestFinishedTask(), AVERAGE_CONCURRENCY_LEVEL)
-                .filter(complyAnyOfTasksHealthCheck(now))
+            return Flux.fromIterable(configuration.taskTypeDurationMap().entrySet())
+                .filterWhen(completedWithinRequiredDuration(now), AVERAGE_CONCURRENCY_LEVEL)
                 .count()
                 .map(evaluateHeathCheckResult())
-                .onErrorResume(e -> Mono.just(Result.unhealthy(COMPONENT_NAME, "Could not check tasks execution information", e)))
-                .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER);
+                .onErrorResume(e -> Mono.just(Result.unhealthy(COMPONENT_NAME, "Could not check tasks execution information", e)));
         }
     }
 
-    private Predicate<TaskExecutionDetails> finishedTask() {
-        return taskExecutionDetails -> taskExecutionDetails.getStatus().equals(COMPLETED);
-    }
-
-    private Function<GroupedFlux<TaskType, TaskExecutionDetails>, Publisher<? extends TaskExecutionDetails>> getTheLatestFinishedTask() {
-        return groupedTask -> groupedTask
-            .sort(Comparator.comparing(finishedTask -> finishedTask.getCompletedDate().get()))
-            .takeLast(1);
-    }
-
-    private Predicate<TaskExecutionDetails> complyAnyOfTasksHealthCheck(ZonedDateTime now) {
-        return finishedTask -> configuration.taskTypeDurationMap().entrySet()
-            .stream()
-            .anyMatch(entry -> matchTheTaskTypeAndInTheRequiredExecutionDuration(entry, finishedTask, now));
-    }
-
-    private boolean matchTheTaskTypeAndInTheRequiredExecutionDuration(Map.Entry<TaskType, Duration> entry, TaskExecutionDetails finishedTask, ZonedDateTime now) {
-        return entry.getKey().equals(finishedTask.getType()) && Duration.between(finishedTask.getCompletedDate().get(), now).compareTo(entry.getValue()) <= 0;
+    private Function<Map.Entry<TaskType, Duration>, Publisher<Boolean>> completedWithinRequiredDuration(Instant now) {
+        return entry -> Mono.from(latestTaskCompletionProjection.latestCompletion(entry.getKey()))
+            .map(latestCompletion -> Duration.between(latestCompletion, now).compareTo(entry.getValue()) <= 0)
+            .defaultIfEmpty(false);
     }
 
     private Function<Long, Result> evaluateHeathCheckResult() {
@@ -4,15 +4,22 @@ import java.io.FileNotFoundException;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.backends.cassandra.components.CassandraModule;
 import org.apache.james.core.healthcheck.HealthCheck;
+import org.apache.james.task.eventsourcing.TaskExecutionDetailsProjection;
+import org.apache.james.task.eventsourcing.cassandra.CassandraTaskExecutionDetailsProjection;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 import org.apache.james.utils.PropertiesProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
 
 public class TasksHeathCheckModule extends AbstractModule {
     private static final Logger LOGGER = LoggerFactory.getLogger(TasksHeathCheckModule.class);
@@ -22,6 +29,13 @@ public class TasksHeathCheckModule extends AbstractModule {
     protected void configure() {
         Multibinder<HealthCheck> healthCheckMultibinder = Multibinder.newSetBinder(binder(), HealthCheck.class);
         healthCheckMultibinder.addBinding().to(TasksHeathCheck.class);
+
+        bind(CassandraLatestTaskCompletionProjection.class).in(Scopes.SINGLETON);
+        bind(LatestTaskCompletionProjection.class).to(CassandraLatestTaskCompletionProjection.class);
+        bind(TaskExecutionDetailsProjection.class).to(LatestTaskCompletionTrackingProjection.class);
+
+        Multibinder.newSetBinder(binder(), CassandraModule.class)
+            .addBinding().toInstance(CassandraLatestTaskCompletionProjection.MODULE);
     }
 
     @Singleton
@@ -35,4 +49,21 @@ public class TasksHeathCheckModule extends AbstractModule {
             return TasksHealthCheckConfiguration.DEFAULT_CONFIGURATION;
         }
     }
+
+    @Singleton
+    @Provides
+    LatestTaskCompletionTrackingProjection latestTaskCompletionTrackingProjection(CassandraTaskExecutionDetailsProjection taskExecutionDetailsProjection,
+                                                                                LatestTaskCompletionProjection latestTaskCompletionProjection) {
+        return new LatestTaskCompletionTrackingProjection(taskExecutionDetailsProjection, latestTaskCompletionProjection);
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation backfillLatestTaskCompletions(LatestTaskCompletionTrackingProjection trackingProjection,
+                                                          TasksHealthCheckConfiguration configuration) {
+        return InitilizationOperationBuilder
+            .forClass(LatestTaskCompletionTrackingProjection.class)
+            .init(() -> trackingProjection.backfill(configuration.taskTypeDurationMap().keySet())
+                .subscribe(any -> { },
+                    e -> LOGGER.warn("Could not backfill the latest task completions", e)));
+    }
 }
@@ -0,0 +1,22 @@
+package com.linagora.tmail.healthcheck;
+
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class CassandraLatestTaskCompletionProjectionTest implements LatestTaskCompletionProjectionContract {
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(CassandraLatestTaskCompletionProjection.MODULE);
+
+    private CassandraLatestTaskCompletionProjection testee;
+
+    @BeforeEach
+    void setUp() {
+        testee = new CassandraLatestTaskCompletionProjection(cassandraCluster.getCassandraCluster().getConf());
+    }
+
+    @Override
+    public LatestTaskCompletionProjection testee() {
+        return testee;
+    }
+}
@@ -0,0 +1,72 @@
+package com.linagora.tmail.healthcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.apache.james.task.TaskType;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+interface LatestTaskCompletionProjectionContract {
+    TaskType TASK_TYPE_A = TaskType.of("TaskA");
+    TaskType TASK_TYPE_B = TaskType.of("TaskB");
+    Instant COMPLETED_DATE = Instant.parse("2022-10-10T00:00:00Z");
+
+    LatestTaskCompletionProjection testee();
+
+    @Test
+    default void latestCompletionShouldBeEmptyByDefault() {
+        assertThat(Mono.from(testee().latestCompletion(TASK_TYPE_A)).blockOptional()).isEmpty();
+    }
+
+    @Test
+    default void latestCompletionShouldReturnUpdatedDate() {
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE)).block();
+
+        assertThat(Mono.from(testee().latestCompletion(TASK_TYPE_A)).block()).isEqualTo(COMPLETED_DATE);
+    }
+
+    @Test
+    default void updateShouldKeepTheMostRecentCompletion() {
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE)).block();
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE.minusSeconds(3600))).block();
+
+        assertThat(Mono.from(testee().latestCompletion(TASK_TYPE_A)).block()).isEqualTo(COMPLETED_DATE);
+    }
+
+    @Test
+    default void updateShouldReplaceOlderCompletion() {
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE)).block();
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE.plusSeconds(3600))).block();
+
+        assertThat(Mono.from(testee().latestCompletion(TASK_TYPE_A)).block()).isEqualTo(COMPLETED_DATE.plusSeconds(3600));
+    }
+
+    @Test
+    default void updateShouldNotAffectOtherTaskTypes() {
+        Mono.from(testee().update(TASK_TYPE_A, COMPLETED_DATE)).block();
+
+        assertThat(Mono.from(testee().latestCompletion(TASK_TYPE_B)).blockOptional()).isEmpty();
+    }
+
+    @Test
+    default void isBackfilledShouldBeFalseByDefault() {
+        assertThat(Mono.from(testee().isBackfilled(TASK_TYPE_A)).block()).isFalse();
+    }
+
+    @Test
+    default void isBackfilledShouldBeTrueWhenMarked() {
+        Mono.from(testee().markBackfilled(TASK_TYPE_A)).block();
+
+        assertThat(Mono.from(testee().isBackfilled(TASK_TYPE_A)).block()).isTrue();
+    }
+
+    @Test
+    default void markBackfilledShouldNotAffectOtherTaskTypes() {
+        Mono.from(testee().markBackfilled(TASK_TYPE_A)).block();
+
+        assertThat(Mono.from(testee().isBackfilled(TASK_TYPE_B)).block()).isFalse();
+    }
+}
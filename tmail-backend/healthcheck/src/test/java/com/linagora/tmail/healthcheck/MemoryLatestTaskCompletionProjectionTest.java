@@ -0,0 +1,17 @@
+package com.linagora.tmail.healthcheck;
+
+import org.junit.jupiter.api.BeforeEach;
+
+class MemoryLatestTaskCompletionProjectionTest implements LatestTaskCompletionProjectionContract {
+    private MemoryLatestTaskCompletionProjection testee;
+
+    @BeforeEach
+    void setUp() {
+        testee = new MemoryLatestTaskCompletionProjection();
+    }
+
+    @Override
+    public LatestTaskCompletionProjection testee() {
+        return testee;
+    }
+}
@@ -20,6 +20,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
+import com.google.common.collect.ImmutableSet;
+
 import reactor.core.publisher.Mono;
 
 class TasksHeathCheckTest {
@@ -50,38 +52,40 @@ class TasksHeathCheckTest {
     private static final TaskExecutionDetails TASK_E_FAILED = new TaskExecutionDetails(TaskId.generateTaskId(), TASK_TYPE_E, TaskManager.Status.FAILED, SUBMITTED_DATE, SUBMITTED_NODE,
         Optional::empty, Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
 
+    private LatestTaskCompletionProjection latestTaskCompletionProjection;
     private TaskExecutionDetailsProjection tasksProjection;
     private TasksHeathCheck testee;
 
     @BeforeEach
     void setup() {
-        tasksProjection = new MemoryTaskExecutionDetailsProjection();
+        latestTaskCompletionProjection = new MemoryLatestTaskCompletionProjection();
+        tasksProjection = new LatestTaskCompletionTrackingProjection(new MemoryTaskExecutionDetailsProjection(), latestTaskCompletionProjection);
     }
 
     @Test
     void shouldReturnComponentName() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.DEFAULT_CONFIGURATION, new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.DEFAULT_CONFIGURATION, new UpdatableTickingClock(NOW.toInstant()));
 
         assertThat(testee.componentName().getName()).isEqualTo("Tasks execution");
     }
 
     @Test
     void shouldReturnHealthyWhenDefaultConfiguration() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.DEFAULT_CONFIGURATION, new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.DEFAULT_CONFIGURATION, new UpdatableTickingClock(NOW.toInstant()));
 
         assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.HEALTHY);
     }
 
     @Test
     void shouldReturnUnhealthyWhenNoCompletedTasks() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:5day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:5day"), new UpdatableTickingClock(NOW.toInstant()));
 
         assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.UNHEALTHY);
     }
 
     @Test
     void shouldReturnHealthyWhenATaskCompleted() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_A_COMPLETED_IN_TIME);
 
         assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.HEALTHY);
@@ -89,7 +93,7 @@ class TasksHeathCheckTest {
 
     @Test
     void onlyInProgressTaskShouldReturnUnhealthy() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskC:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskC:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_C_IN_PROGRESS);
 
         assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.UNHEALTHY);
@@ -97,7 +101,7 @@ class TasksHeathCheckTest {
 
     @Test
     void onlyCanceledAndFailedTasksShouldReturnUnhealthy() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskD:2day,TaskE:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskD:2day,TaskE:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_D_CANCELED);
         tasksProjection.update(TASK_E_FAILED);
 
@@ -106,7 +110,7 @@ class TasksHeathCheckTest {
 
     @Test
     void mixCaseWithOnlyOneCompletedTaskShouldReturnDegraded() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:5day,TaskC:2day,TaskD:2day,TaskE:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:5day,TaskC:2day,TaskD:2day,TaskE:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_A_COMPLETED_IN_TIME);
         tasksProjection.update(TASK_B_COMPLETED_NOT_IN_TIME_1);
         tasksProjection.update(TASK_C_IN_PROGRESS);
@@ -118,7 +122,7 @@ class TasksHeathCheckTest {
 
     @RepeatedTest(10)
     void shouldTakeTheLatestFinishedTaskForEachTaskTypeAndReturnHealthyWhenAllTasksFinishedWithinTime() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_1);
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_2);
         tasksProjection.update(TASK_A_COMPLETED_IN_TIME);
@@ -130,7 +134,7 @@ class TasksHeathCheckTest {
 
     @RepeatedTest(10)
     void shouldTakeTheLatestFinishedTaskForEachTaskTypeAndReturnDegradedWhenSomeTasksFinishedWithinTime() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_1);
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_2);
         tasksProjection.update(TASK_A_COMPLETED_IN_TIME);
@@ -142,7 +146,7 @@ class TasksHeathCheckTest {
 
     @RepeatedTest(10)
     void shouldTakeTheLatestFinishedTaskForEachTaskTypeAndReturnUnhealthyWhenNoTasksFinishedWithinTime() {
-        testee = new TasksHeathCheck(tasksProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_1);
         tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_2);
         tasksProjection.update(TASK_B_COMPLETED_NOT_IN_TIME_1);
@@ -150,4 +154,46 @@ class TasksHeathCheckTest {
 
         assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.UNHEALTHY);
     }
+
+    @Test
+    void backfillShouldRecordCompletionsMadeBeforeTracking() {
+        MemoryTaskExecutionDetailsProjection untrackedProjection = new MemoryTaskExecutionDetailsProjection();
+        untrackedProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_1);
+        untrackedProjection.update(TASK_A_COMPLETED_IN_TIME);
+        untrackedProjection.update(TASK_B_COMPLETED_IN_TIME);
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day,TaskB:2day"), new UpdatableTickingClock(NOW.toInstant()));
+
+        new LatestTaskCompletionTrackingProjection(untrackedProjection, latestTaskCompletionProjection)
+            .backfill(ImmutableSet.of(TASK_TYPE_A, TASK_TYPE_B))
+            .block();
+
+        assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.HEALTHY);
+    }
+
+    @Test
+    void backfillShouldNotOverrideKnownCompletions() {
+        MemoryTaskExecutionDetailsProjection untrackedProjection = new MemoryTaskExecutionDetailsProjection();
+        untrackedProjection.update(TASK_A_COMPLETED_IN_TIME);
+        tasksProjection.update(TASK_A_COMPLETED_NOT_IN_TIME_1);
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day"), new UpdatableTickingClock(NOW.toInstant()));
+
+        new LatestTaskCompletionTrackingProjection(untrackedProjection, latestTaskCompletionProjection)
+            .backfill(ImmutableSet.of(TASK_TYPE_A))
+            .block();
+
+        assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.UNHEALTHY);
+    }
+
+    @Test
+    void backfillShouldReadTheTaskHistoryOnlyOnce() {
+        MemoryTaskExecutionDetailsProjection untrackedProjection = new MemoryTaskExecutionDetailsProjection();
+        LatestTaskCompletionTrackingProjection trackingProjection = new LatestTaskCompletionTrackingProjection(untrackedProjection, latestTaskCompletionProjection);
+        testee = new TasksHeathCheck(latestTaskCompletionProjection, TasksHealthCheckConfiguration.from("TaskA:2day"), new UpdatableTickingClock(NOW.toInstant()));
+
+        trackingProjection.backfill(ImmutableSet.of(TASK_TYPE_A)).block();
+        untrackedProjection.update(TASK_A_COMPLETED_IN_TIME);
+        trackingProjection.backfill(ImmutableSet.of(TASK_TYPE_A)).block();
+
+        assertThat(Mono.from(testee.check()).block().getStatus()).isEqualTo(ResultStatus.UNHEALTHY);
+    }
 }
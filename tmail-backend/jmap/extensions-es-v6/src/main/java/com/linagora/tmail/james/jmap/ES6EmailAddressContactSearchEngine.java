@@ -7,9 +7,12 @@ import static com.linagora.tmail.james.jmap.ContactMappingFactory.EMAIL;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.FIRSTNAME;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.SURNAME;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -17,23 +20,30 @@ import javax.mail.internet.AddressException;
 
 import org.apache.james.backends.es.DocumentId;
 import org.apache.james.backends.es.ElasticSearchIndexer;
+import org.apache.james.backends.es.NodeMappingFactory;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
 import org.apache.james.backends.es.RoutingKey;
-import org.apache.james.backends.es.search.ScrolledSearch;
+import org.apache.james.backends.es.search.SearchAfterSearch;
 import org.apache.james.core.Domain;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
 import org.apache.james.jmap.api.model.AccountId;
 import org.apache.james.util.FunctionalUtils;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.reactivestreams.Publisher;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,18 +51,23 @@ import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.linagora.tmail.james.jmap.contact.ContactFields;
 import com.linagora.tmail.james.jmap.contact.ContactNotFoundException;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.UserContactIndexingBatcher;
+import com.linagora.tmail.james.jmap.contact.UserContactIndexingBatcher.PendingContact;
 import com.linagora.tmail.james.jmap.dto.DomainContactDocument;
 import com.linagora.tmail.james.jmap.dto.UserContactDocument;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public class ES6EmailAddressContactSearchEngine implements EmailAddressContactSearchEngine {
     private static final String DELIMITER = ":";
-    private static final TimeValue TIMEOUT = TimeValue.timeValueMinutes(1);
+    private static final int LISTING_PAGE_SIZE = 100;
 
     private static final String[] ALL_SEARCH_FIELDS = new String[]{EMAIL, FIRSTNAME, SURNAME};
     private final ElasticSearchIndexer userContactIndexer;
@@ -60,6 +75,7 @@ public class ES6EmailAddressContactSearchEngine implements EmailAddressContactSe
     private final ReactorElasticSearchClient client;
     private final ElasticSearchContactConfiguration configuration;
     private final ObjectMapper mapper;
+    private final UserContactIndexingBatcher userContactIndexingBatcher;
 
     @Inject
     public ES6EmailAddressContactSearchEngine(ReactorElasticSearchClient client, ElasticSearchContactConfiguration contactConfiguration) {
@@ -68,28 +84,79 @@ public class ES6EmailAddressContactSearchEngine implements EmailAddressContactSe
         this.domainContactIndexer = new ElasticSearchIndexer(client, contactConfiguration.getDomainContactWriteAliasName());
         this.configuration = contactConfiguration;
         this.mapper = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
+        this.userContactIndexingBatcher = new UserContactIndexingBatcher(this::indexUserContacts);
     }
 
     @Override
     public Publisher<EmailAddressContact> index(AccountId accountId, ContactFields fields) {
-        EmailAddressContact emailAddressContact = EmailAddressContact.of(fields);
+        return userContactIndexingBatcher.submit(accountId, fields)
+            .thenReturn(EmailAddressContact.of(fields));
+    }
+
+    private Mono<Map<PendingContact, Throwable>> indexUserContacts(Collection<PendingContact> contacts) {
+        return knownDomainContactIds(contacts)
+            .map(knownIds -> contacts.stream()
+                .filter(contact -> domainContactId(contact.accountId(), contact.fields().address())
+                    .map(id -> !knownIds.contains(id.asString()))
+                    .orElse(true))
+                .collect(ImmutableList.toImmutableList()))
+            .filter(contactsToIndex -> !contactsToIndex.isEmpty())
+            .flatMap(this::bulkIndexUserContacts);
+    }
 
-        SearchRequest checkDuplicatedContactOnDomainIndexRequest = new SearchRequest(configuration.getDomainContactReadAliasName().getValue())
+    private Mono<Set<String>> knownDomainContactIds(Collection<PendingContact> contacts) {
+        String[] domainContactIds = contacts.stream()
+            .flatMap(contact -> domainContactId(contact.accountId(), contact.fields().address()).stream())
+            .map(DocumentId::asString)
+            .distinct()
+            .toArray(String[]::new);
+        if (domainContactIds.length == 0) {
+            return Mono.just(ImmutableSet.of());
+        }
+
+        SearchRequest checkDuplicatedContactsOnDomainIndexRequest = new SearchRequest(configuration.getDomainContactReadAliasName().getValue())
             .source(new SearchSourceBuilder()
-                .query(QueryBuilders.boolQuery()
-                    .must(QueryBuilders.multiMatchQuery(fields.address().asString(), EMAIL))
-                    .should(QueryBuilders.termQuery(DOMAIN, Username.of(accountId.getIdentifier()).getDomainPart()
-                        .map(Domain::asString)
-                        .orElse("")))
-                    .minimumShouldMatch(1)));
-
-        return client.search(checkDuplicatedContactOnDomainIndexRequest, RequestOptions.DEFAULT)
-            .map(searchResponse -> searchResponse.getHits().getTotalHits())
-            .filter(hits -> hits == 0)
-            .flatMap(any -> Mono.fromCallable(() -> mapper.writeValueAsString(new UserContactDocument(accountId, emailAddressContact)))
-                .flatMap(content -> userContactIndexer.index(computeUserContactDocumentId(accountId, fields.address()), content,
-                    RoutingKey.fromString(fields.address().asString()))))
-            .thenReturn(emailAddressContact);
+                .query(QueryBuilders.idsQuery().addIds(domainContactIds))
+                .fetchSource(false)
+                .size(domainContactIds.length));
+
+        return client.search(checkDuplicatedContactsOnDomainIndexRequest, RequestOptions.DEFAULT)
+            .map(searchResponse -> Arrays.stream(searchResponse.getHits().getHits())
+                .map(SearchHit::getId)
+                .collect(ImmutableSet.toImmutableSet()));
+    }
+
+    private Optional<DocumentId> domainContactId(AccountId accountId, MailAddress address) {
+        return Username.of(accountId.getIdentifier()).getDomainPart()
+            .map(domain -> computeDomainContactDocumentId(domain, address));
+    }
+
+    private Mono<Map<PendingContact, Throwable>> bulkIndexUserContacts(List<PendingContact> contacts) {
+        return Mono.fromCallable(() -> {
+                BulkRequest request = new BulkRequest();
+                for (PendingContact contact : contacts) {
+                    request.add(new IndexRequest(configuration.getUserContactWriteAliasName().getValue())
+                        .type(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+                        .id(computeUserContactDocumentId(contact.accountId(), contact.fields().address()).asString())
+                        .source(mapper.writeValueAsBytes(new UserContactDocument(contact.accountId(), EmailAddressContact.of(contact.fields()))), XContentType.JSON)
+                        .routing(contact.fields().address().asString()));
+                }
+                return request;
+            })
+            .flatMap(request -> client.bulk(request, RequestOptions.DEFAULT))
+            .map(response -> failedContacts(contacts, response));
+    }
+
+    private Map<PendingContact, Throwable> failedContacts(List<PendingContact> contacts, BulkResponse response) {
+        // Bulk items are returned in the order of the requests
+        BulkItemResponse[] items = response.getItems();
+        ImmutableMap.Builder<PendingContact, Throwable> failures = ImmutableMap.builder();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].isFailed()) {
+                failures.put(contacts.get(i), items[i].getFailure().getCause());
+            }
+        }
+        return failures.build();
     }
 
     @Override
@@ -158,38 +225,41 @@ public class ES6EmailAddressContactSearchEngine implements EmailAddressContactSe
     @Override
     public Publisher<EmailAddressContact> list(AccountId accountId) {
         SearchRequest request = new SearchRequest(configuration.getUserContactReadAliasName().getValue())
-            .scroll(TIMEOUT)
-            .source(new SearchSourceBuilder()
-                .query(QueryBuilders.boolQuery()
-                    .should(QueryBuilders.termQuery(ACCOUNT_ID, accountId.getIdentifier()))
-                    .minimumShouldMatch(1)));
+            .source(listingSource(QueryBuilders.boolQuery()
+                .should(QueryBuilders.termQuery(ACCOUNT_ID, accountId.getIdentifier()))
+                .minimumShouldMatch(1)));
 
-        return new ScrolledSearch(client, request)
-            .searchHits()
-            .map(Throwing.function(this::extractContentFromHit).sneakyThrow());
+        return listContacts(request);
     }
 
     @Override
     public Publisher<EmailAddressContact> list(Domain domain) {
         SearchRequest request = new SearchRequest(configuration.getDomainContactReadAliasName().getValue())
-            .scroll(TIMEOUT)
-            .source(new SearchSourceBuilder()
-                .query(QueryBuilders.boolQuery()
-                    .should(QueryBuilders.termQuery(DOMAIN, domain.asString()))
-                    .minimumShouldMatch(1)));
+            .source(listingSource(QueryBuilders.boolQuery()
+                .should(QueryBuilders.termQuery(DOMAIN, domain.asString()))
+                .minimumShouldMatch(1)));
 
-        return new ScrolledSearch(client, request)
-            .searchHits()
-            .map(Throwing.function(this::extractContentFromHit).sneakyThrow());
+        return listContacts(request);
     }
 
     @Override
     public Publisher<EmailAddressContact> listDomainsContacts() {
         SearchRequest request = new SearchRequest(configuration.getDomainContactReadAliasName().getValue())
-            .scroll(TIMEOUT)
-            .source(new SearchSourceBuilder().query(QueryBuilders.matchAllQuery()));
+            .source(listingSource(QueryBuilders.matchAllQuery()));
+
+        return listContacts(request);
+    }
+
+    private SearchSourceBuilder listingSource(QueryBuilder query) {
+        // Contact ids are unique within both indices, hence a suitable search_after tie-breaker
+        return new SearchSourceBuilder()
+            .query(query)
+            .sort(SortBuilders.fieldSort(CONTACT_ID).order(SortOrder.ASC))
+            .size(LISTING_PAGE_SIZE);
+    }
 
-        return new ScrolledSearch(client, request)
+    private Flux<EmailAddressContact> listContacts(SearchRequest request) {
+        return new SearchAfterSearch(client, request)
             .searchHits()
             .map(Throwing.function(this::extractContentFromHit).sneakyThrow());
     }
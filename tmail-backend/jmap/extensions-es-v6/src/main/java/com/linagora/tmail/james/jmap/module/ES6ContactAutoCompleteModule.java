@@ -26,9 +26,11 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.linagora.tmail.james.jmap.ES6EmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.ElasticSearchContactConfiguration;
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.contact.ContactUserDeletionTaskStep;
 import com.linagora.tmail.james.jmap.contact.ContactUsernameChangeTaskStep;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.RecentlyIndexedContacts;
 
 public class ES6ContactAutoCompleteModule extends AbstractModule {
     public static final String ELASTICSEARCH_CONFIGURATION_NAME = "elasticsearch";
@@ -59,8 +61,6 @@ public class ES6ContactAutoCompleteModule extends AbstractModule {
     protected void configure() {
         bind(ES6EmailAddressContactSearchEngine.class).in(Scopes.SINGLETON);
 
-        bind(EmailAddressContactSearchEngine.class).to(ES6EmailAddressContactSearchEngine.class);
-
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
             .addBinding()
             .to(ContactUsernameChangeTaskStep.class);
@@ -69,6 +69,12 @@ public class ES6ContactAutoCompleteModule extends AbstractModule {
             .to(ContactUserDeletionTaskStep.class);
     }
 
+    @Provides
+    @Singleton
+    private EmailAddressContactSearchEngine provideEmailAddressContactSearchEngine(ES6EmailAddressContactSearchEngine searchEngine, RecentlyIndexedContacts recentlyIndexedContacts) {
+        return new CachingEmailAddressContactSearchEngine(searchEngine, recentlyIndexedContacts);
+    }
+
     @Provides
     @Singleton
     private ElasticSearchContactConfiguration getElasticSearchContactConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
@@ -7,8 +7,11 @@ import static com.linagora.tmail.james.jmap.ContactMappingFactory.EMAIL;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.FIRSTNAME;
 import static com.linagora.tmail.james.jmap.ContactMappingFactory.SURNAME;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -24,13 +27,18 @@ import org.apache.james.core.MailAddress;
 import org.apache.james.core.Username;
 import org.apache.james.jmap.api.model.AccountId;
 import org.apache.james.util.FunctionalUtils;
+import org.opensearch.client.opensearch._types.ErrorCause;
 import org.opensearch.client.opensearch._types.FieldValue;
 import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch._types.query_dsl.QueryBuilders;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
 import org.opensearch.client.opensearch.core.GetRequest;
 import org.opensearch.client.opensearch.core.GetResponse;
 import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
 import org.opensearch.client.opensearch.core.search.Hit;
 import org.reactivestreams.Publisher;
 
@@ -40,10 +48,14 @@ import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.linagora.tmail.james.jmap.contact.ContactFields;
 import com.linagora.tmail.james.jmap.contact.ContactNotFoundException;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContact;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.UserContactIndexingBatcher;
+import com.linagora.tmail.james.jmap.contact.UserContactIndexingBatcher.PendingContact;
 import com.linagora.tmail.james.jmap.dto.DomainContactDocument;
 import com.linagora.tmail.james.jmap.dto.UserContactDocument;
 
@@ -59,6 +71,7 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
     private final ReactorOpenSearchClient client;
     private final OpenSearchContactConfiguration configuration;
     private final ObjectMapper mapper;
+    private final UserContactIndexingBatcher userContactIndexingBatcher;
 
     @Inject
     public OSEmailAddressContactSearchEngine(ReactorOpenSearchClient client, OpenSearchContactConfiguration contactConfiguration) {
@@ -67,31 +80,83 @@ public class OSEmailAddressContactSearchEngine implements EmailAddressContactSea
         this.domainContactIndexer = new OpenSearchIndexer(client, contactConfiguration.getDomainContactWriteAliasName());
         this.configuration = contactConfiguration;
         this.mapper = new ObjectMapper().registerModule(new GuavaModule()).registerModule(new Jdk8Module());
+        this.userContactIndexingBatcher = new UserContactIndexingBatcher(this::indexUserContacts);
     }
 
     @Override
     public Publisher<EmailAddressContact> index(AccountId accountId, ContactFields fields) {
-        EmailAddressContact emailAddressContact = EmailAddressContact.of(fields);
+        return userContactIndexingBatcher.submit(accountId, fields)
+            .thenReturn(EmailAddressContact.of(fields));
+    }
 
-        SearchRequest checkDuplicatedContactOnDomainIndexRequest = new SearchRequest.Builder()
+    private Mono<Map<PendingContact, Throwable>> indexUserContacts(Collection<PendingContact> contacts) {
+        return knownDomainContactIds(contacts)
+            .map(knownIds -> contacts.stream()
+                .filter(contact -> domainContactId(contact.accountId(), contact.fields().address())
+                    .map(id -> !knownIds.contains(id.asString()))
+                    .orElse(true))
+                .collect(ImmutableList.toImmutableList()))
+            .filter(contactsToIndex -> !contactsToIndex.isEmpty())
+            .flatMap(this::bulkIndexUserContacts);
+    }
+
+    private Mono<Set<String>> knownDomainContactIds(Collection<PendingContact> contacts) {
+        List<String> domainContactIds = contacts.stream()
+            .flatMap(contact -> domainContactId(contact.accountId(), contact.fields().address()).stream())
+            .map(DocumentId::asString)
+            .distinct()
+            .collect(ImmutableList.toImmutableList());
+        if (domainContactIds.isEmpty()) {
+            return Mono.just(ImmutableSet.of());
+        }
+
+        SearchRequest checkDuplicatedContactsOnDomainIndexRequest = new SearchRequest.Builder()
             .index(configuration.getDomainContactReadAliasName().getValue())
-            .query(QueryBuilders.bool()
-                .must(QueryBuilders.multiMatch().fields(EMAIL).query(fields.address().asString()).build()._toQuery())
-                .should(QueryBuilders.term().field(DOMAIN).value(new FieldValue.Builder().stringValue(Username.of(accountId.getIdentifier()).getDomainPart()
-                    .map(Domain::asString)
-                    .orElse("")).build()).build()._toQuery())
-                .minimumShouldMatch("1")
-                .build()._toQuery())
+            .query(QueryBuilders.ids().values(domainContactIds).build()._toQuery())
+            .source(source -> source.fetch(false))
+            .size(domainContactIds.size())
             .build();
 
-        return Throwing.supplier(() -> client.search(checkDuplicatedContactOnDomainIndexRequest)).sneakyThrow()
+        return Throwing.supplier(() -> client.search(checkDuplicatedContactsOnDomainIndexRequest)).sneakyThrow()
             .get()
-            .map(searchResponse -> searchResponse.hits().total().value())
-            .filter(hits -> hits == 0)
-            .flatMap(any -> Mono.fromCallable(() -> mapper.writeValueAsString(new UserContactDocument(accountId, emailAddressContact)))
-                .flatMap(content -> userContactIndexer.index(computeUserContactDocumentId(accountId, fields.address()), content,
-                    RoutingKey.fromString(fields.address().asString()))))
-            .thenReturn(emailAddressContact);
+            .map(searchResponse -> searchResponse.hits().hits().stream()
+                .map(Hit::id)
+                .collect(ImmutableSet.toImmutableSet()));
+    }
+
+    private Optional<DocumentId> domainContactId(AccountId accountId, MailAddress address) {
+        return Username.of(accountId.getIdentifier()).getDomainPart()
+            .map(domain -> computeDomainContactDocumentId(domain, address));
+    }
+
+    private Mono<Map<PendingContact, Throwable>> bulkIndexUserContacts(List<PendingContact> contacts) {
+        List<BulkOperation> operations = contacts.stream()
+            .map(contact -> BulkOperation.of(operation -> operation.index(index -> index
+                .index(configuration.getUserContactWriteAliasName().getValue())
+                .id(computeUserContactDocumentId(contact.accountId(), contact.fields().address()).asString())
+                .routing(contact.fields().address().asString())
+                .document(mapper.valueToTree(new UserContactDocument(contact.accountId(), EmailAddressContact.of(contact.fields())))))))
+            .collect(ImmutableList.toImmutableList());
+        BulkRequest request = new BulkRequest.Builder()
+            .operations(operations)
+            .build();
+
+        return Throwing.supplier(() -> client.bulk(request)).sneakyThrow()
+            .get()
+            .map(response -> failedContacts(contacts, response));
+    }
+
+    private Map<PendingContact, Throwable> failedContacts(List<PendingContact> contacts, BulkResponse response) {
+        // Bulk items are returned in the order of the requests
+        List<BulkResponseItem> items = response.items();
+        ImmutableMap.Builder<PendingContact, Throwable> failures = ImmutableMap.builder();
+        for (int i = 0; i < items.size(); i++) {
+            ErrorCause error = items.get(i).error();
+            if (error != null) {
+                failures.put(contacts.get(i), new IllegalStateException("Failed to index user contact: " + error.reason()));
+            }
+        }
+        return failures.build();
     }
 
     @Override
@@ -25,9 +25,11 @@ import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
 import com.linagora.tmail.james.jmap.OSEmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.OpenSearchContactConfiguration;
+import com.linagora.tmail.james.jmap.contact.CachingEmailAddressContactSearchEngine;
 import com.linagora.tmail.james.jmap.contact.ContactUserDeletionTaskStep;
 import com.linagora.tmail.james.jmap.contact.ContactUsernameChangeTaskStep;
 import com.linagora.tmail.james.jmap.contact.EmailAddressContactSearchEngine;
+import com.linagora.tmail.james.jmap.contact.RecentlyIndexedContacts;
 
 public class OSContactAutoCompleteModule extends AbstractModule {
     public static final String OPENSEARCH_CONFIGURATION_NAME = "opensearch";
@@ -58,8 +60,6 @@ public class OSContactAutoCompleteModule extends AbstractModule {
     protected void configure() {
         bind(OSEmailAddressContactSearchEngine.class).in(Scopes.SINGLETON);
 
-        bind(EmailAddressContactSearchEngine.class).to(OSEmailAddressContactSearchEngine.class);
-
         Multibinder.newSetBinder(binder(), UsernameChangeTaskStep.class)
             .addBinding()
             .to(ContactUsernameChangeTaskStep.class);
@@ -68,6 +68,12 @@ public class OSContactAutoCompleteModule extends AbstractModule {
             .to(ContactUserDeletionTaskStep.class);
     }
 
+    @Provides
+    @Singleton
+    private EmailAddressContactSearchEngine provideEmailAddressContactSearchEngine(OSEmailAddressContactSearchEngine searchEngine, RecentlyIndexedContacts recentlyIndexedContacts) {
+        return new CachingEmailAddressContactSearchEngine(searchEngine, recentlyIndexedContacts);
+    }
+
     @Provides
     @Singleton
     private OpenSearchContactConfiguration getOpenSearchContactConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException {
@@ -0,0 +1,69 @@
+package com.linagora.tmail.james.jmap.contact;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.jmap.api.model.AccountId;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.linagora.tmail.coalescing.KeyedCoalescer;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Groups user contacts indexed concurrently (typically one per recipient of a sent mail) into batches, so that search
+ * engines can check them against domain contacts and write them with a constant number of requests per batch.
+ *
+ * Contacts submitted several times for the same account within a batch are written once, with their latest fields.
+ * A batch is written once it holds {@code maxBatchSize} contacts, or {@code maxLatency} after its first contact, see
+ * {@link KeyedCoalescer}. The {@link Mono} returned by {@link #submit(AccountId, ContactFields)} completes once the
+ * batch is written. It fails when the whole write fails, or when its own contact could not be written.
+ */
+public class UserContactIndexingBatcher {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(20);
+
+    public record PendingContact(AccountId accountId, ContactFields fields) {
+
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+        /**
+         * Returns the failure of each contact that could not be written. Other contacts, or all of them when the
+         * returned {@link Mono} is empty, are considered written.
+         */
+        Mono<Map<PendingContact, Throwable>> write(Collection<PendingContact> contacts);
+    }
+
+    private record ContactKey(AccountId accountId, MailAddress address) {
+        static ContactKey of(PendingContact contact) {
+            return new ContactKey(contact.accountId(), contact.fields().address());
+        }
+    }
+
+    private final KeyedCoalescer<ContactKey, PendingContact> coalescer;
+
+    public UserContactIndexingBatcher(Writer writer) {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LATENCY, writer);
+    }
+
+    public UserContactIndexingBatcher(int maxBatchSize, Duration maxLatency, Writer writer) {
+        Preconditions.checkArgument(maxBatchSize > 0, "'maxBatchSize' needs to be strictly positive");
+        Preconditions.checkArgument(!maxLatency.isNegative(), "'maxLatency' needs to be positive");
+
+        this.coalescer = new KeyedCoalescer<>(maxBatchSize, maxLatency, (previous, latest) -> latest,
+            contacts -> writer.write(ImmutableList.copyOf(contacts.values()))
+                .map(failures -> failures.entrySet().stream()
+                    .collect(ImmutableMap.toImmutableMap(failure -> ContactKey.of(failure.getKey()), Map.Entry::getValue))));
+    }
+
+    public Mono<Void> submit(AccountId accountId, ContactFields fields) {
+        PendingContact contact = new PendingContact(accountId, fields);
+        return coalescer.submit(ContactKey.of(contact), contact);
+    }
+}
@@ -7,6 +7,8 @@ import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.events.EventListener;
 import org.apache.james.jmap.method.Method;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 import org.apache.james.utils.PropertiesProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +18,7 @@ import com.google.inject.Provides;
 import com.google.inject.Scopes;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
 import com.linagora.tmail.james.jmap.method.FirebaseCapabilitiesModule;
 import com.linagora.tmail.james.jmap.method.FirebaseSubscriptionGetMethod;
 import com.linagora.tmail.james.jmap.method.FirebaseSubscriptionSetMethod;
@@ -37,6 +40,8 @@ public class FirebaseCommonModule extends AbstractModule {
             .to(FirebaseSubscriptionSetMethod.class);
 
         bind(FirebasePushClient.class).in(Scopes.SINGLETON);
+        bind(FirebasePushAggregator.class).in(Scopes.SINGLETON);
+        bind(FirebaseSubscriptionCache.class).in(Scopes.SINGLETON);
 
         Multibinder.newSetBinder(binder(), EventListener.ReactiveGroupEventListener.class)
             .addBinding().to(FirebasePushListener.class);
@@ -53,4 +58,23 @@ public class FirebaseCommonModule extends AbstractModule {
                 return new MissingOrInvalidFirebaseCredentialException("Missing required `privatekey.url` declaration for Firebase configuration.");
             });
     }
+
+    @Provides
+    @Singleton
+    FirebasePushAggregationConfiguration firebasePushAggregationConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException, FileNotFoundException {
+        return FirebasePushAggregationConfiguration.from(propertiesProvider.getConfiguration("firebase"));
+    }
+
+    @Provides
+    @Singleton
+    FirebaseSubscriptionCacheConfiguration firebaseSubscriptionCacheConfiguration(PropertiesProvider propertiesProvider) throws ConfigurationException, FileNotFoundException {
+        return FirebaseSubscriptionCacheConfiguration.from(propertiesProvider.getConfiguration("firebase"));
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation startFirebasePushAggregator(FirebasePushAggregator aggregator) {
+        return InitilizationOperationBuilder
+            .forClass(FirebasePushAggregator.class)
+            .init(aggregator::start);
+    }
 }
@@ -0,0 +1,45 @@
+package com.linagora.tmail.james.jmap.firebase;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record FirebasePushAggregationConfiguration(Optional<Duration> window,
+                                                   int batchSize,
+                                                   int maxInFlightBatches) {
+    static final String WINDOW_PROPERTY = "push.aggregation.window";
+    static final String BATCH_SIZE_PROPERTY = "push.aggregation.batch.size";
+    static final String MAX_IN_FLIGHT_BATCHES_PROPERTY = "push.aggregation.max.inflight.batches";
+
+    // FCM rejects batches of more than 500 messages
+    static final int MAX_BATCH_SIZE = 500;
+    static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+
+    public static final FirebasePushAggregationConfiguration DISABLED = new FirebasePushAggregationConfiguration(Optional.empty(),
+        MAX_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT_BATCHES);
+
+    public static FirebasePushAggregationConfiguration from(Configuration configuration) {
+        return new FirebasePushAggregationConfiguration(
+            Optional.ofNullable(configuration.getString(WINDOW_PROPERTY, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.MILLIS)),
+            configuration.getInt(BATCH_SIZE_PROPERTY, MAX_BATCH_SIZE),
+            configuration.getInt(MAX_IN_FLIGHT_BATCHES_PROPERTY, DEFAULT_MAX_IN_FLIGHT_BATCHES));
+    }
+
+    public FirebasePushAggregationConfiguration {
+        Preconditions.checkArgument(window.map(value -> !value.isNegative() && !value.isZero()).orElse(true),
+            "'%s' needs to be strictly positive", WINDOW_PROPERTY);
+        Preconditions.checkArgument(batchSize > 0 && batchSize <= MAX_BATCH_SIZE,
+            "'%s' needs to be within [1, %s]", BATCH_SIZE_PROPERTY, MAX_BATCH_SIZE);
+        Preconditions.checkArgument(maxInFlightBatches > 0, "'%s' needs to be strictly positive", MAX_IN_FLIGHT_BATCHES_PROPERTY);
+    }
+
+    public boolean enabled() {
+        return window.isPresent();
+    }
+}
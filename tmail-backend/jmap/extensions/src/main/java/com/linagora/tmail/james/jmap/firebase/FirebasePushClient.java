@@ -3,7 +3,9 @@ package com.linagora.tmail.james.jmap.firebase;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
 
 import javax.inject.Inject;
 
@@ -12,16 +14,19 @@ import org.slf4j.LoggerFactory;
 
 import com.google.api.core.ApiFuture;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.messaging.AndroidConfig;
 import com.google.firebase.messaging.ApnsConfig;
 import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
 import com.google.firebase.messaging.WebpushConfig;
 import com.linagora.tmail.james.jmap.model.FirebaseToken;
 import com.linagora.tmail.james.jmap.model.MissingOrInvalidFirebaseCredentialException;
@@ -60,6 +65,27 @@ public class FirebasePushClient {
         return sendReactive(createFcmMessage(pushRequest), !DRY_RUN);
     }
 
+    /**
+     * Sends several push requests at once, relying on the FCM batch API. The results are in the order of the requests.
+     */
+    public Mono<List<FirebasePushResult>> pushBatch(List<FirebasePushRequest> pushRequests) {
+        List<Message> fcmMessages = pushRequests.stream()
+            .map(this::createFcmMessage)
+            .collect(ImmutableList.toImmutableList());
+
+        return sendEachReactive(fcmMessages)
+            .map(batchResponse -> IntStream.range(0, pushRequests.size())
+                .mapToObj(i -> asPushResult(pushRequests.get(i), batchResponse.getResponses().get(i)))
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    private FirebasePushResult asPushResult(FirebasePushRequest pushRequest, SendResponse sendResponse) {
+        if (sendResponse.isSuccessful()) {
+            return FirebasePushResult.success(pushRequest);
+        }
+        return FirebasePushResult.failure(pushRequest, sendResponse.getException());
+    }
+
     public Mono<Boolean> validateToken(FirebaseToken token) {
         return sendReactive(createEmptyMessage(token), DRY_RUN)
             .thenReturn(true)
@@ -115,6 +141,22 @@ public class FirebasePushClient {
             .build();
     }
 
+    private Mono<BatchResponse> sendEachReactive(List<Message> fcmMessages) {
+        return Mono.create(sink -> {
+            ApiFuture<BatchResponse> apiFuture = firebaseMessaging.sendEachAsync(fcmMessages, !DRY_RUN);
+            apiFuture.addListener(() -> {
+                try {
+                    sink.success(apiFuture.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    sink.error(e.getCause());
+                }
+            }, MoreExecutors.directExecutor());
+        });
+    }
+
     private Mono<Void> sendReactive(Message fcmMessage, boolean dryRun) {
         return Mono.create(sink -> {
             ApiFuture<String> apiFuture = firebaseMessaging.sendAsync(fcmMessage, dryRun);
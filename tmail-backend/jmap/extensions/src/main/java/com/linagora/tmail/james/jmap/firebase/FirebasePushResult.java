@@ -0,0 +1,15 @@
+package com.linagora.tmail.james.jmap.firebase;
+
+import java.util.Optional;
+
+import com.google.firebase.messaging.FirebaseMessagingException;
+
+public record FirebasePushResult(FirebasePushRequest request, Optional<FirebaseMessagingException> error) {
+    public static FirebasePushResult success(FirebasePushRequest request) {
+        return new FirebasePushResult(request, Optional.empty());
+    }
+
+    public static FirebasePushResult failure(FirebasePushRequest request, FirebaseMessagingException error) {
+        return new FirebasePushResult(request, Optional.of(error));
+    }
+}
@@ -0,0 +1,38 @@
+package com.linagora.tmail.james.jmap.firebase;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record FirebaseSubscriptionCacheConfiguration(boolean enabled, Duration ttl, long maximumSize) {
+    static final String ENABLED_PROPERTY = "subscription.cache.enabled";
+    static final String TTL_PROPERTY = "subscription.cache.ttl";
+    static final String MAXIMUM_SIZE_PROPERTY = "subscription.cache.maximum.size";
+
+    // Other nodes only see subscription changes once their entry expires
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+    static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+    public static final FirebaseSubscriptionCacheConfiguration ENABLED = new FirebaseSubscriptionCacheConfiguration(true, DEFAULT_TTL, DEFAULT_MAXIMUM_SIZE);
+    public static final FirebaseSubscriptionCacheConfiguration DISABLED = new FirebaseSubscriptionCacheConfiguration(false, DEFAULT_TTL, DEFAULT_MAXIMUM_SIZE);
+
+    // Opt-in: subscriptions created on another node are only pushed once the local entry expires
+    public static FirebaseSubscriptionCacheConfiguration from(Configuration configuration) {
+        return new FirebaseSubscriptionCacheConfiguration(
+            configuration.getBoolean(ENABLED_PROPERTY, false),
+            Optional.ofNullable(configuration.getString(TTL_PROPERTY, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+                .orElse(DEFAULT_TTL),
+            configuration.getLong(MAXIMUM_SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE));
+    }
+
+    public FirebaseSubscriptionCacheConfiguration {
+        Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "'%s' needs to be strictly positive", TTL_PROPERTY);
+        Preconditions.checkArgument(maximumSize > 0, "'%s' needs to be strictly positive", MAXIMUM_SIZE_PROPERTY);
+    }
+}
@@ -0,0 +1,57 @@
+package com.linagora.tmail.james.jmap.contact
+
+import org.apache.james.core.{Domain, MailAddress}
+import org.apache.james.jmap.api.model.AccountId
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+/**
+ * Skips indexing again an unchanged user contact (the common case of writing to a known correspondent) recently
+ * indexed by this node, see RecentlyIndexedContacts.
+ */
+class CachingEmailAddressContactSearchEngine(underlying: EmailAddressContactSearchEngine,
+                                             recentlyIndexedContacts: RecentlyIndexedContacts) extends EmailAddressContactSearchEngine {
+
+  def isRecentlyIndexed(accountId: AccountId, fields: ContactFields): Boolean =
+    recentlyIndexedContacts.contains(accountId, fields)
+
+  override def index(accountId: AccountId, fields: ContactFields): Publisher[EmailAddressContact] =
+    if (isRecentlyIndexed(accountId, fields)) {
+      SMono.just(EmailAddressContact.of(fields))
+    } else {
+      SMono.fromPublisher(underlying.index(accountId, fields))
+        .doOnNext(_ => recentlyIndexedContacts.record(accountId, fields))
+    }
+
+  override def index(domain: Domain, fields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.index(domain, fields))
+      .doFinally(_ => recentlyIndexedContacts.invalidateAllAccounts(fields.address))
+
+  override def update(accountId: AccountId, updatedFields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.update(accountId, updatedFields))
+      .doFinally(_ => recentlyIndexedContacts.invalidate(accountId, updatedFields.address))
+
+  override def update(domain: Domain, updatedFields: ContactFields): Publisher[EmailAddressContact] =
+    SMono.fromPublisher(underlying.update(domain, updatedFields))
+      .doFinally(_ => recentlyIndexedContacts.invalidateAllAccounts(updatedFields.address))
+
+  override def delete(accountId: AccountId, mailAddress: MailAddress): Publisher[Void] =
+    SMono.fromPublisher(underlying.delete(accountId, mailAddress))
+      .doFinally(_ => recentlyIndexedContacts.invalidate(accountId, mailAddress))
+
+  override def delete(domain: Domain, mailAddress: MailAddress): Publisher[Void] =
+    SMono.fromPublisher(underlying.delete(domain, mailAddress))
+      .doFinally(_ => recentlyIndexedContacts.invalidateAllAccounts(mailAddress))
+
+  override def autoComplete(accountId: AccountId, part: String, limit: Int): Publisher[EmailAddressContact] = underlying.autoComplete(accountId, part, limit)
+
+  override def list(accountId: AccountId): Publisher[EmailAddressContact] = underlying.list(accountId)
+
+  override def list(domain: Domain): Publisher[EmailAddressContact] = underlying.list(domain)
+
+  override def listDomainsContacts(): Publisher[EmailAddressContact] = underlying.listDomainsContacts()
+
+  override def get(accountId: AccountId, mailAddress: MailAddress): Publisher[EmailAddressContact] = underlying.get(accountId, mailAddress)
+
+  override def get(domain: Domain, mailAddress: MailAddress): Publisher[EmailAddressContact] = underlying.get(domain, mailAddress)
+}
@@ -0,0 +1,117 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.util.concurrent.locks.ReentrantReadWriteLock
+
+import com.google.common.collect.ImmutableList
+import org.apache.james.core.MailAddress
+
+import scala.jdk.CollectionConverters._
+
+object ContactNgramIndex {
+  val NGRAM_SIZE: Int = 3
+
+  private case class IndexedContact(contact: EmailAddressContact, normalizedFields: Seq[String]) {
+    def matches(normalizedPart: String): Boolean = normalizedFields.exists(_.contains(normalizedPart))
+  }
+
+  def normalize(value: String): String = value.toLowerCase
+
+  /**
+   * Contacts are sorted by this key, so that results merged out of several indexes keep the order of each index.
+   */
+  def key(address: MailAddress): String = normalize(address.asString())
+
+  private def ngrams(normalizedValue: String): Set[String] =
+    normalizedValue.sliding(NGRAM_SIZE).filter(_.length == NGRAM_SIZE).toSet
+
+  private def index(contact: EmailAddressContact): IndexedContact =
+    IndexedContact(contact, Seq(contact.fields.address.asString(), contact.fields.firstname, contact.fields.surname)
+      .map(normalize))
+}
+
+/**
+ * Contacts of a single account or domain, indexed by the trigrams of their normalized address, firstname and surname.
+ * Addresses are looked up case-insensitively.
+ *
+ * Contacts are kept sorted by address, so that searches for parts shorter than a trigram can stop after
+ * {@code limit} matches, while longer parts only need to check the contacts sharing the rarest trigram of the part.
+ */
+class ContactNgramIndex {
+  import ContactNgramIndex._
+
+  private val lock: ReentrantReadWriteLock = new ReentrantReadWriteLock()
+  private val contactsByAddress: java.util.TreeMap[String, IndexedContact] = new java.util.TreeMap()
+  private val postings: java.util.HashMap[String, java.util.Set[String]] = new java.util.HashMap()
+
+  def put(contact: EmailAddressContact): Unit = write { () =>
+    val contactKey: String = key(contact.fields.address)
+    removeUnlocked(contactKey)
+    val indexedContact: IndexedContact = ContactNgramIndex.index(contact)
+    contactsByAddress.put(contactKey, indexedContact)
+    indexedContact.normalizedFields.flatMap(ngrams).foreach(ngram =>
+      postings.computeIfAbsent(ngram, _ => new java.util.HashSet()).add(contactKey))
+  }
+
+  def remove(address: MailAddress): Unit = write(() => removeUnlocked(key(address)))
+
+  def get(address: MailAddress): Option[EmailAddressContact] = read(() =>
+    Option(contactsByAddress.get(key(address))).map(_.contact))
+
+  def contains(address: MailAddress): Boolean = read(() => contactsByAddress.containsKey(key(address)))
+
+  def all(): Seq[EmailAddressContact] = read(() =>
+    ImmutableList.copyOf(contactsByAddress.values()).asScala.toSeq.map(_.contact))
+
+  def search(normalizedPart: String, limit: Int): Seq[EmailAddressContact] = read { () =>
+    if (normalizedPart.length < NGRAM_SIZE) {
+      contactsByAddress.values().asScala.iterator
+        .filter(_.matches(normalizedPart))
+        .take(limit)
+        .map(_.contact)
+        .toSeq
+    } else {
+      rarestPosting(normalizedPart)
+        .map(candidates => candidates.asScala.toSeq
+          .map(contactsByAddress.get)
+          .filter(_.matches(normalizedPart))
+          .sortBy(indexedContact => key(indexedContact.contact.fields.address))
+          .take(limit)
+          .map(_.contact))
+        .getOrElse(Seq.empty)
+    }
+  }
+
+  private def rarestPosting(normalizedPart: String): Option[java.util.Set[String]] = {
+    val partPostings: Seq[java.util.Set[String]] = ngrams(normalizedPart).toSeq
+      .map(ngram => Option(postings.get(ngram)).getOrElse(java.util.Set.of[String]()))
+    partPostings.minByOption(_.size())
+  }
+
+  private def removeUnlocked(contactKey: String): Unit =
+    Option(contactsByAddress.remove(contactKey))
+      .foreach(previous => previous.normalizedFields.flatMap(ngrams).foreach(ngram =>
+        Option(postings.get(ngram)).foreach(keys => {
+          keys.remove(contactKey)
+          if (keys.isEmpty) {
+            postings.remove(ngram)
+          }
+        })))
+
+  private def read[T](operation: () => T): T = {
+    lock.readLock().lock()
+    try {
+      operation()
+    } finally {
+      lock.readLock().unlock()
+    }
+  }
+
+  private def write[T](operation: () => T): T = {
+    lock.writeLock().lock()
+    try {
+      operation()
+    } finally {
+      lock.writeLock().unlock()
+    }
+  }
+}
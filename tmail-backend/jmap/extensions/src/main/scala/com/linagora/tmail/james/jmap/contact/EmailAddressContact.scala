@@ -2,8 +2,8 @@ package com.linagora.tmail.james.jmap.contact
 
 import java.nio.charset.StandardCharsets
 import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
 
-import com.google.common.collect.{HashBasedTable, ImmutableList, Table, Tables}
 import com.google.inject.multibindings.Multibinder
 import com.google.inject.{AbstractModule, Scopes}
 import org.apache.james.core.{Domain, MailAddress, Username}
@@ -88,74 +88,63 @@ case class TmailContactUserAddedEvent(eventId: EventId, username: Username, cont
 }
 
 class InMemoryEmailAddressContactSearchEngine extends EmailAddressContactSearchEngine {
-  private val userContactList: Table[AccountId, MailAddress, EmailAddressContact] = Tables.synchronizedTable(HashBasedTable.create())
-  private val domainContactList: Table[Domain, MailAddress, EmailAddressContact] = Tables.synchronizedTable(HashBasedTable.create())
+  private val userContactIndexes: ConcurrentHashMap[AccountId, ContactNgramIndex] = new ConcurrentHashMap()
+  private val domainContactIndexes: ConcurrentHashMap[Domain, ContactNgramIndex] = new ConcurrentHashMap()
 
   override def index(accountId: AccountId, fields: ContactFields): Publisher[EmailAddressContact] =
-    index(accountId, EmailAddressContact.of(fields))
-
-  private def index(accountId: AccountId, addressContact: EmailAddressContact) =
-    SFlux.fromIterable(domainContactList.values().asScala)
-      .filter(contact => contact.fields.address.equals(addressContact.fields.address))
-      .count()
-      .map(hits => hits == 0)
-      .flatMap(_ => SMono.fromCallable(() => userContactList.put(accountId, addressContact.fields.address, addressContact)))
-      .`then`(SMono.just(addressContact))
+    put(userContactIndexes.computeIfAbsent(accountId, _ => new ContactNgramIndex()), EmailAddressContact.of(fields))
 
   override def index(domain: Domain, fields: ContactFields): Publisher[EmailAddressContact] =
-    index(domain, EmailAddressContact.of(fields))
+    put(domainContactIndexes.computeIfAbsent(domain, _ => new ContactNgramIndex()), EmailAddressContact.of(fields))
 
-  private def index(domain: Domain, addressContact: EmailAddressContact): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => domainContactList.put(domain, addressContact.fields.address, addressContact))
+  private def put(index: ContactNgramIndex, addressContact: EmailAddressContact): SMono[EmailAddressContact] =
+    SMono.fromCallable(() => index.put(addressContact))
       .`then`(SMono.just(addressContact))
 
   override def update(accountId: AccountId, updatedFields: ContactFields): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => userContactList.put(accountId, updatedFields.address, EmailAddressContact.of(updatedFields)))
+    index(accountId, updatedFields)
 
   override def update(domain: Domain, updatedFields: ContactFields): Publisher[EmailAddressContact] =
-    SMono.fromCallable(() => domainContactList.put(domain, updatedFields.address, EmailAddressContact.of(updatedFields)))
+    index(domain, updatedFields)
 
   override def delete(accountId: AccountId, mailAddress: MailAddress): Publisher[Void] =
-    SMono.fromCallable(() => userContactList.remove(accountId, mailAddress))
+    SMono.fromCallable(() => Option(userContactIndexes.get(accountId)).foreach(_.remove(mailAddress)))
       .`then`()
 
   override def delete(domain: Domain, mailAddress: MailAddress): Publisher[Void] =
-    SMono.fromCallable(() => domainContactList.remove(domain, mailAddress))
+    SMono.fromCallable(() => Option(domainContactIndexes.get(domain)).foreach(_.remove(mailAddress)))
       .`then`()
 
   override def autoComplete(accountId: AccountId, part: String, limit: Int): Publisher[EmailAddressContact] = {
-    val maybeDomain: Option[Domain] = Username.of(accountId.getIdentifier).getDomainPart.toScala
-    SFlux.concat(
-      maybeDomain.map(domain => SFlux.fromIterable(domainContactList.row(domain).values().asScala)).getOrElse(SFlux.empty),
-      SFlux.fromIterable(userContactList.row(accountId).values().asScala))
-      .filter(lowerCaseContact(_).fields.contains(part.toLowerCase))
-      .sort(Ordering.by[EmailAddressContact, String](contact => contact.fields.address.asString))
-      .distinct(_.id)
-      .take(limit)
+    val normalizedPart: String = ContactNgramIndex.normalize(part)
+    val domainContacts: Seq[EmailAddressContact] = Username.of(accountId.getIdentifier).getDomainPart.toScala
+      .flatMap(domain => Option(domainContactIndexes.get(domain)))
+      .map(_.search(normalizedPart, limit))
+      .getOrElse(Seq.empty)
+    val userContacts: Seq[EmailAddressContact] = Option(userContactIndexes.get(accountId))
+      .map(_.search(normalizedPart, limit))
+      .getOrElse(Seq.empty)
+
+    SFlux.fromIterable((domainContacts ++ userContacts)
+      .sortBy(contact => ContactNgramIndex.key(contact.fields.address))
+      .distinctBy(_.id)
+      .take(limit))
   }
 
-  private def lowerCaseContact(contact: EmailAddressContact): EmailAddressContact =
-    EmailAddressContact(contact.id, ContactFields(address = new MailAddress(contact.fields.address.asString().toLowerCase),
-      firstname = contact.fields.firstname.toLowerCase, surname = contact.fields.surname.toLowerCase))
-
   override def list(accountId: AccountId): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(userContactList.row(accountId).values()).asScala)
+    SFlux.fromIterable(Option(userContactIndexes.get(accountId)).map(_.all()).getOrElse(Seq.empty))
 
   override def list(domain: Domain): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.row(domain).values()).asScala)
+    SFlux.fromIterable(Option(domainContactIndexes.get(domain)).map(_.all()).getOrElse(Seq.empty))
 
   override def listDomainsContacts(): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.values()).asScala)
+    SFlux.fromIterable(domainContactIndexes.values().asScala.toSeq.flatMap(_.all()))
 
   override def get(accountId: AccountId, mailAddress: MailAddress): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(userContactList.row(accountId).values()).asScala)
-      .filter(lowerCaseContact(_).fields.address.equals(mailAddress))
-      .singleOrEmpty()
+    SMono.justOrEmpty(Option(userContactIndexes.get(accountId)).flatMap(_.get(mailAddress)))
       .switchIfEmpty(SMono.error(ContactNotFoundException(mailAddress)))
 
   override def get(domain: Domain, mailAddress: MailAddress): Publisher[EmailAddressContact] =
-    SFlux.fromIterable(ImmutableList.copyOf(domainContactList.row(domain).values()).asScala)
-      .filter(lowerCaseContact(_).fields.address.equals(mailAddress))
-      .singleOrEmpty()
+    SMono.justOrEmpty(Option(domainContactIndexes.get(domain)).flatMap(_.get(mailAddress)))
       .switchIfEmpty(SMono.error(ContactNotFoundException(mailAddress)))
 }
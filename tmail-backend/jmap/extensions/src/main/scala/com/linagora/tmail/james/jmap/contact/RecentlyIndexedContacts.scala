@@ -0,0 +1,71 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.time.Duration
+
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
+import javax.inject.{Inject, Singleton}
+import org.apache.james.core.MailAddress
+import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.GaugeRegistry
+
+object RecentlyIndexedContacts {
+  val DEFAULT_EXPIRATION: Duration = Duration.ofMinutes(15)
+  val DEFAULT_MAXIMUM_SIZE: Long = 100000L
+
+  private case class ContactNames(firstname: String, surname: String)
+
+  private object ContactNames {
+    def of(fields: ContactFields): ContactNames = ContactNames(fields.firstname, fields.surname)
+  }
+}
+
+/**
+ * Node-local record of the user contacts recently indexed by this node, together with the names they were indexed
+ * with.
+ *
+ * It is shared by the ContactsCollection mailet, which does not dispatch events for contacts known here, and by
+ * CachingEmailAddressContactSearchEngine, which records successful indexing and drops entries upon update and
+ * deletion.
+ *
+ * Other nodes are not notified of such drops: a contact deleted or updated through another node can be skipped by
+ * this node until its entry expires (15 minutes by default).
+ */
+@Singleton
+class RecentlyIndexedContacts(gaugeRegistry: GaugeRegistry, expiration: Duration, maximumSize: Long) {
+  import RecentlyIndexedContacts.ContactNames
+
+  @Inject
+  def this(gaugeRegistry: GaugeRegistry) =
+    this(gaugeRegistry, RecentlyIndexedContacts.DEFAULT_EXPIRATION, RecentlyIndexedContacts.DEFAULT_MAXIMUM_SIZE)
+
+  private val recentlyIndexed: Cache[(AccountId, MailAddress), ContactNames] = {
+    val cache: Cache[(AccountId, MailAddress), ContactNames] = Caffeine.newBuilder()
+      .expireAfterWrite(expiration)
+      .maximumSize(maximumSize)
+      .recordStats()
+      .build[(AccountId, MailAddress), ContactNames]()
+
+    gaugeRegistry.register("contact.recently_indexed.cache.hitRate", () => cache.stats().hitRate())
+      .register("contact.recently_indexed.cache.missCount", () => cache.stats().missCount())
+      .register("contact.recently_indexed.cache.hitCount", () => cache.stats().hitCount())
+      .register("contact.recently_indexed.cache.size", () => cache.estimatedSize())
+    cache
+  }
+
+  def contains(accountId: AccountId, fields: ContactFields): Boolean =
+    Option(recentlyIndexed.getIfPresent((accountId, fields.address)))
+      .contains(ContactNames.of(fields))
+
+  def record(accountId: AccountId, fields: ContactFields): Unit =
+    recentlyIndexed.put((accountId, fields.address), ContactNames.of(fields))
+
+  def invalidate(accountId: AccountId, mailAddress: MailAddress): Unit =
+    recentlyIndexed.invalidate((accountId, mailAddress))
+
+  /**
+   * User contacts shadowed by a domain contact are not indexed by the underlying search engines, yet are recorded
+   * here. A domain contact change thus drops the entries of every account for that address.
+   */
+  def invalidateAllAccounts(mailAddress: MailAddress): Unit =
+    recentlyIndexed.asMap().keySet().removeIf(key => key._2.equals(mailAddress))
+}
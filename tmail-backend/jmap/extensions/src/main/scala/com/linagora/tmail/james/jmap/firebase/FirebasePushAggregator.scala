@@ -0,0 +1,116 @@
+package com.linagora.tmail.james.jmap.firebase
+
+import java.util.concurrent.ConcurrentHashMap
+
+import com.linagora.tmail.james.jmap.firebase.FirebasePushAggregator.LOGGER
+import com.linagora.tmail.james.jmap.model.{FirebaseSubscriptionId, FirebaseToken}
+import javax.annotation.PreDestroy
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.{GaugeRegistry, Metric, MetricFactory}
+import org.slf4j.{Logger, LoggerFactory}
+import reactor.core.Disposable
+import reactor.core.publisher.Flux
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
+import scala.util.Try
+
+case class FirebasePushRecipient(username: Username, subscriptionId: FirebaseSubscriptionId)
+
+case class PendingFirebasePush(token: FirebaseToken,
+                               recipients: Set[FirebasePushRecipient],
+                               stateChanges: Map[String, String],
+                               urgency: FirebasePushUrgency) {
+  def merge(newer: PendingFirebasePush): PendingFirebasePush =
+    PendingFirebasePush(token,
+      recipients ++ newer.recipients,
+      stateChanges ++ newer.stateChanges,
+      if (urgency.equals(FirebasePushUrgency.HIGH)) urgency else newer.urgency)
+
+  def asPushRequest: FirebasePushRequest = new FirebasePushRequest(stateChanges.asJava, token, urgency)
+}
+
+object FirebasePushAggregator {
+  private val LOGGER: Logger = LoggerFactory.getLogger(classOf[FirebasePushAggregator])
+}
+
+/**
+ * Coalesces the state changes pushed to a device token during `push.aggregation.window`, keeping only the latest state
+ * of each type, then sends them through the FCM batch API. HIGH urgency pushes are sent right away, together with the
+ * state changes pending for that device.
+ */
+class FirebasePushAggregator @Inject()(configuration: FirebasePushAggregationConfiguration,
+                                       pushClient: FirebasePushClient,
+                                       subscriptionCache: FirebaseSubscriptionCache,
+                                       metricFactory: MetricFactory,
+                                       gaugeRegistry: GaugeRegistry) {
+  private val pendingPushes: ConcurrentHashMap[FirebaseToken, PendingFirebasePush] = new ConcurrentHashMap()
+  private val coalescedMetric: Metric = metricFactory.generate("firebase.push.aggregation.coalesced")
+  private val sentMetric: Metric = metricFactory.generate("firebase.push.aggregation.sent")
+  private val failedMetric: Metric = metricFactory.generate("firebase.push.aggregation.failed")
+  @volatile private var flushes: Option[Disposable] = None
+
+  gaugeRegistry.register("firebase.push.aggregation.pending", () => pendingPushes.size())
+
+  def enabled: Boolean = configuration.enabled()
+
+  def start(): Unit =
+    configuration.window().toScala
+      .foreach(window => flushes = Some(Flux.interval(window)
+        .onBackpressureDrop()
+        .concatMap(_ => flush())
+        .subscribe()))
+
+  /**
+   * Sends the pending pushes before disposing the periodic flushes, so that state changes received during the last
+   * window are not lost upon shutdown.
+   */
+  @PreDestroy
+  def stop(): Unit = {
+    Try(flush().block())
+      .recover(e => LOGGER.warn("Failed to flush pending Firebase pushes upon shutdown", e))
+    flushes.foreach(_.dispose())
+  }
+
+  def offer(push: PendingFirebasePush): SMono[Unit] = {
+    val merged: PendingFirebasePush = pendingPushes.merge(push.token, push, (pending, newer) => {
+      coalescedMetric.increment()
+      pending.merge(newer)
+    })
+
+    if (merged.urgency.equals(FirebasePushUrgency.HIGH)) {
+      Option(pendingPushes.remove(push.token))
+        .map(pending => send(Seq(pending)))
+        .getOrElse(SMono.empty)
+    } else {
+      SMono.empty
+    }
+  }
+
+  def flush(): SMono[Unit] =
+    SFlux.fromIterable(pendingPushes.keySet().asScala.toSeq)
+      .flatMapIterable(token => Option(pendingPushes.remove(token)))
+      .buffer(configuration.batchSize())
+      .flatMap(batch => send(batch.toSeq), configuration.maxInFlightBatches())
+      .`then`()
+
+  private def send(batch: Seq[PendingFirebasePush]): SMono[Unit] =
+    SMono(metricFactory.decoratePublisherWithTimerMetric("firebase.push.aggregation.batch",
+        pushClient.pushBatch(batch.map(_.asPushRequest).asJava)))
+      .flatMapMany(results => SFlux.fromIterable(batch.zip(results.asScala)))
+      .flatMap {
+        case (pending, result) => result.error().toScala
+          .map(error => {
+            failedMetric.increment()
+            FirebasePushListener.handlePushError(subscriptionCache, pending.recipients, error)
+          })
+          .getOrElse(SMono.fromCallable(() => sentMetric.increment()))
+      }
+      .`then`()
+      .onErrorResume(e => SMono.fromCallable(() => {
+        failedMetric.add(batch.size)
+        LOGGER.warn("Unexpected error during batch push to Firebase Cloud Messaging", e)
+      }))
+}
@@ -1,20 +1,24 @@
 package com.linagora.tmail.james.jmap.firebase
 
+import java.time.Clock
+
 import com.google.firebase.messaging.{FirebaseMessagingException, MessagingErrorCode}
-import com.linagora.tmail.james.jmap.firebase.FirebasePushListener.{GROUP, LOGGER}
+import com.linagora.tmail.james.jmap.firebase.FirebasePushListener.{GROUP, handlePushError}
 import com.linagora.tmail.james.jmap.model.FirebaseSubscription
 import javax.inject.Inject
+import org.apache.james.core.Username
 import org.apache.james.events.EventListener.ReactiveGroupEventListener
 import org.apache.james.events.{Event, Group}
 import org.apache.james.jmap.api.model.TypeName
 import org.apache.james.jmap.change.{EmailDeliveryTypeName, StateChangeEvent}
 import org.apache.james.jmap.core.{AccountId, StateChange}
 import org.apache.james.lifecycle.api.Startable
+import org.apache.james.metrics.api.NoopGaugeRegistry
 import org.apache.james.user.api.DelegationStore
 import org.apache.james.util.ReactorUtils
 import org.reactivestreams.Publisher
 import org.slf4j.LoggerFactory
-import reactor.core.scala.publisher.SMono
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.jdk.javaapi.CollectionConverters
 
@@ -23,40 +27,86 @@ case class FirebasePushListenerGroup() extends Group {}
 object FirebasePushListener {
   val GROUP: FirebasePushListenerGroup = FirebasePushListenerGroup()
   private val LOGGER = LoggerFactory.getLogger(classOf[FirebasePushListener])
+
+  def handlePushError(subscriptionCache: FirebaseSubscriptionCache, recipients: Set[FirebasePushRecipient], e: Throwable): SMono[Unit] =
+    e match {
+      case e: FirebaseMessagingException => e.getMessagingErrorCode match {
+        case MessagingErrorCode.INVALID_ARGUMENT | MessagingErrorCode.UNREGISTERED => SFlux.fromIterable(recipients)
+          .concatMap(recipient => subscriptionCache.revoke(recipient.username, recipient.subscriptionId))
+          .`then`(SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Subscription with invalid FCM token is removed", e))))
+          .`then`()
+        case _ => SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Unexpected error during push message to Firebase Cloud Messaging", e))).`then`()
+      }
+      case e => SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Unexpected error during push message to Firebase Cloud Messaging", e))).`then`()
+    }
 }
 
-class FirebasePushListener @Inject()(subscriptionRepository: FirebaseSubscriptionRepository,
-                                     delegationStore: DelegationStore,
-                                     pushClient: FirebasePushClient) extends ReactiveGroupEventListener {
+class FirebasePushListener(delegationStore: DelegationStore,
+                           pushClient: FirebasePushClient,
+                           subscriptionCache: FirebaseSubscriptionCache,
+                           aggregator: Option[FirebasePushAggregator]) extends ReactiveGroupEventListener {
+
+  @Inject
+  def this(delegationStore: DelegationStore,
+           pushClient: FirebasePushClient,
+           subscriptionCache: FirebaseSubscriptionCache,
+           aggregator: FirebasePushAggregator) =
+    this(delegationStore, pushClient, subscriptionCache, Some(aggregator).filter(_.enabled))
+
+  def this(subscriptionRepository: FirebaseSubscriptionRepository,
+           delegationStore: DelegationStore,
+           pushClient: FirebasePushClient) =
+    this(delegationStore, pushClient,
+      new FirebaseSubscriptionCache(subscriptionRepository, FirebaseSubscriptionCacheConfiguration.DISABLED, Clock.systemUTC(), new NoopGaugeRegistry),
+      None)
+
   override def getDefaultGroup: Group = GROUP
 
   override def isHandling(event: Event): Boolean = event.isInstanceOf[StateChangeEvent]
 
   override def reactiveEvent(event: Event): Publisher[Void] =
     event match {
-      case event: StateChangeEvent =>
-        SMono.just(event.username)
-          .concatWith(delegationStore.authorizedUsers(event.username))
-          .flatMap(subscriptionRepository.list)
-          .flatMap(sendNotification(_, event), ReactorUtils.DEFAULT_CONCURRENCY)
-          .`then`()
+      case event: StateChangeEvent => aggregator
+        .map(aggregator => aggregateNotifications(aggregator, event))
+        .getOrElse(sendNotifications(event))
       case _ => SMono.empty
     }
 
+  private def sendNotifications(event: StateChangeEvent): Publisher[Void] =
+    SMono.just(event.username)
+      .concatWith(delegationStore.authorizedUsers(event.username))
+      .flatMap(subscriptionCache.list)
+      .flatMap(sendNotification(_, event), ReactorUtils.DEFAULT_CONCURRENCY)
+      .`then`()
+
+  private def aggregateNotifications(aggregator: FirebasePushAggregator, event: StateChangeEvent): Publisher[Void] =
+    SMono.just(event.username)
+      .concatWith(delegationStore.authorizedUsers(event.username))
+      .flatMap(username => subscriptionCache.list(username)
+        .map(subscription => (username, subscription)))
+      .flatMap {
+        case (username, subscription) => asPendingPush(username, subscription, event)
+          .fold(SMono.empty[Unit])(aggregator.offer)
+      }
+      .`then`()
+
+  private def asPendingPush(username: Username, subscription: FirebaseSubscription, stateChangeEvent: StateChangeEvent): Option[PendingFirebasePush] =
+    stateChangeEvent
+      .asStateChange
+      .filter(subscription.types.toSet)
+      .map(asPushRequest(_, subscription))
+      .map(pushRequest => PendingFirebasePush(subscription.token,
+        Set(FirebasePushRecipient(username, subscription.id)),
+        CollectionConverters.asScala(pushRequest.stateChangesMap()).toMap,
+        pushRequest.urgency()))
+
   private def sendNotification(subscription: FirebaseSubscription, stateChangeEvent: StateChangeEvent): Publisher[Unit] =
     stateChangeEvent
       .asStateChange
       .filter(subscription.types.toSet)
       .fold(SMono.empty[Unit])(stateChange => SMono(pushClient.push(asPushRequest(stateChange, subscription)))
-        .onErrorResume {
-          case e: FirebaseMessagingException => e.getMessagingErrorCode match {
-            case MessagingErrorCode.INVALID_ARGUMENT | MessagingErrorCode.UNREGISTERED => SMono.fromPublisher(subscriptionRepository.revoke(stateChangeEvent.username, subscription.id))
-              .`then`(SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Subscription with invalid FCM token is removed", e))))
-            case _ => SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Unexpected error during push message to Firebase Cloud Messaging", e)))
-          }
-          case e => SMono.fromPublisher(ReactorUtils.logAsMono(() => LOGGER.warn("Unexpected error during push message to Firebase Cloud Messaging", e)))
-        }
-        .`then`())
+        .`then`()
+        .onErrorResume(e => handlePushError(subscriptionCache, Set(FirebasePushRecipient(stateChangeEvent.username, subscription.id)), e)))
 
   private def asPushRequest(stateChange: StateChange, subscription: FirebaseSubscription): FirebasePushRequest =
     new FirebasePushRequest(CollectionConverters.asJava(stateChange.changes
@@ -0,0 +1,68 @@
+package com.linagora.tmail.james.jmap.firebase
+
+import java.time.Clock
+import java.util.concurrent.Executor
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import com.linagora.tmail.james.jmap.firebase.FirebaseSubscriptionHelper.isNotOutdatedSubscription
+import com.linagora.tmail.james.jmap.model.{FirebaseSubscription, FirebaseSubscriptionId}
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.GaugeRegistry
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.jdk.FutureConverters._
+
+/**
+ * Caches the subscriptions of a user, looked up by [[FirebasePushListener]] on every state change. Users without
+ * subscriptions, which are the vast majority, are cached as an empty list so that their events cost no I/O.
+ *
+ * FirebaseSubscription/set and token revocation invalidate the local entry. Other nodes see the change once their
+ * entry expires: a device registered through another node is not pushed to during that time. The cache is thus
+ * disabled unless `subscription.cache.enabled` is set in firebase.properties. Outdated subscriptions are filtered out
+ * on each read.
+ */
+class FirebaseSubscriptionCache @Inject()(repository: FirebaseSubscriptionRepository,
+                                          configuration: FirebaseSubscriptionCacheConfiguration,
+                                          clock: Clock,
+                                          gaugeRegistry: GaugeRegistry) {
+  private val cache: Option[AsyncLoadingCache[Username, Seq[FirebaseSubscription]]] =
+    Some(configuration)
+      .filter(_.enabled())
+      .map(configuration => buildCache(configuration, (username: Username, executor: Executor) => SFlux(repository.list(username))
+        .collectSeq()
+        .asJava()
+        .subscribeOn(Schedulers.fromExecutor(executor))
+        .toFuture))
+
+  def list(username: Username): SFlux[FirebaseSubscription] =
+    cache.map(cache => SMono.fromFuture(cache.get(username).asScala)
+        .flatMapMany(SFlux.fromIterable)
+        .filter(isNotOutdatedSubscription(_, clock)))
+      .getOrElse(SFlux(repository.list(username)))
+
+  def revoke(username: Username, id: FirebaseSubscriptionId): SMono[Unit] =
+    SMono(repository.revoke(username, id))
+      .doOnTerminate(() => invalidate(username))
+      .`then`()
+
+  def invalidate(username: Username): Unit =
+    cache.foreach(_.synchronous().invalidate(username))
+
+  private def buildCache(configuration: FirebaseSubscriptionCacheConfiguration,
+                         loader: AsyncCacheLoader[Username, Seq[FirebaseSubscription]]): AsyncLoadingCache[Username, Seq[FirebaseSubscription]] = {
+    val loadingCache: AsyncLoadingCache[Username, Seq[FirebaseSubscription]] = Caffeine.newBuilder()
+      .expireAfterWrite(configuration.ttl())
+      .maximumSize(configuration.maximumSize())
+      .recordStats()
+      .buildAsync[Username, Seq[FirebaseSubscription]](loader)
+
+    gaugeRegistry.register("firebase.subscription.cache.hitRate", () => loadingCache.synchronous().stats().hitRate())
+      .register("firebase.subscription.cache.missCount", () => loadingCache.synchronous().stats().missCount())
+      .register("firebase.subscription.cache.hitCount", () => loadingCache.synchronous().stats().hitCount())
+      .register("firebase.subscription.cache.size", () => loadingCache.synchronous().estimatedSize())
+    loadingCache
+  }
+}
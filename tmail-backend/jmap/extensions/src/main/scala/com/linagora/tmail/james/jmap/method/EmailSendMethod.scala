@@ -3,8 +3,10 @@ package com.linagora.tmail.james.jmap.method
 import java.time.ZonedDateTime
 import java.util.Date
 
+import com.google.common.base.Preconditions
 import com.google.inject.multibindings.{Multibinder, ProvidesIntoSet}
-import com.google.inject.{AbstractModule, Scopes}
+import com.google.inject.{AbstractModule, Provides, Scopes, Singleton}
+import com.linagora.tmail.encrypted.FileBackedMessageContent
 import com.linagora.tmail.james.jmap.json.EmailSendSerializer
 import com.linagora.tmail.james.jmap.method.CapabilityIdentifier.LINAGORA_PGP
 import com.linagora.tmail.james.jmap.model.EmailSubmissionHelper.resolveEnvelope
@@ -31,14 +33,13 @@ import org.apache.james.mailbox.model.{MailboxId, MessageId}
 import org.apache.james.mailbox.{MailboxManager, MailboxSession}
 import org.apache.james.metrics.api.MetricFactory
 import org.apache.james.mime4j.dom.Message
-import org.apache.james.mime4j.message.DefaultMessageWriter
 import org.apache.james.queue.api.MailQueueFactory.SPOOL
 import org.apache.james.queue.api.{MailQueue, MailQueueFactory}
 import org.apache.james.rrt.api.CanSendFrom
 import org.apache.james.server.core.{MailImpl, MimeMessageSource, MimeMessageWrapper}
 import org.apache.james.util.ReactorUtils
 import org.apache.james.util.html.HtmlTextExtractor
-import org.apache.james.utils.{InitializationOperation, InitilizationOperationBuilder}
+import org.apache.james.utils.{InitializationOperation, InitilizationOperationBuilder, PropertiesProvider}
 import org.apache.mailet.{Attribute, AttributeValue}
 import org.reactivestreams.Publisher
 import play.api.libs.json.{JsError, JsObject, JsSuccess}
@@ -66,6 +67,26 @@ class EmailSendMethodModule extends AbstractModule {
         override def init(): Unit = instance.init
       })
   }
+
+  @Singleton
+  @Provides
+  def provideEmailSendConfiguration(propertiesProvider: PropertiesProvider): EmailSendConfiguration =
+    EmailSendConfiguration.from(propertiesProvider)
+}
+
+object EmailSendConfiguration {
+  val DEFAULT_CREATION_CONCURRENCY: Int = 4
+
+  def from(propertiesProvider: PropertiesProvider): EmailSendConfiguration = {
+    val creationConcurrency: Option[Int] = Try(propertiesProvider.getConfiguration("jmap"))
+      .map(configuration => configuration.getInteger("emailSend.creation.concurrency", DEFAULT_CREATION_CONCURRENCY).toInt)
+      .toOption
+    EmailSendConfiguration(creationConcurrency = creationConcurrency.getOrElse(DEFAULT_CREATION_CONCURRENCY))
+  }
+}
+
+case class EmailSendConfiguration(creationConcurrency: Int) {
+  Preconditions.checkArgument(creationConcurrency > 0, "'emailSend.creation.concurrency' needs to be strictly positive".asInstanceOf[Object])
 }
 
 class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
@@ -76,6 +97,7 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
                                 mailboxManager: MailboxManager,
                                 emailSetMethod: EmailSetMethod,
                                 configuration: JMAPConfiguration,
+                                emailSendConfiguration: EmailSendConfiguration,
                                 val metricFactory: MetricFactory,
                                 val sessionTranslator: SessionTranslator,
                                 val sessionSupplier: SessionSupplier) extends MethodRequiringAccountId[EmailSendRequest] with Startable {
@@ -128,30 +150,22 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
   private def create(request: EmailSendRequest,
                      mailboxSession: MailboxSession,
                      processingContext: ProcessingContext): SMono[(EmailSendResults, ProcessingContext)] =
-    SFlux.fromIterable(request.create.view)
-      .fold[SMono[(EmailSendResults, ProcessingContext)]](SMono.just(EmailSendResults.empty -> processingContext)) {
-        (acc: SMono[(EmailSendResults, ProcessingContext)], elem: (EmailSendCreationId, JsObject)) => {
-          val (emailSendCreationId, jsObject) = elem
-          acc.flatMap {
-            case (creationResult, processingContext) =>
-              createEach(emailSendCreationId, jsObject, mailboxSession, processingContext)
-                .map(e => EmailSendResults.merge(creationResult, e._1) -> e._2)
-          }
-        }
-      }
-      .flatMap(any => any)
+    // Creations do not alter the processing context, hence can run concurrently. flatMapSequential keeps the
+    // results in request order.
+    SFlux.fromIterable(request.create.toSeq)
+      .flatMapSequential[EmailSendResults](elem => createEach(elem._1, elem._2, mailboxSession), emailSendConfiguration.creationConcurrency)
+      .fold(EmailSendResults.empty())(EmailSendResults.merge)
+      .map(results => results -> processingContext)
       .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER)
 
   private def createEach(clientId: EmailSendCreationId,
                          jsObject: JsObject,
-                         mailboxSession: MailboxSession,
-                         processingContext: ProcessingContext): SMono[(EmailSendResults, ProcessingContext)] = {
+                         mailboxSession: MailboxSession): SMono[EmailSendResults] =
     parseCreationRequest(jsObject)
       .fold(error => SMono.error(error),
         createEmailAndEmailSubmission(clientId, mailboxSession, _))
-      .map(response => EmailSendResults.created(clientId, response) -> processingContext)
-      .onErrorResume(error => SMono.just(EmailSendResults.notCreated(clientId, error) -> processingContext))
-  }
+      .map(response => EmailSendResults.created(clientId, response))
+      .onErrorResume(error => SMono.just(EmailSendResults.notCreated(clientId, error)))
 
   private def createEmailAndEmailSubmission(clientId: EmailSendCreationId,
                                             mailboxSession: MailboxSession,
@@ -164,6 +178,7 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
           success.response,
           success.originalMessage,
           request.emailSubmissionSet)
+          .doOnError(_ => success.originalMessage.release())
       }
 
   private def parseCreationRequest(jsObject: JsObject): Either[EmailSendCreationRequestInvalidException, EmailSendCreationRequest] =
@@ -191,7 +206,7 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
 
   def createEmailSubmission(mailboxSession: MailboxSession,
                             emailCreationResponse: EmailCreationResponse,
-                            originalMessage: Array[Byte],
+                            originalMessage: FileBackedMessageContent,
                             request: EmailSubmissionCreationRequest): SMono[EmailSendCreationResponse] = {
     val emailId: MessageId = emailCreationResponse.id
     val submissionId: EmailSubmissionId = EmailSubmissionId.generate
@@ -223,7 +238,7 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
     }
   }
 
-  def toMimeMessage(name: String, message: Array[Byte]): Try[MimeMessageWrapper] = {
+  def toMimeMessage(name: String, message: FileBackedMessageContent): Try[MimeMessageWrapper] = {
     val source: MimeMessageSource = MimeMessageSourceImpl(name, message)
     Try(new MimeMessageWrapper(source))
       .recover(e => {
@@ -262,14 +277,22 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
                      message: Message,
                      mailboxSession: MailboxSession,
                      mailboxIds: List[MailboxId]): SMono[EmailSetCreationSuccess] =
+    SMono.fromCallable(() => FileBackedMessageContent.of(message))
+      .flatMap(content => appendContent(clientId, request, content, mailboxSession, mailboxIds)
+        .doOnError(_ => content.release()))
+
+  private def appendContent(clientId: EmailSendCreationId,
+                     request: EmailCreationRequest,
+                     content: FileBackedMessageContent,
+                     mailboxSession: MailboxSession,
+                     mailboxIds: List[MailboxId]): SMono[EmailSetCreationSuccess] =
     for {
       mailbox <- SMono(mailboxManager.getMailboxReactive(mailboxIds.head, mailboxSession))
-      messageAsBytes = DefaultMessageWriter.asBytes(message)
       appendCommandEither = Right(AppendCommand.builder()
         .recent()
         .withFlags(request.keywords.map(_.asFlags).getOrElse(new Flags()))
         .withInternalDate(Date.from(request.receivedAt.getOrElse(UTCDate(ZonedDateTime.now())).asUTC.toInstant))
-        .build(messageAsBytes))
+        .build(content))
         .flatMap(appendCommand =>
           configuration.getMaximumSendSize.toScala
             .filter(limit => appendCommand.getMsgIn.size() > limit)
@@ -283,6 +306,6 @@ class EmailSendMethod @Inject()(emailSetSerializer: EmailSetSerializer,
       val threadId: ThreadId = ThreadId.fromJava(appendResult.getThreadId)
       EmailSetCreationSuccess(clientId,
         EmailCreationResponse(appendResult.getId.getMessageId, blobId, threadId, Size.sanitizeSize(appendResult.getSize)),
-        messageAsBytes)
+        content)
     }
 }
@@ -1,6 +1,6 @@
 package com.linagora.tmail.james.jmap.method
 
-import com.linagora.tmail.james.jmap.firebase.{FirebasePushClient, FirebaseSubscriptionRepository}
+import com.linagora.tmail.james.jmap.firebase.{FirebasePushClient, FirebaseSubscriptionCache, FirebaseSubscriptionRepository}
 import com.linagora.tmail.james.jmap.json.FirebaseSubscriptionSerializer
 import com.linagora.tmail.james.jmap.method.FirebaseSubscriptionSetCreatePerformer.{CreationFailure, CreationResult, CreationResults, CreationSuccess, LOGGER}
 import com.linagora.tmail.james.jmap.model.{DeviceClientIdInvalidException, ExpireTimeInvalidException, FirebaseSubscriptionCreation, FirebaseSubscriptionCreationId, FirebaseSubscriptionCreationParseException, FirebaseSubscriptionCreationRequest, FirebaseSubscriptionCreationResponse, FirebaseSubscriptionExpiredTime, FirebaseSubscriptionSetRequest, TokenInvalidException}
@@ -55,7 +55,8 @@ object FirebaseSubscriptionSetCreatePerformer {
 
 class FirebaseSubscriptionSetCreatePerformer @Inject()(val repository: FirebaseSubscriptionRepository,
                                                        val serializer: FirebaseSubscriptionSerializer,
-                                                       val firebaseClient: FirebasePushClient) {
+                                                       val firebaseClient: FirebasePushClient,
+                                                       val subscriptionCache: FirebaseSubscriptionCache) {
 
   def create(request: FirebaseSubscriptionSetRequest, username: Username): SMono[CreationResults] =
     SFlux.fromIterable(request.create.getOrElse(Map()))
@@ -83,6 +84,7 @@ class FirebaseSubscriptionSetCreatePerformer @Inject()(val repository: FirebaseS
       })
       .flatMap(isValid => if (isValid) {
         SMono.fromPublisher(repository.save(username, request))
+          .doOnTerminate(() => subscriptionCache.invalidate(username))
           .map(subscription => CreationSuccess(clientId, FirebaseSubscriptionCreationResponse(subscription.id, showExpires(subscription.expires, request))))
           .onErrorResume(e => SMono.just[CreationResult](CreationFailure(clientId, e)))
       } else {
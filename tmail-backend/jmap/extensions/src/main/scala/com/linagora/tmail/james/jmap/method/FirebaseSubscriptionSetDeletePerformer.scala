@@ -1,7 +1,7 @@
 package com.linagora.tmail.james.jmap.method
 
 import com.google.inject.Inject
-import com.linagora.tmail.james.jmap.firebase.FirebaseSubscriptionRepository
+import com.linagora.tmail.james.jmap.firebase.FirebaseSubscriptionCache
 import com.linagora.tmail.james.jmap.method.FirebaseSubscriptionSetDeletePerformer.{FirebaseSubscriptionDeletionFailure, FirebaseSubscriptionDeletionResult, FirebaseSubscriptionDeletionResults, FirebaseSubscriptionDeletionSuccess}
 import com.linagora.tmail.james.jmap.model.{FirebaseSubscriptionId, FirebaseSubscriptionSetRequest, UnparsedFirebaseSubscriptionId}
 import org.apache.james.jmap.core.SetError
@@ -34,7 +34,7 @@ object FirebaseSubscriptionSetDeletePerformer {
   }
 }
 
-class FirebaseSubscriptionSetDeletePerformer @Inject()(firebaseSubscriptionRepository: FirebaseSubscriptionRepository) {
+class FirebaseSubscriptionSetDeletePerformer @Inject()(subscriptionCache: FirebaseSubscriptionCache) {
   def deleteFirebaseSubscriptions(firebaseSubscriptionSetRequest: FirebaseSubscriptionSetRequest, mailboxSession: MailboxSession): SMono[FirebaseSubscriptionDeletionResults] =
     SFlux.fromIterable(firebaseSubscriptionSetRequest.destroy.getOrElse(Seq()))
       .flatMap(unparsedId => delete(unparsedId, mailboxSession)
@@ -46,6 +46,6 @@ class FirebaseSubscriptionSetDeletePerformer @Inject()(firebaseSubscriptionRepos
   private def delete(unparsedId: UnparsedFirebaseSubscriptionId, mailboxSession: MailboxSession): SMono[FirebaseSubscriptionDeletionResult] =
     FirebaseSubscriptionId.liftOrThrow(unparsedId)
       .fold(e => SMono.error(e),
-        id => SMono.fromPublisher(firebaseSubscriptionRepository.revoke(mailboxSession.getUser, id))
+        id => subscriptionCache.revoke(mailboxSession.getUser, id)
           .`then`(SMono.just[FirebaseSubscriptionDeletionResult](FirebaseSubscriptionDeletionSuccess(id))))
 }
@@ -1,6 +1,6 @@
 package com.linagora.tmail.james.jmap.method
 
-import com.linagora.tmail.james.jmap.firebase.FirebaseSubscriptionRepository
+import com.linagora.tmail.james.jmap.firebase.{FirebaseSubscriptionCache, FirebaseSubscriptionRepository}
 import com.linagora.tmail.james.jmap.model.{FirebaseSubscriptionExpiredTime, FirebaseSubscriptionId, FirebaseSubscriptionPatchObject, FirebaseSubscriptionSetRequest, FirebaseSubscriptionUpdateFailure, FirebaseSubscriptionUpdateResult, FirebaseSubscriptionUpdateResults, FirebaseSubscriptionUpdateSuccess, UnparsedFirebaseSubscriptionId, ValidatedFirebaseSubscriptionPatchObject}
 import javax.inject.Inject
 import org.apache.james.core.Username
@@ -13,7 +13,8 @@ import scala.jdk.CollectionConverters._
 
 
 class FirebaseSubscriptionSetUpdatePerformer @Inject()(val repository: FirebaseSubscriptionRepository,
-                                                       val typeStateFactory: TypeStateFactory) {
+                                                       val typeStateFactory: TypeStateFactory,
+                                                       val subscriptionCache: FirebaseSubscriptionCache) {
 
   def update(request: FirebaseSubscriptionSetRequest, username: Username): SMono[FirebaseSubscriptionUpdateResults] = {
     SFlux.fromIterable(request.update.getOrElse(Map()))
@@ -37,6 +38,7 @@ class FirebaseSubscriptionSetUpdatePerformer @Inject()(val repository: FirebaseS
     SFlux.concat(updateTypes(username, id, validatedPatch.typeUpdate),
       updateExpires(username, id, validatedPatch.expiresUpdate))
       .last()
+      .doOnTerminate(() => subscriptionCache.invalidate(username))
 
   private def updateTypes(username: Username, id: FirebaseSubscriptionId, typeUpdate: Option[Set[TypeName]]): SMono[FirebaseSubscriptionUpdateResult] =
     SMono.justOrEmpty(typeUpdate)
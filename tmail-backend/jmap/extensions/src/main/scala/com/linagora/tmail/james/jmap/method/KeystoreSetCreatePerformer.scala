@@ -2,7 +2,7 @@ package com.linagora.tmail.james.jmap.method
 
 import java.nio.charset.StandardCharsets
 
-import com.linagora.tmail.encrypted.KeystoreManager
+import com.linagora.tmail.encrypted.{KeystoreManager, PGPPublicKeyCache}
 import com.linagora.tmail.james.jmap.json.KeystoreSerializer
 import com.linagora.tmail.james.jmap.method.KeystoreSetCreatePerformer.{KeystoreCreationFailure, KeystoreCreationResult, KeystoreCreationResults, KeystoreCreationSuccess}
 import com.linagora.tmail.james.jmap.model.{KeystoreCreationId, KeystoreCreationRequest, KeystoreCreationResponse, KeystoreSetRequest}
@@ -46,6 +46,7 @@ object KeystoreSetCreatePerformer {
 
 class KeystoreSetCreatePerformer @Inject()(serializer: KeystoreSerializer,
                                            keystore: KeystoreManager,
+                                           publicKeyCache: PGPPublicKeyCache,
                                            val metricFactory: MetricFactory) {
 
   def createKeys(mailboxSession: MailboxSession,
@@ -70,6 +71,7 @@ class KeystoreSetCreatePerformer @Inject()(serializer: KeystoreSerializer,
                         clientId: KeystoreCreationId,
                         keystoreCreationRequest: KeystoreCreationRequest): SMono[KeystoreCreationResult] =
       SMono.fromPublisher(keystore.save(mailboxSession.getUser, keystoreCreationRequest.key.value.getBytes(StandardCharsets.UTF_8)))
+        .doOnTerminate(() => publicKeyCache.invalidate(mailboxSession.getUser))
         .map(keyId => KeystoreCreationSuccess(clientId, KeystoreCreationResponse(keyId)))
         .onErrorResume(e => SMono.just[KeystoreCreationResult](KeystoreCreationFailure(clientId, e)))
 }
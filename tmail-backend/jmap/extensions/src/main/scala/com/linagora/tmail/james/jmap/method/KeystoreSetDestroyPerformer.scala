@@ -1,6 +1,6 @@
 package com.linagora.tmail.james.jmap.method
 
-import com.linagora.tmail.encrypted.{KeyId, KeystoreManager}
+import com.linagora.tmail.encrypted.{KeyId, KeystoreManager, PGPPublicKeyCache}
 import com.linagora.tmail.james.jmap.model.KeystoreSetRequest
 import javax.inject.Inject
 import org.apache.james.mailbox.MailboxSession
@@ -32,7 +32,8 @@ sealed trait DestroyResult
 case class DestroySuccess(id: KeyId) extends DestroyResult
 case class DestroyFailure(id: KeyId, throwable: Throwable) extends DestroyResult
 
-class KeystoreSetDestroyPerformer @Inject()(keystore: KeystoreManager) {
+class KeystoreSetDestroyPerformer @Inject()(keystore: KeystoreManager,
+                                            publicKeyCache: PGPPublicKeyCache) {
 
   def destroy(mailboxSession: MailboxSession, request: KeystoreSetRequest): SMono[DestroyResults] =
     SFlux.fromIterable(request.destroy.getOrElse(List()))
@@ -41,6 +42,7 @@ class KeystoreSetDestroyPerformer @Inject()(keystore: KeystoreManager) {
 
   private def destroy(mailboxSession: MailboxSession, id: KeyId): SMono[DestroyResult] =
     SMono.fromPublisher(keystore.delete(mailboxSession.getUser, KeyId(id.value)))
+      .doOnTerminate(() => publicKeyCache.invalidate(mailboxSession.getUser))
       .`then`(SMono.just(DestroySuccess(id)))
       .onErrorResume(e => SMono.just(DestroyFailure(id, e)))
 }
@@ -1,8 +1,9 @@
 package com.linagora.tmail.james.jmap.model
 
-import java.io.{ByteArrayInputStream, InputStream}
+import java.io.InputStream
 
 import cats.implicits.toTraverseOps
+import com.linagora.tmail.encrypted.FileBackedMessageContent
 import com.linagora.tmail.james.jmap.json.EmailSendSerializer
 import com.linagora.tmail.james.jmap.method.standardError
 import com.linagora.tmail.james.jmap.model.EmailSendCreationRequestRaw.{emailCreateAssignableProperties, emailSubmissionAssignableProperties}
@@ -16,6 +17,7 @@ import org.apache.james.jmap.core.{AccountId, Id, Properties, SetError, UuidStat
 import org.apache.james.jmap.json.EmailSetSerializer
 import org.apache.james.jmap.mail.{BlobId, DestroyIds, EmailCreationRequest, EmailCreationResponse, EmailSet, EmailSetRequest, EmailSubmissionId, Envelope, ThreadId, UnparsedMessageId}
 import org.apache.james.jmap.method.{SizeExceededException, WithAccountId}
+import org.apache.james.lifecycle.api.Disposable
 import org.apache.james.mailbox.model.MessageId
 import org.apache.james.server.core.MimeMessageSource
 import play.api.libs.json.{JsError, JsObject, JsPath, JsSuccess, JsonValidationError}
@@ -186,7 +188,7 @@ trait EmailSetCreationResult
 
 case class EmailSetCreationSuccess(clientId: EmailSendCreationId,
                                    response: EmailCreationResponse,
-                                   originalMessage: Array[Byte]) extends EmailSetCreationResult
+                                   originalMessage: FileBackedMessageContent) extends EmailSetCreationResult
 
 case class EmailSetCreationFailure(clientId: EmailSendCreationId, error: Throwable) extends EmailSetCreationResult
 
@@ -248,9 +250,17 @@ case class EmailSendResponse(accountId: AccountId,
                              created: Option[Map[EmailSendCreationId, EmailSendCreationResponse]],
                              notCreated: Option[Map[EmailSendCreationId, SetError]])
 
-case class MimeMessageSourceImpl(name: String, message: Array[Byte]) extends MimeMessageSource {
+/**
+ * Enqueues the content appended by Email/send without serializing the message again. Disposing the source, done along
+ * with the mail once enqueued, releases the content.
+ */
+case class MimeMessageSourceImpl(name: String, content: FileBackedMessageContent) extends MimeMessageSource with Disposable {
 
   override def getSourceId: String = name
 
-  override def getInputStream: InputStream = new ByteArrayInputStream(message)
+  override def getInputStream: InputStream = content.getInputStream
+
+  override def getMessageSize: Long = content.size()
+
+  override def dispose(): Unit = content.release()
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.linagora.tmail.james.jmap.contact;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.Username;
+import org.apache.james.jmap.api.model.AccountId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.linagora.tmail.james.jmap.contact.UserContactIndexingBatcher.PendingContact;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class UserContactIndexingBatcherTest {
+    static final AccountId BOB = AccountId.fromUsername(Username.of("bob@domain.tld"));
+    static final AccountId ALICE = AccountId.fromUsername(Username.of("alice@domain.tld"));
+
+    ConcurrentLinkedQueue<Collection<PendingContact>> batches;
+    UserContactIndexingBatcher testee;
+
+    @BeforeEach
+    void setUp() {
+        batches = new ConcurrentLinkedQueue<>();
+        testee = new UserContactIndexingBatcher(3, Duration.ofMillis(50),
+            contacts -> Mono.fromRunnable(() -> batches.add(contacts)));
+    }
+
+    static ContactFields fields(String address, String firstname) throws Exception {
+        return new ContactFields(new MailAddress(address), firstname, "");
+    }
+
+    @Test
+    void submitShouldCompleteOnceWrittenAfterMaxLatency() throws Exception {
+        testee.submit(BOB, fields("marie@other.tld", "Marie")).block(Duration.ofSeconds(5));
+
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void concurrentSubmissionsShouldBeWrittenTogether() throws Exception {
+        Flux.merge(
+                testee.submit(BOB, fields("marie@other.tld", "Marie")),
+                testee.submit(ALICE, fields("marie@other.tld", "Marie")))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.peek()).hasSize(2);
+    }
+
+    @Test
+    void repeatedContactsShouldBeWrittenOnceWithTheirLatestFields() throws Exception {
+        Flux.merge(
+                testee.submit(BOB, fields("marie@other.tld", "Marie")),
+                testee.submit(BOB, fields("marie@other.tld", "Marie-Anne")))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(batches.peek())
+            .containsExactly(new PendingContact(BOB, fields("marie@other.tld", "Marie-Anne")));
+    }
+
+    @Test
+    void fullBatchesShouldBeWrittenWithoutWaiting() throws Exception {
+        testee = new UserContactIndexingBatcher(2, Duration.ofHours(1),
+            contacts -> Mono.fromRunnable(() -> batches.add(contacts)));
+
+        Flux.merge(
+                testee.submit(BOB, fields("marie@other.tld", "Marie")),
+                testee.submit(BOB, fields("paul@other.tld", "Paul")))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void submitShouldFailWhenWriteFails() {
+        testee = new UserContactIndexingBatcher(3, Duration.ofMillis(50),
+            contacts -> Mono.error(new RuntimeException("boom")));
+
+        assertThatThrownBy(() -> testee.submit(BOB, fields("marie@other.tld", "Marie")).block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+
+    @Test
+    void failingContactShouldOnlyFailItsOwnSubmission() throws Exception {
+        PendingContact failingContact = new PendingContact(ALICE, fields("marie@other.tld", "Marie"));
+        testee = new UserContactIndexingBatcher(3, Duration.ofMillis(50),
+            contacts -> Mono.just(ImmutableMap.<PendingContact, Throwable>of(failingContact, new RuntimeException("boom"))));
+
+        Mono<Void> succeeding = testee.submit(BOB, fields("marie@other.tld", "Marie")).cache();
+        Mono<Void> failing = testee.submit(ALICE, fields("marie@other.tld", "Marie")).cache();
+        failing.onErrorResume(e -> Mono.empty()).subscribe();
+
+        assertThatCode(() -> succeeding.block(Duration.ofSeconds(5)))
+            .doesNotThrowAnyException();
+        assertThatThrownBy(() -> failing.block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+}
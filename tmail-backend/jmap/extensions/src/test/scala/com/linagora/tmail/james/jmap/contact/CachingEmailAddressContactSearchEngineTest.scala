@@ -0,0 +1,100 @@
+package com.linagora.tmail.james.jmap.contact
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.apache.james.core.{Domain, MailAddress, Username}
+import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Disabled, Test}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+class CachingEmailAddressContactSearchEngineTest extends EmailAddressContactSearchEngineContract {
+  private val accountId: AccountId = AccountId.fromUsername(Username.of("bob@linagora.com"))
+  private val contactFields: ContactFields = ContactFields(new MailAddress("nobita@linagora.com"), "John", "Carpenter")
+
+  var underlying: InMemoryEmailAddressContactSearchEngine = _
+  var underlyingIndexCalls: AtomicInteger = _
+  var cachingSearchEngine: CachingEmailAddressContactSearchEngine = _
+
+  override def testee(): EmailAddressContactSearchEngine = cachingSearchEngine
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    underlyingIndexCalls = new AtomicInteger()
+    underlying = new InMemoryEmailAddressContactSearchEngine() {
+      override def index(accountId: AccountId, fields: ContactFields): Publisher[EmailAddressContact] = {
+        underlyingIndexCalls.incrementAndGet()
+        super.index(accountId, fields)
+      }
+    }
+    cachingSearchEngine = new CachingEmailAddressContactSearchEngine(underlying, new RecentlyIndexedContacts(new NoopGaugeRegistry()))
+  }
+
+  override def awaitDocumentsIndexed(query: QueryType, documentCount: Long): Unit = {
+  }
+
+  @Test
+  @Disabled("Memory does not need to support language special characters normalization")
+  override def searchASCIICharactersShouldReturnMatchedFrenchName(): Unit = {
+  }
+
+  @Test
+  def indexingAnUnchangedContactShouldNotReachTheUnderlyingSearchEngine(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+
+    assertThat(underlyingIndexCalls.get()).isEqualTo(1)
+  }
+
+  @Test
+  def indexingAContactWithOtherNamesShouldReachTheUnderlyingSearchEngine(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.index(accountId, contactFields.copy(firstname = "Johnny"))).block()
+
+    assertThat(underlyingIndexCalls.get()).isEqualTo(2)
+  }
+
+  @Test
+  def indexingTheSameContactForAnotherAccountShouldReachTheUnderlyingSearchEngine(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.index(AccountId.fromUsername(Username.of("alice@linagora.com")), contactFields)).block()
+
+    assertThat(underlyingIndexCalls.get()).isEqualTo(2)
+  }
+
+  @Test
+  def indexingADeletedContactShouldReachTheUnderlyingSearchEngine(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.delete(accountId, contactFields.address)).block()
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+
+    assertThat(underlyingIndexCalls.get()).isEqualTo(2)
+    assertThat(cachingSearchEngine.isRecentlyIndexed(accountId, contactFields)).isTrue
+  }
+
+  @Test
+  def updateShouldInvalidateTheContact(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.update(accountId, contactFields.copy(firstname = "Johnny"))).block()
+
+    assertThat(cachingSearchEngine.isRecentlyIndexed(accountId, contactFields)).isFalse
+  }
+
+  @Test
+  def indexingAContactWithSameNamesHashShouldReachTheUnderlyingSearchEngine(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields.copy(firstname = "Aa", surname = ""))).block()
+    SMono(cachingSearchEngine.index(accountId, contactFields.copy(firstname = "BB", surname = ""))).block()
+
+    assertThat(underlyingIndexCalls.get()).isEqualTo(2)
+  }
+
+  @Test
+  def deletingADomainContactShouldInvalidateTheContactForAllAccounts(): Unit = {
+    SMono(cachingSearchEngine.index(accountId, contactFields)).block()
+    SMono(cachingSearchEngine.delete(Domain.of("linagora.com"), contactFields.address)).block()
+
+    assertThat(cachingSearchEngine.isRecentlyIndexed(accountId, contactFields)).isFalse
+  }
+}
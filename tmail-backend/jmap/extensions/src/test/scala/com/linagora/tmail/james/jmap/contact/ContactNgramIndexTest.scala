@@ -0,0 +1,82 @@
+package com.linagora.tmail.james.jmap.contact
+
+import org.apache.james.core.MailAddress
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+
+import scala.jdk.CollectionConverters._
+
+class ContactNgramIndexTest {
+  private val bob: EmailAddressContact = EmailAddressContact.of(ContactFields(new MailAddress("bob@linagora.com"), "Bob", "Marley"))
+  private val alice: EmailAddressContact = EmailAddressContact.of(ContactFields(new MailAddress("alice@linagora.com"), "Alice", "Cooper"))
+  private val marie: EmailAddressContact = EmailAddressContact.of(ContactFields(new MailAddress("marie@other.com"), "Marie", "Curie"))
+
+  var testee: ContactNgramIndex = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    testee = new ContactNgramIndex()
+    testee.put(bob)
+    testee.put(alice)
+    testee.put(marie)
+  }
+
+  @Test
+  def searchShouldMatchSubstringsOfAnyField(): Unit = {
+    assertThat(testee.search("arl", 10).asJava).containsExactly(bob)
+    assertThat(testee.search("coop", 10).asJava).containsExactly(alice)
+    assertThat(testee.search("linagora", 10).asJava).containsExactly(alice, bob)
+  }
+
+  @Test
+  def searchShouldReturnResultsSortedByAddress(): Unit = {
+    assertThat(testee.search("li", 10).asJava).containsExactly(alice, bob)
+  }
+
+  @Test
+  def searchShouldRespectLimit(): Unit = {
+    assertThat(testee.search("linagora", 1).asJava).containsExactly(alice)
+    assertThat(testee.search("a", 2).asJava).containsExactly(alice, bob)
+  }
+
+  @Test
+  def searchShouldReturnEmptyWhenNoTrigramMatches(): Unit = {
+    assertThat(testee.search("xyz", 10).asJava).isEmpty()
+  }
+
+  @Test
+  def putShouldReplaceThePreviousTrigrams(): Unit = {
+    testee.put(EmailAddressContact.of(ContactFields(new MailAddress("bob@linagora.com"), "Robert", "")))
+
+    assertThat(testee.search("marley", 10).asJava).isEmpty()
+    assertThat(testee.search("robert", 10).asJava).hasSize(1)
+  }
+
+  @Test
+  def removedContactsShouldNotBeReturned(): Unit = {
+    testee.remove(bob.fields.address)
+
+    assertThat(testee.search("bob", 10).asJava).isEmpty()
+    assertThat(testee.all().asJava).containsExactly(alice, marie)
+  }
+
+  @Test
+  def getShouldIgnoreAddressCase(): Unit = {
+    assertThat(testee.get(new MailAddress("BOB@Linagora.com")).contains(bob)).isTrue
+  }
+
+  @Test
+  def putShouldReplaceAContactWithAnotherAddressCase(): Unit = {
+    val upperCaseBob: EmailAddressContact = EmailAddressContact.of(ContactFields(new MailAddress("BOB@linagora.com"), "Bob", "Dylan"))
+    testee.put(upperCaseBob)
+
+    assertThat(testee.all().asJava).containsExactly(alice, upperCaseBob, marie)
+  }
+
+  @Test
+  def removeShouldIgnoreAddressCase(): Unit = {
+    testee.remove(new MailAddress("Bob@linagora.com"))
+
+    assertThat(testee.contains(bob.fields.address)).isFalse
+  }
+}
@@ -1,6 +1,12 @@
 package com.linagora.tmail.james.jmap.contact
 
+import scala.jdk.CollectionConverters._
+
+import org.apache.james.core.{Domain, MailAddress, Username}
+import org.apache.james.jmap.api.model.AccountId
+import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.{BeforeEach, Disabled, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
 
 class MemoryEmailAddressContactSearchEngineTest extends EmailAddressContactSearchEngineContract {
   var inMemoryEmailAddressContactSearchEngine: InMemoryEmailAddressContactSearchEngine = _
@@ -19,4 +25,15 @@ class MemoryEmailAddressContactSearchEngineTest extends EmailAddressContactSearc
   @Disabled("Memory does not need to support language special characters normalization")
   override def searchASCIICharactersShouldReturnMatchedFrenchName(): Unit = {
   }
+
+  @Test
+  def autoCompleteShouldSortMergedContactsIgnoringAddressCase(): Unit = {
+    val domain: Domain = Domain.of("linagora.com")
+    val accountId: AccountId = AccountId.fromUsername(Username.fromLocalPartWithDomain("bob", domain))
+    SMono(testee().index(domain, ContactFields(new MailAddress("Zoe@linagora.com"), "Zoe", ""))).block()
+    SMono(testee().index(accountId, ContactFields(new MailAddress("alice@linagora.com"), "Alice", ""))).block()
+
+    assertThat(SFlux.fromPublisher(testee().autoComplete(accountId, "linagora", 1)).map(_.fields.address.asString()).collectSeq().block().asJava)
+      .containsExactly("alice@linagora.com")
+  }
 }
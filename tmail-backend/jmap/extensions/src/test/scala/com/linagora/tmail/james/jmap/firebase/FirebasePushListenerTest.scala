@@ -1,7 +1,7 @@
 package com.linagora.tmail.james.jmap.firebase
 
-import java.time.Clock
-import java.util.UUID
+import java.time.{Clock, Duration}
+import java.util.{Optional, UUID}
 
 import com.google.common.collect.ImmutableList
 import com.google.firebase.messaging.{FirebaseMessagingException, MessagingErrorCode}
@@ -10,6 +10,8 @@ import org.apache.james.core.Username
 import org.apache.james.events.Event.EventId
 import org.apache.james.jmap.change.{EmailDeliveryTypeName, EmailTypeName, MailboxTypeName, StateChangeEvent}
 import org.apache.james.jmap.core.UuidState
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.apache.james.metrics.tests.RecordingMetricFactory
 import org.apache.james.user.api.DelegationStore
 import org.apache.james.user.memory.MemoryDelegationStore
 import org.assertj.core.api.Assertions.assertThat
@@ -32,15 +34,21 @@ class FirebasePushListenerTest {
   var subscriptionRepository: FirebaseSubscriptionRepository = _
   var pushClient: FirebasePushClient = _
   var delegationStore: DelegationStore = _
+  var subscriptionCache: FirebaseSubscriptionCache = _
 
   @BeforeEach
   def setUp(): Unit = {
     subscriptionRepository = new MemoryFirebaseSubscriptionRepository(Clock.systemUTC())
     pushClient = mock(classOf[FirebasePushClient])
     delegationStore = new MemoryDelegationStore()
+    subscriptionCache = new FirebaseSubscriptionCache(subscriptionRepository, FirebaseSubscriptionCacheConfiguration.DISABLED, Clock.systemUTC(), new NoopGaugeRegistry)
     testee = new FirebasePushListener(subscriptionRepository, delegationStore, pushClient)
 
     when(pushClient.push(any())).thenReturn(Mono.empty)
+    when(pushClient.pushBatch(any())).thenAnswer(invocation => Mono.just(invocation.getArgument[java.util.List[FirebasePushRequest]](0)
+      .stream()
+      .map(request => FirebasePushResult.success(request))
+      .collect(ImmutableList.toImmutableList[FirebasePushResult])))
   }
 
   @Test
@@ -290,5 +298,122 @@ class FirebasePushListenerTest {
       .containsExactlyInAnyOrder("token1", "token1", "token2")
   }
 
-}
+  @Test
+  def aggregationShouldCoalesceStateChangesOfADevice(): Unit = {
+    val aggregator = newAggregator()
+    testee = new FirebasePushListener(delegationStore, pushClient, subscriptionCache, aggregator)
+    SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit"),
+      token = FirebaseToken("token"),
+      types = Seq(EmailTypeName, MailboxTypeName)))).block()
+
+    val state1 = UuidState(UUID.randomUUID())
+    val state2 = UuidState(UUID.randomUUID())
+    val state3 = UuidState(UUID.randomUUID())
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> state1)))).block()
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(MailboxTypeName -> state2)))).block()
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> state3)))).block()
+    aggregator.flush().block()
+
+    val argumentCaptor: ArgumentCaptor[java.util.List[FirebasePushRequest]] = ArgumentCaptor.forClass(classOf[java.util.List[FirebasePushRequest]])
+    verify(pushClient).pushBatch(argumentCaptor.capture())
+    verify(pushClient, times(0)).push(any())
+
+    assertThat(argumentCaptor.getValue).hasSize(1)
+    assertThat(argumentCaptor.getValue.get(0).stateChangesMap())
+      .isEqualTo(java.util.Map.of(s"$bobAccountId:${EmailTypeName.asString}", s"${state3.value.toString}",
+        s"$bobAccountId:${MailboxTypeName.asString}", s"${state2.value.toString}"))
+  }
+
+  @Test
+  def aggregationShouldBatchSeveralDevices(): Unit = {
+    val aggregator = newAggregator()
+    testee = new FirebasePushListener(delegationStore, pushClient, subscriptionCache, aggregator)
+    SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit"),
+      token = FirebaseToken("token1"),
+      types = Seq(EmailTypeName)))).block()
+    SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit2"),
+      token = FirebaseToken("token2"),
+      types = Seq(EmailTypeName)))).block()
+
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> UuidState(UUID.randomUUID()))))).block()
+    aggregator.flush().block()
+
+    val argumentCaptor: ArgumentCaptor[java.util.List[FirebasePushRequest]] = ArgumentCaptor.forClass(classOf[java.util.List[FirebasePushRequest]])
+    verify(pushClient).pushBatch(argumentCaptor.capture())
+
+    assertThat(argumentCaptor.getValue
+      .stream()
+      .map(_.token().value)
+      .collect(ImmutableList.toImmutableList[String]))
+      .containsExactlyInAnyOrder("token1", "token2")
+  }
+
+  @Test
+  def aggregationShouldSendHighUrgencyChangesImmediately(): Unit = {
+    val aggregator = newAggregator()
+    testee = new FirebasePushListener(delegationStore, pushClient, subscriptionCache, aggregator)
+    SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit"),
+      token = FirebaseToken("token"),
+      types = Seq(EmailDeliveryTypeName, EmailTypeName)))).block()
+
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> UuidState(UUID.randomUUID()))))).block()
+    verify(pushClient, times(0)).pushBatch(any())
+
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob,
+      Map(EmailTypeName -> UuidState(UUID.randomUUID()), EmailDeliveryTypeName -> UuidState(UUID.randomUUID()))))).block()
+
+    val argumentCaptor: ArgumentCaptor[java.util.List[FirebasePushRequest]] = ArgumentCaptor.forClass(classOf[java.util.List[FirebasePushRequest]])
+    verify(pushClient).pushBatch(argumentCaptor.capture())
+    assertThat(argumentCaptor.getValue).hasSize(1)
+    assertThat(argumentCaptor.getValue.get(0).urgency().toString).isEqualTo(FirebasePushUrgency.HIGH.toString)
+  }
+
+  @Test
+  def aggregationShouldRemoveSubscriptionWhenUnregisteredToken(): Unit = {
+    val firebaseException = mock(classOf[FirebaseMessagingException])
+    when(firebaseException.getMessagingErrorCode).thenReturn(MessagingErrorCode.UNREGISTERED)
+    when(pushClient.pushBatch(any())).thenAnswer(invocation => Mono.just(invocation.getArgument[java.util.List[FirebasePushRequest]](0)
+      .stream()
+      .map(request => FirebasePushResult.failure(request, firebaseException))
+      .collect(ImmutableList.toImmutableList[FirebasePushResult])))
+    val aggregator = newAggregator()
+    testee = new FirebasePushListener(delegationStore, pushClient, subscriptionCache, aggregator)
+
+    val subscriptionId = SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit"),
+      token = FirebaseToken("token"),
+      types = Seq(EmailTypeName)))).block().id
+
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> UuidState(UUID.randomUUID()))))).block()
+    aggregator.flush().block()
+
+    assertThat(SMono.fromPublisher(subscriptionRepository.get(bob, java.util.Set.of(subscriptionId))).block())
+      .isNull()
+  }
+
+  @Test
+  def stoppingAggregationShouldSendPendingPushes(): Unit = {
+    val aggregator = newAggregator()
+    testee = new FirebasePushListener(delegationStore, pushClient, subscriptionCache, aggregator)
+    SMono(subscriptionRepository.save(bob, FirebaseSubscriptionCreationRequest(
+      deviceClientId = DeviceClientId("junit"),
+      token = FirebaseToken("token"),
+      types = Seq(EmailTypeName)))).block()
 
+    aggregator.start()
+    SMono(testee.reactiveEvent(StateChangeEvent(EventId.random(), bob, Map(EmailTypeName -> UuidState(UUID.randomUUID()))))).block()
+    aggregator.stop()
+
+    val argumentCaptor: ArgumentCaptor[java.util.List[FirebasePushRequest]] = ArgumentCaptor.forClass(classOf[java.util.List[FirebasePushRequest]])
+    verify(pushClient).pushBatch(argumentCaptor.capture())
+    assertThat(argumentCaptor.getValue).hasSize(1)
+  }
+
+  private def newAggregator(): FirebasePushAggregator =
+    new FirebasePushAggregator(new FirebasePushAggregationConfiguration(Optional.of(Duration.ofHours(1)), 500, 4),
+      pushClient, subscriptionCache, new RecordingMetricFactory, new NoopGaugeRegistry)
+}
@@ -0,0 +1,86 @@
+package com.linagora.tmail.james.jmap.firebase
+
+import com.linagora.tmail.james.jmap.firebase.FirebaseSubscriptionRepositoryContract.{BOB, NOW, SAMPLE_DEVICE_TOKEN_1, VALID_EXPIRE}
+import com.linagora.tmail.james.jmap.model.{DeviceClientId, FirebaseSubscriptionCreationRequest, FirebaseSubscriptionExpiredTime}
+import org.apache.james.jmap.change.EmailTypeName
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.apache.james.utils.UpdatableTickingClock
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.SMono
+
+import scala.jdk.CollectionConverters._
+
+class FirebaseSubscriptionCacheTest {
+  val clock = new UpdatableTickingClock(NOW)
+  val creationRequest: FirebaseSubscriptionCreationRequest = FirebaseSubscriptionCreationRequest(
+    deviceClientId = DeviceClientId("junit"),
+    token = SAMPLE_DEVICE_TOKEN_1,
+    expires = Some(FirebaseSubscriptionExpiredTime(VALID_EXPIRE)),
+    types = Seq(EmailTypeName))
+
+  var repository: FirebaseSubscriptionRepository = _
+  var testee: FirebaseSubscriptionCache = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    repository = new MemoryFirebaseSubscriptionRepository(clock)
+    testee = new FirebaseSubscriptionCache(repository, FirebaseSubscriptionCacheConfiguration.ENABLED, clock, new NoopGaugeRegistry)
+  }
+
+  @Test
+  def listShouldReturnStoredSubscriptions(): Unit = {
+    val subscription = SMono(repository.save(BOB, creationRequest)).block()
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).containsExactly(subscription)
+  }
+
+  @Test
+  def listShouldCacheAbsenceOfSubscriptions(): Unit = {
+    testee.list(BOB).collectSeq().block()
+
+    SMono(repository.save(BOB, creationRequest)).block()
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).isEmpty()
+  }
+
+  @Test
+  def invalidateShouldReloadSubscriptions(): Unit = {
+    testee.list(BOB).collectSeq().block()
+    val subscription = SMono(repository.save(BOB, creationRequest)).block()
+
+    testee.invalidate(BOB)
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).containsExactly(subscription)
+  }
+
+  @Test
+  def revokeShouldInvalidateCachedSubscriptions(): Unit = {
+    val subscription = SMono(repository.save(BOB, creationRequest)).block()
+    testee.list(BOB).collectSeq().block()
+
+    testee.revoke(BOB, subscription.id).block()
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).isEmpty()
+  }
+
+  @Test
+  def listShouldFilterOutCachedOutdatedSubscriptions(): Unit = {
+    SMono(repository.save(BOB, creationRequest)).block()
+    testee.list(BOB).collectSeq().block()
+
+    clock.setInstant(VALID_EXPIRE.plusDays(1).toInstant)
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).isEmpty()
+  }
+
+  @Test
+  def disabledCacheShouldReadThrough(): Unit = {
+    testee = new FirebaseSubscriptionCache(repository, FirebaseSubscriptionCacheConfiguration.DISABLED, clock, new NoopGaugeRegistry)
+    testee.list(BOB).collectSeq().block()
+
+    val subscription = SMono(repository.save(BOB, creationRequest)).block()
+
+    assertThat(testee.list(BOB).collectSeq().block().asJava).containsExactly(subscription)
+  }
+}
@@ -0,0 +1,85 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.bindMarker;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.oss.driver.api.querybuilder.QueryBuilder.selectFrom;
+
+import javax.inject.Inject;
+
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+
+import reactor.core.publisher.Mono;
+
+public class CassandraExtractedTextStore implements ExtractedTextStore {
+    public static final String TABLE_NAME = "extracted_text";
+    public static final String CONTENT_HASH = "content_hash";
+    public static final String CONTENT_TYPE = "content_type";
+    public static final String TEXT = "text";
+
+    public static final CassandraModule MODULE = CassandraModule.table(TABLE_NAME)
+        .comment("Texts extracted out of attachments, shared between James nodes to avoid calling Tika again for known contents.")
+        .statement(statement -> types -> statement
+            .withPartitionKey(CONTENT_HASH, DataTypes.TEXT)
+            .withClusteringColumn(CONTENT_TYPE, DataTypes.TEXT)
+            .withColumn(TEXT, DataTypes.TEXT))
+        .build();
+
+    private final CassandraAsyncExecutor executor;
+    private final PreparedStatement insert;
+    private final PreparedStatement select;
+
+    @Inject
+    public CassandraExtractedTextStore(CqlSession session, SharedTextExtractionCacheConfiguration configuration) {
+        this.executor = new CassandraAsyncExecutor(session);
+        this.insert = session.prepare(insertInto(TABLE_NAME)
+            .value(CONTENT_HASH, bindMarker(CONTENT_HASH))
+            .value(CONTENT_TYPE, bindMarker(CONTENT_TYPE))
+            .value(TEXT, bindMarker(TEXT))
+            .usingTtl((int) configuration.ttl().getSeconds())
+            .build());
+        this.select = session.prepare(selectFrom(TABLE_NAME)
+            .column(TEXT)
+            .whereColumn(CONTENT_HASH).isEqualTo(bindMarker(CONTENT_HASH))
+            .whereColumn(CONTENT_TYPE).isEqualTo(bindMarker(CONTENT_TYPE))
+            .build());
+    }
+
+    @Override
+    public Mono<String> retrieve(Key key) {
+        return executor.executeSingleRow(select.bind()
+                .setString(CONTENT_HASH, key.contentHash())
+                .setString(CONTENT_TYPE, key.contentType()))
+            .map(row -> row.getString(TEXT));
+    }
+
+    @Override
+    public Mono<Void> store(Key key, String textualContent) {
+        return executor.executeVoid(insert.bind()
+            .setString(CONTENT_HASH, key.contentHash())
+            .setString(CONTENT_TYPE, key.contentType())
+            .setString(TEXT, textualContent));
+    }
+}
@@ -0,0 +1,70 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.mailbox.model.ContentType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class CassandraExtractedTextStoreTest {
+    static final ExtractedTextStore.Key KEY = ExtractedTextStore.Key.of("content".getBytes(StandardCharsets.UTF_8), ContentType.of("application/pdf"));
+
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(CassandraExtractedTextStore.MODULE);
+
+    CassandraExtractedTextStore testee;
+
+    @BeforeEach
+    void setUp() {
+        testee = new CassandraExtractedTextStore(cassandraCluster.getCassandraCluster().getConf(), SharedTextExtractionCacheConfiguration.DEFAULT);
+    }
+
+    @Test
+    void retrieveShouldReturnEmptyWhenAbsent() {
+        assertThat(testee.retrieve(KEY).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void retrieveShouldReturnStoredText() {
+        testee.store(KEY, "extracted text").block();
+
+        assertThat(testee.retrieve(KEY).block()).isEqualTo("extracted text");
+    }
+
+    @Test
+    void storeShouldOverwritePreviousText() {
+        testee.store(KEY, "extracted text").block();
+        testee.store(KEY, "other text").block();
+
+        assertThat(testee.retrieve(KEY).block()).isEqualTo("other text");
+    }
+
+    @Test
+    void entriesShouldBeScopedByContentType() {
+        testee.store(KEY, "extracted text").block();
+
+        assertThat(testee.retrieve(new ExtractedTextStore.Key(KEY.contentHash(), "text/plain")).blockOptional()).isEmpty();
+    }
+}
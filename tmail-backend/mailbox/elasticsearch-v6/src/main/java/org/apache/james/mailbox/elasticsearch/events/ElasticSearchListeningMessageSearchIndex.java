@@ -49,6 +49,7 @@ import org.apache.james.mailbox.MailboxManager.SearchCapabilities;
 import org.apache.james.mailbox.MailboxSession;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.SessionProvider;
+import org.apache.james.mailbox.elasticsearch.FlagsUpdateCoalescingConfiguration;
 import org.apache.james.mailbox.elasticsearch.MailboxElasticSearchConstants;
 import org.apache.james.mailbox.elasticsearch.json.MessageToElasticSearchJson;
 import org.apache.james.mailbox.elasticsearch.search.ElasticSearchSearcher;
@@ -60,8 +61,13 @@ import org.apache.james.mailbox.model.UpdatedFlags;
 import org.apache.james.mailbox.store.MailboxSessionMapperFactory;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +75,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -89,17 +98,36 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
     private final ElasticSearchSearcher searcher;
     private final MessageToElasticSearchJson messageToElasticSearchJson;
     private final RoutingKey.Factory<MailboxId> routingKeyFactory;
+    private final Optional<FlagsUpdateCoalescer> flagsUpdateCoalescer;
+    private final int flagsUpdateWindowSize;
+
+    public ElasticSearchListeningMessageSearchIndex(MailboxSessionMapperFactory factory,
+                                                    ElasticSearchIndexer indexer,
+                                                    ElasticSearchSearcher searcher, MessageToElasticSearchJson messageToElasticSearchJson,
+                                                    SessionProvider sessionProvider, RoutingKey.Factory<MailboxId> routingKeyFactory) {
+        this(factory, indexer, searcher, messageToElasticSearchJson, sessionProvider, routingKeyFactory,
+            FlagsUpdateCoalescingConfiguration.DISABLED, new NoopMetricFactory());
+    }
 
     @Inject
     public ElasticSearchListeningMessageSearchIndex(MailboxSessionMapperFactory factory,
                                                     @Named(MailboxElasticSearchConstants.InjectionNames.MAILBOX) ElasticSearchIndexer indexer,
                                                     ElasticSearchSearcher searcher, MessageToElasticSearchJson messageToElasticSearchJson,
-                                                    SessionProvider sessionProvider, RoutingKey.Factory<MailboxId> routingKeyFactory) {
+                                                    SessionProvider sessionProvider, RoutingKey.Factory<MailboxId> routingKeyFactory,
+                                                    FlagsUpdateCoalescingConfiguration flagsUpdateCoalescingConfiguration,
+                                                    MetricFactory metricFactory) {
         super(factory, ImmutableSet.of(), sessionProvider);
         this.elasticSearchIndexer = indexer;
         this.messageToElasticSearchJson = messageToElasticSearchJson;
         this.searcher = searcher;
         this.routingKeyFactory = routingKeyFactory;
+        if (flagsUpdateCoalescingConfiguration.enabled()) {
+            this.flagsUpdateCoalescer = Optional.of(new FlagsUpdateCoalescer(flagsUpdateCoalescingConfiguration, metricFactory, this::indexCoalescedFlagsUpdates));
+            this.flagsUpdateWindowSize = flagsUpdateCoalescingConfiguration.maxBufferedUpdates();
+        } else {
+            this.flagsUpdateCoalescer = Optional.empty();
+            this.flagsUpdateWindowSize = FLAGS_UPDATE_PROCESSING_WINDOW_SIZE;
+        }
     }
 
     @Override
@@ -136,7 +164,7 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
             return Flux.empty();
         }
 
-        return searcher.search(mailboxIds, searchQuery, Optional.empty())
+        return searcher.searchPaged(mailboxIds, searchQuery, Ints.saturatedCast(limit))
             .doOnNext(this::logIfNoMessageId)
             .map(SearchResult::getMessageId)
             .handle(publishIfPresent())
@@ -160,8 +188,8 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
             .then();
     }
 
-    private Mono<String> generateIndexedJson(Mailbox mailbox, MailboxMessage message, MailboxSession session) {
-        return messageToElasticSearchJson.convertToJson(message)
+    private Mono<byte[]> generateIndexedJson(Mailbox mailbox, MailboxMessage message, MailboxSession session) {
+        return messageToElasticSearchJson.convertToJsonBytes(message)
             .onErrorResume(e -> {
                 LOGGER.warn("Indexing mailbox {}-{} of user {} on message {} without attachments ",
                     mailbox.getName(),
@@ -169,7 +197,7 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
                     session.getUser().asString(),
                     message.getUid(),
                     e);
-                return messageToElasticSearchJson.convertToJsonWithoutAttachment(message);
+                return messageToElasticSearchJson.convertToJsonBytesWithoutAttachment(message);
             });
     }
 
@@ -190,23 +218,69 @@ public class ElasticSearchListeningMessageSearchIndex extends ListeningMessageSe
             mailboxId.serialize());
 
         return elasticSearchIndexer
-                .deleteAllMatchingQuery(queryBuilder, routingKeyFactory.from(mailboxId));
+                .deleteAllMatchingQueryWithProgress(queryBuilder, routingKeyFactory.from(mailboxId))
+                .doOnNext(progress -> LOGGER.debug("Deleting messages of mailbox {} from the index: {}", mailboxId.serialize(), progress))
+                .then();
     }
 
     @Override
     public Mono<Void> update(MailboxSession session, MailboxId mailboxId, List<UpdatedFlags> updatedFlagsList) {
+        return flagsUpdateCoalescer
+            .map(coalescer -> coalescer.submit(mailboxId, updatedFlagsList))
+            .orElseGet(() -> indexFlagsUpdates(mailboxId, updatedFlagsList));
+    }
+
+    private Mono<Void> indexFlagsUpdates(MailboxId mailboxId, List<UpdatedFlags> updatedFlagsList) {
         RoutingKey routingKey = routingKeyFactory.from(mailboxId);
 
         return Flux.fromIterable(updatedFlagsList)
             .map(Throwing.<UpdatedFlags, UpdatedRepresentation>function(
                 updatedFlags -> createUpdatedDocumentPartFromUpdatedFlags(mailboxId, updatedFlags))
                 .sneakyThrow())
-            .window(FLAGS_UPDATE_PROCESSING_WINDOW_SIZE)
+            .window(flagsUpdateWindowSize)
             .concatMap(flux -> flux.collectList()
                 .flatMap(updates -> elasticSearchIndexer.update(updates, routingKey)))
             .then();
     }
 
+    private Mono<Map<MessageUid, Throwable>> indexCoalescedFlagsUpdates(MailboxId mailboxId, List<UpdatedFlags> updatedFlagsList) {
+        RoutingKey routingKey = routingKeyFactory.from(mailboxId);
+
+        return Flux.fromIterable(Lists.partition(updatedFlagsList, flagsUpdateWindowSize))
+            .concatMap(window -> Mono.fromCallable(() -> createUpdatedDocumentParts(mailboxId, window))
+                .flatMap(updates -> elasticSearchIndexer.update(updates, routingKey))
+                .flatMapIterable(response -> failedUpdates(window, response).entrySet()))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private List<UpdatedRepresentation> createUpdatedDocumentParts(MailboxId mailboxId, List<UpdatedFlags> updatedFlagsList) throws JsonProcessingException {
+        ImmutableList.Builder<UpdatedRepresentation> updates = ImmutableList.builder();
+        for (UpdatedFlags updatedFlags : updatedFlagsList) {
+            updates.add(createUpdatedDocumentPartFromUpdatedFlags(mailboxId, updatedFlags));
+        }
+        return updates.build();
+    }
+
+    private Map<MessageUid, Throwable> failedUpdates(List<UpdatedFlags> updatedFlagsList, BulkResponse response) {
+        // Bulk items are returned in the order of the requests
+        BulkItemResponse[] items = response.getItems();
+        ImmutableMap.Builder<MessageUid, Throwable> failures = ImmutableMap.builder();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].isFailed() && !isDocumentMissing(items[i])) {
+                failures.put(updatedFlagsList.get(i).getUid(), items[i].getFailure().getCause());
+            }
+        }
+        return failures.build();
+    }
+
+    /**
+     * Messages expunged before their flags update got indexed are no longer in the index. As with uncoalesced updates,
+     * there is nothing left to update: their events should not be retried.
+     */
+    private boolean isDocumentMissing(BulkItemResponse item) {
+        return item.getFailure().getStatus() == RestStatus.NOT_FOUND;
+    }
+
     private UpdatedRepresentation createUpdatedDocumentPartFromUpdatedFlags(MailboxId mailboxId, UpdatedFlags updatedFlags) throws JsonProcessingException {
         return new UpdatedRepresentation(
             indexIdFor(mailboxId, updatedFlags.getUid()),
@@ -0,0 +1,114 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.events;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.elasticsearch.FlagsUpdateCoalescingConfiguration;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.UpdatedFlags;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.linagora.tmail.coalescing.KeyedCoalescer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces flags updates so that updates spread over several events end up in the same bulk requests, and only the
+ * most recent update (by mod-sequence) of each message gets indexed.
+ *
+ * Updates of all mailboxes share the same {@link KeyedCoalescer}: a batch is flushed once it holds
+ * {@code maxBufferedUpdates} distinct messages across mailboxes, or {@code maxLatency} after its first update, then
+ * indexed with one bulk request per mailbox. As submitting events wait for the flush, a batch never holds more events
+ * than the listener concurrency, see {@link KeyedCoalescer}.
+ *
+ * The deduplication ratio is {@code 1 - indexed / received}, both being exposed as metrics.
+ */
+class FlagsUpdateCoalescer {
+    static final String RECEIVED_METRIC_NAME = "elasticsearch.flagsUpdate.coalescing.received";
+    static final String INDEXED_METRIC_NAME = "elasticsearch.flagsUpdate.coalescing.indexed";
+    static final String FLUSH_METRIC_NAME = "elasticsearch.flagsUpdate.coalescing.flush";
+
+    private record MessageKey(MailboxId mailboxId, MessageUid uid) {
+
+    }
+
+    private static UpdatedFlags mostRecent(UpdatedFlags previous, UpdatedFlags next) {
+        if (next.getModSeq().asLong() >= previous.getModSeq().asLong()) {
+            return next;
+        }
+        return previous;
+    }
+
+    private final BiFunction<MailboxId, List<UpdatedFlags>, Mono<Map<MessageUid, Throwable>>> flusher;
+    private final Metric receivedMetric;
+    private final Metric indexedMetric;
+    private final Metric flushMetric;
+    private final KeyedCoalescer<MessageKey, UpdatedFlags> coalescer;
+
+    FlagsUpdateCoalescer(FlagsUpdateCoalescingConfiguration configuration, MetricFactory metricFactory,
+                         BiFunction<MailboxId, List<UpdatedFlags>, Mono<Map<MessageUid, Throwable>>> flusher) {
+        this.flusher = flusher;
+        this.receivedMetric = metricFactory.generate(RECEIVED_METRIC_NAME);
+        this.indexedMetric = metricFactory.generate(INDEXED_METRIC_NAME);
+        this.flushMetric = metricFactory.generate(FLUSH_METRIC_NAME);
+        this.coalescer = new KeyedCoalescer<>(configuration.maxBufferedUpdates(), configuration.maxLatency(),
+            FlagsUpdateCoalescer::mostRecent, this::flush);
+    }
+
+    Mono<Void> submit(MailboxId mailboxId, Collection<UpdatedFlags> updates) {
+        if (updates.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.defer(() -> {
+            receivedMetric.add(updates.size());
+            return coalescer.submit(updates.stream()
+                .collect(ImmutableMap.toImmutableMap(update -> new MessageKey(mailboxId, update.getUid()), update -> update,
+                    FlagsUpdateCoalescer::mostRecent)));
+        });
+    }
+
+    private Mono<Map<MessageKey, Throwable>> flush(Map<MessageKey, UpdatedFlags> updates) {
+        flushMetric.increment();
+        indexedMetric.add(updates.size());
+
+        ImmutableListMultimap<MailboxId, UpdatedFlags> updatesByMailbox = updates.entrySet().stream()
+            .collect(ImmutableListMultimap.toImmutableListMultimap(entry -> entry.getKey().mailboxId(), Map.Entry::getValue));
+
+        return Flux.fromIterable(updatesByMailbox.keySet())
+            .flatMap(mailboxId -> flushMailbox(mailboxId, updatesByMailbox.get(mailboxId)))
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Flux<Map.Entry<MessageKey, Throwable>> flushMailbox(MailboxId mailboxId, List<UpdatedFlags> updates) {
+        return flusher.apply(mailboxId, updates)
+            .flatMapIterable(Map::entrySet)
+            .map(failure -> Map.entry(new MessageKey(mailboxId, failure.getKey()), failure.getValue()))
+            .onErrorResume(e -> Flux.fromIterable(updates)
+                .map(update -> Map.entry(new MessageKey(mailboxId, update.getUid()), e)));
+    }
+}
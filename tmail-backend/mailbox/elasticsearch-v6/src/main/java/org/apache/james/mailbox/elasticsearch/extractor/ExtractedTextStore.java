@@ -0,0 +1,49 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import org.apache.james.mailbox.model.ContentType;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Shared storage for texts extracted out of attachments, addressed by content.
+ *
+ * Implementations are allowed to drop entries at will (TTL, size bounds...): a missing entry only means the
+ * content will be extracted again.
+ */
+public interface ExtractedTextStore {
+    record Key(String contentHash, String contentType) {
+        public static Key of(byte[] content, ContentType contentType) {
+            return new Key(Hashing.sha256().hashBytes(content).toString(), contentType.mimeType().asString());
+        }
+
+        public Key {
+            Preconditions.checkNotNull(contentHash);
+            Preconditions.checkNotNull(contentType);
+        }
+    }
+
+    Mono<String> retrieve(Key key);
+
+    Mono<Void> store(Key key, String textualContent);
+}
@@ -0,0 +1,117 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.apache.james.mailbox.extractor.ParsedContent;
+import org.apache.james.mailbox.extractor.TextExtractor;
+import org.apache.james.mailbox.model.ContentType;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Looks extracted texts up in a {@link ExtractedTextStore} shared between James nodes before calling the underlying
+ * {@link TextExtractor}.
+ *
+ * Only complete extractions are shared: failures, as well as empty results (which is how Tika reports timeouts and
+ * unparsable content), are never stored, so that a later indexing of the same content gets a chance to do better.
+ */
+public class SharedCachingTextExtractor implements TextExtractor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedCachingTextExtractor.class);
+
+    public static final String HIT_METRIC_NAME = "textExtractor.sharedCache.hit";
+    public static final String MISS_METRIC_NAME = "textExtractor.sharedCache.miss";
+    public static final String LOOKUP_METRIC_NAME = "textExtractor.sharedCache.lookup";
+
+    private final TextExtractor underlying;
+    private final ExtractedTextStore store;
+    private final SharedTextExtractionCacheConfiguration configuration;
+    private final MetricFactory metricFactory;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    public SharedCachingTextExtractor(TextExtractor underlying, ExtractedTextStore store,
+                                      SharedTextExtractionCacheConfiguration configuration, MetricFactory metricFactory) {
+        this.underlying = underlying;
+        this.store = store;
+        this.configuration = configuration;
+        this.metricFactory = metricFactory;
+        this.hitMetric = metricFactory.generate(HIT_METRIC_NAME);
+        this.missMetric = metricFactory.generate(MISS_METRIC_NAME);
+    }
+
+    @Override
+    public boolean applicable(ContentType contentType) {
+        return underlying.applicable(contentType);
+    }
+
+    @Override
+    public ParsedContent extractContent(InputStream inputStream, ContentType contentType) throws Exception {
+        return extractContentReactive(inputStream, contentType).block();
+    }
+
+    @Override
+    public Mono<ParsedContent> extractContentReactive(InputStream inputStream, ContentType contentType) {
+        return Mono.fromCallable(inputStream::readAllBytes)
+            .flatMap(content -> {
+                ExtractedTextStore.Key key = ExtractedTextStore.Key.of(content, contentType);
+                return lookup(key)
+                    .switchIfEmpty(Mono.defer(() -> extractAndShare(key, content, contentType)));
+            });
+    }
+
+    private Mono<ParsedContent> lookup(ExtractedTextStore.Key key) {
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric(LOOKUP_METRIC_NAME, store.retrieve(key)))
+            .onErrorResume(e -> {
+                LOGGER.warn("Failed to read extracted text for {} from the shared cache", key, e);
+                return Mono.empty();
+            })
+            .doOnNext(any -> hitMetric.increment())
+            .map(text -> ParsedContent.of(Optional.of(text), ImmutableMap.of()));
+    }
+
+    private Mono<ParsedContent> extractAndShare(ExtractedTextStore.Key key, byte[] content, ContentType contentType) {
+        missMetric.increment();
+        return underlying.extractContentReactive(new ByteArrayInputStream(content), contentType)
+            .flatMap(parsedContent -> share(key, parsedContent)
+                .thenReturn(parsedContent));
+    }
+
+    private Mono<Void> share(ExtractedTextStore.Key key, ParsedContent parsedContent) {
+        return parsedContent.getTextualContent()
+            .filter(text -> !text.isBlank())
+            .filter(text -> Utf8.encodedLength(text) <= configuration.maxEntrySizeInBytes())
+            .map(text -> store.store(key, text)
+                .onErrorResume(e -> {
+                    LOGGER.warn("Failed to share extracted text for {}", key, e);
+                    return Mono.empty();
+                }))
+            .orElse(Mono.empty());
+    }
+}
@@ -0,0 +1,62 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+import org.apache.james.util.Size;
+
+import com.github.fge.lambdas.Throwing;
+import com.google.common.base.Preconditions;
+
+public record SharedTextExtractionCacheConfiguration(Duration ttl, long maxEntrySizeInBytes) {
+    public static final String SHARED_CACHE_ENABLED = "tika.cache.shared.enabled";
+    public static final String SHARED_CACHE_TTL = "tika.cache.shared.ttl";
+    public static final String SHARED_CACHE_ENTRY_MAX_SIZE = "tika.cache.shared.entry.max.size";
+
+    public static final boolean DEFAULT_SHARED_CACHE_ENABLED = false;
+    public static final Duration DEFAULT_TTL = Duration.ofDays(30);
+    public static final long DEFAULT_MAX_ENTRY_SIZE_IN_BYTES = 1024 * 1024;
+
+    public static final SharedTextExtractionCacheConfiguration DEFAULT = new SharedTextExtractionCacheConfiguration(DEFAULT_TTL, DEFAULT_MAX_ENTRY_SIZE_IN_BYTES);
+
+    public static Optional<SharedTextExtractionCacheConfiguration> fromProperties(Configuration configuration) {
+        if (!configuration.getBoolean(SHARED_CACHE_ENABLED, DEFAULT_SHARED_CACHE_ENABLED)) {
+            return Optional.empty();
+        }
+        return Optional.of(new SharedTextExtractionCacheConfiguration(
+            Optional.ofNullable(configuration.getString(SHARED_CACHE_TTL, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+                .orElse(DEFAULT_TTL),
+            Optional.ofNullable(configuration.getString(SHARED_CACHE_ENTRY_MAX_SIZE, null))
+                .map(Throwing.function(Size::parse))
+                .map(Size::asBytes)
+                .orElse(DEFAULT_MAX_ENTRY_SIZE_IN_BYTES)));
+    }
+
+    public SharedTextExtractionCacheConfiguration {
+        Preconditions.checkArgument(!ttl.isNegative() && !ttl.isZero(), "'%s' needs to be strictly positive", SHARED_CACHE_TTL);
+        Preconditions.checkArgument(ttl.getSeconds() <= Integer.MAX_VALUE, "'%s' is too big", SHARED_CACHE_TTL);
+        Preconditions.checkArgument(maxEntrySizeInBytes > 0, "'%s' needs to be strictly positive", SHARED_CACHE_ENTRY_MAX_SIZE);
+    }
+}
@@ -65,25 +65,39 @@ public class MessageToElasticSearchJson {
     public Mono<String> convertToJson(MailboxMessage message) {
         Preconditions.checkNotNull(message);
 
-        return IndexableMessage.builder()
-            .message(message)
-            .extractor(textExtractor)
-            .zoneId(zoneId)
-            .indexAttachments(indexAttachments)
-            .indexHeaders(indexHeaders)
-            .build()
+        return toIndexableMessage(message, indexAttachments)
             .map(Throwing.function(mapper::writeValueAsString));
     }
 
     public Mono<String> convertToJsonWithoutAttachment(MailboxMessage message) {
+        return toIndexableMessage(message, IndexAttachments.NO)
+            .map(Throwing.function(mapper::writeValueAsString));
+    }
+
+    /**
+     * Same document as {@link #convertToJson(MailboxMessage)}, UTF-8 encoded by Jackson into its recycled buffers:
+     * no intermediate {@link String} copy of the document gets allocated.
+     */
+    public Mono<byte[]> convertToJsonBytes(MailboxMessage message) {
+        Preconditions.checkNotNull(message);
+
+        return toIndexableMessage(message, indexAttachments)
+            .map(Throwing.function(mapper::writeValueAsBytes));
+    }
+
+    public Mono<byte[]> convertToJsonBytesWithoutAttachment(MailboxMessage message) {
+        return toIndexableMessage(message, IndexAttachments.NO)
+            .map(Throwing.function(mapper::writeValueAsBytes));
+    }
+
+    private Mono<IndexableMessage> toIndexableMessage(MailboxMessage message, IndexAttachments indexAttachments) {
         return IndexableMessage.builder()
             .message(message)
             .extractor(textExtractor)
             .zoneId(zoneId)
-            .indexAttachments(IndexAttachments.NO)
+            .indexAttachments(indexAttachments)
             .indexHeaders(indexHeaders)
-            .build()
-            .map(Throwing.function(mapper::writeValueAsString));
+            .build();
     }
 
     public String getUpdatedJsonMessagePart(Flags flags, ModSeq modSeq) throws JsonProcessingException {
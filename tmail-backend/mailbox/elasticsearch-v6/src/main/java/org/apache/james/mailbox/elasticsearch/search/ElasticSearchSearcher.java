@@ -29,7 +29,7 @@ import org.apache.james.backends.es.NodeMappingFactory;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
 import org.apache.james.backends.es.ReadAliasName;
 import org.apache.james.backends.es.RoutingKey;
-import org.apache.james.backends.es.search.ScrolledSearch;
+import org.apache.james.backends.es.search.SearchAfterSearch;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.elasticsearch.json.JsonMessageConstants;
 import org.apache.james.mailbox.elasticsearch.query.QueryConverter;
@@ -40,9 +40,10 @@ import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.mailbox.store.search.MessageSearchIndex;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.common.document.DocumentField;
-import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,7 +54,6 @@ import reactor.core.publisher.Flux;
 public class ElasticSearchSearcher {
     public static final int DEFAULT_SEARCH_SIZE = 100;
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchSearcher.class);
-    private static final TimeValue TIMEOUT = TimeValue.timeValueMinutes(1);
     private static final ImmutableList<String> STORED_FIELDS = ImmutableList.of(JsonMessageConstants.MAILBOX_ID,
         JsonMessageConstants.UID, JsonMessageConstants.MESSAGE_ID);
     private static final int MAX_ROUTING_KEY = 5;
@@ -80,17 +80,36 @@ public class ElasticSearchSearcher {
 
     public Flux<MessageSearchIndex.SearchResult> search(Collection<MailboxId> mailboxIds, SearchQuery query,
                                                         Optional<Integer> limit) {
-        SearchRequest searchRequest = prepareSearch(mailboxIds, query, limit);
-        Flux<MessageSearchIndex.SearchResult> pairStream = new ScrolledSearch(client, searchRequest)
+        return limit.map(value -> searchPaged(mailboxIds, query, value).take(value))
+            .orElseGet(() -> searchPaged(mailboxIds, query, size));
+    }
+
+    /**
+     * Pages through the results with search_after, without opening any scroll context. Pages of at most
+     * <code>pageSize</code> hits are only fetched upon downstream demand.
+     */
+    public Flux<MessageSearchIndex.SearchResult> searchPaged(Collection<MailboxId> mailboxIds, SearchQuery query,
+                                                             int pageSize) {
+        SearchRequest searchRequest = prepareSearch(mailboxIds,
+            withTieBreaker(sourceBuilder(mailboxIds, query, Optional.of(pageSize))));
+
+        return new SearchAfterSearch(client, searchRequest)
             .searchHits()
             .map(this::extractContentFromHit)
             .handle(publishIfPresent());
+    }
 
-        return limit.map(pairStream::take)
-            .orElse(pairStream);
+    private SearchRequest prepareSearch(Collection<MailboxId> mailboxIds, SearchSourceBuilder searchSourceBuilder) {
+        SearchRequest request = new SearchRequest(aliasName.getValue())
+            .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+            .source(searchSourceBuilder);
+
+        return toRoutingKey(mailboxIds)
+            .map(request::routing)
+            .orElse(request);
     }
 
-    private SearchRequest prepareSearch(Collection<MailboxId> mailboxIds, SearchQuery query, Optional<Integer> limit) {
+    private SearchSourceBuilder sourceBuilder(Collection<MailboxId> mailboxIds, SearchQuery query, Optional<Integer> limit) {
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
             .query(queryConverter.from(mailboxIds, query))
             .size(computeRequiredSize(limit))
@@ -101,14 +120,13 @@ public class ElasticSearchSearcher {
             .map(SortConverter::convertSort)
             .forEach(searchSourceBuilder::sort);
 
-        SearchRequest request = new SearchRequest(aliasName.getValue())
-            .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-            .scroll(TIMEOUT)
-            .source(searchSourceBuilder);
+        return searchSourceBuilder;
+    }
 
-        return toRoutingKey(mailboxIds)
-            .map(request::routing)
-            .orElse(request);
+    private SearchSourceBuilder withTieBreaker(SearchSourceBuilder searchSourceBuilder) {
+        return searchSourceBuilder
+            .sort(SortBuilders.fieldSort(JsonMessageConstants.MAILBOX_ID).order(SortOrder.ASC))
+            .sort(SortBuilders.fieldSort(JsonMessageConstants.UID).order(SortOrder.ASC));
     }
 
     private Optional<String[]> toRoutingKey(Collection<MailboxId> mailboxIds) {
@@ -78,6 +78,7 @@ import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
 import org.apache.james.mailbox.store.mail.model.impl.SimpleMailboxMessage;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndex;
 import org.apache.james.mailbox.store.search.ListeningMessageSearchIndexContract;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -393,6 +394,35 @@ class ElasticSearchListeningMessageSearchIndexTest {
             .isEmpty();
     }
 
+    @Test
+    void coalescedUpdateShouldNotUpdateNorThrowOnUnknownMessageUid() {
+        MessageToElasticSearchJson messageToElasticSearchJson = new MessageToElasticSearchJson(
+            new DefaultTextExtractor(),
+            ZoneId.of("UTC"),
+            IndexAttachments.YES,
+            IndexHeaders.YES);
+        testee = new ElasticSearchListeningMessageSearchIndex(mapperFactory, elasticSearchIndexer, elasticSearchSearcher,
+            messageToElasticSearchJson, sessionProvider, new MailboxIdRoutingKeyFactory(),
+            new FlagsUpdateCoalescingConfiguration(true, 10, Duration.ofMillis(50)), new RecordingMetricFactory());
+        testee.add(session, mailbox, MESSAGE_1).block();
+        elasticSearch.awaitForElasticSearch();
+
+        UpdatedFlags updatedFlags = UpdatedFlags.builder()
+            .uid(MESSAGE_UID_2)
+            .modSeq(MOD_SEQ)
+            .oldFlags(new Flags())
+            .newFlags(new Flags(Flags.Flag.ANSWERED))
+            .build();
+
+        assertThatCode(() -> testee.update(session, mailbox.getMailboxId(), Lists.newArrayList(updatedFlags)).block())
+            .doesNotThrowAnyException();
+        elasticSearch.awaitForElasticSearch();
+
+        SearchQuery query = SearchQuery.of(SearchQuery.flagIsSet(Flags.Flag.ANSWERED));
+        assertThat(testee.doSearch(session, mailbox, query).toStream())
+            .isEmpty();
+    }
+
     @Test
     void updateShouldBeIdempotent() {
         testee.add(session, mailbox, MESSAGE_1).block();
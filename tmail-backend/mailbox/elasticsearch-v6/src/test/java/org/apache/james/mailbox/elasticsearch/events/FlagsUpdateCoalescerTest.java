@@ -0,0 +1,191 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.mail.Flags;
+
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.elasticsearch.FlagsUpdateCoalescingConfiguration;
+import org.apache.james.mailbox.model.MailboxId;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.model.UpdatedFlags;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class FlagsUpdateCoalescerTest {
+    static final MailboxId MAILBOX_ID = TestId.of(1);
+    static final MailboxId OTHER_MAILBOX_ID = TestId.of(2);
+    static final FlagsUpdateCoalescingConfiguration CONFIGURATION = new FlagsUpdateCoalescingConfiguration(true, 3, Duration.ofMillis(50));
+
+    static UpdatedFlags updatedFlags(long uid, long modSeq, Flags newFlags) {
+        return UpdatedFlags.builder()
+            .uid(MessageUid.of(uid))
+            .modSeq(ModSeq.of(modSeq))
+            .oldFlags(new Flags())
+            .newFlags(newFlags)
+            .build();
+    }
+
+    record Flush(MailboxId mailboxId, List<UpdatedFlags> updates) {
+
+    }
+
+    ConcurrentLinkedQueue<Flush> flushes;
+    RecordingMetricFactory metricFactory;
+    FlagsUpdateCoalescer testee;
+
+    @BeforeEach
+    void setUp() {
+        flushes = new ConcurrentLinkedQueue<>();
+        metricFactory = new RecordingMetricFactory();
+        testee = new FlagsUpdateCoalescer(CONFIGURATION, metricFactory,
+            (mailboxId, updates) -> Mono.fromRunnable(() -> flushes.add(new Flush(mailboxId, updates))));
+    }
+
+    @Test
+    void submitShouldCompleteOnceFlushedAfterMaxLatency() {
+        testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN))))
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(new Flush(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))));
+    }
+
+    @Test
+    void updatesOfSeveralEventsShouldBeFlushedTogether() {
+        Flux.merge(
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))),
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(2, 2, new Flags(Flags.Flag.SEEN)))))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).hasSize(1);
+        assertThat(flushes.peek().updates()).hasSize(2);
+    }
+
+    @Test
+    void onlyTheLatestUpdateOfAMessageShouldBeFlushed() {
+        Flux.merge(
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))),
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 3, new Flags(Flags.Flag.FLAGGED)))),
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 2, new Flags()))))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).containsExactly(new Flush(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 3, new Flags(Flags.Flag.FLAGGED)))));
+    }
+
+    @Test
+    void mailboxesShouldBeFlushedSeparately() {
+        Flux.merge(
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))),
+                testee.submit(OTHER_MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).extracting(Flush::mailboxId)
+            .containsExactlyInAnyOrder(MAILBOX_ID, OTHER_MAILBOX_ID);
+    }
+
+    @Test
+    void fullBuffersShouldBeFlushedWithoutWaiting() {
+        testee = new FlagsUpdateCoalescer(new FlagsUpdateCoalescingConfiguration(true, 3, Duration.ofHours(1)), metricFactory,
+            (mailboxId, updates) -> Mono.fromRunnable(() -> flushes.add(new Flush(mailboxId, updates))));
+
+        testee.submit(MAILBOX_ID, ImmutableList.of(
+                updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)),
+                updatedFlags(2, 2, new Flags(Flags.Flag.SEEN)),
+                updatedFlags(3, 3, new Flags(Flags.Flag.SEEN))))
+            .block(Duration.ofSeconds(5));
+
+        assertThat(flushes).hasSize(1);
+    }
+
+    @Test
+    void submitShouldFailWhenFlushFails() {
+        testee = new FlagsUpdateCoalescer(CONFIGURATION, metricFactory,
+            (mailboxId, updates) -> Mono.error(new RuntimeException("boom")));
+
+        assertThatThrownBy(() -> testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN))))
+                .block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+
+    @Test
+    void failingUpdateShouldOnlyFailItsOwnSubmission() {
+        testee = new FlagsUpdateCoalescer(CONFIGURATION, metricFactory,
+            (mailboxId, updates) -> Mono.just(ImmutableMap.<MessageUid, Throwable>of(MessageUid.of(2), new RuntimeException("boom"))));
+
+        Mono<Void> succeeding = testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))).cache();
+        Mono<Void> failing = testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(2, 2, new Flags(Flags.Flag.SEEN)))).cache();
+        failing.onErrorResume(e -> Mono.empty()).subscribe();
+
+        assertThatCode(() -> succeeding.block(Duration.ofSeconds(5)))
+            .doesNotThrowAnyException();
+        assertThatThrownBy(() -> failing.block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+
+    @Test
+    void failingMailboxShouldNotFailTheSubmissionsOfOtherMailboxes() {
+        testee = new FlagsUpdateCoalescer(CONFIGURATION, metricFactory,
+            (mailboxId, updates) -> {
+                if (mailboxId.equals(OTHER_MAILBOX_ID)) {
+                    return Mono.error(new RuntimeException("boom"));
+                }
+                return Mono.empty();
+            });
+
+        Mono<Void> succeeding = testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))).cache();
+        Mono<Void> failing = testee.submit(OTHER_MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))).cache();
+        failing.onErrorResume(e -> Mono.empty()).subscribe();
+
+        assertThatCode(() -> succeeding.block(Duration.ofSeconds(5)))
+            .doesNotThrowAnyException();
+        assertThatThrownBy(() -> failing.block(Duration.ofSeconds(5)))
+            .hasMessage("boom");
+    }
+
+    @Test
+    void receivedAndIndexedUpdatesShouldBeRecorded() {
+        Flux.merge(
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 1, new Flags(Flags.Flag.SEEN)))),
+                testee.submit(MAILBOX_ID, ImmutableList.of(updatedFlags(1, 2, new Flags()))))
+            .then()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(metricFactory.countFor(FlagsUpdateCoalescer.RECEIVED_METRIC_NAME)).isEqualTo(2);
+        assertThat(metricFactory.countFor(FlagsUpdateCoalescer.INDEXED_METRIC_NAME)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,180 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mailbox.elasticsearch.extractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.mailbox.extractor.ParsedContent;
+import org.apache.james.mailbox.extractor.TextExtractor;
+import org.apache.james.mailbox.model.ContentType;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Mono;
+
+class SharedCachingTextExtractorTest {
+    static class MemoryExtractedTextStore implements ExtractedTextStore {
+        private final ConcurrentHashMap<Key, String> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public Mono<String> retrieve(Key key) {
+            return Mono.justOrEmpty(entries.get(key));
+        }
+
+        @Override
+        public Mono<Void> store(Key key, String textualContent) {
+            return Mono.fromRunnable(() -> entries.put(key, textualContent));
+        }
+    }
+
+    static class CountingTextExtractor implements TextExtractor {
+        private final AtomicInteger calls = new AtomicInteger();
+        private Optional<String> result = Optional.of("extracted text");
+        private boolean failing = false;
+
+        @Override
+        public ParsedContent extractContent(InputStream inputStream, ContentType contentType) {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new RuntimeException("Tika is down");
+            }
+            return ParsedContent.of(result, ImmutableMap.of());
+        }
+    }
+
+    static final ContentType PDF = ContentType.of("application/pdf");
+    static final byte[] CONTENT = "%PDF-1.4 content".getBytes(StandardCharsets.UTF_8);
+
+    CountingTextExtractor underlying;
+    MemoryExtractedTextStore store;
+    RecordingMetricFactory metricFactory;
+    SharedCachingTextExtractor testee;
+
+    @BeforeEach
+    void setUp() {
+        underlying = new CountingTextExtractor();
+        store = new MemoryExtractedTextStore();
+        metricFactory = new RecordingMetricFactory();
+        testee = new SharedCachingTextExtractor(underlying, store, SharedTextExtractionCacheConfiguration.DEFAULT, metricFactory);
+    }
+
+    private Optional<String> extract(byte[] content, ContentType contentType) {
+        return testee.extractContentReactive(new ByteArrayInputStream(content), contentType)
+            .block()
+            .getTextualContent();
+    }
+
+    @Test
+    void extractionShouldReturnUnderlyingResult() {
+        assertThat(extract(CONTENT, PDF)).contains("extracted text");
+    }
+
+    @Test
+    void identicalContentShouldBeExtractedOnlyOnce() {
+        extract(CONTENT, PDF);
+        extract(CONTENT, PDF);
+
+        assertThat(underlying.calls).hasValue(1);
+    }
+
+    @Test
+    void cachedResultShouldBeReturned() {
+        extract(CONTENT, PDF);
+
+        assertThat(extract(CONTENT, PDF)).contains("extracted text");
+    }
+
+    @Test
+    void differentContentTypesShouldNotShareEntries() {
+        extract(CONTENT, PDF);
+        extract(CONTENT, ContentType.of("text/plain"));
+
+        assertThat(underlying.calls).hasValue(2);
+    }
+
+    @Test
+    void emptyExtractionsShouldNotBeShared() {
+        underlying.result = Optional.empty();
+        extract(CONTENT, PDF);
+
+        underlying.result = Optional.of("extracted text");
+        assertThat(extract(CONTENT, PDF)).contains("extracted text");
+        assertThat(underlying.calls).hasValue(2);
+    }
+
+    @Test
+    void failedExtractionsShouldNotBeShared() {
+        underlying.failing = true;
+        assertThatThrownBy(() -> extract(CONTENT, PDF)).isInstanceOf(RuntimeException.class);
+
+        underlying.failing = false;
+        assertThat(extract(CONTENT, PDF)).contains("extracted text");
+        assertThat(underlying.calls).hasValue(2);
+    }
+
+    @Test
+    void textsBiggerThanMaxEntrySizeShouldNotBeShared() {
+        testee = new SharedCachingTextExtractor(underlying, store,
+            new SharedTextExtractionCacheConfiguration(SharedTextExtractionCacheConfiguration.DEFAULT_TTL, 4),
+            metricFactory);
+
+        extract(CONTENT, PDF);
+        extract(CONTENT, PDF);
+
+        assertThat(underlying.calls).hasValue(2);
+    }
+
+    @Test
+    void storeFailuresShouldNotFailExtraction() {
+        testee = new SharedCachingTextExtractor(underlying, new ExtractedTextStore() {
+            @Override
+            public Mono<String> retrieve(Key key) {
+                return Mono.error(new RuntimeException());
+            }
+
+            @Override
+            public Mono<Void> store(Key key, String textualContent) {
+                return Mono.error(new RuntimeException());
+            }
+        }, SharedTextExtractionCacheConfiguration.DEFAULT, metricFactory);
+
+        assertThat(extract(CONTENT, PDF)).contains("extracted text");
+    }
+
+    @Test
+    void hitsAndMissesShouldBeRecorded() {
+        extract(CONTENT, PDF);
+        extract(CONTENT, PDF);
+        extract(CONTENT, PDF);
+
+        assertThat(metricFactory.countFor(SharedCachingTextExtractor.MISS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(SharedCachingTextExtractor.HIT_METRIC_NAME)).isEqualTo(2);
+    }
+}
@@ -113,6 +113,50 @@ class MessageToElasticSearchJsonTest {
             .isEqualTo(ClassLoaderUtils.getSystemResourceAsString("eml/spamMail.json"));
     }
 
+    @Test
+    void convertToJsonBytesShouldGenerateTheSameDocumentAsConvertToJson() throws IOException {
+        MessageToElasticSearchJson messageToElasticSearchJson = new MessageToElasticSearchJson(
+            new DefaultTextExtractor(),
+            ZoneId.of("Europe/Paris"), IndexAttachments.YES, IndexHeaders.YES);
+        MailboxMessage mail = new SimpleMailboxMessage(MESSAGE_ID,
+            ThreadId.fromBaseMessageId(MESSAGE_ID),
+            date,
+            SIZE,
+            BODY_START_OCTET,
+            new ByteContent(IOUtils.toByteArray(ClassLoaderUtils.getSystemResourceAsSharedStream("eml/recursiveMail.eml"))),
+            new Flags(),
+            propertyBuilder.build(),
+            MAILBOX_ID);
+        mail.setUid(UID);
+        mail.setModSeq(MOD_SEQ);
+
+        assertThatJson(new String(messageToElasticSearchJson.convertToJsonBytes(mail).block(), StandardCharsets.UTF_8))
+            .when(IGNORING_ARRAY_ORDER)
+            .isEqualTo(messageToElasticSearchJson.convertToJson(mail).block());
+    }
+
+    @Test
+    void convertToJsonBytesWithoutAttachmentShouldGenerateTheSameDocumentAsConvertToJsonWithoutAttachment() throws IOException {
+        MessageToElasticSearchJson messageToElasticSearchJson = new MessageToElasticSearchJson(
+            new DefaultTextExtractor(),
+            ZoneId.of("Europe/Paris"), IndexAttachments.YES, IndexHeaders.YES);
+        MailboxMessage mail = new SimpleMailboxMessage(MESSAGE_ID,
+            ThreadId.fromBaseMessageId(MESSAGE_ID),
+            date,
+            SIZE,
+            BODY_START_OCTET,
+            new ByteContent(IOUtils.toByteArray(ClassLoaderUtils.getSystemResourceAsSharedStream("eml/recursiveMail.eml"))),
+            new Flags(),
+            propertyBuilder.build(),
+            MAILBOX_ID);
+        mail.setUid(UID);
+        mail.setModSeq(MOD_SEQ);
+
+        assertThatJson(new String(messageToElasticSearchJson.convertToJsonBytesWithoutAttachment(mail).block(), StandardCharsets.UTF_8))
+            .when(IGNORING_ARRAY_ORDER)
+            .isEqualTo(messageToElasticSearchJson.convertToJsonWithoutAttachment(mail).block());
+    }
+
     @Test
     void invalidCharsetShouldBeWellConvertedToJson() throws IOException {
         MessageToElasticSearchJson messageToElasticSearchJson = new MessageToElasticSearchJson(
@@ -48,6 +48,7 @@ import org.apache.james.mailbox.model.ComposedMessageId;
 import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.model.MessageId;
+import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MultimailboxesSearchQuery;
 import org.apache.james.mailbox.model.SearchQuery;
 import org.apache.james.mailbox.tika.TikaConfiguration;
@@ -156,6 +157,55 @@ class ElasticSearchSearcherTest {
             .containsExactlyInAnyOrderElementsOf(expectedMessageIds);
     }
 
+    @Test
+    void searchWithLimitShouldDeduplicateMessageIdsAcrossPages() throws Exception {
+        MailboxSession session = MailboxSessionUtil.create(USERNAME);
+        MailboxPath mailbox1 = MailboxPath.forUser(USERNAME, "mailbox1");
+        MailboxPath mailbox2 = MailboxPath.forUser(USERNAME, "mailbox2");
+        MailboxId mailboxId1 = storeMailboxManager.createMailbox(mailbox1, session).get();
+        MailboxId mailboxId2 = storeMailboxManager.createMailbox(mailbox2, session).get();
+
+        ComposedMessageId message1 = addMessage(session, mailbox1);
+        storeMailboxManager.copyMessages(MessageRange.all(), mailbox1, mailbox2, session);
+        ComposedMessageId message2 = addMessage(session, mailbox2);
+        ComposedMessageId message3 = addMessage(session, mailbox2);
+
+        elasticSearch.awaitForElasticSearch();
+
+        MultimailboxesSearchQuery multimailboxesSearchQuery = MultimailboxesSearchQuery
+            .from(SearchQuery.of(SearchQuery.all()))
+            .inMailboxes(mailboxId1, mailboxId2)
+            .build();
+
+        assertThat(storeMailboxManager.search(multimailboxesSearchQuery, session, 2)
+            .collectList().block())
+            .hasSize(2)
+            .doesNotHaveDuplicates()
+            .isSubsetOf(message1.getMessageId(), message2.getMessageId(), message3.getMessageId());
+    }
+
+    @Test
+    void searchWithLimitShouldReturnAllMessagesWhenLimitExceedsResults() throws Exception {
+        MailboxSession session = MailboxSessionUtil.create(USERNAME);
+        MailboxPath mailbox = MailboxPath.forUser(USERNAME, "mailbox");
+        MailboxId mailboxId = storeMailboxManager.createMailbox(mailbox, session).get();
+
+        ComposedMessageId message1 = addMessage(session, mailbox);
+        ComposedMessageId message2 = addMessage(session, mailbox);
+        ComposedMessageId message3 = addMessage(session, mailbox);
+
+        elasticSearch.awaitForElasticSearch();
+
+        MultimailboxesSearchQuery multimailboxesSearchQuery = MultimailboxesSearchQuery
+            .from(SearchQuery.of(SearchQuery.all()))
+            .inMailboxes(mailboxId)
+            .build();
+
+        assertThat(storeMailboxManager.search(multimailboxesSearchQuery, session, 10)
+            .collectList().block())
+            .containsExactlyInAnyOrder(message1.getMessageId(), message2.getMessageId(), message3.getMessageId());
+    }
+
     private ComposedMessageId addMessage(MailboxSession session, MailboxPath mailboxPath) throws Exception {
         MessageManager messageManager = storeMailboxManager.getMailbox(mailboxPath, session);
 
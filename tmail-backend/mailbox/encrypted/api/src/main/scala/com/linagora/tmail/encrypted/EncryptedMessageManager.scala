@@ -15,13 +15,14 @@ import org.apache.james.mime4j.dom.Message
 import org.apache.james.mime4j.dom.field.ContentTypeField
 import org.apache.james.mime4j.message.DefaultMessageBuilder
 import org.apache.james.mime4j.stream.MimeConfig
+import org.bouncycastle.openpgp.PGPPublicKey
 import org.reactivestreams.Publisher
-import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scala.publisher.SMono
 
 import scala.jdk.CollectionConverters._
 
 class EncryptedMessageManager @Inject()(messageManager: MessageManager,
-                                        keystoreManager: KeystoreManager,
+                                        publicKeyCache: PGPPublicKeyCache,
                                         clearEmailContentFactory: ClearEmailContentFactory,
                                         encryptedEmailContentStore: EncryptedEmailContentStore) extends MessageManager {
 
@@ -72,8 +73,7 @@ class EncryptedMessageManager @Inject()(messageManager: MessageManager,
   override def getResolvedAcl(mailboxSession: MailboxSession): MailboxACL = messageManager.getResolvedAcl(mailboxSession)
 
   private def append(appendCommand: AppendCommand, session: MailboxSession): SMono[AppendResult] =
-    SFlux.fromPublisher(keystoreManager.listPublicKeys(session.getUser))
-      .collectSeq()
+    publicKeyCache.publicKeys(session.getUser)
       .flatMap(keys => {
         if (keys.isEmpty || !getMailboxPath.getNamespace.equals(MailboxConstants.USER_NAMESPACE)) {
           SMono.fromPublisher(messageManager.appendMessageReactive(appendCommand, session))
@@ -97,14 +97,16 @@ class EncryptedMessageManager @Inject()(messageManager: MessageManager,
       .exists(field => field.getMediaType.equals("multipart") && field.getSubType.equals("encrypted"))
 
   private def storeEncryptedMessage(session: MailboxSession,
-                                    keys: Seq[PublicKey],
+                                    keys: Seq[PGPPublicKey],
                                     clearMessage: Message,
                                     clearContent: ClearEmailContent): SMono[AppendResult] = {
-    val encrypter = Encrypter.forKeys(keys.map(key => key.key).asJava)
-    val encryptedMessage: Message = encrypter
-      .encrypt(clearMessage)
+    // Only the message is encrypted while being written. The preview, HTML and attachment projections are encrypted
+    // separately, in memory, as EncryptedEmailContentStore stores them as strings.
+    val encrypter = Encrypter.forPublicKeys(keys.asJava)
 
-    SMono.fromPublisher(messageManager.appendMessageReactive(AppendCommand.from(encryptedMessage), session))
+    SMono.fromCallable(() => FileBackedMessageContent.of(encrypter.encryptOnWrite(clearMessage)))
+      .flatMap(encryptedContent => SMono.fromPublisher(messageManager.appendMessageReactive(AppendCommand.builder().build(encryptedContent), session))
+        .doFinally(_ => encryptedContent.release()))
       .flatMap(appendResult => {
         val messageId = appendResult.getId.getMessageId
         val encryptedEmailContent = new EncryptedEmailContentFactory(encrypter).encrypt(clearContent, messageId)
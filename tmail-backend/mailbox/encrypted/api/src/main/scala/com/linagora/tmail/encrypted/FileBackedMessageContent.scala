@@ -0,0 +1,42 @@
+package com.linagora.tmail.encrypted
+
+import java.io.{BufferedOutputStream, InputStream}
+
+import com.google.common.io.FileBackedOutputStream
+import org.apache.james.mailbox.model.Content
+import org.apache.james.mime4j.dom.Message
+import org.apache.james.mime4j.message.DefaultMessageWriter
+
+object FileBackedMessageContent {
+  val FILE_THRESHOLD: Int = 100 * 1024
+
+  def of(message: Message): FileBackedMessageContent = {
+    val outputStream: FileBackedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD)
+    val bufferedOutputStream: BufferedOutputStream = new BufferedOutputStream(outputStream)
+    try {
+      new DefaultMessageWriter().writeMessage(message, bufferedOutputStream)
+      bufferedOutputStream.close()
+      new FileBackedMessageContent(outputStream)
+    } catch {
+      case e: Exception =>
+        outputStream.reset()
+        throw e
+    }
+  }
+}
+
+/**
+ * Message written once, then read as many times as needed. Bytes are held in memory up to FILE_THRESHOLD and in a
+ * temporary file above.
+ *
+ * The temporary file is only deleted by `release`, which callers need to call once done with the content.
+ */
+class FileBackedMessageContent private(outputStream: FileBackedOutputStream) extends Content {
+  private val messageSize: Long = outputStream.asByteSource().size()
+
+  override def getInputStream: InputStream = outputStream.asByteSource().openStream()
+
+  override def size(): Long = messageSize
+
+  def release(): Unit = outputStream.reset()
+}
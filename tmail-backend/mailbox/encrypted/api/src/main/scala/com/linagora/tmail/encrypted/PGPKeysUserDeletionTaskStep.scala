@@ -6,11 +6,13 @@ import org.apache.james.user.api.DeleteUserDataTaskStep
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.SMono
 
-class PGPKeysUserDeletionTaskStep @Inject()(keystoreManager: KeystoreManager) extends DeleteUserDataTaskStep {
+class PGPKeysUserDeletionTaskStep @Inject()(keystoreManager: KeystoreManager,
+                                            publicKeyCache: PGPPublicKeyCache) extends DeleteUserDataTaskStep {
   override def name(): DeleteUserDataTaskStep.StepName = new DeleteUserDataTaskStep.StepName("PGPKeysUserDeletionTaskStep")
 
   override def priority(): Int = 7
 
   override def deleteUserData(username: Username): Publisher[Void] =
     SMono.fromPublisher(keystoreManager.deleteAll(username))
+      .doOnTerminate(() => publicKeyCache.invalidate(username))
 }
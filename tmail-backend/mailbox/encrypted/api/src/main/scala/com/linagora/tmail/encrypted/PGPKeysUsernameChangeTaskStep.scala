@@ -6,7 +6,8 @@ import org.apache.james.user.api.UsernameChangeTaskStep
 import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
 
-class PGPKeysUsernameChangeTaskStep @Inject()(keystoreManager: KeystoreManager) extends UsernameChangeTaskStep {
+class PGPKeysUsernameChangeTaskStep @Inject()(keystoreManager: KeystoreManager,
+                                              publicKeyCache: PGPPublicKeyCache) extends UsernameChangeTaskStep {
   override def name(): UsernameChangeTaskStep.StepName = new UsernameChangeTaskStep.StepName("PGPKeysUsernameChangeTaskStep")
 
   override def priority(): Int = 6
@@ -15,4 +16,8 @@ class PGPKeysUsernameChangeTaskStep @Inject()(keystoreManager: KeystoreManager)
     SFlux(keystoreManager.listPublicKeys(oldUsername))
       .flatMap(publicKey => SMono(keystoreManager.save(newUsername, publicKey.key))
       .`then`(SMono(keystoreManager.delete(oldUsername, publicKey.id))))
+      .doOnTerminate(() => {
+        publicKeyCache.invalidate(oldUsername)
+        publicKeyCache.invalidate(newUsername)
+      })
 }
@@ -0,0 +1,67 @@
+package com.linagora.tmail.encrypted
+
+import java.time.Duration
+import java.util.concurrent.Executor
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import com.linagora.tmail.encrypted.PGPPublicKeyCache.{CACHE_EXPIRATION, CACHE_MAXIMUM_SIZE}
+import com.linagora.tmail.pgp.Encrypter
+import javax.inject.{Inject, Singleton}
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.GaugeRegistry
+import org.bouncycastle.openpgp.PGPPublicKey
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.jdk.CollectionConverters._
+import scala.jdk.FutureConverters._
+
+object PGPPublicKeyCache {
+  // Other nodes only see keystore changes once their entry expires
+  val CACHE_EXPIRATION: Duration = Duration.ofSeconds(10)
+  val CACHE_MAXIMUM_SIZE: Long = 10000
+}
+
+/**
+ * Caches the parsed public keys of a user, read on every append into an encrypted mailbox.
+ *
+ * Users without keys are not cached, so that a key uploaded through any node encrypts the very next append. The keystore
+ * writes done by KeystoreSet and by the user deletion and username change steps invalidate the local entry, other nodes
+ * see additional or removed keys once their short lived entry expires.
+ */
+@Singleton
+class PGPPublicKeyCache @Inject()(keystoreManager: KeystoreManager,
+                                  gaugeRegistry: GaugeRegistry) {
+  private val cache: AsyncLoadingCache[Username, Seq[PGPPublicKey]] = buildCache(
+    (username: Username, executor: Executor) => SFlux(keystoreManager.listPublicKeys(username))
+      .map(_.key)
+      .collectSeq()
+      .filter(_.nonEmpty)
+      .map(keys => Encrypter.readPublicKeys(keys.asJava).asScala.toSeq)
+      .asJava()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture)
+
+  // The loader completes with null when the user has no keys, which Caffeine does not store
+  def publicKeys(username: Username): SMono[Seq[PGPPublicKey]] =
+    SMono.fromFuture(cache.get(username).asScala)
+      .switchIfEmpty(SMono.just(Seq.empty))
+
+  def invalidate(username: Username): Unit =
+    cache.synchronous().invalidate(username)
+
+  private def buildCache(loader: AsyncCacheLoader[Username, Seq[PGPPublicKey]]): AsyncLoadingCache[Username, Seq[PGPPublicKey]] = {
+    val loadingCache: AsyncLoadingCache[Username, Seq[PGPPublicKey]] = Caffeine.newBuilder()
+      .expireAfterWrite(CACHE_EXPIRATION)
+      .maximumSize(CACHE_MAXIMUM_SIZE)
+      .recordStats()
+      .buildAsync[Username, Seq[PGPPublicKey]](loader)
+
+    gaugeRegistry.register("pgp.public_keys.cache.hitRate", () => loadingCache.synchronous().stats().hitRate())
+      .register("pgp.public_keys.cache.missCount", () => loadingCache.synchronous().stats().missCount())
+      .register("pgp.public_keys.cache.hitCount", () => loadingCache.synchronous().stats().hitCount())
+      .register("pgp.public_keys.cache.size", () => loadingCache.synchronous().estimatedSize())
+    loadingCache
+  }
+}
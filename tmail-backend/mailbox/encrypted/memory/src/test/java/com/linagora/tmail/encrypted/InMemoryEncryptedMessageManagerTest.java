@@ -27,6 +27,7 @@ import org.apache.james.mailbox.model.MessageRange;
 import org.apache.james.mailbox.model.MessageResult;
 import org.apache.james.mailbox.model.MessageResultIterator;
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.mime4j.dom.Body;
 import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
@@ -72,7 +73,7 @@ public class InMemoryEncryptedMessageManagerTest {
         MessageContentExtractor messageContentExtractor = new MessageContentExtractor();
         blobStore = new DeDuplicationBlobStore(new MemoryBlobStoreDAO(), BucketName.DEFAULT, new HashBlobId.Factory());
         emailContentStore = new InMemoryEncryptedEmailContentStore(blobStore);
-        testee = new EncryptedMessageManager(messageManager, keystoreManager,
+        testee = new EncryptedMessageManager(messageManager, new PGPPublicKeyCache(keystoreManager, new NoopGaugeRegistry()),
             new ClearEmailContentFactory(new MessageParser(), messageContentExtractor, new Preview.Factory(messageContentExtractor, new JsoupHtmlTextExtractor())),
             emailContentStore);
 
@@ -262,7 +263,7 @@ public class InMemoryEncryptedMessageManagerTest {
         messageManager = mailboxManager.getMailbox(mailboxId, session);
 
         MessageContentExtractor messageContentExtractor = new MessageContentExtractor();
-        EncryptedMessageManager testee = new EncryptedMessageManager(messageManager, keystoreManager,
+        EncryptedMessageManager testee = new EncryptedMessageManager(messageManager, new PGPPublicKeyCache(keystoreManager, new NoopGaugeRegistry()),
             new ClearEmailContentFactory(new MessageParser(), messageContentExtractor, new Preview.Factory(messageContentExtractor, new JsoupHtmlTextExtractor())),
             emailContentStore);
 
@@ -1,5 +1,6 @@
 package com.linagora.tmail.encrypted;
 
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.junit.jupiter.api.BeforeEach;
 
 public class MemoryPGPKeysUserDeletionTaskStepTest implements PGPKeysUserDeletionTaskStepContract {
@@ -17,6 +18,6 @@ public class MemoryPGPKeysUserDeletionTaskStepTest implements PGPKeysUserDeletio
 
     @Override
     public PGPKeysUserDeletionTaskStep testee() {
-        return new PGPKeysUserDeletionTaskStep(keystoreManager);
+        return new PGPKeysUserDeletionTaskStep(keystoreManager, new PGPPublicKeyCache(keystoreManager, new NoopGaugeRegistry()));
     }
 }
@@ -1,5 +1,6 @@
 package com.linagora.tmail.encrypted;
 
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.junit.jupiter.api.BeforeEach;
 
 public class MemoryPGPKeysUsernameChangeTaskStepTest implements PGPKeysUsernameChangeTaskStepContract {
@@ -17,6 +18,6 @@ public class MemoryPGPKeysUsernameChangeTaskStepTest implements PGPKeysUsernameC
 
     @Override
     public PGPKeysUsernameChangeTaskStep testee() {
-        return new PGPKeysUsernameChangeTaskStep(keystoreManager);
+        return new PGPKeysUsernameChangeTaskStep(keystoreManager, new PGPPublicKeyCache(keystoreManager, new NoopGaugeRegistry()));
     }
 }
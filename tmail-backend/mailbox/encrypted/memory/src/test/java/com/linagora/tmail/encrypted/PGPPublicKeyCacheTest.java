@@ -0,0 +1,85 @@
+package com.linagora.tmail.encrypted;
+
+import static org.apache.james.jmap.JMAPTestingConstants.BOB;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Provider;
+import java.security.Security;
+
+import org.apache.james.metrics.api.NoopGaugeRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class PGPPublicKeyCacheTest {
+    private KeystoreManager keystoreManager;
+    private PGPPublicKeyCache testee;
+    private byte[] keyBytes;
+
+    @BeforeAll
+    static void setUpAll() throws Exception {
+        String bouncyCastleProviderClassName = "org.bouncycastle.jce.provider.BouncyCastleProvider";
+        Security.addProvider((Provider) Class.forName(bouncyCastleProviderClassName).getDeclaredConstructor().newInstance());
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keystoreManager = new InMemoryKeystoreManager();
+        testee = new PGPPublicKeyCache(keystoreManager, new NoopGaugeRegistry());
+        keyBytes = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+    }
+
+    @Test
+    void publicKeysShouldReturnParsedKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void publicKeysShouldReturnEmptyWhenNoKeys() {
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void publicKeysShouldNotCacheAbsenceOfKeys() {
+        testee.publicKeys(BOB).block();
+
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void publicKeysShouldCacheKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+        testee.publicKeys(BOB).block();
+
+        Mono.from(keystoreManager.deleteAll(BOB)).block();
+
+        assertThat(testee.publicKeys(BOB).block().size()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateShouldReloadKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+        testee.publicKeys(BOB).block();
+        Mono.from(keystoreManager.deleteAll(BOB)).block();
+
+        testee.invalidate(BOB);
+
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+
+    @Test
+    void userDeletionShouldInvalidateKeys() {
+        Mono.from(keystoreManager.save(BOB, keyBytes)).block();
+        testee.publicKeys(BOB).block();
+
+        Mono.from(new PGPKeysUserDeletionTaskStep(keystoreManager, testee).deleteUserData(BOB)).block();
+
+        assertThat(testee.publicKeys(BOB).block().isEmpty()).isTrue();
+    }
+}
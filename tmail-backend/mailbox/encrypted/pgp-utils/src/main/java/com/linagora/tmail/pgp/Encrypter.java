@@ -1,7 +1,8 @@
 package com.linagora.tmail.pgp;
 
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
@@ -9,6 +10,8 @@ import java.security.SecureRandom;
 import java.util.Collection;
 import java.util.Date;
 
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Body;
 import org.apache.james.mime4j.dom.Header;
 import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.Multipart;
@@ -39,24 +42,38 @@ import com.google.common.io.FileBackedOutputStream;
 
 public class Encrypter {
     private static final int FILE_THRESHOLD = 100 * 1024;
+    private static final int BUFFER_SIZE = 100 * 1024;
 
     public static Encrypter forKeys(Collection<byte[]> armoredKeys) {
-        return new Encrypter(createEncryptor(armoredKeys));
+        return forPublicKeys(readPublicKeys(armoredKeys));
     }
 
     public static Encrypter forKeys(byte[]... armoredKeys) {
         return forKeys(ImmutableList.copyOf(armoredKeys));
     }
 
-    private static PGPEncryptedDataGenerator createEncryptor(Collection<byte[]> armoredKeys) {
+    /**
+     * Parsing armored keys is the costly part of building an {@link Encrypter}: callers encrypting often for the same
+     * recipients should keep the parsed keys around and rely on this method, which is cheap.
+     */
+    public static Encrypter forPublicKeys(Collection<PGPPublicKey> publicKeys) {
+        return new Encrypter(ImmutableList.copyOf(publicKeys));
+    }
+
+    public static ImmutableList<PGPPublicKey> readPublicKeys(Collection<byte[]> armoredKeys) {
+        return armoredKeys.stream()
+            .map(ByteArrayInputStream::new)
+            .map(Throwing.function(Encrypter::readPublicKey))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    private static PGPEncryptedDataGenerator createEncryptor(Collection<PGPPublicKey> publicKeys) {
         PGPEncryptedDataGenerator pgpEncryptedDataGenerator = new PGPEncryptedDataGenerator(new JcePGPDataEncryptorBuilder(PGPEncryptedData.AES_128)
             .setSecureRandom(new SecureRandom())
             .setProvider("BC")
             .setWithIntegrityPacket(true));
 
-        armoredKeys.stream()
-            .map(ByteArrayInputStream::new)
-            .map(Throwing.function(Encrypter::readPublicKey))
+        publicKeys.stream()
             .map(JcePublicKeyKeyEncryptionMethodGenerator::new)
             .forEach(pgpEncryptedDataGenerator::addMethod);
         return pgpEncryptedDataGenerator;
@@ -74,64 +91,148 @@ public class Encrypter {
             .orElseThrow(() -> new IllegalArgumentException("Can't find encryption key in key ring."));
     }
 
-    private final PGPEncryptedDataGenerator pgpEncryptedDataGenerator;
+    private final ImmutableList<PGPPublicKey> publicKeys;
 
-    private Encrypter(PGPEncryptedDataGenerator pgpEncryptedDataGenerator) {
-        this.pgpEncryptedDataGenerator = pgpEncryptedDataGenerator;
+    private Encrypter(ImmutableList<PGPPublicKey> publicKeys) {
+        this.publicKeys = publicKeys;
     }
 
     public void encrypt(ByteSource byteSource, OutputStream output) throws Exception {
+        encrypt(output,
+            compressedOutStream -> new PGPLiteralDataGenerator().open(compressedOutStream, PGPLiteralData.BINARY,
+                "encrypted.pgp", byteSource.size(), new Date()),
+            literalDataOutStream -> {
+                try (InputStream inputStream = byteSource.openBufferedStream()) {
+                    inputStream.transferTo(literalDataOutStream);
+                }
+            });
+    }
+
+    /**
+     * Streams the clear message into the encrypted output without buffering it: the literal data packet is written
+     * with partial lengths as the message size is not known upfront.
+     */
+    public void encrypt(Message clearMessage, OutputStream output) throws Exception {
+        encrypt(output,
+            compressedOutStream -> new PGPLiteralDataGenerator().open(compressedOutStream, PGPLiteralData.BINARY,
+                "encrypted.pgp", new Date(), new byte[BUFFER_SIZE]),
+            literalDataOutStream -> new DefaultMessageWriter().writeMessage(clearMessage, literalDataOutStream));
+    }
+
+    // The encrypted data generator holds the state of the stream it opened: each encryption needs its own
+    private void encrypt(OutputStream output, LiteralDataOpener literalDataOpener, PayloadWriter payloadWriter) throws Exception {
         PGPCompressedDataGenerator compressor = new PGPCompressedDataGenerator(PGPCompressedData.ZIP);
-        PGPLiteralDataGenerator literalDataGenerator = new PGPLiteralDataGenerator();
 
         try (ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(output);
-            OutputStream encryptedOutStream = pgpEncryptedDataGenerator.open(armoredOutputStream, new byte[100 * 1024]);
+            OutputStream encryptedOutStream = createEncryptor(publicKeys).open(armoredOutputStream, new byte[BUFFER_SIZE]);
             OutputStream compressedOutStream = compressor.open(encryptedOutStream);
-            OutputStream literalDataOutStream = literalDataGenerator.open(compressedOutStream, PGPLiteralData.BINARY,
-                "encrypted.pgp", byteSource.size(), new Date())) {
-            byteSource.openBufferedStream().transferTo(literalDataOutStream);
+            OutputStream literalDataOutStream = literalDataOpener.open(compressedOutStream)) {
+            payloadWriter.writeTo(literalDataOutStream);
         }
     }
 
+    /**
+     * Encrypts the clear message once: the returned message can be written several times, always with the same content.
+     */
     public Message encrypt(Message clearMessage) throws Exception {
-        DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
-        BasicBodyFactory basicBodyFactory = new BasicBodyFactory();
-        DefaultMessageWriter defaultMessageWriter = new DefaultMessageWriter();
-        FileBackedOutputStream clearOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
         FileBackedOutputStream encryptedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
-        BufferedOutputStream bufferedEncryptedOutputStream = new BufferedOutputStream(encryptedOutputStream);
-        BufferedOutputStream bufferedClearOutputStream = new BufferedOutputStream(clearOutputStream);
 
         try {
-            defaultMessageWriter.writeMessage(clearMessage, bufferedClearOutputStream);
-            bufferedClearOutputStream.close();
-            encrypt(clearOutputStream.asByteSource(), bufferedEncryptedOutputStream);
-            bufferedEncryptedOutputStream.close();
-
-            Message encryptedMessage = messageBuilder.newMessage();
-            Header header = messageBuilder.newHeader(clearMessage.getHeader());
-            header.removeFields("Content-Type");
-            encryptedMessage.setHeader(header);
-
-            Multipart multipart = messageBuilder.newMultipart("encrypted", new NameValuePair("protocol", "application/pgp-encrypted"));
-            multipart.addBodyPart(new BodyPartBuilder()
-                .setBody(basicBodyFactory.binaryBody("Version: 1".getBytes(StandardCharsets.UTF_8)))
-                .setContentType("application/pgp-encrypted")
-                .build());
-            multipart.addBodyPart(new BodyPartBuilder()
-                .setContentType("application/octet-stream")
-                .setBody(basicBodyFactory.binaryBody(encryptedOutputStream.asByteSource().openStream()))
-                .build());
-            encryptedMessage.setBody(multipart);
-
-
-            final Message.Builder of = Message.Builder.of();
-            header.getFields().forEach(of::addField);
-            of.setBody(multipart);
-            return of.build();
+            try (encryptedOutputStream) {
+                encrypt(clearMessage, encryptedOutputStream);
+            }
+            try (InputStream encryptedInputStream = encryptedOutputStream.asByteSource().openStream()) {
+                return encryptedMessage(clearMessage, new BasicBodyFactory().binaryBody(encryptedInputStream));
+            }
         } finally {
-            clearOutputStream.reset();
             encryptedOutputStream.reset();
         }
     }
+
+    /**
+     * Unlike {@link #encrypt(Message)}, the returned message is encrypted lazily, each time its encrypted part is
+     * written. Writing it through a {@link DefaultMessageWriter} thus serializes, encrypts and armors the clear message
+     * in a single pass, without holding the encrypted message.
+     *
+     * Each write encrypts again, with a new session key: the returned message is meant to be written once.
+     */
+    public Message encryptOnWrite(Message clearMessage) {
+        return encryptedMessage(clearMessage, new EncryptedBody(clearMessage));
+    }
+
+    private Message encryptedMessage(Message clearMessage, Body encryptedBody) {
+        DefaultMessageBuilder messageBuilder = new DefaultMessageBuilder();
+        BasicBodyFactory basicBodyFactory = new BasicBodyFactory();
+
+        Header header = messageBuilder.newHeader(clearMessage.getHeader());
+        header.removeFields("Content-Type");
+
+        Multipart multipart = messageBuilder.newMultipart("encrypted", new NameValuePair("protocol", "application/pgp-encrypted"));
+        multipart.addBodyPart(new BodyPartBuilder()
+            .setBody(basicBodyFactory.binaryBody("Version: 1".getBytes(StandardCharsets.UTF_8)))
+            .setContentType("application/pgp-encrypted")
+            .build());
+        multipart.addBodyPart(new BodyPartBuilder()
+            .setContentType("application/octet-stream")
+            .setBody(encryptedBody)
+            .build());
+
+        Message.Builder builder = Message.Builder.of();
+        header.getFields().forEach(builder::addField);
+        builder.setBody(multipart);
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    private interface LiteralDataOpener {
+        OutputStream open(OutputStream compressedOutStream) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void writeTo(OutputStream literalDataOutStream) throws Exception;
+    }
+
+    private class EncryptedBody extends BinaryBody {
+        private final Message clearMessage;
+
+        private EncryptedBody(Message clearMessage) {
+            this.clearMessage = clearMessage;
+        }
+
+        /**
+         * Encrypts into memory, or into a temporary file above FILE_THRESHOLD, deleted when the returned stream is closed.
+         */
+        @Override
+        public InputStream getInputStream() throws IOException {
+            FileBackedOutputStream encryptedOutputStream = new FileBackedOutputStream(FILE_THRESHOLD);
+            try (encryptedOutputStream) {
+                writeTo(encryptedOutputStream);
+            } catch (IOException e) {
+                encryptedOutputStream.reset();
+                throw e;
+            }
+            return new FilterInputStream(encryptedOutputStream.asByteSource().openStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        encryptedOutputStream.reset();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                encrypt(clearMessage, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to encrypt message", e);
+            }
+        }
+    }
 }
@@ -184,4 +184,73 @@ class EncrypterTest {
                 ---=Part.0.9726a619aa3f23a9.178aa7b7a6b.e3060dccb56a8d65=---\r
                 """);
     }
-}
\ No newline at end of file
+
+    @Test
+    void encryptMessageToStreamShouldBeDecryptable() throws Exception {
+        Message clearMessage = Message.Builder.of()
+            .setSubject("small message")
+            .setBody("small message has size less than one MB", StandardCharsets.UTF_8)
+            .build();
+        ByteArrayOutputStream clearBytes = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeMessage(clearMessage, clearBytes);
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Encrypter.forKeys(keyBytes1)
+            .encrypt(clearMessage, out);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes();
+
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(clearBytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encryptMessageShouldBeStableAcrossWrites() throws Exception {
+        Message clearMessage = Message.Builder.of()
+            .setSubject("small message")
+            .setBody("small message has size less than one MB", StandardCharsets.UTF_8)
+            .build();
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        Message encryptedMessage = Encrypter.forKeys(keyBytes1)
+            .encrypt(clearMessage);
+
+        ByteArrayOutputStream firstWrite = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeMessage(encryptedMessage, firstWrite);
+        ByteArrayOutputStream secondWrite = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeMessage(encryptedMessage, secondWrite);
+
+        assertThat(secondWrite.toByteArray()).isEqualTo(firstWrite.toByteArray());
+    }
+
+    @Test
+    void encryptOnWritePayloadShouldBeDecryptable() throws Exception {
+        Message clearMessage = Message.Builder.of()
+            .setSubject("small message")
+            .setBody("small message has size less than one MB", StandardCharsets.UTF_8)
+            .build();
+        ByteArrayOutputStream clearBytes = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeMessage(clearMessage, clearBytes);
+
+        byte[] keyBytes1 = ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.pub").readAllBytes();
+
+        Message encryptedMessage = Encrypter.forKeys(keyBytes1)
+            .encryptOnWrite(clearMessage);
+
+        Body encryptedBodyPart = ((Multipart) encryptedMessage.getBody()).getBodyParts().get(1).getBody();
+        ByteArrayOutputStream encryptedBodyBytes = new ByteArrayOutputStream();
+        new DefaultMessageWriter().writeBody(encryptedBodyPart, encryptedBodyBytes);
+
+        byte[] decryptedPayload = Decrypter.forKey(ClassLoader.getSystemClassLoader().getResourceAsStream("gpg.private"), "123456".toCharArray())
+            .decrypt(new ByteArrayInputStream(encryptedBodyBytes.toByteArray()))
+            .readAllBytes();
+
+        assertThat(new String(decryptedPayload, StandardCharsets.UTF_8))
+            .isEqualTo(clearBytes.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -27,13 +27,12 @@ import org.apache.james.backends.es.AliasName;
 import org.apache.james.backends.es.NodeMappingFactory;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
 import org.apache.james.backends.es.ReadAliasName;
-import org.apache.james.backends.es.search.ScrolledSearch;
+import org.apache.james.backends.es.search.SearchAfterSearch;
 import org.apache.james.core.Username;
 import org.apache.james.quota.search.QuotaQuery;
 import org.apache.james.quota.search.QuotaSearcher;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
@@ -42,7 +41,9 @@ import org.elasticsearch.search.sort.SortOrder;
 import reactor.core.publisher.Flux;
 
 public class ElasticSearchQuotaSearcher implements QuotaSearcher {
-    private static final TimeValue TIMEOUT = TimeValue.timeValueMinutes(1);
+    // Default index.max_result_window: deeper pages can not be reached with from and size
+    private static final long MAX_RESULT_WINDOW = 10000;
+    private static final int PAGE_SIZE = 1000;
 
     private final ReactorElasticSearchClient client;
     private final AliasName readAlias;
@@ -68,40 +69,43 @@ public class ElasticSearchQuotaSearcher implements QuotaSearcher {
     }
 
     private Flux<SearchHit> searchHits(QuotaQuery query) {
-        if (query.getLimit().isLimited()) {
-            return executeSingleSearch(query);
-        } else {
-            return executeScrolledSearch(query);
-        }
+        int offset = query.getOffset().getValue();
+        return query.getLimit().getValue()
+            .filter(limit -> (long) offset + limit <= MAX_RESULT_WINDOW)
+            .map(limit -> executeSingleSearch(query, offset, limit))
+            .orElseGet(() -> executePagedSearch(query, offset));
     }
 
-    private Flux<SearchHit> executeSingleSearch(QuotaQuery query) {
-        SearchSourceBuilder searchSourceBuilder = searchSourceBuilder(query)
-            .from(query.getOffset().getValue());
-        query.getLimit().getValue()
-            .ifPresent(searchSourceBuilder::size);
-
+    private Flux<SearchHit> executeSingleSearch(QuotaQuery query, int offset, int limit) {
         SearchRequest searchRequest = new SearchRequest(readAlias.getValue())
             .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-            .source(searchSourceBuilder);
+            .source(searchSourceBuilder(query)
+                .from(offset)
+                .size(limit));
 
         return client.search(searchRequest, RequestOptions.DEFAULT)
             .flatMapMany(searchResponse -> Flux.fromArray(searchResponse.getHits().getHits()));
     }
 
-    private Flux<SearchHit> executeScrolledSearch(QuotaQuery query) {
-        return new ScrolledSearch(client,
+    private Flux<SearchHit> executePagedSearch(QuotaQuery query, int offset) {
+        Flux<SearchHit> hits = new SearchAfterSearch(client,
             new SearchRequest(readAlias.getValue())
                 .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
-                .source(searchSourceBuilder(query))
-                .scroll(TIMEOUT))
+                .source(searchSourceBuilder(query)
+                    .size(PAGE_SIZE)))
             .searchHits()
-            .skip(query.getOffset().getValue());
+            .skip(offset);
+
+        return query.getLimit().getValue()
+            .map(hits::take)
+            .orElse(hits);
     }
 
     private SearchSourceBuilder searchSourceBuilder(QuotaQuery query) {
+        // Only the document ids are read: usernames are unique, making the sort stable across pages
         return new SearchSourceBuilder()
             .query(quotaQueryConverter.from(query))
+            .fetchSource(false)
             .sort(SortBuilders.fieldSort(USER).order(SortOrder.ASC));
     }
-}
\ No newline at end of file
+}
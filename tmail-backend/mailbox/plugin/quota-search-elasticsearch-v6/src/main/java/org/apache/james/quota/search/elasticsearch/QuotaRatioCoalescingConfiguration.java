@@ -0,0 +1,55 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.quota.search.elasticsearch;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.DurationParser;
+
+import com.google.common.base.Preconditions;
+
+public record QuotaRatioCoalescingConfiguration(boolean enabled, int maxBufferedQuotaRoots, Duration maxLatency) {
+    public static final String COALESCING_ENABLED = "elasticsearch.indexing.quotaRatio.coalescing.enabled";
+    public static final String COALESCING_MAX_BUFFERED_QUOTA_ROOTS = "elasticsearch.indexing.quotaRatio.coalescing.maxSize";
+    public static final String COALESCING_MAX_LATENCY = "elasticsearch.indexing.quotaRatio.coalescing.maxLatency";
+
+    public static final boolean DEFAULT_ENABLED = false;
+    public static final int DEFAULT_MAX_BUFFERED_QUOTA_ROOTS = 500;
+    public static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(100);
+
+    public static final QuotaRatioCoalescingConfiguration DISABLED = new QuotaRatioCoalescingConfiguration(false, DEFAULT_MAX_BUFFERED_QUOTA_ROOTS, DEFAULT_MAX_LATENCY);
+
+    public static QuotaRatioCoalescingConfiguration fromProperties(Configuration configuration) {
+        return new QuotaRatioCoalescingConfiguration(
+            configuration.getBoolean(COALESCING_ENABLED, DEFAULT_ENABLED),
+            configuration.getInt(COALESCING_MAX_BUFFERED_QUOTA_ROOTS, DEFAULT_MAX_BUFFERED_QUOTA_ROOTS),
+            Optional.ofNullable(configuration.getString(COALESCING_MAX_LATENCY, null))
+                .map(value -> DurationParser.parse(value, ChronoUnit.MILLIS))
+                .orElse(DEFAULT_MAX_LATENCY));
+    }
+
+    public QuotaRatioCoalescingConfiguration {
+        Preconditions.checkArgument(maxBufferedQuotaRoots > 0, "'%s' needs to be strictly positive", COALESCING_MAX_BUFFERED_QUOTA_ROOTS);
+        Preconditions.checkArgument(!maxLatency.isNegative(), "'%s' needs to be positive", COALESCING_MAX_LATENCY);
+    }
+}
@@ -18,21 +18,35 @@
  ****************************************************************/
 package org.apache.james.quota.search.elasticsearch.events;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.james.backends.es.DocumentId;
 import org.apache.james.backends.es.ElasticSearchIndexer;
+import org.apache.james.backends.es.IndexedRepresentation;
 import org.apache.james.backends.es.RoutingKey;
 import org.apache.james.core.Username;
 import org.apache.james.events.Event;
 import org.apache.james.events.EventListener;
 import org.apache.james.events.Group;
 import org.apache.james.mailbox.events.MailboxEvents.QuotaUsageUpdatedEvent;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.metrics.api.NoopMetricFactory;
+import org.apache.james.quota.search.elasticsearch.QuotaRatioCoalescingConfiguration;
 import org.apache.james.quota.search.elasticsearch.QuotaRatioElasticSearchConstants;
 import org.apache.james.quota.search.elasticsearch.json.QuotaRatioToElasticSearchJson;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.reactivestreams.Publisher;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 import reactor.core.publisher.Mono;
 
 public class ElasticSearchQuotaMailboxListener implements EventListener.ReactiveGroupEventListener {
@@ -45,14 +59,28 @@ public class ElasticSearchQuotaMailboxListener implements EventListener.Reactive
     private final ElasticSearchIndexer indexer;
     private final QuotaRatioToElasticSearchJson quotaRatioToElasticSearchJson;
     private final RoutingKey.Factory<Username> routingKeyFactory;
+    private final Optional<QuotaRatioCoalescer> coalescer;
+
+    public ElasticSearchQuotaMailboxListener(ElasticSearchIndexer indexer,
+                                             QuotaRatioToElasticSearchJson quotaRatioToElasticSearchJson,
+                                             RoutingKey.Factory<Username> routingKeyFactory) {
+        this(indexer, quotaRatioToElasticSearchJson, routingKeyFactory, QuotaRatioCoalescingConfiguration.DISABLED, new NoopMetricFactory());
+    }
 
     @Inject
     public ElasticSearchQuotaMailboxListener(@Named(QuotaRatioElasticSearchConstants.InjectionNames.QUOTA_RATIO) ElasticSearchIndexer indexer,
                                              QuotaRatioToElasticSearchJson quotaRatioToElasticSearchJson,
-                                             RoutingKey.Factory<Username> routingKeyFactory) {
+                                             RoutingKey.Factory<Username> routingKeyFactory,
+                                             QuotaRatioCoalescingConfiguration coalescingConfiguration,
+                                             MetricFactory metricFactory) {
         this.indexer = indexer;
         this.quotaRatioToElasticSearchJson = quotaRatioToElasticSearchJson;
         this.routingKeyFactory = routingKeyFactory;
+        if (coalescingConfiguration.enabled()) {
+            this.coalescer = Optional.of(new QuotaRatioCoalescer(coalescingConfiguration, metricFactory, this::indexAll));
+        } else {
+            this.coalescer = Optional.empty();
+        }
     }
 
     @Override
@@ -71,6 +99,12 @@ public class ElasticSearchQuotaMailboxListener implements EventListener.Reactive
     }
 
     private Mono<Void> handleEvent(QuotaUsageUpdatedEvent event) {
+        return coalescer
+            .map(quotaRatioCoalescer -> quotaRatioCoalescer.submit(event))
+            .orElseGet(() -> index(event));
+    }
+
+    private Mono<Void> index(QuotaUsageUpdatedEvent event) {
         Username user = event.getUsername();
         DocumentId id = toDocumentId(user);
         RoutingKey routingKey = routingKeyFactory.from(user);
@@ -80,6 +114,33 @@ public class ElasticSearchQuotaMailboxListener implements EventListener.Reactive
             .then();
     }
 
+    private Mono<Map<Username, Throwable>> indexAll(List<QuotaUsageUpdatedEvent> events) {
+        return Mono.fromCallable(() -> asIndexedRepresentations(events))
+            .flatMap(indexer::index)
+            .map(response -> failedIndexations(events, response));
+    }
+
+    private Map<Username, Throwable> failedIndexations(List<QuotaUsageUpdatedEvent> events, BulkResponse response) {
+        // Bulk items are returned in the order of the requests
+        BulkItemResponse[] items = response.getItems();
+        ImmutableMap.Builder<Username, Throwable> failures = ImmutableMap.builder();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].isFailed()) {
+                failures.put(events.get(i).getUsername(), items[i].getFailure().getCause());
+            }
+        }
+        return failures.build();
+    }
+
+    private List<IndexedRepresentation> asIndexedRepresentations(List<QuotaUsageUpdatedEvent> events) throws JsonProcessingException {
+        ImmutableList.Builder<IndexedRepresentation> documents = ImmutableList.builder();
+        for (QuotaUsageUpdatedEvent event : events) {
+            Username user = event.getUsername();
+            documents.add(new IndexedRepresentation(toDocumentId(user), quotaRatioToElasticSearchJson.convertToJson(event), routingKeyFactory.from(user)));
+        }
+        return documents.build();
+    }
+
     private DocumentId toDocumentId(Username user) {
         return DocumentId.fromString(user.asString());
     }
@@ -0,0 +1,141 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.quota.search.elasticsearch.events;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.events.MailboxEvents.QuotaUsageUpdatedEvent;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.quota.search.elasticsearch.QuotaRatioCoalescingConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.linagora.tmail.coalescing.KeyedCoalescer;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Coalesces quota usage updates so that the ratios of several quota roots end up in the same bulk request, and only
+ * the most recent update of each quota root gets indexed.
+ *
+ * A batch is flushed once it holds {@code maxBufferedQuotaRoots} distinct quota roots, or {@code maxLatency} after its
+ * first update. Waiting for the flush would cap batches to the listener concurrency, see {@link KeyedCoalescer}: the
+ * {@link Mono} returned by {@link #submit(QuotaUsageUpdatedEvent)} thus completes once the update is buffered.
+ * Only when more than two batches of updates are waiting to be indexed does it wait for the indexing, slowing the
+ * listener down to the pace of the index.
+ *
+ * As the event bus no longer sees indexing failures, failed quota ratios are submitted again, up to
+ * {@value #MAX_RETRIES} times, unless a more recent update of the quota root was submitted meanwhile. A quota ratio
+ * that still fails is logged, and only refreshed by the next quota usage update of its quota root.
+ *
+ * The deduplication ratio is {@code 1 - indexed / received}, both being exposed as metrics.
+ */
+class QuotaRatioCoalescer {
+    static final String RECEIVED_METRIC_NAME = "elasticsearch.quotaRatio.coalescing.received";
+    static final String INDEXED_METRIC_NAME = "elasticsearch.quotaRatio.coalescing.indexed";
+    static final String FLUSH_METRIC_NAME = "elasticsearch.quotaRatio.coalescing.flush";
+    static final String ABANDONED_METRIC_NAME = "elasticsearch.quotaRatio.coalescing.abandoned";
+    static final int MAX_RETRIES = 3;
+    static final Duration RETRY_BACKOFF = Duration.ofMillis(100);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuotaRatioCoalescer.class);
+
+    private static QuotaUsageUpdatedEvent mostRecent(QuotaUsageUpdatedEvent previous, QuotaUsageUpdatedEvent next) {
+        if (next.getInstant().isBefore(previous.getInstant())) {
+            return previous;
+        }
+        return next;
+    }
+
+    private final Function<List<QuotaUsageUpdatedEvent>, Mono<Map<Username, Throwable>>> flusher;
+    private final Metric receivedMetric;
+    private final Metric indexedMetric;
+    private final Metric flushMetric;
+    private final Metric abandonedMetric;
+    private final KeyedCoalescer<Username, QuotaUsageUpdatedEvent> coalescer;
+    private final Semaphore pendingUpdates;
+    private final Map<Username, QuotaUsageUpdatedEvent> latestUpdates;
+
+    QuotaRatioCoalescer(QuotaRatioCoalescingConfiguration configuration, MetricFactory metricFactory,
+                        Function<List<QuotaUsageUpdatedEvent>, Mono<Map<Username, Throwable>>> flusher) {
+        this.flusher = flusher;
+        this.receivedMetric = metricFactory.generate(RECEIVED_METRIC_NAME);
+        this.indexedMetric = metricFactory.generate(INDEXED_METRIC_NAME);
+        this.flushMetric = metricFactory.generate(FLUSH_METRIC_NAME);
+        this.abandonedMetric = metricFactory.generate(ABANDONED_METRIC_NAME);
+        this.coalescer = new KeyedCoalescer<>(configuration.maxBufferedQuotaRoots(), configuration.maxLatency(),
+            QuotaRatioCoalescer::mostRecent, this::flush);
+        this.pendingUpdates = new Semaphore(2 * configuration.maxBufferedQuotaRoots());
+        this.latestUpdates = new ConcurrentHashMap<>();
+    }
+
+    Mono<Void> submit(QuotaUsageUpdatedEvent event) {
+        return Mono.defer(() -> {
+            receivedMetric.increment();
+            latestUpdates.merge(event.getUsername(), event, QuotaRatioCoalescer::mostRecent);
+            Mono<Void> indexing = index(event)
+                .doFinally(any -> latestUpdates.remove(event.getUsername(), event));
+
+            if (pendingUpdates.tryAcquire()) {
+                indexing.doFinally(any -> pendingUpdates.release())
+                    .subscribe();
+                return Mono.empty();
+            }
+            return indexing;
+        });
+    }
+
+    private Mono<Void> index(QuotaUsageUpdatedEvent event) {
+        return Mono.defer(() -> {
+                if (isSuperseded(event)) {
+                    return Mono.empty();
+                }
+                return coalescer.submit(event.getUsername(), event);
+            })
+            .retryWhen(Retry.backoff(MAX_RETRIES, RETRY_BACKOFF))
+            .onErrorResume(e -> {
+                abandonedMetric.increment();
+                LOGGER.warn("Failed to index the quota ratio of {}, it will be refreshed by its next quota usage update",
+                    event.getUsername().asString(), e);
+                return Mono.empty();
+            });
+    }
+
+    // An update stays the latest of its quota root until a more recent one is submitted, or until it is done
+    private boolean isSuperseded(QuotaUsageUpdatedEvent event) {
+        return latestUpdates.get(event.getUsername()) != event;
+    }
+
+    private Mono<Map<Username, Throwable>> flush(Map<Username, QuotaUsageUpdatedEvent> updates) {
+        flushMetric.increment();
+        indexedMetric.add(updates.size());
+
+        return flusher.apply(ImmutableList.copyOf(updates.values()));
+    }
+}
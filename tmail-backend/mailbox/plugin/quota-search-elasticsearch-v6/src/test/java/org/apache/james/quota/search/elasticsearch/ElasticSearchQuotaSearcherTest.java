@@ -77,6 +77,29 @@ class ElasticSearchQuotaSearcherTest implements QuotaSearcherContract {
             .hasSize(userCount - 1);
     }
 
+    @Test
+    void searchShouldReturnLastPageWhenUsingOffsetAndLimit(QuotaSearchTestSystem testSystem) throws Exception {
+        int userCount = 12;
+        testSystem.getDomainList().addDomain(SIMPSON_COM);
+        testSystem.getMaxQuotaManager().setGlobalMaxStorage(QuotaSizeLimit.size(100));
+
+        IntStream.range(0, userCount)
+            .boxed()
+            .map(i -> Username.fromLocalPartWithDomain("user" + i, SIMPSON_COM))
+            .forEach(user -> provisionUser(testSystem, user));
+        testSystem.await();
+
+        assertThat(
+            testSystem.getQuotaSearcher()
+                .search(QuotaQuery.builder()
+                    .withLimit(Limit.of(5))
+                    .withOffset(Offset.of(10))
+                    .build()))
+            .containsExactly(
+                Username.fromLocalPartWithDomain("user8", SIMPSON_COM),
+                Username.fromLocalPartWithDomain("user9", SIMPSON_COM));
+    }
+
     private void provisionUser(QuotaSearchTestSystem testSystem, Username username) {
         try {
             testSystem.getUsersRepository().addUser(username, PASSWORD);
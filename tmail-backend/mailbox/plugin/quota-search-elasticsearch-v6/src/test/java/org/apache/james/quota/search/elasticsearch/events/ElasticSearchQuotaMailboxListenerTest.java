@@ -23,36 +23,56 @@ import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.BOB
 import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.NOW;
 import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.QUOTAROOT;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.FIVE_SECONDS;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
+import org.apache.james.backends.es.DocumentId;
 import org.apache.james.backends.es.DockerElasticSearchExtension;
 import org.apache.james.backends.es.ElasticSearchConfiguration;
 import org.apache.james.backends.es.ElasticSearchIndexer;
+import org.apache.james.backends.es.IndexedRepresentation;
 import org.apache.james.backends.es.NodeMappingFactory;
 import org.apache.james.backends.es.ReactorElasticSearchClient;
+import org.apache.james.core.Username;
 import org.apache.james.events.Event;
 import org.apache.james.events.Group;
 import org.apache.james.mailbox.quota.QuotaFixture.Counts;
 import org.apache.james.mailbox.quota.QuotaFixture.Sizes;
 import org.apache.james.mailbox.store.event.EventFactory;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.quota.search.elasticsearch.QuotaRatioCoalescingConfiguration;
 import org.apache.james.quota.search.elasticsearch.QuotaRatioElasticSearchConstants;
 import org.apache.james.quota.search.elasticsearch.QuotaSearchIndexCreationUtil;
 import org.apache.james.quota.search.elasticsearch.UserRoutingKeyFactory;
 import org.apache.james.quota.search.elasticsearch.json.QuotaRatioToElasticSearchJson;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+
+import reactor.core.publisher.Mono;
 
 class ElasticSearchQuotaMailboxListenerTest {
     static Event.EventId EVENT_ID = Event.EventId.of("6e0dd59d-660e-4d9b-b22f-0354479f47b4");
 
     static final int BATCH_SIZE = 1;
+    static final Username ALICE_USERNAME = Username.of("alice@domain.tld");
 
     @RegisterExtension
     DockerElasticSearchExtension elasticSearch = new DockerElasticSearchExtension();
@@ -108,4 +128,73 @@ class ElasticSearchQuotaMailboxListenerTest {
 
         assertThat(searchResponse.getHits().getTotalHits()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void coalescedEventShouldBeIndexed() throws Exception {
+        quotaMailboxListener = new ElasticSearchQuotaMailboxListener(
+            new ElasticSearchIndexer(client,
+                QuotaRatioElasticSearchConstants.DEFAULT_QUOTA_RATIO_WRITE_ALIAS,
+                BATCH_SIZE),
+            new QuotaRatioToElasticSearchJson(),
+            new UserRoutingKeyFactory(),
+            new QuotaRatioCoalescingConfiguration(true, 10, Duration.ofMillis(50)),
+            new RecordingMetricFactory());
+
+        quotaMailboxListener.event(EventFactory.quotaUpdated()
+            .eventId(EVENT_ID)
+            .user(BOB_USERNAME)
+            .quotaRoot(QUOTAROOT)
+            .quotaCount(Counts._52_PERCENT)
+            .quotaSize(Sizes._55_PERCENT)
+            .instant(NOW)
+            .build());
+
+        SearchRequest searchRequest = new SearchRequest(QuotaRatioElasticSearchConstants.DEFAULT_QUOTA_RATIO_READ_ALIAS.getValue())
+            .types(NodeMappingFactory.DEFAULT_MAPPING_NAME)
+            .source(new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery()));
+
+        await().timeout(FIVE_SECONDS).untilAsserted(() -> {
+            elasticSearch.awaitForElasticSearch();
+            assertThat(client.search(searchRequest).block().getHits().getTotalHits()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void coalescedEventShouldOnlyRetryItsQuotaRatioWhenItFailsIndexing() {
+        ElasticSearchIndexer indexer = mock(ElasticSearchIndexer.class);
+        when(indexer.index(anyList())).thenReturn(Mono.just(new BulkResponse(new BulkItemResponse[] {
+            mock(BulkItemResponse.class),
+            BulkItemResponse.failure(1, DocWriteRequest.OpType.INDEX,
+                new BulkItemResponse.Failure("quota_ratio", NodeMappingFactory.DEFAULT_MAPPING_NAME, ALICE_USERNAME.asString(), new RuntimeException("boom")))
+        }, 0)), Mono.just(new BulkResponse(new BulkItemResponse[] {
+            mock(BulkItemResponse.class)
+        }, 0)));
+        quotaMailboxListener = new ElasticSearchQuotaMailboxListener(
+            indexer,
+            new QuotaRatioToElasticSearchJson(),
+            new UserRoutingKeyFactory(),
+            new QuotaRatioCoalescingConfiguration(true, 10, Duration.ofMillis(50)),
+            new RecordingMetricFactory());
+
+        Mono.from(quotaMailboxListener.reactiveEvent(quotaUpdated(BOB_USERNAME))).block();
+        Mono.from(quotaMailboxListener.reactiveEvent(quotaUpdated(ALICE_USERNAME))).block();
+
+        ArgumentCaptor<List<IndexedRepresentation>> documents = ArgumentCaptor.forClass(List.class);
+        verify(indexer, timeout(5000).times(2)).index(documents.capture());
+        assertThat(documents.getAllValues().get(1))
+            .extracting(IndexedRepresentation::id)
+            .containsExactly(DocumentId.fromString(ALICE_USERNAME.asString()));
+    }
+
+    private Event quotaUpdated(Username username) {
+        return EventFactory.quotaUpdated()
+            .eventId(Event.EventId.random())
+            .user(username)
+            .quotaRoot(QUOTAROOT)
+            .quotaCount(Counts._52_PERCENT)
+            .quotaSize(Sizes._55_PERCENT)
+            .instant(NOW)
+            .build();
+    }
+}
@@ -0,0 +1,198 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.quota.search.elasticsearch.events;
+
+import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.BOB_USERNAME;
+import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.NOW;
+import static org.apache.james.quota.search.QuotaSearchFixture.TestConstants.QUOTAROOT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Durations.FIVE_SECONDS;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.james.core.Username;
+import org.apache.james.events.Event;
+import org.apache.james.mailbox.events.MailboxEvents.QuotaUsageUpdatedEvent;
+import org.apache.james.mailbox.quota.QuotaFixture.Counts;
+import org.apache.james.mailbox.quota.QuotaFixture.Sizes;
+import org.apache.james.mailbox.store.event.EventFactory;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.quota.search.elasticsearch.QuotaRatioCoalescingConfiguration;
+import org.awaitility.core.ConditionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Mono;
+
+class QuotaRatioCoalescerTest {
+    static final Username ALICE_USERNAME = Username.of("alice@domain.tld");
+    static final QuotaRatioCoalescingConfiguration CONFIGURATION = new QuotaRatioCoalescingConfiguration(true, 3, Duration.ofMillis(50));
+    static final ConditionFactory WAIT_CONDITION = await().timeout(FIVE_SECONDS);
+
+    static QuotaUsageUpdatedEvent quotaUpdated(Username username, Instant instant) {
+        return EventFactory.quotaUpdated()
+            .eventId(Event.EventId.random())
+            .user(username)
+            .quotaRoot(QUOTAROOT)
+            .quotaCount(Counts._52_PERCENT)
+            .quotaSize(Sizes._55_PERCENT)
+            .instant(instant)
+            .build();
+    }
+
+    ConcurrentLinkedQueue<List<QuotaUsageUpdatedEvent>> flushes;
+    RecordingMetricFactory metricFactory;
+    QuotaRatioCoalescer testee;
+
+    @BeforeEach
+    void setUp() {
+        flushes = new ConcurrentLinkedQueue<>();
+        metricFactory = new RecordingMetricFactory();
+        testee = new QuotaRatioCoalescer(CONFIGURATION, metricFactory,
+            updates -> Mono.fromRunnable(() -> flushes.add(updates)));
+    }
+
+    @Test
+    void submitShouldCompleteOnceBuffered() {
+        testee = new QuotaRatioCoalescer(new QuotaRatioCoalescingConfiguration(true, 3, Duration.ofHours(1)), metricFactory,
+            updates -> Mono.fromRunnable(() -> flushes.add(updates)));
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block(Duration.ofSeconds(5));
+
+        assertThat(flushes).isEmpty();
+    }
+
+    @Test
+    void bufferedUpdateShouldBeFlushedAfterMaxLatency() {
+        QuotaUsageUpdatedEvent event = quotaUpdated(BOB_USERNAME, NOW);
+
+        testee.submit(event).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).containsExactly(List.of(event)));
+    }
+
+    @Test
+    void updatesOfSeveralQuotaRootsShouldBeFlushedTogether() {
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+        testee.submit(quotaUpdated(ALICE_USERNAME, NOW)).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).hasSize(1));
+        assertThat(flushes.peek()).hasSize(2);
+    }
+
+    @Test
+    void onlyTheLatestUpdateOfAQuotaRootShouldBeFlushed() {
+        QuotaUsageUpdatedEvent latest = quotaUpdated(BOB_USERNAME, NOW.plusSeconds(2));
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+        testee.submit(latest).block();
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW.plusSeconds(1))).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).containsExactly(List.of(latest)));
+    }
+
+    @Test
+    void fullBufferShouldBeFlushedWithoutWaiting() {
+        testee = new QuotaRatioCoalescer(new QuotaRatioCoalescingConfiguration(true, 1, Duration.ofHours(1)), metricFactory,
+            updates -> Mono.fromRunnable(() -> flushes.add(updates)));
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).hasSize(1));
+    }
+
+    @Test
+    void failedFlushShouldBeRetried() {
+        QuotaUsageUpdatedEvent event = quotaUpdated(BOB_USERNAME, NOW);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        testee = new QuotaRatioCoalescer(CONFIGURATION, metricFactory,
+            updates -> {
+                if (failed.compareAndSet(false, true)) {
+                    return Mono.error(new RuntimeException("boom"));
+                }
+                return Mono.fromRunnable(() -> flushes.add(updates));
+            });
+
+        testee.submit(event).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).containsExactly(List.of(event)));
+    }
+
+    @Test
+    void failingQuotaRootShouldOnlyRetryItsOwnUpdate() {
+        QuotaUsageUpdatedEvent aliceEvent = quotaUpdated(ALICE_USERNAME, NOW);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        testee = new QuotaRatioCoalescer(CONFIGURATION, metricFactory,
+            updates -> {
+                flushes.add(updates);
+                if (failed.compareAndSet(false, true)) {
+                    return Mono.just(ImmutableMap.<Username, Throwable>of(ALICE_USERNAME, new RuntimeException("boom")));
+                }
+                return Mono.empty();
+            });
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+        testee.submit(aliceEvent).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(flushes).hasSize(2));
+        assertThat(flushes).last().isEqualTo(List.of(aliceEvent));
+    }
+
+    @Test
+    void updateStillFailingAfterRetriesShouldBeAbandoned() {
+        testee = new QuotaRatioCoalescer(CONFIGURATION, metricFactory,
+            updates -> Mono.fromRunnable(() -> flushes.add(updates))
+                .then(Mono.error(new RuntimeException("boom"))));
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(metricFactory.countFor(QuotaRatioCoalescer.ABANDONED_METRIC_NAME)).isEqualTo(1));
+        assertThat(flushes).hasSize(QuotaRatioCoalescer.MAX_RETRIES + 1);
+    }
+
+    @Test
+    void submitShouldWaitForIndexingWhenTooManyUpdatesArePending() {
+        testee = new QuotaRatioCoalescer(new QuotaRatioCoalescingConfiguration(true, 1, Duration.ofHours(1)), metricFactory,
+            updates -> Mono.never());
+
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+        testee.submit(quotaUpdated(ALICE_USERNAME, NOW)).block();
+
+        assertThatThrownBy(() -> testee.submit(quotaUpdated(Username.of("cedric@domain.tld"), NOW)).block(Duration.ofMillis(200)))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void receivedAndIndexedUpdatesShouldBeRecorded() {
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW)).block();
+        testee.submit(quotaUpdated(BOB_USERNAME, NOW.plusSeconds(1))).block();
+
+        WAIT_CONDITION.untilAsserted(() -> assertThat(metricFactory.countFor(QuotaRatioCoalescer.INDEXED_METRIC_NAME)).isEqualTo(1));
+        assertThat(metricFactory.countFor(QuotaRatioCoalescer.RECEIVED_METRIC_NAME)).isEqualTo(2);
+    }
+}
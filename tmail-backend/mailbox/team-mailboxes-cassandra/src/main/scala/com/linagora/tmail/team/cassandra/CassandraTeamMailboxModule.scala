@@ -0,0 +1,20 @@
+package com.linagora.tmail.team.cassandra
+
+import com.google.inject.multibindings.{Multibinder, OptionalBinder}
+import com.google.inject.{AbstractModule, Scopes}
+import com.linagora.tmail.team.TeamMailboxRegistry
+import org.apache.james.backends.cassandra.components.CassandraModule
+
+class CassandraTeamMailboxModule() extends AbstractModule {
+  override def configure(): Unit = {
+    bind(classOf[CassandraTeamMailboxRegistry]).in(Scopes.SINGLETON)
+
+    OptionalBinder.newOptionalBinder(binder(), classOf[TeamMailboxRegistry])
+      .setBinding()
+      .to(classOf[CassandraTeamMailboxRegistry])
+
+    Multibinder.newSetBinder(binder, classOf[CassandraModule])
+      .addBinding()
+      .toInstance(CassandraTeamMailboxRegistryTable.MODULE)
+  }
+}
@@ -0,0 +1,112 @@
+package com.linagora.tmail.team.cassandra
+
+import com.datastax.oss.driver.api.core.CqlSession
+import com.datastax.oss.driver.api.core.cql.Row
+import com.datastax.oss.driver.api.querybuilder.QueryBuilder.{bindMarker, deleteFrom, insertInto, selectFrom}
+import com.linagora.tmail.team.cassandra.CassandraTeamMailboxRegistry.REGISTRY_STATUS_KEY
+import com.linagora.tmail.team.cassandra.CassandraTeamMailboxRegistryTable.{DOMAIN, MEMBER, MEMBER_TABLE_NAME, NAME, POPULATED, STATUS_KEY, STATUS_TABLE_NAME, TABLE_NAME}
+import com.linagora.tmail.team.{TeamMailbox, TeamMailboxRegistry}
+import javax.inject.Inject
+import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
+import org.apache.james.core.{Domain, Username}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+object CassandraTeamMailboxRegistry {
+  private val REGISTRY_STATUS_KEY: String = "registry"
+}
+
+class CassandraTeamMailboxRegistry @Inject()(session: CqlSession) extends TeamMailboxRegistry {
+  private val executor = new CassandraAsyncExecutor(session)
+
+  private val insertStatement = session.prepare(insertInto(TABLE_NAME)
+    .value(DOMAIN, bindMarker(DOMAIN))
+    .value(NAME, bindMarker(NAME))
+    .build())
+
+  private val deleteStatement = session.prepare(deleteFrom(TABLE_NAME)
+    .whereColumn(DOMAIN).isEqualTo(bindMarker(DOMAIN))
+    .whereColumn(NAME).isEqualTo(bindMarker(NAME))
+    .build())
+
+  private val selectAllStatement = session.prepare(selectFrom(TABLE_NAME).columns(DOMAIN, NAME).build())
+
+  private val selectByDomainStatement = session.prepare(selectFrom(TABLE_NAME).columns(DOMAIN, NAME)
+    .whereColumn(DOMAIN).isEqualTo(bindMarker(DOMAIN))
+    .build())
+
+  private val insertMemberStatement = session.prepare(insertInto(MEMBER_TABLE_NAME)
+    .value(MEMBER, bindMarker(MEMBER))
+    .value(DOMAIN, bindMarker(DOMAIN))
+    .value(NAME, bindMarker(NAME))
+    .build())
+
+  private val deleteMemberStatement = session.prepare(deleteFrom(MEMBER_TABLE_NAME)
+    .whereColumn(MEMBER).isEqualTo(bindMarker(MEMBER))
+    .whereColumn(DOMAIN).isEqualTo(bindMarker(DOMAIN))
+    .whereColumn(NAME).isEqualTo(bindMarker(NAME))
+    .build())
+
+  private val selectByMemberStatement = session.prepare(selectFrom(MEMBER_TABLE_NAME).columns(DOMAIN, NAME)
+    .whereColumn(MEMBER).isEqualTo(bindMarker(MEMBER))
+    .build())
+
+  private val insertPopulatedStatement = session.prepare(insertInto(STATUS_TABLE_NAME)
+    .value(STATUS_KEY, bindMarker(STATUS_KEY))
+    .value(POPULATED, bindMarker(POPULATED))
+    .build())
+
+  private val selectPopulatedStatement = session.prepare(selectFrom(STATUS_TABLE_NAME).column(POPULATED)
+    .whereColumn(STATUS_KEY).isEqualTo(bindMarker(STATUS_KEY))
+    .build())
+
+  override def addTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    executor.executeVoid(insertStatement.bind()
+      .setString(DOMAIN, teamMailbox.domain.asString())
+      .setString(NAME, teamMailbox.mailboxName.asString()))
+
+  override def removeTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    executor.executeVoid(deleteStatement.bind()
+      .setString(DOMAIN, teamMailbox.domain.asString())
+      .setString(NAME, teamMailbox.mailboxName.asString()))
+
+  override def addMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void] =
+    executor.executeVoid(insertMemberStatement.bind()
+      .setString(MEMBER, member.asString())
+      .setString(DOMAIN, teamMailbox.domain.asString())
+      .setString(NAME, teamMailbox.mailboxName.asString()))
+
+  override def removeMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void] =
+    executor.executeVoid(deleteMemberStatement.bind()
+      .setString(MEMBER, member.asString())
+      .setString(DOMAIN, teamMailbox.domain.asString())
+      .setString(NAME, teamMailbox.mailboxName.asString()))
+
+  override def listTeamMailboxes(): Publisher[TeamMailbox] =
+    SFlux.fromPublisher(executor.executeRows(selectAllStatement.bind()))
+      .flatMapIterable(row => readTeamMailbox(row))
+
+  override def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox] =
+    SFlux.fromPublisher(executor.executeRows(selectByDomainStatement.bind()
+        .setString(DOMAIN, domain.asString())))
+      .flatMapIterable(row => readTeamMailbox(row))
+
+  override def listTeamMailboxes(member: Username): Publisher[TeamMailbox] =
+    SFlux.fromPublisher(executor.executeRows(selectByMemberStatement.bind()
+        .setString(MEMBER, member.asString())))
+      .flatMapIterable(row => readTeamMailbox(row))
+
+  override def isPopulated(): Publisher[Boolean] =
+    SMono.fromPublisher(executor.executeSingleRow(selectPopulatedStatement.bind()
+        .setString(STATUS_KEY, REGISTRY_STATUS_KEY)))
+      .map(row => row.getBoolean(POPULATED))
+      .defaultIfEmpty(false)
+
+  override def markPopulated(): Publisher[Void] =
+    executor.executeVoid(insertPopulatedStatement.bind()
+      .setString(STATUS_KEY, REGISTRY_STATUS_KEY)
+      .setBoolean(POPULATED, true))
+
+  private def readTeamMailbox(row: Row): Option[TeamMailbox] =
+    TeamMailbox.fromJava(Domain.of(row.getString(DOMAIN)), row.getString(NAME))
+}
@@ -0,0 +1,34 @@
+package com.linagora.tmail.team.cassandra
+
+import com.datastax.oss.driver.api.core.`type`.DataTypes
+import org.apache.james.backends.cassandra.components.CassandraModule
+
+object CassandraTeamMailboxRegistryTable {
+  val TABLE_NAME = "team_mailbox_registry"
+  val MEMBER_TABLE_NAME = "team_mailbox_member_registry"
+  val DOMAIN = "domain"
+  val NAME = "name"
+  val MEMBER = "member"
+  val STATUS_TABLE_NAME = "team_mailbox_registry_status"
+  val STATUS_KEY = "key"
+  val POPULATED = "populated"
+
+  val MODULE: CassandraModule = CassandraModule.builder()
+    .table(TABLE_NAME)
+    .comment("Hold the team mailboxes of each domain. Use to list team mailboxes without scanning mailboxes.")
+    .statement(statement => types => statement
+      .withPartitionKey(DOMAIN, DataTypes.TEXT)
+      .withClusteringColumn(NAME, DataTypes.TEXT))
+    .table(MEMBER_TABLE_NAME)
+    .comment("Hold the team mailboxes each user is member of. Use to list team mailboxes of a user.")
+    .statement(statement => types => statement
+      .withPartitionKey(MEMBER, DataTypes.TEXT)
+      .withClusteringColumn(DOMAIN, DataTypes.TEXT)
+      .withClusteringColumn(NAME, DataTypes.TEXT))
+    .table(STATUS_TABLE_NAME)
+    .comment("Records whether team mailboxes created before the registry existed were registered.")
+    .statement(statement => types => statement
+      .withPartitionKey(STATUS_KEY, DataTypes.TEXT)
+      .withColumn(POPULATED, DataTypes.BOOLEAN))
+    .build
+}
@@ -0,0 +1,38 @@
+package com.linagora.tmail.team.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.backends.cassandra.CassandraCluster;
+import org.apache.james.backends.cassandra.CassandraClusterExtension;
+import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linagora.tmail.team.TeamMailboxRegistry;
+import com.linagora.tmail.team.TeamMailboxRegistryContract;
+
+import reactor.core.publisher.Mono;
+
+public class CassandraTeamMailboxRegistryTest implements TeamMailboxRegistryContract {
+    @RegisterExtension
+    static CassandraClusterExtension cassandraCluster = new CassandraClusterExtension(
+        CassandraModule.aggregateModules(CassandraTeamMailboxRegistryTable.MODULE()));
+
+    private CassandraTeamMailboxRegistry registry;
+
+    @BeforeEach
+    void setUp(CassandraCluster cassandra) {
+        registry = new CassandraTeamMailboxRegistry(cassandra.getConf());
+    }
+
+    @Override
+    public TeamMailboxRegistry testee() {
+        return registry;
+    }
+
+    @Test
+    void isPopulatedShouldReturnFalseByDefault() {
+        assertThat(Mono.from(registry.isPopulated()).block()).isEqualTo(false);
+    }
+}
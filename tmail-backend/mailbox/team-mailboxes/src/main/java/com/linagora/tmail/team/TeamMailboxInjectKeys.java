@@ -0,0 +1,5 @@
+package com.linagora.tmail.team;
+
+public interface TeamMailboxInjectKeys {
+    String CACHE_INVALIDATION = "TEAM_MAILBOX_INJECTION_CACHE_INVALIDATION";
+}
@@ -0,0 +1,140 @@
+package com.linagora.tmail.team
+
+import java.time.Duration
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import com.linagora.tmail.team.CachingTeamMailboxRepository.{CACHE_EXPIRATION, CACHE_MAXIMUM_SIZE}
+import javax.inject.{Inject, Named}
+import org.apache.james.core.{Domain, Username}
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.{Event, EventBus, EventListener}
+import org.apache.james.lifecycle.api.Startable
+import org.apache.james.metrics.api.GaugeRegistry
+import org.reactivestreams.Publisher
+import reactor.core.publisher.Mono
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.jdk.FutureConverters._
+
+object CachingTeamMailboxRepository {
+  // Safety net in case an invalidation event is lost
+  val CACHE_EXPIRATION: Duration = Duration.ofMinutes(10)
+  val CACHE_MAXIMUM_SIZE: Long = 100000
+}
+
+/**
+ * Caches team mailbox existence, members and the team mailboxes of a user, which are read on every SMTP recipient,
+ * local delivery and JMAP submission.
+ *
+ * Writes invalidate the local entries right away then notify the other nodes through a dedicated event bus.
+ *
+ * Only writes going through this repository are notified: memberships changed by editing the team mailbox ACLs
+ * directly (eg through IMAP SETACL or the mailbox ACL webadmin routes) are seen once entries expired, after at most
+ * 10 minutes.
+ */
+class CachingTeamMailboxRepository @Inject()(underlying: TeamMailboxRepositoryImpl,
+                                             @Named(TeamMailboxInjectKeys.CACHE_INVALIDATION) eventBus: EventBus,
+                                             gaugeRegistry: GaugeRegistry) extends TeamMailboxRepository with Startable {
+
+  private val existsCache: AsyncLoadingCache[TeamMailbox, java.lang.Boolean] = buildCache("exists",
+    (teamMailbox: TeamMailbox, executor: Executor) => SMono.fromPublisher(underlying.exists(teamMailbox))
+      .map(java.lang.Boolean.valueOf)
+      .asJava()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture)
+
+  private val membersCache: AsyncLoadingCache[TeamMailbox, Seq[Username]] = buildCache("members",
+    (teamMailbox: TeamMailbox, executor: Executor) => SFlux.fromPublisher(underlying.listMembers(teamMailbox))
+      .collectSeq()
+      .asJava()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture)
+
+  private val userTeamMailboxesCache: AsyncLoadingCache[Username, Seq[TeamMailbox]] = buildCache("userTeamMailboxes",
+    (username: Username, executor: Executor) => SFlux.fromPublisher(underlying.listTeamMailboxes(username))
+      .collectSeq()
+      .asJava()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture)
+
+  private val registered: AtomicBoolean = new AtomicBoolean(false)
+
+  private val invalidationListener: EventListener.ReactiveEventListener = new EventListener.ReactiveEventListener {
+    override def reactiveEvent(event: Event): Publisher[Void] = event match {
+      case teamMailboxChangedEvent: TeamMailboxChangedEvent => SMono.fromCallable(() => invalidate(teamMailboxChangedEvent)).`then`()
+      case _ => Mono.empty[Void]()
+    }
+
+    override def isHandling(event: Event): Boolean = event.isInstanceOf[TeamMailboxChangedEvent]
+  }
+
+  def registerInvalidationListener(): Unit =
+    if (registered.compareAndSet(false, true)) {
+      Mono.from(eventBus.register(invalidationListener, TeamMailboxCacheInvalidationKey)).block()
+    }
+
+  override def createTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    notifyChange(underlying.createTeamMailbox(teamMailbox), teamMailbox, None)
+
+  override def deleteTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    notifyChange(underlying.deleteTeamMailbox(teamMailbox), teamMailbox, None)
+
+  override def addMember(teamMailbox: TeamMailbox, addUser: Username): Publisher[Void] =
+    notifyChange(underlying.addMember(teamMailbox, addUser), teamMailbox, Some(addUser))
+
+  override def removeMember(teamMailbox: TeamMailbox, removeUser: Username): Publisher[Void] =
+    notifyChange(underlying.removeMember(teamMailbox, removeUser), teamMailbox, Some(removeUser))
+
+  override def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox] = underlying.listTeamMailboxes(domain)
+
+  override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] =
+    SMono.fromFuture(userTeamMailboxesCache.get(username).asScala)
+      .flatMapMany(SFlux.fromIterable)
+
+  override def listTeamMailboxes(): Publisher[TeamMailbox] = underlying.listTeamMailboxes()
+
+  override def listMembers(teamMailbox: TeamMailbox): Publisher[Username] =
+    SMono.fromFuture(membersCache.get(teamMailbox).asScala)
+      .flatMapMany(SFlux.fromIterable)
+
+  override def exists(teamMailbox: TeamMailbox): Publisher[Boolean] =
+    SMono.fromFuture(existsCache.get(teamMailbox).asScala)
+      .map(_.booleanValue())
+
+  private def notifyChange(operation: Publisher[Void], teamMailbox: TeamMailbox, member: Option[Username]): Publisher[Void] = {
+    val event: TeamMailboxChangedEvent = TeamMailboxChangedEvent(EventId.random(), teamMailbox, member)
+    SMono.fromPublisher(operation)
+      .doOnError(_ => invalidate(event))
+      .`then`(SMono.fromCallable(() => invalidate(event)))
+      .`then`(SMono.fromPublisher(eventBus.dispatch(event, TeamMailboxCacheInvalidationKey)))
+      .asJava()
+      .`then`()
+  }
+
+  private def invalidate(event: TeamMailboxChangedEvent): Unit = {
+    existsCache.synchronous().invalidate(event.teamMailbox)
+    membersCache.synchronous().invalidate(event.teamMailbox)
+    event.member match {
+      case Some(member) => userTeamMailboxesCache.synchronous().invalidate(member)
+      case None => userTeamMailboxesCache.synchronous().invalidateAll()
+    }
+  }
+
+  private def buildCache[K, V](name: String, loader: AsyncCacheLoader[K, V]): AsyncLoadingCache[K, V] = {
+    val loadingCache: AsyncLoadingCache[K, V] = Caffeine.newBuilder()
+      .expireAfterWrite(CACHE_EXPIRATION)
+      .maximumSize(CACHE_MAXIMUM_SIZE)
+      .recordStats()
+      .buildAsync[K, V](loader)
+
+    gaugeRegistry.register(s"team_mailbox.cache.$name.hitRate", () => loadingCache.synchronous().stats().hitRate())
+      .register(s"team_mailbox.cache.$name.missCount", () => loadingCache.synchronous().stats().missCount())
+      .register(s"team_mailbox.cache.$name.hitCount", () => loadingCache.synchronous().stats().hitCount())
+      .register(s"team_mailbox.cache.$name.size", () => loadingCache.synchronous().estimatedSize())
+    loadingCache
+  }
+}
@@ -1,16 +1,19 @@
 package com.linagora.tmail.team
 
-import java.util.Comparator
+import java.util.{Comparator, PriorityQueue}
 
 import com.google.inject.{AbstractModule, Scopes}
+import com.linagora.tmail.team.TMailScanningQuotaSearcher.{CONCURRENCY, USERNAME_ORDERING}
 import javax.inject.Inject
 import org.apache.james.core.Username
 import org.apache.james.quota.search.scanning.ClauseConverter
-import org.apache.james.quota.search.{Limit, QuotaQuery, QuotaSearcher}
+import org.apache.james.quota.search.{QuotaQuery, QuotaSearcher}
 import org.apache.james.user.api.UsersRepository
-import reactor.core.scala.publisher.SFlux
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
 
 import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
 import scala.math.Ordering.comparatorToOrdering
 
 class TMailScanningQuotaSearcherModule extends AbstractModule {
@@ -20,24 +23,57 @@ class TMailScanningQuotaSearcherModule extends AbstractModule {
   }
 }
 
+object TMailScanningQuotaSearcher {
+  // Evaluating a clause reads the quota of the user, which is blocking
+  val CONCURRENCY: Int = 16
+  val USERNAME_ORDERING: Ordering[Username] = comparatorToOrdering(Comparator.comparing[Username, String](user => user.asString))
+}
+
+/**
+ * Streams users and team mailboxes, evaluating the query clauses with a bounded concurrency.
+ *
+ * When the query is limited, only the first offset + limit matching usernames are retained while scanning, in a
+ * bounded heap, so that memory does not grow with the count of accounts.
+ */
 class TMailScanningQuotaSearcher @Inject()(usersRepository: UsersRepository,
                                            clauseConverter: ClauseConverter,
                                            teamMailboxRepository: TeamMailboxRepository) extends QuotaSearcher {
   override def search(query: QuotaQuery): java.util.List[Username] = {
-    val ordering: Ordering[Username] = comparatorToOrdering(Comparator.comparing(user => user.asString))
-    limit(listUsers
-      .filter(user => clauseConverter.andToPredicate(query.getClause).test(user))
-      .sorted(ordering)
-      .drop(query.getOffset.getValue), query.getLimit).toList.asJava
+    val offset: Int = query.getOffset.getValue
+    val users: SFlux[Username] = matchingUsers(query)
+
+    query.getLimit.getValue.toScala
+      .filter(limit => offset.toLong + limit < Int.MaxValue)
+      .map(limit => topK(users, offset + limit))
+      .getOrElse(users.collectSeq().map(_.sorted(USERNAME_ORDERING)))
+      .map(_.drop(offset).asJava)
+      .block()
   }
 
-  private def limit(results: Seq[Username], limit: Limit): Seq[Username] =
-    limit.getValue.map(l => results.take(l)).orElse(results)
+  private def matchingUsers(query: QuotaQuery): SFlux[Username] = {
+    val predicate = clauseConverter.andToPredicate(query.getClause)
 
-  private def listUsers: Seq[Username] = usersRepository.list().asScala.toSeq ++
-    SFlux(teamMailboxRepository.listTeamMailboxes())
+    listUsers
+      .flatMap(user => SMono.fromCallable(() => predicate.test(user))
+        .subscribeOn(Schedulers.boundedElastic())
+        .filter(matches => matches)
+        .map(_ => user), CONCURRENCY)
+  }
+
+  private def topK(users: SFlux[Username], k: Int): SMono[Seq[Username]] =
+    SMono.fromPublisher(users.asJava()
+      .reduceWith[PriorityQueue[Username]](() => new PriorityQueue[Username](USERNAME_ORDERING.reverse),
+        (heap, user) => {
+          heap.offer(user)
+          if (heap.size() > k) {
+            heap.poll()
+          }
+          heap
+        }))
+      .map(heap => heap.asScala.toSeq.sorted(USERNAME_ORDERING))
+
+  private def listUsers: SFlux[Username] = SFlux(usersRepository.listReactive())
+    .concatWith(SFlux(teamMailboxRepository.listTeamMailboxes())
       .map(teamMailbox => teamMailbox.asMailAddress)
-      .map(Username.fromMailAddress)
-      .collectSeq()
-      .block()
+      .map(Username.fromMailAddress))
 }
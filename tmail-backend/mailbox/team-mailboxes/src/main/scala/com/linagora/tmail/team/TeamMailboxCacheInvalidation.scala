@@ -0,0 +1,63 @@
+package com.linagora.tmail.team
+
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.databind.{JsonNode, ObjectMapper}
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.events.Event.EventId
+import org.apache.james.events.{Event, EventSerializer, RegistrationKey}
+
+object TeamMailboxCacheInvalidationKey extends RegistrationKey {
+  val KEY: String = "team-mailbox-cache-invalidation"
+
+  override def asString(): String = KEY
+
+  class Factory extends RegistrationKey.Factory {
+    override def forClass(): Class[_ <: RegistrationKey] = TeamMailboxCacheInvalidationKey.getClass
+
+    override def fromString(asString: String): RegistrationKey = TeamMailboxCacheInvalidationKey
+  }
+}
+
+/**
+ * Notifies every node that the cached data of a team mailbox is stale. `member` is set when a single membership changed.
+ */
+case class TeamMailboxChangedEvent(eventId: EventId, teamMailbox: TeamMailbox, member: Option[Username]) extends Event {
+  override def getUsername: Username = teamMailbox.owner
+
+  override def isNoop: Boolean = false
+
+  override def getEventId: EventId = eventId
+}
+
+class TeamMailboxEventSerializer @Inject()() extends EventSerializer {
+  private val EVENT_ID: String = "eventId"
+  private val TEAM_MAILBOX: String = "teamMailbox"
+  private val MEMBER: String = "member"
+
+  private val objectMapper: ObjectMapper = new ObjectMapper()
+
+  override def toJson(event: Event): String = objectMapper.writeValueAsString(toJsonNode(event))
+
+  override def toJsonBytes(event: Event): Array[Byte] = objectMapper.writeValueAsBytes(toJsonNode(event))
+
+  override def asEvent(serialized: String): Event = fromJsonNode(objectMapper.readTree(serialized))
+
+  override def fromBytes(serialized: Array[Byte]): Event = fromJsonNode(objectMapper.readTree(serialized))
+
+  private def toJsonNode(event: Event): ObjectNode = event match {
+    case teamMailboxChangedEvent: TeamMailboxChangedEvent =>
+      val node: ObjectNode = objectMapper.createObjectNode()
+        .put(EVENT_ID, teamMailboxChangedEvent.eventId.getId.toString)
+        .put(TEAM_MAILBOX, teamMailboxChangedEvent.teamMailbox.asString())
+      teamMailboxChangedEvent.member.foreach(member => node.put(MEMBER, member.asString()))
+      node
+  }
+
+  private def fromJsonNode(node: JsonNode): TeamMailboxChangedEvent =
+    TeamMailboxChangedEvent(
+      eventId = EventId.of(node.get(EVENT_ID).asText()),
+      teamMailbox = TeamMailbox.fromString(node.get(TEAM_MAILBOX).asText())
+        .fold(e => throw e, teamMailbox => teamMailbox),
+      member = Option(node.get(MEMBER)).map(member => Username.of(member.asText())))
+}
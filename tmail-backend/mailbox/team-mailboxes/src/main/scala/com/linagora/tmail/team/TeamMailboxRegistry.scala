@@ -0,0 +1,79 @@
+package com.linagora.tmail.team
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+import javax.inject.Inject
+import org.apache.james.core.{Domain, Username}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.collection.concurrent.{Map, TrieMap}
+
+/**
+ * Index of existing team mailboxes and of their members, maintained by [[TeamMailboxRepositoryImpl]] writes.
+ *
+ * It allows listing team mailboxes without scanning every mailbox of the system, once populated: team mailboxes created
+ * before the registry existed are only registered by the `PopulateRegistry` webadmin task, which then marks it populated.
+ *
+ * Memberships changed by editing the team mailbox ACLs directly are not reflected. Running the `PopulateRegistry`
+ * task again registers missing members.
+ */
+trait TeamMailboxRegistry {
+  def addTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void]
+
+  def removeTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void]
+
+  def addMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void]
+
+  def removeMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void]
+
+  def listTeamMailboxes(): Publisher[TeamMailbox]
+
+  def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox]
+
+  def listTeamMailboxes(member: Username): Publisher[TeamMailbox]
+
+  def isPopulated(): Publisher[Boolean]
+
+  def markPopulated(): Publisher[Void]
+}
+
+/**
+ * Mailboxes are lost upon restart too with memory storage: this registry holds every team mailbox from the start.
+ */
+class MemoryTeamMailboxRegistry(populated: Boolean) extends TeamMailboxRegistry {
+  private val teamMailboxes: Map[TeamMailbox, Unit] = TrieMap()
+  private val members: Map[(Username, TeamMailbox), Unit] = TrieMap()
+  private val populatedFlag: AtomicBoolean = new AtomicBoolean(populated)
+
+  @Inject
+  def this() = this(true)
+
+  override def addTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    SMono.fromCallable(() => teamMailboxes.put(teamMailbox, ())).`then`()
+
+  override def removeTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
+    SMono.fromCallable(() => teamMailboxes.remove(teamMailbox)).`then`()
+
+  override def addMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void] =
+    SMono.fromCallable(() => members.put((member, teamMailbox), ())).`then`()
+
+  override def removeMember(teamMailbox: TeamMailbox, member: Username): Publisher[Void] =
+    SMono.fromCallable(() => members.remove((member, teamMailbox))).`then`()
+
+  override def listTeamMailboxes(): Publisher[TeamMailbox] =
+    SFlux.fromIterable(teamMailboxes.keys)
+
+  override def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox] =
+    SFlux.fromIterable(teamMailboxes.keys)
+      .filter(teamMailbox => teamMailbox.domain.equals(domain))
+
+  override def listTeamMailboxes(member: Username): Publisher[TeamMailbox] =
+    SFlux.fromIterable(members.keys)
+      .filter(entry => entry._1.equals(member))
+      .map(entry => entry._2)
+
+  override def isPopulated(): Publisher[Boolean] = SMono.fromCallable(() => populatedFlag.get())
+
+  override def markPopulated(): Publisher[Void] = SMono.fromCallable(() => populatedFlag.set(true)).`then`()
+}
@@ -0,0 +1,22 @@
+package com.linagora.tmail.team
+
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.user.api.DeleteUserDataTaskStep
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+/**
+ * Mailbox ACLs of a deleted user are removed by the James mailbox steps: this step drops its team mailbox memberships
+ * from the [[TeamMailboxRegistry]].
+ */
+class TeamMailboxRegistryUserDeletionTaskStep @Inject()(registry: TeamMailboxRegistry) extends DeleteUserDataTaskStep {
+  override def name(): DeleteUserDataTaskStep.StepName = new DeleteUserDataTaskStep.StepName("TeamMailboxRegistryUserDeletionTaskStep")
+
+  override def priority(): Int = 10
+
+  override def deleteUserData(username: Username): Publisher[Void] =
+    SFlux(registry.listTeamMailboxes(username))
+      .concatMap(teamMailbox => SMono(registry.removeMember(teamMailbox, username)))
+      .`then`()
+}
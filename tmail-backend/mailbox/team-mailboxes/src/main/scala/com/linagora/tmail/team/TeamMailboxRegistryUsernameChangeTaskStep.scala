@@ -0,0 +1,23 @@
+package com.linagora.tmail.team
+
+import javax.inject.Inject
+import org.apache.james.core.Username
+import org.apache.james.user.api.UsernameChangeTaskStep
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+/**
+ * Mailbox ACLs are moved to the new username by the James mailbox steps: this step moves the team mailbox memberships
+ * registered in the [[TeamMailboxRegistry]].
+ */
+class TeamMailboxRegistryUsernameChangeTaskStep @Inject()(registry: TeamMailboxRegistry) extends UsernameChangeTaskStep {
+  override def name(): UsernameChangeTaskStep.StepName = new UsernameChangeTaskStep.StepName("TeamMailboxRegistryUsernameChangeTaskStep")
+
+  override def priority(): Int = 9
+
+  override def changeUsername(oldUsername: Username, newUsername: Username): Publisher[Void] =
+    SFlux(registry.listTeamMailboxes(oldUsername))
+      .concatMap(teamMailbox => SMono(registry.addMember(teamMailbox, newUsername))
+        .`then`(SMono(registry.removeMember(teamMailbox, oldUsername))))
+      .`then`()
+}
@@ -1,5 +1,6 @@
 package com.linagora.tmail.team
 
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.{Set => JavaSet}
 
 import com.google.common.collect.ImmutableSet
@@ -63,10 +64,16 @@ object TeamMailboxRepositoryImpl {
 
 class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
                                           subscriptionManager: SubscriptionManager,
-                                          teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback]) extends TeamMailboxRepository {
+                                          teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback],
+                                          registry: TeamMailboxRegistry) extends TeamMailboxRepository {
   private val teamMailboxCallbackSetScala: Set[TeamMailboxCallback] = teamMailboxCallbackSetJava.asScala.toSet
 
   private var teamMailboxEntityValidator: UserEntityValidator = new TeamMailboxUserEntityValidator(this)
+  // A populated registry never gets unpopulated: stop checking once it is
+  private val registryPopulated: AtomicBoolean = new AtomicBoolean(false)
+
+  def this(mailboxManager: MailboxManager, subscriptionManager: SubscriptionManager, teamMailboxCallbackSetJava: JavaSet[TeamMailboxCallback]) =
+    this(mailboxManager, subscriptionManager, teamMailboxCallbackSetJava, new MemoryTeamMailboxRegistry)
 
   @Inject
   def setValidator(teamMailboxEntityValidator: UserEntityValidator): Unit =
@@ -82,6 +89,7 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
         case Some(validationFailure) => SMono.error(TeamMailboxNameConflictException(validationFailure.errorMessage))
         case None => createDefaultMailboxReliably(teamMailbox, session)
       })
+      .`then`(SMono(registry.addTeamMailbox(teamMailbox)))
       .`then`(SFlux.fromIterable(teamMailboxCallbackSetScala)
         .flatMap(_.teamMailboxAdded(teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
         .collectSeq()
@@ -101,7 +109,14 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
       }
 
   override def deleteTeamMailbox(teamMailbox: TeamMailbox): Publisher[Void] =
-    deleteDefaultMailboxReliably(teamMailbox, createSession(teamMailbox))
+    SFlux.fromPublisher(listMembers(teamMailbox))
+      .onErrorResume {
+        case _: TeamMailboxNotFoundException => SFlux.empty
+        case e => SFlux.error(e)
+      }
+      .concatMap(member => registry.removeMember(teamMailbox, member))
+      .`then`(deleteDefaultMailboxReliably(teamMailbox, createSession(teamMailbox)))
+      .`then`(SMono(registry.removeTeamMailbox(teamMailbox)))
       .`then`(SFlux.fromIterable(teamMailboxCallbackSetScala)
         .flatMap(_.teamMailboxRemoved(teamMailbox), ReactorUtils.DEFAULT_CONCURRENCY)
         .collectSeq()
@@ -126,16 +141,38 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
     mailboxManager.createSystemSession(Username.fromLocalPartWithDomain("team-mailbox", domain))
 
   override def listTeamMailboxes(domain: Domain): Publisher[TeamMailbox] =
-    SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, createSession(domain)))
-      .filter(mailboxMetaData => mailboxMetaData.getPath.getUser.getDomainPart
-        .filter(domain.equals(_)).isPresent)
-      .flatMapIterable(mailboxMetaData => TeamMailbox.from(mailboxMetaData.getPath))
-      .distinct()
+    fromRegistryOrMailboxes(registry.listTeamMailboxes(domain),
+      SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, createSession(domain)))
+        .filter(mailboxMetaData => mailboxMetaData.getPath.getUser.getDomainPart
+          .filter(domain.equals(_)).isPresent)
+        .flatMapIterable(mailboxMetaData => TeamMailbox.from(mailboxMetaData.getPath))
+        .distinct())
 
   override def listTeamMailboxes(username: Username): Publisher[TeamMailbox] =
-    SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, mailboxManager.createSystemSession(username)))
-      .flatMapIterable(mailboxMetaData => TeamMailbox.from(mailboxMetaData.getPath))
-      .distinct()
+    fromRegistryOrMailboxes(registry.listTeamMailboxes(username),
+      SFlux.fromPublisher(mailboxManager.search(TEAM_MAILBOX_QUERY, mailboxManager.createSystemSession(username)))
+        .flatMapIterable(mailboxMetaData => TeamMailbox.from(mailboxMetaData.getPath))
+        .distinct())
+
+  /**
+   * Team mailboxes created before the registry existed are missing from it until the `PopulateRegistry` task
+   * completes: listings are served by the mailboxes till then.
+   */
+  private def fromRegistryOrMailboxes(fromRegistry: => Publisher[TeamMailbox], fromMailboxes: => Publisher[TeamMailbox]): SFlux[TeamMailbox] =
+    isRegistryPopulated
+      .flatMapMany(populated => if (populated) {
+        SFlux.fromPublisher(fromRegistry)
+      } else {
+        SFlux.fromPublisher(fromMailboxes)
+      })
+
+  private def isRegistryPopulated: SMono[Boolean] =
+    if (registryPopulated.get()) {
+      SMono.just(true)
+    } else {
+      SMono.fromPublisher(registry.isPopulated())
+        .doOnNext(populated => if (populated) registryPopulated.set(true))
+    }
 
   override def addMember(teamMailbox: TeamMailbox, user: Username): Publisher[Void] = {
     val session = createSession(teamMailbox)
@@ -150,6 +187,7 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
         .`then`(subscribeForMember(teamMailbox.inboxPath, memberSession))
         .`then`(subscribeForMember(teamMailbox.sentPath, memberSession))
         .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER))
+      .`then`(SMono(registry.addMember(teamMailbox, user)))
       .`then`()
   }
 
@@ -191,17 +229,24 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
           .`then`(unSubscribeForMember(teamMailbox.inboxPath, memberSession))
           .`then`(unSubscribeForMember(teamMailbox.sentPath, memberSession))
           .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER))
-        .`then`())
+        .`then`(SMono(registry.removeMember(teamMailbox, user))))
       .`then`()
   }
 
-  override def listTeamMailboxes(): Publisher[TeamMailbox] = {
+  override def listTeamMailboxes(): Publisher[TeamMailbox] =
+    fromRegistryOrMailboxes(registry.listTeamMailboxes(), listTeamMailboxesFromMailboxes())
+
+  /**
+   * Lists team mailboxes by scanning the mailboxes of the system. Only meant to populate the [[TeamMailboxRegistry]]
+   * and to serve listings until then.
+   */
+  def listTeamMailboxesFromMailboxes(): Publisher[TeamMailbox] = {
     val session = mailboxManager.createSystemSession(Username.of("team-mailboxes"))
-    SFlux.fromIterable(mailboxManager.list(session)
-      .asScala
-      .flatMap(TeamMailbox.from)
-      .distinct
-      .toSeq)
+    SMono.fromCallable(() => mailboxManager.list(session))
+      .subscribeOn(ReactorUtils.BLOCKING_CALL_WRAPPER)
+      .flatMapIterable(mailboxPaths => mailboxPaths.asScala)
+      .flatMapIterable(mailboxPath => TeamMailbox.from(mailboxPath))
+      .distinct()
   }
 
   override def listMembers(teamMailbox: TeamMailbox): Publisher[Username] = {
@@ -219,8 +264,8 @@ class TeamMailboxRepositoryImpl @Inject()(mailboxManager: MailboxManager,
   }
 
   private def isUserInTeamMailbox(teamMailbox: TeamMailbox, checkUser: Username): SMono[Boolean] =
-    SFlux.fromPublisher(listTeamMailboxes(checkUser))
-      .filter(teamMailbox1 => teamMailbox1.equals(teamMailbox))
+    SFlux.fromPublisher(listMembers(teamMailbox))
+      .filter(member => member.equals(checkUser))
       .hasElements
 
   def exists(teamMailbox: TeamMailbox): SMono[Boolean] =
@@ -0,0 +1,91 @@
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxRepositoryContract.{BOB, TEAM_MAILBOX_MARKETING}
+import org.apache.james.events.Event.EventId
+import org.apache.james.mailbox.inmemory.InMemoryMailboxManager
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources
+import org.apache.james.mailbox.store.StoreSubscriptionManager
+import org.apache.james.mailbox.{MailboxManager, SubscriptionManager}
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+class CachingTeamMailboxRepositoryTest extends TeamMailboxRepositoryContract {
+  override def testee: TeamMailboxRepository = cachingTeamMailboxRepository
+
+  override def mailboxManager: MailboxManager = inMemoryMailboxManager
+
+  var teamMailboxRepositoryImpl: TeamMailboxRepositoryImpl = _
+  var cachingTeamMailboxRepository: CachingTeamMailboxRepository = _
+  var otherNodeCachingTeamMailboxRepository: CachingTeamMailboxRepository = _
+  var inMemoryMailboxManager: InMemoryMailboxManager = _
+  var subscriptionManager: SubscriptionManager = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    val resource: InMemoryIntegrationResources = InMemoryIntegrationResources.defaultResources()
+    inMemoryMailboxManager = resource.getMailboxManager
+    subscriptionManager = new StoreSubscriptionManager(resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getEventBus)
+    teamMailboxRepositoryImpl = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, TeamMailboxCallbackNoop.asSet)
+    cachingTeamMailboxRepository = new CachingTeamMailboxRepository(teamMailboxRepositoryImpl, resource.getEventBus, new NoopGaugeRegistry)
+    cachingTeamMailboxRepository.registerInvalidationListener()
+    otherNodeCachingTeamMailboxRepository = new CachingTeamMailboxRepository(teamMailboxRepositoryImpl, resource.getEventBus, new NoopGaugeRegistry)
+    otherNodeCachingTeamMailboxRepository.registerInvalidationListener()
+  }
+
+  @Test
+  def existsShouldBeServedFromTheCache(): Unit = {
+    SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()
+
+    SMono.fromPublisher(teamMailboxRepositoryImpl.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(testee.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+  }
+
+  @Test
+  def createTeamMailboxShouldInvalidateOtherNodes(): Unit = {
+    SMono.fromPublisher(otherNodeCachingTeamMailboxRepository.exists(TEAM_MAILBOX_MARKETING)).block()
+
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(otherNodeCachingTeamMailboxRepository.exists(TEAM_MAILBOX_MARKETING)).block()).isTrue
+  }
+
+  @Test
+  def addMemberShouldInvalidateOtherNodes(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listMembers(TEAM_MAILBOX_MARKETING)).collectSeq().block()
+    SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listTeamMailboxes(BOB)).collectSeq().block()
+
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    assertThat(SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listMembers(TEAM_MAILBOX_MARKETING)).collectSeq().block().asJava)
+      .containsExactly(BOB)
+    assertThat(SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def deleteTeamMailboxShouldInvalidateOtherNodes(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listTeamMailboxes(BOB)).collectSeq().block()
+
+    SMono.fromPublisher(testee.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SMono.fromPublisher(otherNodeCachingTeamMailboxRepository.exists(TEAM_MAILBOX_MARKETING)).block()).isFalse
+    assertThat(SFlux.fromPublisher(otherNodeCachingTeamMailboxRepository.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def eventSerializerShouldRoundTrip(): Unit = {
+    val serializer: TeamMailboxEventSerializer = new TeamMailboxEventSerializer()
+    val event: TeamMailboxChangedEvent = TeamMailboxChangedEvent(EventId.random(), TEAM_MAILBOX_MARKETING, Some(BOB))
+
+    assertThat(serializer.asEvent(serializer.toJson(event))).isEqualTo(event)
+  }
+}
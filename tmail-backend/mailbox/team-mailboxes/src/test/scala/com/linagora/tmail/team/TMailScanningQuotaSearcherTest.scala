@@ -0,0 +1,73 @@
+package com.linagora.tmail.team
+
+import java.util.function.Predicate
+
+import eu.timepit.refined.auto._
+import org.apache.james.core.{Domain, Username}
+import org.apache.james.quota.search.scanning.ClauseConverter
+import org.apache.james.quota.search.{Limit, Offset, QuotaClause, QuotaQuery}
+import org.apache.james.user.api.UsersRepository
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{mock, when}
+import reactor.core.publisher.Flux
+
+class TMailScanningQuotaSearcherTest {
+  private val alice = Username.of("alice@linagora.com")
+  private val bob = Username.of("bob@linagora.com")
+  private val cedric = Username.of("cedric@linagora.com")
+  private val david = Username.of("david@linagora.com")
+  private val teamMailbox = TeamMailbox(Domain.of("linagora.com"), TeamMailboxName("sales"))
+  private val sales = Username.of("sales@linagora.com")
+
+  private var clauseConverter: ClauseConverter = _
+  private var testee: TMailScanningQuotaSearcher = _
+
+  @BeforeEach
+  def setUp(): Unit = {
+    val usersRepository = mock(classOf[UsersRepository])
+    when(usersRepository.listReactive()).thenReturn(Flux.just(david, bob, alice, cedric))
+    val teamMailboxRepository = mock(classOf[TeamMailboxRepository])
+    when(teamMailboxRepository.listTeamMailboxes()).thenReturn(Flux.just(teamMailbox))
+    clauseConverter = mock(classOf[ClauseConverter])
+    when(clauseConverter.andToPredicate(any[QuotaClause.And]())).thenReturn((_: Username) => true)
+
+    testee = new TMailScanningQuotaSearcher(usersRepository, clauseConverter, teamMailboxRepository)
+  }
+
+  @Test
+  def searchShouldReturnSortedUsersAndTeamMailboxes(): Unit = {
+    assertThat(testee.search(QuotaQuery.builder().build()))
+      .containsExactly(alice, bob, cedric, david, sales)
+  }
+
+  @Test
+  def searchShouldApplyOffsetAndLimit(): Unit = {
+    assertThat(testee.search(QuotaQuery.builder()
+        .withOffset(Offset.of(1))
+        .withLimit(Limit.of(2))
+        .build()))
+      .containsExactly(bob, cedric)
+  }
+
+  @Test
+  def searchShouldReturnLastPageWhenOffsetAndLimitExceedResults(): Unit = {
+    assertThat(testee.search(QuotaQuery.builder()
+        .withOffset(Offset.of(3))
+        .withLimit(Limit.of(5))
+        .build()))
+      .containsExactly(david, sales)
+  }
+
+  @Test
+  def searchShouldOnlyReturnMatchingUsers(): Unit = {
+    val matchingBobAndDavid: Predicate[Username] = user => user.equals(bob) || user.equals(david)
+    when(clauseConverter.andToPredicate(any[QuotaClause.And]())).thenReturn(matchingBobAndDavid)
+
+    assertThat(testee.search(QuotaQuery.builder()
+        .withLimit(Limit.of(1))
+        .build()))
+      .containsExactly(bob)
+  }
+}
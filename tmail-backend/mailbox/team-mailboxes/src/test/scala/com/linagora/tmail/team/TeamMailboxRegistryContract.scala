@@ -0,0 +1,114 @@
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxRegistryContract.TEAM_MAILBOX_DOMAIN_2
+import com.linagora.tmail.team.TeamMailboxRepositoryContract.{ANDRE, BOB, DOMAIN_1, DOMAIN_2, TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES}
+import eu.timepit.refined.auto._
+import org.assertj.core.api.Assertions.{assertThat, assertThatCode}
+import org.junit.jupiter.api.Test
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+object TeamMailboxRegistryContract {
+  val TEAM_MAILBOX_DOMAIN_2: TeamMailbox = TeamMailbox(DOMAIN_2, TeamMailboxName("marketing"))
+}
+
+trait TeamMailboxRegistryContract {
+  def testee: TeamMailboxRegistry
+
+  @Test
+  def listTeamMailboxesShouldReturnEmptyByDefault(): Unit =
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes()).collectSeq().block().asJava)
+      .isEmpty()
+
+  @Test
+  def listTeamMailboxesShouldReturnAddedTeamMailboxes(): Unit = {
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_DOMAIN_2)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes()).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_DOMAIN_2)
+  }
+
+  @Test
+  def addTeamMailboxShouldBeIdempotent(): Unit = {
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes()).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def listTeamMailboxesByDomainShouldNotReturnOtherDomains(): Unit = {
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_SALES)).block()
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_DOMAIN_2)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(DOMAIN_1)).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES)
+  }
+
+  @Test
+  def removeTeamMailboxShouldRemoveItFromListings(): Unit = {
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addTeamMailbox(TEAM_MAILBOX_SALES)).block()
+
+    SMono.fromPublisher(testee.removeTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(DOMAIN_1)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_SALES)
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes()).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_SALES)
+  }
+
+  @Test
+  def removeTeamMailboxShouldBeIdempotent(): Unit =
+    assertThatCode(() => SMono.fromPublisher(testee.removeTeamMailbox(TEAM_MAILBOX_MARKETING)).block())
+      .doesNotThrowAnyException()
+
+  @Test
+  def listTeamMailboxesByMemberShouldReturnEmptyByDefault(): Unit =
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+
+  @Test
+  def listTeamMailboxesByMemberShouldReturnTeamMailboxesOfThatMember(): Unit = {
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_DOMAIN_2, BOB)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_SALES, ANDRE)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_DOMAIN_2)
+  }
+
+  @Test
+  def removeMemberShouldRemoveOnlyThatMembership(): Unit = {
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_SALES, BOB)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, ANDRE)).block()
+
+    SMono.fromPublisher(testee.removeMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_SALES)
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(ANDRE)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def removeMemberShouldBeIdempotent(): Unit =
+    assertThatCode(() => SMono.fromPublisher(testee.removeMember(TEAM_MAILBOX_MARKETING, BOB)).block())
+      .doesNotThrowAnyException()
+
+  @Test
+  def isPopulatedShouldReturnTrueWhenMarkedPopulated(): Unit = {
+    SMono.fromPublisher(testee.markPopulated()).block()
+
+    assertThat(SMono.fromPublisher(testee.isPopulated()).block()).isTrue
+  }
+}
+
+class MemoryTeamMailboxRegistryTest extends TeamMailboxRegistryContract {
+  override val testee: TeamMailboxRegistry = new MemoryTeamMailboxRegistry(false)
+}
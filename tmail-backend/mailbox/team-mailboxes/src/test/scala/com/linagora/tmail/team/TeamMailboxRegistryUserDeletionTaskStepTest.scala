@@ -0,0 +1,49 @@
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxRepositoryContract.{ANDRE, BOB, TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES}
+import org.assertj.core.api.Assertions.{assertThat, assertThatCode}
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+class TeamMailboxRegistryUserDeletionTaskStepTest {
+  var registry: TeamMailboxRegistry = _
+  var testee: TeamMailboxRegistryUserDeletionTaskStep = _
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    registry = new MemoryTeamMailboxRegistry()
+    testee = new TeamMailboxRegistryUserDeletionTaskStep(registry)
+  }
+
+  @Test
+  def shouldRemoveMemberships(): Unit = {
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono(registry.addMember(TEAM_MAILBOX_SALES, BOB)).block()
+
+    SMono(testee.deleteUserData(BOB)).block()
+
+    assertThat(SFlux(registry.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def shouldNotRemoveOtherUsersMemberships(): Unit = {
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, ANDRE)).block()
+
+    SMono(testee.deleteUserData(BOB)).block()
+
+    assertThat(SFlux(registry.listTeamMailboxes(ANDRE)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def shouldBeIdempotent(): Unit = {
+    SMono(testee.deleteUserData(BOB)).block()
+
+    assertThatCode(() => SMono(testee.deleteUserData(BOB)).block())
+      .doesNotThrowAnyException()
+  }
+}
@@ -0,0 +1,51 @@
+package com.linagora.tmail.team
+
+import com.linagora.tmail.team.TeamMailboxRepositoryContract.{ANDRE, BOB, TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES}
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.jdk.CollectionConverters._
+
+class TeamMailboxRegistryUsernameChangeTaskStepTest {
+  var registry: TeamMailboxRegistry = _
+  var testee: TeamMailboxRegistryUsernameChangeTaskStep = _
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    registry = new MemoryTeamMailboxRegistry()
+    testee = new TeamMailboxRegistryUsernameChangeTaskStep(registry)
+  }
+
+  @Test
+  def shouldMoveMembershipsToTheNewUsername(): Unit = {
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono(registry.addMember(TEAM_MAILBOX_SALES, BOB)).block()
+
+    SMono(testee.changeUsername(BOB, ANDRE)).block()
+
+    assertThat(SFlux(registry.listTeamMailboxes(ANDRE)).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES)
+  }
+
+  @Test
+  def shouldRemoveMembershipsOfTheOldUsername(): Unit = {
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    SMono(testee.changeUsername(BOB, ANDRE)).block()
+
+    assertThat(SFlux(registry.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def shouldMergeWithExistingMembershipsOfTheNewUsername(): Unit = {
+    SMono(registry.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+    SMono(registry.addMember(TEAM_MAILBOX_SALES, ANDRE)).block()
+
+    SMono(testee.changeUsername(BOB, ANDRE)).block()
+
+    assertThat(SFlux(registry.listTeamMailboxes(ANDRE)).collectSeq().block().asJava)
+      .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES)
+  }
+}
@@ -282,6 +282,39 @@ trait TeamMailboxRepositoryContract {
       .containsExactlyInAnyOrder(TEAM_MAILBOX_MARKETING, TEAM_MAILBOX_SALES)
   }
 
+  @Test
+  def listTeamMailboxesByUserShouldNotReturnDeletedTeamMailboxes(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    SMono.fromPublisher(testee.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def listTeamMailboxesByUserShouldNotReturnTeamMailboxesAfterMemberRemoval(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    SMono.fromPublisher(testee.removeMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .isEmpty()
+  }
+
+  @Test
+  def listAllTeamMailboxesShouldNotReturnDeletedTeamMailboxes(): Unit = {
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_SALES)).block()
+
+    SMono.fromPublisher(testee.deleteTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    assertThat(SFlux.fromPublisher(testee.listTeamMailboxes()).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_SALES)
+  }
+
   @Test
   def listTeamMailboxesByDomainShouldReturnEmptyByDefault(): Unit = {
     assertThat(SFlux.fromPublisher(testee.listTeamMailboxes(DOMAIN_1)).collectSeq().block().asJava)
@@ -366,4 +399,33 @@ class TeamMailboxRepositoryTest extends TeamMailboxRepositoryContract {
     subscriptionManager = new StoreSubscriptionManager(resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getMapperFactory, resource.getMailboxManager.getEventBus)
     teamMailboxRepositoryImpl = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager, TeamMailboxCallbackNoop.asSet)
   }
+
+  @Test
+  def listTeamMailboxesShouldScanMailboxesUntilTheRegistryIsPopulated(): Unit = {
+    val registry: MemoryTeamMailboxRegistry = new MemoryTeamMailboxRegistry(false)
+    val upgradedRepository: TeamMailboxRepositoryImpl = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager,
+      TeamMailboxCallbackNoop.asSet, registry)
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+    SMono.fromPublisher(testee.addMember(TEAM_MAILBOX_MARKETING, BOB)).block()
+
+    assertThat(SFlux.fromPublisher(upgradedRepository.listTeamMailboxes()).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+    assertThat(SFlux.fromPublisher(upgradedRepository.listTeamMailboxes(DOMAIN_1)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+    assertThat(SFlux.fromPublisher(upgradedRepository.listTeamMailboxes(BOB)).collectSeq().block().asJava)
+      .containsExactly(TEAM_MAILBOX_MARKETING)
+  }
+
+  @Test
+  def listTeamMailboxesShouldReadThePopulatedRegistry(): Unit = {
+    val registry: MemoryTeamMailboxRegistry = new MemoryTeamMailboxRegistry(false)
+    val upgradedRepository: TeamMailboxRepositoryImpl = new TeamMailboxRepositoryImpl(inMemoryMailboxManager, subscriptionManager,
+      TeamMailboxCallbackNoop.asSet, registry)
+    SMono.fromPublisher(testee.createTeamMailbox(TEAM_MAILBOX_MARKETING)).block()
+
+    SMono.fromPublisher(registry.markPopulated()).block()
+
+    assertThat(SFlux.fromPublisher(upgradedRepository.listTeamMailboxes()).collectSeq().block().asJava)
+      .isEmpty()
+  }
 }
@@ -6,13 +6,14 @@ import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module
 import com.google.common.collect.{ImmutableList, ImmutableSet}
 import com.linagora.tmail.james.jmap.EmailAddressContactInjectKeys
-import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent}
+import com.linagora.tmail.james.jmap.contact.{ContactFields, RecentlyIndexedContacts, TmailContactUserAddedEvent}
 import javax.inject.{Inject, Named}
 import javax.mail.Message
 import org.apache.commons.collections.CollectionUtils
 import org.apache.james.core.{MailAddress, Username}
 import org.apache.james.events.Event.EventId
 import org.apache.james.events.{EventBus, RegistrationKey}
+import org.apache.james.jmap.api.model.AccountId
 import org.apache.james.mime4j.dom.address.{Address, Group, Mailbox}
 import org.apache.james.mime4j.field.address.LenientAddressParser
 import org.apache.james.transport.mailets.ContactExtractor.ExtractedContacts
@@ -29,6 +30,9 @@ import scala.jdk.StreamConverters._
  *  and dispatch ContactUserAddedEvent to eventBus, in order to index contact asynchronously.
  *  This mailet also stores them as JSON in a specified message attribute.</p>
  *
+ * <p>No event is dispatched for the contacts this node recently indexed with the same names, see
+ *  RecentlyIndexedContacts.</p>
+ *
  * <p>Here is the JSON format:</p>
  * <pre><code>
  * {
@@ -46,7 +50,8 @@ import scala.jdk.StreamConverters._
  * </code></pre>
  */
 
-class ContactsCollection @Inject()(@Named(EmailAddressContactInjectKeys.AUTOCOMPLETE) eventBus: EventBus) extends GenericMailet {
+class ContactsCollection @Inject()(@Named(EmailAddressContactInjectKeys.AUTOCOMPLETE) eventBus: EventBus,
+                                   recentlyIndexedContacts: RecentlyIndexedContacts) extends GenericMailet {
 
   private val NO_REGISTRATION_KEYS: ImmutableSet[RegistrationKey] = ImmutableSet.of
   private val OBJECT_MAPPER: ObjectMapper = new ObjectMapper().registerModule(new Jdk8Module)
@@ -89,15 +94,20 @@ class ContactsCollection @Inject()(@Named(EmailAddressContactInjectKeys.AUTOCOMP
   private def extractContactField(mime4jAddress: Mailbox) =
     ContactFields(new MailAddress(mime4jAddress.getAddress), firstname = Option(mime4jAddress.getName).getOrElse(""))
 
-  private def dispatchEvents(sender: MailAddress, contacts: Seq[ContactFields]): SMono[Unit] =
+  private def dispatchEvents(sender: MailAddress, contacts: Seq[ContactFields]): SMono[Unit] = {
+    val username: Username = Username.fromMailAddress(sender)
+    val accountId: AccountId = AccountId.fromUsername(username)
+
     SFlux.fromIterable(contacts)
+      .filter(contact => !recentlyIndexedContacts.contains(accountId, contact))
       .flatMap(contact => SMono.fromPublisher(eventBus.dispatch(TmailContactUserAddedEvent(
         eventId = EventId.random(),
-        username = Username.fromMailAddress(sender),
+        username = username,
         contact = contact),
         NO_REGISTRATION_KEYS)))
       .collectSeq()
       .`then`()
+  }
 
   private def appendAttributeToMail(sender: MailAddress, mail: Mail, contacts: Seq[ContactFields]): SMono[String] =
     SMono.just(sender)
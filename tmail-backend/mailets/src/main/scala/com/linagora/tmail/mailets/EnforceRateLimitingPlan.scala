@@ -3,12 +3,13 @@ package com.linagora.tmail.mailets
 import java.time.Duration
 import java.time.temporal.ChronoUnit
 
+import com.github.benmanes.caffeine.cache.{Cache, Caffeine}
 import com.google.common.annotations.VisibleForTesting
 import com.google.common.base.Preconditions
 import com.google.common.collect.ImmutableList
-import com.linagora.tmail.mailets.EnforceRateLimitingPlan.{ACCEPTABLE_OPERATIONS, LIMIT_PER_RECIPIENTS_OPERATIONS, LIMIT_PER_SENDER_OPERATIONS}
+import com.linagora.tmail.mailets.EnforceRateLimitingPlan.{ACCEPTABLE_OPERATIONS, LIMIT_PER_RECIPIENTS_OPERATIONS, LIMIT_PER_SENDER_OPERATIONS, RATE_LIMITERS_CACHE_EXPIRATION, RATE_LIMITERS_CACHE_MAXIMUM_SIZE}
 import com.linagora.tmail.rate.limiter.api.OperationLimitations.{DELIVERY_LIMITATIONS_NAME, RELAY_LIMITATIONS_NAME, TRANSIT_LIMITATIONS_NAME}
-import com.linagora.tmail.rate.limiter.api.{CacheRateLimitingPlan, OperationLimitations, RateLimitingPlanId, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanUserRepository}
+import com.linagora.tmail.rate.limiter.api.{CacheRateLimitingPlan, OperationLimitations, RateLimitingPlanId, RateLimitingPlanNotFoundException, RateLimitingPlanRepository, RateLimitingPlanUserCache, RateLimitingPlanUserRepository}
 import javax.inject.Inject
 import org.apache.james.core.{MailAddress, Username}
 import org.apache.james.lifecycle.api.LifecycleUtil
@@ -19,6 +20,7 @@ import org.apache.james.transport.mailets.KeyPrefix
 import org.apache.james.util.DurationParser
 import org.apache.mailet.Mail
 import org.apache.mailet.base.GenericMailet
+import org.reactivestreams.Publisher
 import reactor.core.scala.publisher.{SFlux, SMono}
 
 import scala.jdk.CollectionConverters._
@@ -28,6 +30,8 @@ object EnforceRateLimitingPlan {
   val LIMIT_PER_SENDER_OPERATIONS: Set[String] = Set(TRANSIT_LIMITATIONS_NAME, RELAY_LIMITATIONS_NAME)
   val LIMIT_PER_RECIPIENTS_OPERATIONS: Set[String] = Set(DELIVERY_LIMITATIONS_NAME)
   val ACCEPTABLE_OPERATIONS: Set[String] = LIMIT_PER_SENDER_OPERATIONS ++ LIMIT_PER_RECIPIENTS_OPERATIONS
+  val RATE_LIMITERS_CACHE_EXPIRATION: Duration = Duration.ofHours(1)
+  val RATE_LIMITERS_CACHE_MAXIMUM_SIZE: Long = 10000
 }
 
 class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanRepository,
@@ -41,6 +45,9 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
   private var rateLimitRecipient: Boolean = _
   private var planRateLimiterResolver: PlanRateLimiterResolver = _
   private var planStore: RateLimitingPlanRepository = _
+  private var planByUser: Username => Publisher[RateLimitingPlanId] = _
+  // Keyed by the plan content so that an updated plan never reuses rate limiters compiled for its previous version
+  private var rateLimitersCache: Cache[(RateLimitingPlanId, OperationLimitations), Seq[TmailPlanRateLimiter]] = _
 
   override def init(): Unit = {
     exceededProcessor = getInitParameter("exceededProcessor", Mail.ERROR)
@@ -50,9 +57,19 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
     Preconditions.checkArgument(operationLimitation != null && operationLimitation.nonEmpty, "`operationLimitation` is compulsory".asInstanceOf[Object])
     Preconditions.checkArgument(ACCEPTABLE_OPERATIONS.contains(operationLimitation), s"`operationLimitation` must be [${String.join(", ", ACCEPTABLE_OPERATIONS.asJava)}]".asInstanceOf[Object])
 
-    planStore = parseCacheExpiration()
+    val cacheExpiration: Option[Duration] = parseCacheExpiration()
+    planStore = cacheExpiration
       .map(duration => new CacheRateLimitingPlan(planRepository, duration, gaugeRegistry, Some(operationLimitation)))
       .getOrElse(planRepository)
+    // Plans applied or revoked through webadmin reach the underlying repository: they are seen once cached entries expired
+    planByUser = cacheExpiration
+      .map(duration => new RateLimitingPlanUserCache(planUserRepository, duration, parseCacheMaximumSize(), gaugeRegistry, Some(operationLimitation)))
+      .map(cache => (username: Username) => cache.getPlanByUser(username))
+      .getOrElse((username: Username) => planUserRepository.getPlanByUser(username))
+    rateLimitersCache = Caffeine.newBuilder()
+      .expireAfterAccess(RATE_LIMITERS_CACHE_EXPIRATION)
+      .maximumSize(RATE_LIMITERS_CACHE_MAXIMUM_SIZE)
+      .build()
 
     planRateLimiterResolver = PlanRateLimiterResolver(
       rateLimiterFactory = rateLimiterFactory,
@@ -68,6 +85,15 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
       duration
     })
 
+  @VisibleForTesting
+  def parseCacheMaximumSize(): Long = Option(getInitParameter("cacheMaximumSize"))
+    .map(_.toLong)
+    .map(maximumSize => {
+      Preconditions.checkArgument(maximumSize > 0, "`cacheMaximumSize` must be positive".asInstanceOf[Object])
+      maximumSize
+    })
+    .getOrElse(RateLimitingPlanUserCache.DEFAULT_MAXIMUM_SIZE)
+
   override def service(mail: Mail): Unit =
     if (rateLimitSender) {
       mail.getMaybeSender.asOptional()
@@ -77,7 +103,7 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
     }
 
   private def applyRateLimiter(mail: Mail, username: Username): SMono[RateLimitingResult] =
-    SMono.fromPublisher(planUserRepository.getPlanByUser(username))
+    SMono.fromPublisher(planByUser(username))
       .flatMap(retrieveRateLimiter)
       .flatMapMany(SFlux.fromIterable)
       .flatMap(_.rateLimit(username, mail))
@@ -91,7 +117,8 @@ class EnforceRateLimitingPlan @Inject()(planRepository: RateLimitingPlanReposito
       .flatMapIterable(_.operationLimitations)
       .filter(_.asString().equals(operationLimitation))
       .next()
-      .map(planRateLimiterResolver.extractRateLimiters(id, _))
+      .map(operationLimitations => rateLimitersCache.get((id, operationLimitations),
+        (key: (RateLimitingPlanId, OperationLimitations)) => planRateLimiterResolver.extractRateLimiters(key._1, key._2)))
 
   private def applyRateLimiterPerSender(mail: Mail, username: Username): Unit = {
     val rateLimitingResult: RateLimitingResult = applyRateLimiter(mail, username).block()
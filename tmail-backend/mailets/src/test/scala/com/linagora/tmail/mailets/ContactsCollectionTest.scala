@@ -3,7 +3,7 @@ package com.linagora.tmail.mailets
 import java.util
 import java.util.Optional
 
-import com.linagora.tmail.james.jmap.contact.{ContactFields, TmailContactUserAddedEvent}
+import com.linagora.tmail.james.jmap.contact.{ContactFields, RecentlyIndexedContacts, TmailContactUserAddedEvent}
 import com.linagora.tmail.mailets.ContactsCollectionTest.{ATTRIBUTE_NAME, MAILET_CONFIG, RECIPIENT, RECIPIENT2, RECIPIENT3, SENDER}
 import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
 import org.apache.james.core.builder.MimeMessageBuilder
@@ -11,6 +11,8 @@ import org.apache.james.core.{MailAddress, Username}
 import org.apache.james.events.EventListener.ReactiveGroupEventListener
 import org.apache.james.events.delivery.InVmEventDelivery
 import org.apache.james.events.{Event, EventBus, Group, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.jmap.api.model.AccountId
+import org.apache.james.metrics.api.NoopGaugeRegistry
 import org.apache.james.metrics.tests.RecordingMetricFactory
 import org.apache.mailet.base.test.{FakeMail, FakeMailetConfig}
 import org.apache.mailet.{AttributeName, Mail, MailetConfig, MailetException}
@@ -51,13 +53,15 @@ class TestEventListener(events: util.ArrayList[Event] = new util.ArrayList[Event
 class ContactsCollectionTest {
   var mailet: ContactsCollection = _
   var eventBus: EventBus = _
+  var recentlyIndexedContacts: RecentlyIndexedContacts = _
   var eventListener: TestEventListener = new TestEventListener()
 
   @BeforeEach
   def setup(): Unit = {
     eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters())
     eventBus.register(eventListener)
-    mailet = new ContactsCollection(eventBus)
+    recentlyIndexedContacts = new RecentlyIndexedContacts(new NoopGaugeRegistry)
+    mailet = new ContactsCollection(eventBus, recentlyIndexedContacts)
   }
 
   @Test
@@ -318,6 +322,48 @@ class ContactsCollectionTest {
       .containsExactlyInAnyOrder(ContactFields(new MailAddress(RECIPIENT)), ContactFields(new MailAddress("recipient2@domain.tld")))
   }
 
+  @Test
+  def serviceShouldNotDispatchEventForRecentlyIndexedContacts(): Unit = {
+    mailet.init(MAILET_CONFIG)
+    recentlyIndexedContacts.record(AccountId.fromUsername(Username.of(SENDER)), ContactFields(new MailAddress(RECIPIENT)))
+
+    val mail: FakeMail = FakeMail.builder()
+      .name("mail1")
+      .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+        .setSender(SENDER)
+        .addToRecipient(RECIPIENT, RECIPIENT2)
+        .setSubject("Subject 01")
+        .setText("Content mail 123"))
+      .sender(SENDER)
+      .recipients(RECIPIENT, RECIPIENT2)
+      .build()
+
+    mailet.service(mail)
+    assertThat(eventListener.contactReceived())
+      .containsExactlyInAnyOrder(ContactFields(new MailAddress(RECIPIENT2)))
+  }
+
+  @Test
+  def serviceShouldDispatchEventWhenRecentlyIndexedContactNamesChanged(): Unit = {
+    mailet.init(MAILET_CONFIG)
+    recentlyIndexedContacts.record(AccountId.fromUsername(Username.of(SENDER)), ContactFields(new MailAddress(RECIPIENT), firstname = "Old"))
+
+    val mail: FakeMail = FakeMail.builder()
+      .name("mail1")
+      .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+        .setSender(SENDER)
+        .addToRecipient(RECIPIENT)
+        .setSubject("Subject 01")
+        .setText("Content mail 123"))
+      .sender(SENDER)
+      .recipient(RECIPIENT)
+      .build()
+
+    mailet.service(mail)
+    assertThat(eventListener.contactReceived())
+      .containsExactlyInAnyOrder(ContactFields(new MailAddress(RECIPIENT)))
+  }
+
   @Test
   def serviceShouldNotDispatchEventWhenMailHasNotRecipient(): Unit = {
     mailet.init(MAILET_CONFIG)
@@ -7,7 +7,7 @@ import java.util.stream.IntStream
 import com.codahale.metrics.MetricRegistry
 import com.linagora.tmail.mailets.EnforceRateLimitingPlanTest.{USER1, USER2}
 import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingPlanUserRepository
-import com.linagora.tmail.rate.limiter.api.{DeliveryLimitations, InMemoryRateLimitingPlanRepository, LimitTypes, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanCreateRequest, RateLimitingPlanRepository, RateLimitingPlanUserRepository, RelayLimitations, TransitLimitations}
+import com.linagora.tmail.rate.limiter.api.{DeliveryLimitations, InMemoryRateLimitingPlanRepository, LimitTypes, OperationLimitationsType, RateLimitation, RateLimitingPlan, RateLimitingPlanCreateRequest, RateLimitingPlanRepository, RateLimitingPlanUserCache, RateLimitingPlanUserRepository, RelayLimitations, TransitLimitations}
 import eu.timepit.refined.auto._
 import org.apache.james.core.Username
 import org.apache.james.metrics.api.NoopGaugeRegistry
@@ -674,6 +674,35 @@ class EnforceRateLimitingPlanTest {
         .build()).parseCacheExpiration())
         .isInstanceOf(classOf[IllegalArgumentException])
     }
+
+    @Test
+    def cacheMaximumSizeShouldDefaultWhenNotProvided(): Unit = {
+      assertThat(testee(FakeMailetConfig.builder()
+        .mailetName("EnforceRateLimitingPlan")
+        .setProperty("operationLimitation", "TransitLimitations")
+        .build()).parseCacheMaximumSize())
+        .isEqualTo(RateLimitingPlanUserCache.DEFAULT_MAXIMUM_SIZE)
+    }
+
+    @Test
+    def cacheMaximumSizeShouldBeConfigurable(): Unit = {
+      assertThat(testee(FakeMailetConfig.builder()
+        .mailetName("EnforceRateLimitingPlan")
+        .setProperty("operationLimitation", "TransitLimitations")
+        .setProperty("cacheMaximumSize", "500")
+        .build()).parseCacheMaximumSize())
+        .isEqualTo(500L)
+    }
+
+    @Test
+    def shouldFailWhenNegativeCacheMaximumSize(): Unit = {
+      assertThatThrownBy(() => testee(FakeMailetConfig.builder()
+        .mailetName("EnforceRateLimitingPlan")
+        .setProperty("operationLimitation", "TransitLimitations")
+        .setProperty("cacheMaximumSize", "-1")
+        .build()).parseCacheMaximumSize())
+        .isInstanceOf(classOf[IllegalArgumentException])
+    }
   }
 
   @Test
@@ -705,4 +734,34 @@ class EnforceRateLimitingPlanTest {
     assertThat(metricRegistry.getGauges.get("TransitLimitations.rate_limiting_plan.cache.get.hitCount").getValue)
       .isEqualTo(java.lang.Long.valueOf(sentCount - 1))
   }
+
+  @Test
+  def planOfUserShouldBeCachedWhenConfigurationIsProvided(): Unit = {
+    val metricRegistry: MetricRegistry = new MetricRegistry()
+    val gaugeRegistry: DropWizardGaugeRegistry = new DropWizardGaugeRegistry(metricRegistry)
+
+    val mailet: EnforceRateLimitingPlan = new EnforceRateLimitingPlan(rateLimitationPlanRepository, rateLimitingPlanUserRepository, redisRateLimiterFactory,
+      gaugeRegistry)
+
+    mailet.init(FakeMailetConfig.builder()
+      .mailetName("EnforceRateLimitingPlan")
+      .setProperty("operationLimitation", "DeliveryLimitations")
+      .setProperty("precision", "1s")
+      .setProperty("cacheExpiration", "2m")
+      .build())
+
+    val sentCount: Int = 10;
+    IntStream.range(0, sentCount)
+      .forEach(index => {
+        val mail: Mail = FakeMail.builder()
+          .name("mail" + index)
+          .sender("sender@domain.tld")
+          .recipients(USER1.asString(), "nonexisting@domain.tld")
+          .state("transport")
+          .build()
+        mailet.service(mail)
+      })
+    assertThat(metricRegistry.getGauges.get("DeliveryLimitations.rate_limiting_plan_user.cache.get.hitCount").getValue)
+      .isEqualTo(java.lang.Long.valueOf(2 * (sentCount - 1)))
+  }
 }
@@ -0,0 +1,64 @@
+package com.linagora.tmail.rate.limiter.api
+
+import java.time.Duration
+import java.util.concurrent.Executor
+
+import com.github.benmanes.caffeine.cache.{AsyncCacheLoader, AsyncLoadingCache, Caffeine}
+import org.apache.james.core.Username
+import org.apache.james.metrics.api.GaugeRegistry
+import org.reactivestreams.Publisher
+import reactor.core.publisher.Mono
+import reactor.core.scala.publisher.SMono
+import reactor.core.scheduler.Schedulers
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.jdk.FutureConverters._
+
+object RateLimitingPlanUserCache {
+  val DEFAULT_MAXIMUM_SIZE: Long = 100000
+}
+
+/**
+ * Read-through cache of the user to plan association. Users without any plan are cached as well (as `None`), as
+ * those are the most common recipients and would otherwise hit the underlying repository for each mail.
+ *
+ * Plans are applied and revoked on the underlying repository (eg through webadmin), which is not aware of this
+ * cache: such changes are only taken into account once the entry expired, after at most `expireDuration`.
+ *
+ * Every sender or recipient seen gets an entry: `maximumSize` bounds the memory used by the cache.
+ */
+class RateLimitingPlanUserCache(repository: RateLimitingPlanUserRepository, expireDuration: Duration, maximumSize: Long,
+                                gaugeRegistry: GaugeRegistry, gaugePrefix: Option[String] = None) {
+
+  private val cacheLoaderGet: AsyncCacheLoader[Username, Option[RateLimitingPlanId]] =
+    (key: Username, executor: Executor) => SMono.fromPublisher(repository.getPlanByUser(key))
+      .map(Option(_))
+      .onErrorResume {
+        case _: RateLimitingPlanNotFoundException => SMono.just(None)
+        case error => SMono.error(error)
+      }
+      .asJava()
+      .subscribeOn(Schedulers.fromExecutor(executor))
+      .toFuture
+
+  private val gaugePrefixValue: String = gaugePrefix.map(_ + ".").getOrElse("")
+
+  private val cacheGet: AsyncLoadingCache[Username, Option[RateLimitingPlanId]] = {
+    val loadingCache: AsyncLoadingCache[Username, Option[RateLimitingPlanId]] = Caffeine.newBuilder()
+      .expireAfterWrite(expireDuration)
+      .maximumSize(maximumSize)
+      .recordStats()
+      .buildAsync[Username, Option[RateLimitingPlanId]](cacheLoaderGet)
+
+    gaugeRegistry.register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.hitRate", () => loadingCache.synchronous().stats().hitRate())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.missCount", () => loadingCache.synchronous().stats().missCount())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.hitCount", () => loadingCache.synchronous().stats().hitCount())
+      .register(gaugePrefixValue + "rate_limiting_plan_user.cache.get.size", () => loadingCache.synchronous().estimatedSize())
+    loadingCache
+  }
+
+  def getPlanByUser(username: Username): Publisher[RateLimitingPlanId] =
+    SMono.fromFuture(cacheGet.get(username).asScala)
+      .flatMap(maybePlanId => SMono.justOrEmpty(maybePlanId))
+      .switchIfEmpty(SMono.error(RateLimitingPlanNotFoundException()))
+}
@@ -0,0 +1,55 @@
+package com.linagora.tmail.rate.limiter.api
+
+import java.time.Duration
+
+import com.linagora.tmail.rate.limiter.api.RateLimitingPlanUserRepositoryContract.{BOB, PLAN_ID_1}
+import com.linagora.tmail.rate.limiter.api.memory.MemoryRateLimitingPlanUserRepository
+import org.apache.james.metrics.api.NoopGaugeRegistry
+import org.assertj.core.api.Assertions.{assertThat, assertThatThrownBy}
+import org.junit.jupiter.api.{BeforeEach, Test}
+import reactor.core.scala.publisher.SMono
+
+class RateLimitingPlanUserCacheTest {
+  var underlying: MemoryRateLimitingPlanUserRepository = _
+  var testee: RateLimitingPlanUserCache = _
+
+  @BeforeEach
+  def beforeEach(): Unit = {
+    underlying = new MemoryRateLimitingPlanUserRepository
+    testee = new RateLimitingPlanUserCache(underlying, Duration.ofMinutes(2), RateLimitingPlanUserCache.DEFAULT_MAXIMUM_SIZE, new NoopGaugeRegistry)
+  }
+
+  @Test
+  def getPlanByUserShouldReturnTheAppliedPlan(): Unit = {
+    SMono.fromPublisher(underlying.applyPlan(BOB, PLAN_ID_1)).block()
+
+    assertThat(SMono.fromPublisher(testee.getPlanByUser(BOB)).block()).isEqualTo(PLAN_ID_1)
+  }
+
+  @Test
+  def getPlanByUserShouldThrowWhenNoPlan(): Unit = {
+    assertThatThrownBy(() => SMono.fromPublisher(testee.getPlanByUser(BOB)).block())
+      .isInstanceOf(classOf[RateLimitingPlanNotFoundException])
+  }
+
+  @Test
+  def getPlanByUserShouldBeServedFromTheCache(): Unit = {
+    SMono.fromPublisher(underlying.applyPlan(BOB, PLAN_ID_1)).block()
+    SMono.fromPublisher(testee.getPlanByUser(BOB)).block()
+
+    SMono.fromPublisher(underlying.revokePlan(BOB)).block()
+
+    assertThat(SMono.fromPublisher(testee.getPlanByUser(BOB)).block()).isEqualTo(PLAN_ID_1)
+  }
+
+  @Test
+  def missingPlanShouldBeCached(): Unit = {
+    assertThatThrownBy(() => SMono.fromPublisher(testee.getPlanByUser(BOB)).block())
+      .isInstanceOf(classOf[RateLimitingPlanNotFoundException])
+
+    SMono.fromPublisher(underlying.applyPlan(BOB, PLAN_ID_1)).block()
+
+    assertThatThrownBy(() => SMono.fromPublisher(testee.getPlanByUser(BOB)).block())
+      .isInstanceOf(classOf[RateLimitingPlanNotFoundException])
+  }
+}
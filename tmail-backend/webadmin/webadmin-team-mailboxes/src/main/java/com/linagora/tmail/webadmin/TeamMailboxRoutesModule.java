@@ -17,6 +17,10 @@ import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesRo
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesService;
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesTaskAdditionalInformationDTO;
 import com.linagora.tmail.webadmin.quota.recompute.RecomputeQuotaTeamMailboxesTaskDTO;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryRoutes;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryService;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryTaskAdditionalInformationDTO;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryTaskDTO;
 
 public class TeamMailboxRoutesModule extends AbstractModule {
     @Override
@@ -26,6 +30,7 @@ public class TeamMailboxRoutesModule extends AbstractModule {
         routesMultibinder.addBinding().to(UserTeamMailboxRoutes.class);
         routesMultibinder.addBinding().to(TeamMailboxQuotaRoutes.class);
         routesMultibinder.addBinding().to(RecomputeQuotaTeamMailboxesRoutes.class);
+        routesMultibinder.addBinding().to(PopulateTeamMailboxRegistryRoutes.class);
     }
 
     @ProvidesIntoSet
@@ -43,4 +48,20 @@ public class TeamMailboxRoutesModule extends AbstractModule {
     public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminRecomputeQuotaTeamMailboxesAdditionalInformation() {
         return RecomputeQuotaTeamMailboxesTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
     }
+
+    @ProvidesIntoSet
+    public TaskDTOModule<? extends Task, ? extends TaskDTO> populateTeamMailboxRegistryTask(PopulateTeamMailboxRegistryService populateTeamMailboxRegistryService) {
+        return PopulateTeamMailboxRegistryTaskDTO.module(populateTeamMailboxRegistryService);
+    }
+
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> populateTeamMailboxRegistryAdditionalInformation() {
+        return PopulateTeamMailboxRegistryTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
+
+    @Named(DTOModuleInjections.WEBADMIN_DTO)
+    @ProvidesIntoSet
+    public AdditionalInformationDTOModule<? extends TaskExecutionDetails.AdditionalInformation, ? extends AdditionalInformationDTO> webAdminPopulateTeamMailboxRegistryAdditionalInformation() {
+        return PopulateTeamMailboxRegistryTaskAdditionalInformationDTO.SERIALIZATION_MODULE;
+    }
 }
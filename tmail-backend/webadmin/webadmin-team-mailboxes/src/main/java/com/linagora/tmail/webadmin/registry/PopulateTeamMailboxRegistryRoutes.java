@@ -0,0 +1,55 @@
+package com.linagora.tmail.webadmin.registry;
+
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskManager;
+import org.apache.james.webadmin.Constants;
+import org.apache.james.webadmin.Routes;
+import org.apache.james.webadmin.tasks.TaskFromRequest;
+import org.apache.james.webadmin.utils.JsonTransformer;
+
+import com.google.common.base.Preconditions;
+
+import spark.Request;
+import spark.Service;
+
+public class PopulateTeamMailboxRegistryRoutes implements Routes {
+    private static final String POPULATE_REGISTRY_TASK = "PopulateRegistry";
+    public static final String BASE_PATH = Constants.SEPARATOR + "team-mailboxes";
+
+    private final TaskManager taskManager;
+    private final JsonTransformer jsonTransformer;
+    private final PopulateTeamMailboxRegistryService populateRegistryService;
+
+    @Inject
+    public PopulateTeamMailboxRegistryRoutes(TaskManager taskManager,
+                                             JsonTransformer jsonTransformer,
+                                             PopulateTeamMailboxRegistryService populateRegistryService) {
+        this.taskManager = taskManager;
+        this.jsonTransformer = jsonTransformer;
+        this.populateRegistryService = populateRegistryService;
+    }
+
+    @Override
+    public String getBasePath() {
+        return BASE_PATH;
+    }
+
+    @Override
+    public void define(Service service) {
+        TaskFromRequest populateRegistryTaskRequest = this::populateRegistry;
+        service.post(BASE_PATH, populateRegistryTaskRequest.asRoute(taskManager), jsonTransformer);
+    }
+
+    public Task populateRegistry(Request request) {
+        Preconditions.checkArgument(Optional.ofNullable(request.queryParams("task"))
+                .filter(POPULATE_REGISTRY_TASK::equals)
+                .isPresent(),
+            String.format("'task' is missing or must be '%s'", POPULATE_REGISTRY_TASK));
+
+        return new PopulateTeamMailboxRegistryTask(populateRegistryService);
+    }
+}
@@ -0,0 +1,131 @@
+package com.linagora.tmail.webadmin.registry;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.apache.james.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.linagora.tmail.team.TeamMailbox;
+import com.linagora.tmail.team.TeamMailboxRegistry;
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PopulateTeamMailboxRegistryService {
+    public static class Context {
+        static class Snapshot {
+            private final long processedTeamMailboxCount;
+            private final ImmutableList<TeamMailbox> failedTeamMailboxes;
+
+            private Snapshot(long processedTeamMailboxCount, ImmutableList<TeamMailbox> failedTeamMailboxes) {
+                this.processedTeamMailboxCount = processedTeamMailboxCount;
+                this.failedTeamMailboxes = failedTeamMailboxes;
+            }
+
+            long getProcessedTeamMailboxCount() {
+                return processedTeamMailboxCount;
+            }
+
+            ImmutableList<TeamMailbox> getFailedTeamMailboxes() {
+                return failedTeamMailboxes;
+            }
+
+            @Override
+            public final boolean equals(Object o) {
+                if (o instanceof Snapshot that) {
+                    return Objects.equals(this.processedTeamMailboxCount, that.processedTeamMailboxCount)
+                        && Objects.equals(this.failedTeamMailboxes, that.failedTeamMailboxes);
+                }
+                return false;
+            }
+
+            @Override
+            public final int hashCode() {
+                return Objects.hash(processedTeamMailboxCount, failedTeamMailboxes);
+            }
+
+            @Override
+            public String toString() {
+                return MoreObjects.toStringHelper(this)
+                    .add("processedTeamMailboxCount", processedTeamMailboxCount)
+                    .add("failedTeamMailboxes", failedTeamMailboxes)
+                    .toString();
+            }
+        }
+
+        private final AtomicLong processedTeamMailboxCount;
+        private final ConcurrentLinkedDeque<TeamMailbox> failedTeamMailboxes;
+
+        public Context() {
+            this.processedTeamMailboxCount = new AtomicLong();
+            this.failedTeamMailboxes = new ConcurrentLinkedDeque<>();
+        }
+
+        public Context(long processedTeamMailboxCount, Collection<TeamMailbox> failedTeamMailboxes) {
+            this.processedTeamMailboxCount = new AtomicLong(processedTeamMailboxCount);
+            this.failedTeamMailboxes = new ConcurrentLinkedDeque<>(failedTeamMailboxes);
+        }
+
+        void incrementProcessed() {
+            processedTeamMailboxCount.incrementAndGet();
+        }
+
+        void addToFailedTeamMailboxes(TeamMailbox teamMailbox) {
+            failedTeamMailboxes.add(teamMailbox);
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(processedTeamMailboxCount.get(),
+                ImmutableList.copyOf(failedTeamMailboxes));
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PopulateTeamMailboxRegistryService.class);
+
+    private final TeamMailboxRepositoryImpl teamMailboxRepository;
+    private final TeamMailboxRegistry registry;
+
+    @Inject
+    public PopulateTeamMailboxRegistryService(TeamMailboxRepositoryImpl teamMailboxRepository,
+                                              TeamMailboxRegistry registry) {
+        this.teamMailboxRepository = teamMailboxRepository;
+        this.registry = registry;
+    }
+
+    public Mono<Task.Result> populate(Context context) {
+        return Flux.from(teamMailboxRepository.listTeamMailboxesFromMailboxes())
+            .concatMap(teamMailbox -> populate(teamMailbox, context))
+            .reduce(Task.Result.COMPLETED, Task::combine)
+            .flatMap(result -> markPopulatedWhenCompleted(result));
+    }
+
+    private Mono<Task.Result> markPopulatedWhenCompleted(Task.Result result) {
+        if (result == Task.Result.COMPLETED) {
+            return Mono.from(registry.markPopulated())
+                .thenReturn(result);
+        }
+        return Mono.just(result);
+    }
+
+    private Mono<Task.Result> populate(TeamMailbox teamMailbox, Context context) {
+        return Mono.from(registry.addTeamMailbox(teamMailbox))
+            .thenMany(Flux.from(teamMailboxRepository.listMembers(teamMailbox)))
+            .concatMap(member -> registry.addMember(teamMailbox, member))
+            .then(Mono.just(Task.Result.COMPLETED))
+            .doOnNext(any -> context.incrementProcessed())
+            .onErrorResume(e -> {
+                LOGGER.error("Error while registering team mailbox {}", teamMailbox.asString(), e);
+                context.addToFailedTeamMailboxes(teamMailbox);
+                return Mono.just(Task.Result.PARTIAL);
+            });
+    }
+}
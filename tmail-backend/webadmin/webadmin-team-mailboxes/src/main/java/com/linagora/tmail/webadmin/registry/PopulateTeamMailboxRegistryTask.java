@@ -0,0 +1,73 @@
+package com.linagora.tmail.webadmin.registry;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.james.task.Task;
+import org.apache.james.task.TaskExecutionDetails;
+import org.apache.james.task.TaskType;
+
+import com.linagora.tmail.team.TeamMailbox;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryService.Context;
+
+public class PopulateTeamMailboxRegistryTask implements Task {
+    static final TaskType TASK_TYPE = TaskType.of("populate-team-mailbox-registry");
+
+    public static class Details implements TaskExecutionDetails.AdditionalInformation {
+        private final Instant instant;
+        private final long processedTeamMailboxes;
+        private final List<String> failedTeamMailboxes;
+
+        public Details(Instant instant, long processedTeamMailboxes, List<String> failedTeamMailboxes) {
+            this.instant = instant;
+            this.processedTeamMailboxes = processedTeamMailboxes;
+            this.failedTeamMailboxes = failedTeamMailboxes;
+        }
+
+        public long getProcessedTeamMailboxes() {
+            return processedTeamMailboxes;
+        }
+
+        public List<String> getFailedTeamMailboxes() {
+            return failedTeamMailboxes;
+        }
+
+        @Override
+        public Instant timestamp() {
+            return instant;
+        }
+    }
+
+    private final PopulateTeamMailboxRegistryService service;
+    private final Context context;
+
+    public PopulateTeamMailboxRegistryTask(PopulateTeamMailboxRegistryService service) {
+        this.service = service;
+        this.context = new Context();
+    }
+
+    @Override
+    public Result run() {
+        return service.populate(context)
+            .block();
+    }
+
+    @Override
+    public TaskType type() {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public Optional<TaskExecutionDetails.AdditionalInformation> details() {
+        Context.Snapshot snapshot = context.snapshot();
+        return Optional.of(new Details(
+            Clock.systemUTC().instant(),
+            snapshot.getProcessedTeamMailboxCount(),
+            snapshot.getFailedTeamMailboxes()
+                .stream()
+                .map(TeamMailbox::asString)
+                .toList()));
+    }
+}
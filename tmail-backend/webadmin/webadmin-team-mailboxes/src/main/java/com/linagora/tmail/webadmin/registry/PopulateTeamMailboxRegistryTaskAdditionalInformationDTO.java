@@ -0,0 +1,44 @@
+package com.linagora.tmail.webadmin.registry;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTO;
+import org.apache.james.server.task.json.dto.AdditionalInformationDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record PopulateTeamMailboxRegistryTaskAdditionalInformationDTO(@JsonProperty("type") String type,
+                                                                      @JsonProperty("timestamp") Instant timestamp,
+                                                                      @JsonProperty("processedTeamMailboxes") long processedTeamMailboxes,
+                                                                      @JsonProperty("failedTeamMailboxes") List<String> failedTeamMailboxes) implements AdditionalInformationDTO {
+
+    public static final AdditionalInformationDTOModule<PopulateTeamMailboxRegistryTask.Details, PopulateTeamMailboxRegistryTaskAdditionalInformationDTO> SERIALIZATION_MODULE =
+        DTOModule.forDomainObject(PopulateTeamMailboxRegistryTask.Details.class)
+            .convertToDTO(PopulateTeamMailboxRegistryTaskAdditionalInformationDTO.class)
+            .toDomainObjectConverter(dto ->
+                new PopulateTeamMailboxRegistryTask.Details(
+                    dto.timestamp(),
+                    dto.processedTeamMailboxes(),
+                    dto.failedTeamMailboxes()))
+            .toDTOConverter(((domainObject, typeName) ->
+                new PopulateTeamMailboxRegistryTaskAdditionalInformationDTO(
+                    typeName, domainObject.timestamp(), domainObject.getProcessedTeamMailboxes(),
+                    domainObject.getFailedTeamMailboxes())))
+            .typeName(PopulateTeamMailboxRegistryTask.TASK_TYPE.asString())
+            .withFactory(AdditionalInformationDTOModule::new);
+
+    @Override
+    @JsonIgnore
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    @JsonIgnore
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,25 @@
+package com.linagora.tmail.webadmin.registry;
+
+import org.apache.james.json.DTOModule;
+import org.apache.james.server.task.json.dto.TaskDTO;
+import org.apache.james.server.task.json.dto.TaskDTOModule;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record PopulateTeamMailboxRegistryTaskDTO(@JsonProperty("type") String type) implements TaskDTO {
+    public static TaskDTOModule<PopulateTeamMailboxRegistryTask, PopulateTeamMailboxRegistryTaskDTO> module(PopulateTeamMailboxRegistryService service) {
+        return DTOModule.forDomainObject(PopulateTeamMailboxRegistryTask.class)
+            .convertToDTO(PopulateTeamMailboxRegistryTaskDTO.class)
+            .toDomainObjectConverter(dto -> new PopulateTeamMailboxRegistryTask(service))
+            .toDTOConverter(((domainObject, typeName) -> new PopulateTeamMailboxRegistryTaskDTO(typeName)))
+            .typeName(PopulateTeamMailboxRegistryTask.TASK_TYPE.asString())
+            .withFactory(TaskDTOModule::new);
+    }
+
+    @Override
+    @JsonIgnore
+    public String getType() {
+        return type;
+    }
+}
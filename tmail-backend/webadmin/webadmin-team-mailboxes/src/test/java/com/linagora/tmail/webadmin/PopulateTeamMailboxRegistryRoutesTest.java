@@ -0,0 +1,171 @@
+package com.linagora.tmail.webadmin;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.http.ContentType.JSON;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.jetty.http.HttpStatus.BAD_REQUEST_400;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.Username;
+import org.apache.james.json.DTOConverter;
+import org.apache.james.mailbox.SubscriptionManager;
+import org.apache.james.mailbox.inmemory.InMemoryMailboxManager;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.store.StoreSubscriptionManager;
+import org.apache.james.task.Hostname;
+import org.apache.james.task.MemoryTaskManager;
+import org.apache.james.webadmin.WebAdminServer;
+import org.apache.james.webadmin.WebAdminUtils;
+import org.apache.james.webadmin.routes.TasksRoutes;
+import org.apache.james.webadmin.utils.JsonTransformer;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.linagora.tmail.team.MemoryTeamMailboxRegistry;
+import com.linagora.tmail.team.TeamMailbox;
+import com.linagora.tmail.team.TeamMailboxName;
+import com.linagora.tmail.team.TeamMailboxRepositoryImpl;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryRoutes;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryService;
+import com.linagora.tmail.webadmin.registry.PopulateTeamMailboxRegistryTaskAdditionalInformationDTO;
+
+import io.restassured.RestAssured;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PopulateTeamMailboxRegistryRoutesTest {
+    private static final Domain DOMAIN = Domain.of("linagora.com");
+    private static final TeamMailbox TEAM_MAILBOX = TeamMailbox.apply(DOMAIN, TeamMailboxName.fromString("marketing").toOption().get());
+    private static final Username BOB = Username.of("bob@linagora.com");
+
+    private WebAdminServer webAdminServer;
+    private MemoryTaskManager taskManager;
+    private MemoryTeamMailboxRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.defaultResources();
+        InMemoryMailboxManager mailboxManager = resources.getMailboxManager();
+        SubscriptionManager subscriptionManager = new StoreSubscriptionManager(mailboxManager.getMapperFactory(),
+            mailboxManager.getMapperFactory(), mailboxManager.getEventBus());
+        taskManager = new MemoryTaskManager(new Hostname("foo"));
+        JsonTransformer jsonTransformer = new JsonTransformer();
+
+        TeamMailboxRepositoryImpl previousRepository = new TeamMailboxRepositoryImpl(mailboxManager, subscriptionManager, java.util.Set.of());
+        Mono.from(previousRepository.createTeamMailbox(TEAM_MAILBOX)).block();
+        Mono.from(previousRepository.addMember(TEAM_MAILBOX, BOB)).block();
+
+        registry = new MemoryTeamMailboxRegistry(false);
+        TeamMailboxRepositoryImpl teamMailboxRepository = new TeamMailboxRepositoryImpl(mailboxManager, subscriptionManager, java.util.Set.of(), registry);
+        PopulateTeamMailboxRegistryRoutes routes = new PopulateTeamMailboxRegistryRoutes(taskManager, jsonTransformer,
+            new PopulateTeamMailboxRegistryService(teamMailboxRepository, registry));
+        TasksRoutes tasksRoutes = new TasksRoutes(taskManager, jsonTransformer,
+            DTOConverter.of(PopulateTeamMailboxRegistryTaskAdditionalInformationDTO.SERIALIZATION_MODULE));
+
+        webAdminServer = WebAdminUtils.createWebAdminServer(routes, tasksRoutes).start();
+
+        RestAssured.requestSpecification = WebAdminUtils.buildRequestSpecification(webAdminServer)
+            .setBasePath(PopulateTeamMailboxRegistryRoutes.BASE_PATH)
+            .build();
+    }
+
+    @AfterEach
+    void stop() {
+        webAdminServer.destroy();
+        taskManager.stop();
+    }
+
+    @Test
+    void populateRegistryShouldReturnErrorWhenTaskParameterInvalid() {
+        given()
+            .queryParam("task", "invalid")
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("statusCode", is(BAD_REQUEST_400))
+            .body("type", is("InvalidArgument"))
+            .body("message", is("Invalid arguments supplied in the user request"))
+            .body("details", is("'task' is missing or must be 'PopulateRegistry'"));
+    }
+
+    @Test
+    void populateRegistryShouldReturnErrorWhenMissingTaskParameter() {
+        given()
+            .post()
+        .then()
+            .statusCode(BAD_REQUEST_400)
+            .contentType(JSON)
+            .body("details", is("'task' is missing or must be 'PopulateRegistry'"));
+    }
+
+    @Test
+    void populateRegistryShouldReturnTaskId() {
+        given()
+            .queryParam("task", "PopulateRegistry")
+            .post()
+        .then()
+            .statusCode(HttpStatus.CREATED_201)
+            .body("taskId", notNullValue());
+    }
+
+    @Test
+    void populateRegistryTaskShouldReturnDetails() {
+        String taskId = given()
+            .queryParam("task", "PopulateRegistry")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await")
+        .then()
+            .statusCode(HttpStatus.OK_200)
+            .body("status", is("completed"))
+            .body("taskId", is(taskId))
+            .body("type", is("populate-team-mailbox-registry"))
+            .body("additionalInformation.type", is("populate-team-mailbox-registry"))
+            .body("additionalInformation.timestamp", is(notNullValue()))
+            .body("additionalInformation.processedTeamMailboxes", is(1))
+            .body("additionalInformation.failedTeamMailboxes", is(empty()));
+    }
+
+    @Test
+    void populateRegistryShouldRegisterTeamMailboxesAndMembers() {
+        String taskId = given()
+            .queryParam("task", "PopulateRegistry")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await");
+
+        assertThat(Flux.from(registry.listTeamMailboxes(DOMAIN)).collectList().block())
+            .containsExactly(TEAM_MAILBOX);
+        assertThat(Flux.from(registry.listTeamMailboxes(BOB)).collectList().block())
+            .containsExactly(TEAM_MAILBOX);
+    }
+
+    @Test
+    void populateRegistryShouldMarkTheRegistryPopulated() {
+        String taskId = given()
+            .queryParam("task", "PopulateRegistry")
+            .post()
+            .jsonPath()
+            .get("taskId");
+
+        given()
+            .basePath(TasksRoutes.BASE)
+            .get(taskId + "/await");
+
+        assertThat(Mono.from(registry.isPopulated()).block()).isEqualTo(true);
+    }
+}
@@ -0,0 +1,40 @@
+package com.linagora.tmail.webadmin.registry;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+
+import org.apache.james.JsonSerializationVerifier;
+import org.apache.james.util.ClassLoaderUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class PopulateTeamMailboxRegistryTaskSerializationTest {
+    PopulateTeamMailboxRegistryService populateTeamMailboxRegistryService;
+
+    @BeforeEach
+    void setUp() {
+        populateTeamMailboxRegistryService = mock(PopulateTeamMailboxRegistryService.class);
+    }
+
+    @Test
+    void shouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(PopulateTeamMailboxRegistryTaskDTO.module(populateTeamMailboxRegistryService))
+            .bean(new PopulateTeamMailboxRegistryTask(populateTeamMailboxRegistryService))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/populate_team_mailbox_registry.task.json"))
+            .verify();
+    }
+
+    @Test
+    void additionalInformationShouldMatchJsonSerializationContract() throws Exception {
+        JsonSerializationVerifier.dtoModule(PopulateTeamMailboxRegistryTaskAdditionalInformationDTO.SERIALIZATION_MODULE)
+            .bean(new PopulateTeamMailboxRegistryTask.Details(
+                Instant.parse("2007-12-03T10:15:30.00Z"),
+                2,
+                ImmutableList.of("marketing@abc.com")))
+            .json(ClassLoaderUtils.getSystemResourceAsString("json/populate_team_mailbox_registry.additionalInformation.json"))
+            .verify();
+    }
+}